@@ -1,41 +1,123 @@
 package com.dropbox.dropboxclient;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.Banner;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.context.annotation.ComponentScan;
 
+import com.dropbox.dropboxclient.daemon.DaemonClient;
+import com.dropbox.dropboxclient.daemon.DaemonServer;
+import com.dropbox.dropboxclient.service.CallMetrics;
 import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+import com.dropbox.dropboxclient.service.FileRelocator;
+import com.dropbox.dropboxclient.service.ListingMode;
+import com.dropbox.dropboxclient.service.ListingOptions;
+import com.dropbox.dropboxclient.service.OutputFormat;
+import com.dropbox.dropboxclient.service.SearchQuery;
+import com.dropbox.dropboxclient.service.StatOrder;
+import com.dropbox.dropboxclient.service.SyncDirection;
 
 /**
  * This application will act as a client to retrieve information from Dropbox.
+ * Only the placeholder support is imported instead of the whole
+ * auto-configuration, the client needs no other infrastructure and every
+ * auto-configuration candidate would be evaluated at each start.
  */
-@SpringBootApplication
+@SpringBootConfiguration
+@ComponentScan
+@ImportAutoConfiguration(PropertyPlaceholderAutoConfiguration.class)
 public class DropboxClientApplication implements CommandLineRunner {
     final static Logger log = LoggerFactory.getLogger(DropboxClientApplication.class);
 
     @Autowired
     DropboxClientAccessor requestProcessor;
 
+    @Value("${dropbox.daemon.port:7878}")
+    int daemonPort = DaemonClient.DEFAULT_PORT;
+
+    @Value("${dropbox.daemon.threads:8}")
+    int daemonThreads = 8;
+
     public static void main(String[] args) throws IOException {
+        final List<String> command = new ArrayList<>();
+        final int daemonPort;
+        try {
+            daemonPort = DaemonClient.parseOption(args, command);
+        } catch (NumberFormatException e) {
+            log.error("\n Invalid daemon port: {}, please verify and try again.", e.getMessage());
+            return;
+        }
+        if (daemonPort >= 0) {
+            // Runs the command in the daemon, or here if no daemon is running.
+            if (DaemonClient.forward(daemonPort, command, System.in, System.out)) {
+                return;
+            }
+            args = command.toArray(new String[0]);
+        }
+        createApplication().run(args);
+    }
+
+    /**
+     * This method is used to create the application with the settings of a
+     * fast command line start.
+     * 
+     * @return application ready to run a command.
+     */
+    static SpringApplication createApplication() {
         SpringApplication app = new SpringApplication(DropboxClientApplication.class);
         // Disabling spring logo to make clean console.
         app.setBannerMode(Banner.Mode.OFF);
         // Disabling spring-boot default logs to make clean console.
         app.setLogStartupInfo(false);
-        app.run(args);
+        app.setWebApplicationType(WebApplicationType.NONE);
+        // Beans are only created once a command needs them.
+        app.setLazyInitialization(true);
+        return app;
     }
 
     /**
      * This method will parse the user provided command line arguments.
      */
     @Override
-    public void run(String... args) throws Exception {
+    public void run(String... commandLine) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        final String[] args = extractOptions(commandLine, options);
+        if (!Boolean.parseBoolean(options.getOrDefault("stats", "false"))) {
+            runCommand(args, options);
+            return;
+        }
+        final CallMetrics started = requestProcessor.beginStats();
+        try {
+            runCommand(args, options);
+        } finally {
+            requestProcessor.printStats(started);
+        }
+    }
+
+    /**
+     * This method is used to run the command of the positional arguments.
+     */
+    private void runCommand(final String[] args, final Map<String, String> options) {
         int length = args.length;
         if (length > 0) {
             String first = args[0];
@@ -54,15 +136,34 @@ public class DropboxClientApplication implements CommandLineRunner {
                 }
                 break;
             case "info":
+                final OutputFormat format = toOutputFormat(options);
+                if (format == null) {
+                    break;
+                }
+                final String tokens = options.get("tokens");
+                if (tokens != null) {
+                    switch (length) {
+                    case 1:
+                        requestProcessor.fetchAndDisplayUsersInfo(tokens, "", format);
+                        break;
+                    case 2:
+                        requestProcessor.fetchAndDisplayUsersInfo(tokens, args[1], format);
+                        break;
+                    default:
+                        log.error("\n Invalid input parameters , please verify and retry.");
+                        printHelpMenu();
+                    }
+                    break;
+                }
                 switch (length) {
                 case 1:
                     log.error("\n Missing authentication token, please verify and try again.");
                     break;
                 case 2:
-                    requestProcessor.fetchAndDisplayUserInfo(args[1], "");
+                    requestProcessor.fetchAndDisplayUserInfo(args[1], "", format);
                     break;
                 case 3:
-                    requestProcessor.fetchAndDisplayUserInfo(args[1], args[2]);
+                    requestProcessor.fetchAndDisplayUserInfo(args[1], args[2], format);
                     break;
                 default:
                     log.error("\n Invalid input parameters , please verify and retry.");
@@ -70,18 +171,233 @@ public class DropboxClientApplication implements CommandLineRunner {
                 }
                 break;
             case "list":
+                final ListingOptions listingOptions = toListingOptions(options);
+                if (listingOptions == null) {
+                    break;
+                }
+                switch (length) {
+                case 1:
+                    log.error("\n Missing authentication token, please verify and try again.");
+                    break;
+                case 2:
+                    requestProcessor.retrieveFileInfo(args[1], "", "", listingOptions);
+                    break;
+                case 3:
+                    requestProcessor.retrieveFileInfo(args[1], args[2], "", listingOptions);
+                    break;
+                case 4:
+                    requestProcessor.retrieveFileInfo(args[1], args[2], args[3], listingOptions);
+                    break;
+                default:
+                    log.error("\n Invalid input parameters, please verify and try again.");
+                    printHelpMenu();
+                }
+                break;
+            case "stat":
+                final OutputFormat statFormat = toOutputFormat(options);
+                final StatOrder order = toStatOrder(options);
+                if (statFormat == null || order == null) {
+                    break;
+                }
+                switch (length) {
+                case 1:
+                    log.error("\n Missing authentication token, please verify and try again.");
+                    break;
+                case 2:
+                    log.error("\n Missing paths file, please verify and try again.");
+                    break;
+                case 3:
+                    requestProcessor.statPaths(args[1], args[2], "", statFormat, order);
+                    break;
+                case 4:
+                    requestProcessor.statPaths(args[1], args[2], args[3], statFormat, order);
+                    break;
+                default:
+                    log.error("\n Invalid input parameters, please verify and try again.");
+                    printHelpMenu();
+                }
+                break;
+            case "download":
+                switch (length) {
+                case 1:
+                    log.error("\n Missing authentication token, please verify and try again.");
+                    break;
+                case 2:
+                case 3:
+                    log.error("\n Missing path or target directory, please verify and try again.");
+                    break;
+                case 4:
+                    requestProcessor.downloadFiles(args[1], args[2], args[3], "");
+                    break;
+                case 5:
+                    requestProcessor.downloadFiles(args[1], args[2], args[3], args[4]);
+                    break;
+                default:
+                    log.error("\n Invalid input parameters, please verify and try again.");
+                    printHelpMenu();
+                }
+                break;
+            case "upload":
+                switch (length) {
+                case 1:
+                    log.error("\n Missing authentication token, please verify and try again.");
+                    break;
+                case 2:
+                case 3:
+                    log.error("\n Missing local path or target folder, please verify and try again.");
+                    break;
+                case 4:
+                    requestProcessor.uploadFiles(args[1], args[2], args[3], "");
+                    break;
+                case 5:
+                    requestProcessor.uploadFiles(args[1], args[2], args[3], args[4]);
+                    break;
+                default:
+                    log.error("\n Invalid input parameters, please verify and try again.");
+                    printHelpMenu();
+                }
+                break;
+            case "copy":
+            case "move":
+                final FileRelocator.Operation operation = "copy".equals(first) ? FileRelocator.Operation.COPY
+                        : FileRelocator.Operation.MOVE;
                 switch (length) {
                 case 1:
                     log.error("\n Missing authentication token, please verify and try again.");
                     break;
                 case 2:
-                    requestProcessor.retrieveFileInfo(args[1], "", "");
+                    log.error("\n Missing paths file, please verify and try again.");
                     break;
                 case 3:
-                    requestProcessor.retrieveFileInfo(args[1], args[2], "");
+                    requestProcessor.relocateFiles(args[1], args[2], "", operation);
                     break;
                 case 4:
-                    requestProcessor.retrieveFileInfo(args[1], args[2], args[3]);
+                    requestProcessor.relocateFiles(args[1], args[2], args[3], operation);
+                    break;
+                default:
+                    log.error("\n Invalid input parameters, please verify and try again.");
+                    printHelpMenu();
+                }
+                break;
+            case "sync":
+                final SyncDirection direction = toSyncDirection(options);
+                if (direction == null) {
+                    break;
+                }
+                switch (length) {
+                case 1:
+                    log.error("\n Missing authentication token, please verify and try again.");
+                    break;
+                case 2:
+                case 3:
+                    log.error("\n Missing local directory or folder, please verify and try again.");
+                    break;
+                case 4:
+                    requestProcessor.syncFiles(args[1], args[2], args[3], "", direction);
+                    break;
+                case 5:
+                    requestProcessor.syncFiles(args[1], args[2], args[3], args[4], direction);
+                    break;
+                default:
+                    log.error("\n Invalid input parameters, please verify and try again.");
+                    printHelpMenu();
+                }
+                break;
+            case "du":
+                final Integer depth = toDepth(options);
+                if (depth == null) {
+                    break;
+                }
+                switch (length) {
+                case 1:
+                    log.error("\n Missing authentication token, please verify and try again.");
+                    break;
+                case 2:
+                    requestProcessor.diskUsage(args[1], "", "", depth);
+                    break;
+                case 3:
+                    requestProcessor.diskUsage(args[1], args[2], "", depth);
+                    break;
+                case 4:
+                    requestProcessor.diskUsage(args[1], args[2], args[3], depth);
+                    break;
+                default:
+                    log.error("\n Invalid input parameters, please verify and try again.");
+                    printHelpMenu();
+                }
+                break;
+            case "watch":
+                switch (length) {
+                case 1:
+                    log.error("\n Missing authentication token, please verify and try again.");
+                    break;
+                case 2:
+                    requestProcessor.watchFolder(args[1], "", "");
+                    break;
+                case 3:
+                    requestProcessor.watchFolder(args[1], args[2], "");
+                    break;
+                case 4:
+                    requestProcessor.watchFolder(args[1], args[2], args[3]);
+                    break;
+                default:
+                    log.error("\n Invalid input parameters, please verify and try again.");
+                    printHelpMenu();
+                }
+                break;
+            case "find":
+                final SearchQuery query = toSearchQuery(options);
+                if (query == null) {
+                    break;
+                }
+                switch (length) {
+                case 1:
+                    log.error("\n Missing authentication token, please verify and try again.");
+                    break;
+                case 2:
+                    log.error("\n Missing name pattern, please verify and try again.");
+                    break;
+                case 3:
+                    query.setPattern(args[2]);
+                    requestProcessor.findFiles(args[1], "", "", query);
+                    break;
+                case 4:
+                    query.setPattern(args[2]);
+                    requestProcessor.findFiles(args[1], args[3], "", query);
+                    break;
+                case 5:
+                    query.setPattern(args[2]);
+                    requestProcessor.findFiles(args[1], args[3], args[4], query);
+                    break;
+                default:
+                    log.error("\n Invalid input parameters, please verify and try again.");
+                    printHelpMenu();
+                }
+                break;
+            case "daemon":
+                switch (length) {
+                case 1:
+                    runDaemon(this.daemonPort);
+                    break;
+                case 2:
+                    try {
+                        runDaemon(Integer.parseInt(args[1]));
+                    } catch (NumberFormatException e) {
+                        log.error("\n Invalid port: {}, please verify and try again.", args[1]);
+                    }
+                    break;
+                default:
+                    log.error("\n Invalid input parameters, please verify and try again.");
+                    printHelpMenu();
+                }
+                break;
+            case "hash":
+                switch (length) {
+                case 1:
+                    log.error("\n Missing local path, please verify and try again.");
+                    break;
+                case 2:
+                    requestProcessor.hashFiles(args[1]);
                     break;
                 default:
                     log.error("\n Invalid input parameters, please verify and try again.");
@@ -97,6 +413,239 @@ public class DropboxClientApplication implements CommandLineRunner {
 
     }
 
+    /**
+     * This method is used to run the commands of thin clients until the
+     * process is stopped.
+     * 
+     * @param port
+     *            - local port to listen on.
+     */
+    private void runDaemon(final int port) {
+        try (DaemonServer server = new DaemonServer(this, port, this.daemonThreads)) {
+            log.info("Daemon listening on localhost:{}, run commands with --daemon={}", server.getPort(),
+                    server.getPort());
+            server.serve();
+        } catch (IOException e) {
+            log.error("\n Unable to listen on port {}. Cause: {}", port, e.getMessage());
+        }
+    }
+
+    /**
+     * This method is used to separate the "--name=value" options from the
+     * positional arguments.
+     * 
+     * @param commandLine
+     *            - raw command line arguments.
+     * @param options
+     *            - receives the options, names without the leading dashes.
+     * @return positional arguments in their original order.
+     */
+    static String[] extractOptions(final String[] commandLine, final Map<String, String> options) {
+        final List<String> positional = new ArrayList<>();
+        for (String argument : commandLine) {
+            if (argument.startsWith("--")) {
+                final int separator = argument.indexOf('=');
+                if (separator < 0) {
+                    options.put(argument.substring(2), "true");
+                } else {
+                    options.put(argument.substring(2, separator), argument.substring(separator + 1));
+                }
+            } else {
+                positional.add(argument);
+            }
+        }
+        return positional.toArray(new String[0]);
+    }
+
+    /**
+     * This method is used to build the listing options of the list command.
+     * 
+     * @param options
+     *            - command line options.
+     * @return listing options or null if an option is invalid.
+     */
+    private ListingOptions toListingOptions(final Map<String, String> options) {
+        final ListingOptions listingOptions = new ListingOptions();
+        final String mode = options.get("mode");
+        if (mode != null) {
+            try {
+                listingOptions.setMode(ListingMode.fromValue(mode));
+            } catch (IllegalArgumentException e) {
+                log.error("\n Invalid listing mode: {}, expected walk or recursive.", mode);
+                return null;
+            }
+        }
+        listingOptions.setCache(Boolean.parseBoolean(options.getOrDefault("cache", "false")));
+        final OutputFormat format = toOutputFormat(options);
+        if (format == null) {
+            return null;
+        }
+        listingOptions.setFormat(format);
+        return listingOptions;
+    }
+
+    /**
+     * This method is used to resolve the order option of the stat command.
+     * 
+     * @param options
+     *            - command line options.
+     * @return order, input order by default, or null if the option is invalid.
+     */
+    private StatOrder toStatOrder(final Map<String, String> options) {
+        final String order = options.get("order");
+        if (order == null) {
+            return StatOrder.INPUT;
+        }
+        try {
+            return StatOrder.fromValue(order);
+        } catch (IllegalArgumentException e) {
+            log.error("\n Invalid order: {}, expected input or completed.", order);
+            return null;
+        }
+    }
+
+    /**
+     * This method is used to resolve the sync direction option.
+     * 
+     * @param options
+     *            - command line options.
+     * @return sync direction, up by default, or null if the option is invalid.
+     */
+    private SyncDirection toSyncDirection(final Map<String, String> options) {
+        final String direction = options.get("direction");
+        if (direction == null) {
+            return SyncDirection.UP;
+        }
+        try {
+            return SyncDirection.fromValue(direction);
+        } catch (IllegalArgumentException e) {
+            log.error("\n Invalid direction: {}, expected up or down.", direction);
+            return null;
+        }
+    }
+
+    /**
+     * This method is used to resolve the depth option of the du command.
+     * 
+     * @param options
+     *            - command line options.
+     * @return depth, 1 by default, or null if the option is invalid.
+     */
+    private Integer toDepth(final Map<String, String> options) {
+        final String depth = options.getOrDefault("depth", "1");
+        try {
+            final int value = Integer.parseInt(depth);
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        log.error("\n Invalid depth: {}, expected a number of folder levels.", depth);
+        return null;
+    }
+
+    /**
+     * This method is used to build the size and date conditions of the find
+     * command.
+     * 
+     * @param options
+     *            - command line options.
+     * @return query without pattern or null if an option is invalid.
+     */
+    private SearchQuery toSearchQuery(final Map<String, String> options) {
+        final SearchQuery query = new SearchQuery();
+        final OutputFormat format = toOutputFormat(options);
+        if (format == null) {
+            return null;
+        }
+        query.setFormat(format);
+        try {
+            if (options.containsKey("larger")) {
+                query.setMinSize(toBytes(options.get("larger")));
+            }
+            if (options.containsKey("smaller")) {
+                query.setMaxSize(toBytes(options.get("smaller")));
+            }
+        } catch (NumberFormatException e) {
+            log.error("\n Invalid size: {}, expected a number of bytes or e.g. 500KB, 1.5GB.", e.getMessage());
+            return null;
+        }
+        try {
+            if (options.containsKey("after")) {
+                query.setModifiedAfter(toEpochMillis(options.get("after")));
+            }
+            if (options.containsKey("before")) {
+                query.setModifiedBefore(toEpochMillis(options.get("before")));
+            }
+            if (options.containsKey("within")) {
+                final long days = Long.parseLong(options.get("within"));
+                query.setModifiedAfter(Math.max(query.getModifiedAfter(),
+                        System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days)));
+            }
+        } catch (DateTimeException | NumberFormatException e) {
+            log.error("\n Invalid date option, expected yyyy-MM-dd dates and a number of days. Cause: {}",
+                    e.getMessage());
+            return null;
+        }
+        return query;
+    }
+
+    /**
+     * This method is used to parse a file size with an optional decimal unit,
+     * e.g. 1GB is 1000000000 bytes.
+     * 
+     * @param size
+     *            - size option.
+     * @return size in bytes.
+     * @throws NumberFormatException
+     *             if the size is invalid, the message is the size.
+     */
+    static long toBytes(final String size) {
+        final String value = size.trim().toUpperCase(Locale.ROOT);
+        final String[] units = { "KB", "MB", "GB", "TB", "B" };
+        final long[] factors = { 1_000L, 1_000_000L, 1_000_000_000L, 1_000_000_000_000L, 1L };
+        for (int i = 0; i < units.length; i++) {
+            if (value.endsWith(units[i])) {
+                try {
+                    return new BigDecimal(value.substring(0, value.length() - units[i].length()).trim())
+                            .multiply(BigDecimal.valueOf(factors[i])).longValueExact();
+                } catch (ArithmeticException | NumberFormatException e) {
+                    throw new NumberFormatException(size);
+                }
+            }
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException(size);
+        }
+    }
+
+    private static long toEpochMillis(final String date) {
+        return LocalDate.parse(date).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * This method is used to resolve the output format option.
+     * 
+     * @param options
+     *            - command line options.
+     * @return output format, text by default, or null if the option is invalid.
+     */
+    private OutputFormat toOutputFormat(final Map<String, String> options) {
+        final String format = options.get("format");
+        if (format == null) {
+            return OutputFormat.TEXT;
+        }
+        try {
+            return OutputFormat.fromValue(format);
+        } catch (IllegalArgumentException e) {
+            log.error("\n Invalid output format: {}, expected text, jsonl, csv or tsv.", format);
+            return null;
+        }
+    }
+
     /**
      * This method prints the help menu on console.
      */
@@ -108,8 +657,52 @@ public class DropboxClientApplication implements CommandLineRunner {
         log.info("auth    --> Authenticates and authorizes the access to Dropbox account \n");
         log.info("            Example:  java -jar dropbox-client.jar auth {appKey} {appSecret} \n");
         log.info("info    --> Retrieves and prints user's account information\n");
-        log.info("            Example:  java -jar dropbox-client.jar info {authToken} {locale}\n");
+        log.info("            Example:  java -jar dropbox-client.jar info {authToken} {locale}");
+        log.info("                      java -jar dropbox-client.jar info --tokens={file|-} {locale}");
+        log.info("            Options:  --tokens=FILE  checks every access token of the file, one per line, lines");
+        log.info("                                     starting with dbid: are account ids looked up in batches");
+        log.info("            Options:  --format=text|jsonl|csv|tsv  output format (default text)\n");
         log.info("list    --> Prints files and folders information for specified path\n");
         log.info("            Example:  java -jar dropbox-client.jar list {dir} {locale}");
+        log.info("            Options:  --mode=walk       lists every folder separately, in parallel (default)");
+        log.info("                      --mode=recursive  lists the whole tree with one recursive cursor");
+        log.info("                      --cache           keeps the listing on disk and only fetches changes");
+        log.info("                      --format=text|jsonl|csv|tsv  output format (default text)\n");
+        log.info("stat    --> Prints the metadata of the paths listed in a file, one per line\n");
+        log.info("            Example:  java -jar dropbox-client.jar stat {authToken} {file|-} {locale}");
+        log.info("            Options:  --order=input|completed  prints in input order (default) or as resolved");
+        log.info("                      --format=text|jsonl|csv|tsv  output format (default text)\n");
+        log.info("download --> Downloads a file or a folder with its sub folders into a local directory\n");
+        log.info("            Example:  java -jar dropbox-client.jar download {authToken} {path} {dir} {locale}\n");
+        log.info("upload  --> Uploads a local file or directory into a Dropbox folder\n");
+        log.info("            Example:  java -jar dropbox-client.jar upload {authToken} {localPath} {folder} {locale}\n");
+        log.info("copy    --> Copies the files and folders listed in a file, one source and destination per line\n");
+        log.info("            Example:  java -jar dropbox-client.jar copy {authToken} {file|-} {locale}");
+        log.info("            Every line holds the source and the destination path separated by a tab.\n");
+        log.info("move    --> Moves the files and folders listed in a file, one source and destination per line\n");
+        log.info("            Example:  java -jar dropbox-client.jar move {authToken} {file|-} {locale}\n");
+        log.info("sync    --> Copies the files which differ between a local directory and a Dropbox folder\n");
+        log.info("            Example:  java -jar dropbox-client.jar sync {authToken} {dir} {folder} {locale}");
+        log.info("            Options:  --direction=up|down  uploads local changes (default) or downloads remote ones\n");
+        log.info("du      --> Prints the size and number of files of a folder and of its sub folders\n");
+        log.info("            Example:  java -jar dropbox-client.jar du {authToken} {dir} {locale}");
+        log.info("            Options:  --depth=N  deepest printed sub folder level (default 1)\n");
+        log.info("watch   --> Prints the files and folders added, modified or deleted below a folder as they change\n");
+        log.info("            Example:  java -jar dropbox-client.jar watch {authToken} {dir} {locale}\n");
+        log.info("find    --> Prints the files of a cached listing matching a name pattern, without calling the api\n");
+        log.info("            Example:  java -jar dropbox-client.jar find {authToken} \"*.psd\" {dir} {locale}");
+        log.info("            Options:  --larger=SIZE, --smaller=SIZE  size bounds, e.g. 1GB or 500KB");
+        log.info("                      --after=yyyy-MM-dd, --before=yyyy-MM-dd, --within=DAYS  modification date");
+        log.info("                      --format=text|jsonl|csv|tsv  output format (default text)");
+        log.info("            The folder must have been listed with list --cache first.\n");
+        log.info("daemon  --> Keeps the client running and serves the commands of --daemon invocations\n");
+        log.info("            Example:  java -jar dropbox-client.jar daemon {port}");
+        log.info("                      java -jar dropbox-client.jar --daemon[=port] list {authToken} {dir}");
+        log.info("            Only the user who started the daemon can use it, with the secret it writes to");
+        log.info("            ~/.dropbox-client/daemon-{port}.secret\n");
+        log.info("hash    --> Prints the Dropbox content hash of a local file or of every file in a directory\n");
+        log.info("            Example:  java -jar dropbox-client.jar hash {localPath}\n");
+        log.info("Every command accepts --stats to print the latency of the api calls, entries per second and the");
+        log.info("time spent waiting for the api and formatting once it is done.");
     }
 }
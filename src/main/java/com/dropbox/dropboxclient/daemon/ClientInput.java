@@ -0,0 +1,110 @@
+package com.dropbox.dropboxclient.daemon;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input of a forwarded command. The client sends its input in chunks, each
+ * preceded by its length, and an empty chunk once its input ends; it keeps
+ * the connection open until the command is done. A thread reads the
+ * connection the whole time the command runs, so a client going away is
+ * noticed even while the command neither reads nor writes, e.g. a watch
+ * waiting for changes.
+ */
+final class ClientInput extends InputStream {
+
+    final static private int MAX_CHUNK = 65536;
+    final static private int QUEUED_CHUNKS = 16;
+    final static private byte[] END = new byte[0];
+    final private DataInputStream connection;
+    final private BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(QUEUED_CHUNKS);
+    private volatile boolean closed;
+    private byte[] chunk;
+    private int position;
+
+    ClientInput(final DataInputStream connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * This method is used to read the connection until it is closed, on the
+     * calling thread.
+     *
+     * @param disconnected
+     *            - run once the client closed the connection, or the daemon
+     *            closed it after the command.
+     */
+    void pump(final Runnable disconnected) {
+        try {
+            int length;
+            do {
+                length = connection.readInt();
+                if (length < 0 || length > MAX_CHUNK) {
+                    throw new IOException("Invalid input chunk of " + length + " bytes");
+                }
+                final byte[] bytes = new byte[length];
+                connection.readFully(bytes);
+                chunks.put(bytes);
+            } while (length > 0);
+            // The client closes the connection only once the command is done or when it is gone.
+            while (connection.read() >= 0) {
+                // Nothing more is expected from the client.
+            }
+        } catch (IOException e) {
+            // Closed by either side.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // A full queue rejects the end, the reader then checks the flag once the queue is empty.
+        closed = true;
+        chunks.offer(END);
+        disconnected.run();
+    }
+
+    /**
+     * @return true once the connection was closed.
+     */
+    boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public synchronized int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (chunk == END) {
+            return -1;
+        }
+        if (chunk == null || position == chunk.length) {
+            try {
+                chunk = chunks.poll();
+                if (chunk == null) {
+                    chunk = closed ? END : chunks.take();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading the client input");
+            }
+            position = 0;
+            if (chunk.length == 0) {
+                chunk = END;
+                return -1;
+            }
+        }
+        final int count = Math.min(len, chunk.length - position);
+        System.arraycopy(chunk, position, b, off, count);
+        position += count;
+        return count;
+    }
+}
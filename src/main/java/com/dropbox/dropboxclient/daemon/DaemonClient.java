@@ -0,0 +1,193 @@
+package com.dropbox.dropboxclient.daemon;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Forwards a command to a running {@link DaemonServer} and streams its output
+ * back. It runs before the application context is created, so a forwarded
+ * command costs little more than starting the JVM.
+ * <p>
+ * Every request starts with the secret the daemon wrote to
+ * {@code ~/.dropbox-client/daemon-<port>.secret}, a file only its owner can
+ * read, so other users of the machine cannot run commands in the daemon.
+ */
+public final class DaemonClient {
+
+    final static public int DEFAULT_PORT = 7878;
+    final static private String OPTION = "--daemon";
+    final static private int BUFFER_SIZE = 8192;
+    /**
+     * Directory of the secret files, shared with the caches of the client.
+     */
+    final static public Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("user.home"), ".dropbox-client");
+
+    private DaemonClient() {
+    }
+
+    /**
+     * This method is used to find the "--daemon" or "--daemon=port" option.
+     *
+     * @param args
+     *            - command line arguments.
+     * @param command
+     *            - receives the arguments without the option.
+     * @return daemon port, or -1 if the option is missing.
+     * @throws NumberFormatException
+     *             if the port is not a number between 0 and 65535, with the
+     *             given port as message.
+     */
+    public static int parseOption(final String[] args, final List<String> command) {
+        int port = -1;
+        for (String argument : args) {
+            if (argument.equals(OPTION)) {
+                port = DEFAULT_PORT;
+            } else if (argument.startsWith(OPTION + "=")) {
+                port = parsePort(argument.substring(OPTION.length() + 1));
+            } else {
+                command.add(argument);
+            }
+        }
+        return port;
+    }
+
+    private static int parsePort(final String value) {
+        try {
+            final int port = Integer.parseInt(value);
+            if (port >= 0 && port <= 0xFFFF) {
+                return port;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below with the given value.
+        }
+        throw new NumberFormatException(value);
+    }
+
+    /**
+     * @param directory
+     *            - directory of the secret files.
+     * @param port
+     *            - daemon port.
+     * @return file holding the secret of the daemon on the port.
+     */
+    public static Path secretFile(final Path directory, final int port) {
+        return directory.resolve("daemon-" + port + ".secret");
+    }
+
+    /**
+     * This method is used to run a command on the daemon, with the secret
+     * found in {@link #DEFAULT_DIRECTORY}.
+     *
+     * @param port
+     *            - daemon port on the loopback interface.
+     * @param command
+     *            - command line arguments.
+     * @param in
+     *            - input of the command.
+     * @param out
+     *            - receives the output of the command.
+     * @return false if no daemon is running on the port.
+     * @throws IOException
+     *             if the connection failed while running the command.
+     */
+    public static boolean forward(final int port, final List<String> command, final InputStream in,
+            final OutputStream out) throws IOException {
+        return forward(DEFAULT_DIRECTORY, port, command, in, out);
+    }
+
+    /**
+     * This method is used to run a command on the daemon. The input is sent to
+     * the daemon in chunks while the command runs, followed by an empty chunk,
+     * the output is copied until the daemon closes the connection. The
+     * connection stays open after the input ends, closing it tells the daemon
+     * that the client is gone.
+     *
+     * @param directory
+     *            - directory of the secret files.
+     * @param port
+     *            - daemon port on the loopback interface.
+     * @param command
+     *            - command line arguments.
+     * @param in
+     *            - input of the command.
+     * @param out
+     *            - receives the output of the command.
+     * @return false if no daemon is running on the port.
+     * @throws IOException
+     *             if the secret could not be read or the connection failed
+     *             while running the command.
+     */
+    public static boolean forward(final Path directory, final int port, final List<String> command,
+            final InputStream in, final OutputStream out) throws IOException {
+        final String secret;
+        try {
+            secret = new String(Files.readAllBytes(secretFile(directory, port)), StandardCharsets.US_ASCII);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        final Socket socket;
+        try {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        } catch (ConnectException e) {
+            return false;
+        }
+        try (Socket connection = socket) {
+            final DataOutputStream request = new DataOutputStream(
+                    new BufferedOutputStream(connection.getOutputStream()));
+            request.writeUTF(secret);
+            request.writeUTF(System.getProperty("user.dir"));
+            request.writeInt(command.size());
+            for (String argument : command) {
+                request.writeUTF(argument);
+            }
+            request.flush();
+            final Thread input = new Thread(() -> {
+                try {
+                    send(in, request);
+                } catch (IOException e) {
+                    // The command is done and the connection closed.
+                }
+            }, "dropbox-daemon-input");
+            input.setDaemon(true);
+            input.start();
+            copy(connection.getInputStream(), out);
+        }
+        return true;
+    }
+
+    private static void send(final InputStream in, final DataOutputStream out) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            if (read > 0) {
+                out.writeInt(read);
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+        }
+        out.writeInt(0);
+        out.flush();
+    }
+
+    private static void copy(final InputStream in, final OutputStream out) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+            // Prompts and progress are shown as soon as they arrive.
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.dropbox.dropboxclient.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+
+import com.dropbox.dropboxclient.service.ConsoleContext;
+import com.dropbox.dropboxclient.service.NamedThreadFactory;
+
+/**
+ * Runs commands sent by {@link DaemonClient} inside a long running process, so
+ * the application context, the Dropbox clients with their connections, the
+ * caches and the compiled code are reused by every command.
+ * <p>
+ * The server only listens on the loopback interface. A request is the secret
+ * of the daemon, the working directory of the client, the number of arguments
+ * and the arguments, strings written with
+ * {@link java.io.DataOutputStream#writeUTF(String)}; the rest of the request
+ * is the input of the command, see {@link ClientInput}. The output of the
+ * command is written back and the connection closed once the command is done.
+ * A client closing the connection earlier closes the console of its command,
+ * see {@link ConsoleContext#onClose(Runnable)}.
+ * <p>
+ * The secret is created at start up and written to a file which only the
+ * owner of the process can read, see {@link DaemonClient#secretFile(Path, int)}.
+ * Connections sending another secret are closed without running anything, so
+ * other local users cannot run commands with the files of the owner.
+ */
+public class DaemonServer implements Closeable {
+
+    final static private Logger log = LoggerFactory.getLogger(DaemonServer.class);
+    final static private int MAX_ARGUMENTS = 1024;
+    final static private int SECRET_BYTES = 32;
+    final static private int SECRET_TIMEOUT_MILLIS = 10_000;
+    final private CommandLineRunner runner;
+    final private ServerSocket serverSocket;
+    final private ExecutorService executor;
+    final private ThreadFactory inputThreads = new NamedThreadFactory("daemon-input");
+    final private byte[] secret;
+    final private Path secretFile;
+
+    /**
+     * Creates a server keeping its secret in {@link DaemonClient#DEFAULT_DIRECTORY}.
+     *
+     * @param runner
+     *            - runs the commands.
+     * @param port
+     *            - local port, 0 for any free port.
+     * @param threads
+     *            - number of commands run concurrently.
+     * @throws IOException
+     *             if the port could not be bound or the secret not written.
+     */
+    public DaemonServer(final CommandLineRunner runner, final int port, final int threads) throws IOException {
+        this(runner, port, threads, DaemonClient.DEFAULT_DIRECTORY);
+    }
+
+    /**
+     * @param runner
+     *            - runs the commands.
+     * @param port
+     *            - local port, 0 for any free port.
+     * @param threads
+     *            - number of commands run concurrently.
+     * @param directory
+     *            - directory of the secret file.
+     * @throws IOException
+     *             if the port could not be bound or the secret not written.
+     */
+    public DaemonServer(final CommandLineRunner runner, final int port, final int threads, final Path directory)
+            throws IOException {
+        this.runner = runner;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        try {
+            this.secret = createSecret();
+            this.secretFile = DaemonClient.secretFile(directory, serverSocket.getLocalPort());
+            writeSecret(directory, secretFile, secret);
+        } catch (IOException e) {
+            serverSocket.close();
+            throw e;
+        }
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), new NamedThreadFactory("daemon"));
+        ConsoleContext.install();
+    }
+
+    private static byte[] createSecret() {
+        final byte[] random = new byte[SECRET_BYTES];
+        new SecureRandom().nextBytes(random);
+        final StringBuilder hex = new StringBuilder(SECRET_BYTES * 2);
+        for (byte b : random) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * This method is used to write the secret to a new file readable only by
+     * its owner. A file left by an earlier daemon on the same port is
+     * replaced, so its permissions are never inherited.
+     */
+    private static void writeSecret(final Path directory, final Path file, final byte[] secret) throws IOException {
+        final boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (posix && !Files.isDirectory(directory)) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(
+                    EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE,
+                            PosixFilePermission.OWNER_EXECUTE)));
+        } else {
+            Files.createDirectories(directory);
+        }
+        Files.deleteIfExists(file);
+        try {
+            if (posix) {
+                Files.createFile(file, PosixFilePermissions.asFileAttribute(
+                        EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE)));
+            } else {
+                Files.createFile(file);
+            }
+        } catch (FileAlreadyExistsException e) {
+            throw new IOException("Secret file " + file + " was created by another process", e);
+        }
+        Files.write(file, secret);
+    }
+
+    /**
+     * @return port the server listens on.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * This method is used to accept connections until the server is closed.
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                executor.execute(() -> handle(socket));
+            } catch (SocketException e) {
+                // Closed while waiting for a connection.
+            } catch (IOException e) {
+                log.error("\n Unable to accept a connection. Cause: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * This method is used to run the command of a single connection with the
+     * console bound to it, once the client sent the secret.
+     */
+    private void handle(final Socket socket) {
+        try (Socket connection = socket) {
+            final BufferedInputStream in = new BufferedInputStream(connection.getInputStream());
+            final OutputStream out = new BufferedOutputStream(connection.getOutputStream());
+            final DataInputStream request = new DataInputStream(in);
+            // A client which never sends the secret must not hold a thread.
+            connection.setSoTimeout(SECRET_TIMEOUT_MILLIS);
+            if (!MessageDigest.isEqual(secret, request.readUTF().getBytes(StandardCharsets.US_ASCII))) {
+                log.error("\n Rejected a connection from port {}, it did not send the daemon secret.",
+                        connection.getPort());
+                return;
+            }
+            connection.setSoTimeout(0);
+            final Path directory = Paths.get(request.readUTF());
+            final String[] args = readArguments(request);
+            final ClientInput input = new ClientInput(request);
+            ConsoleContext.bind(out, new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)),
+                    directory);
+            final Runnable disconnected = ConsoleContext.closeAction();
+            inputThreads.newThread(() -> input.pump(disconnected)).start();
+            try {
+                runner.run(args);
+            } catch (Exception e) {
+                log.error("\n Command failed. Cause: {}", e.getMessage());
+            } finally {
+                ConsoleContext.unbind();
+                // The output of a client which went away is dropped.
+                if (!input.isClosed()) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            log.error("\n Unable to serve a connection. Cause: {}", e.getMessage());
+        }
+    }
+
+    private static String[] readArguments(final DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        if (count < 0 || count > MAX_ARGUMENTS) {
+            throw new IOException("Invalid number of arguments: " + count);
+        }
+        final String[] args = new String[count];
+        for (int i = 0; i < count; i++) {
+            args[i] = in.readUTF();
+        }
+        return args;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+        Files.deleteIfExists(secretFile);
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.users.Account;
+import com.dropbox.core.v2.users.BasicAccount;
+import com.dropbox.core.v2.users.GetAccountBatchErrorException;
+
+/**
+ * Looks up many accounts in one run. Every access token is checked with
+ * users/get_current_account, concurrently on a bounded pool of threads, and
+ * accounts given by their id are fetched with users/get_account_batch, up to
+ * {@value #MAX_BATCH_SIZE} per call, with the client of the first valid token.
+ * The clients are taken from a shared source, e.g. a {@link DbxClientRegistry},
+ * so the calls reuse the same connections.
+ */
+public class AccountLookup {
+
+    /**
+     * Largest number of account ids accepted by users/get_account_batch.
+     */
+    final static public int MAX_BATCH_SIZE = 300;
+    final static private String ACCOUNT_ID_PREFIX = "dbid:";
+    final private Function<String, DbxClientV2> clients;
+    final private RequestScheduler scheduler;
+    final private int parallelism;
+
+    /**
+     * @param clients
+     *            - returns the client of an access token.
+     * @param scheduler
+     *            - runs the api calls.
+     * @param parallelism
+     *            - maximum number of tokens checked concurrently.
+     */
+    public AccountLookup(final Function<String, DbxClientV2> clients, final RequestScheduler scheduler,
+            final int parallelism) {
+        this.clients = clients;
+        this.scheduler = scheduler;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Receives the outcome of every line, identified by its line number so
+     * the tokens are never printed.
+     */
+    public interface Listener {
+
+        /**
+         * @param line
+         *            - line number of the token or account id.
+         * @param account
+         *            - full account of a token, basic account of an id.
+         */
+        void found(int line, Account account);
+
+        /**
+         * @param line
+         *            - line number of the token or account id.
+         * @param cause
+         *            - reason the account could not be looked up.
+         */
+        void failed(int line, Exception cause);
+    }
+
+    /**
+     * This method is used to look up the account of every non-blank line of
+     * the reader which is not a "#" comment. Lines starting with "dbid:" are
+     * account ids, the others access tokens. The results are reported on the
+     * calling thread in the order of the lines.
+     *
+     * @param lines
+     *            - one access token or account id per line.
+     * @param listener
+     *            - receives the results.
+     * @return number of tokens and account ids read.
+     * @throws IOException
+     *             if the lines could not be read.
+     */
+    public int lookup(final BufferedReader lines, final Listener listener) throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        final List<Entry> tokens = new ArrayList<>();
+        final List<Entry> accountIds = new ArrayList<>();
+        String line;
+        int number = 0;
+        while ((line = lines.readLine()) != null) {
+            number++;
+            final String value = line.trim();
+            if (value.isEmpty() || value.startsWith("#")) {
+                continue;
+            }
+            final Entry entry = new Entry(number, value);
+            entries.add(entry);
+            (value.startsWith(ACCOUNT_ID_PREFIX) ? accountIds : tokens).add(entry);
+        }
+        final ExecutorService executor = tokens.isEmpty() ? null
+                : Executors.newFixedThreadPool(Math.min(parallelism, tokens.size()), new NamedThreadFactory("account"));
+        try {
+            for (Entry token : tokens) {
+                token.result = CompletableFuture.supplyAsync(() -> currentAccount(token.value), executor);
+            }
+            if (!accountIds.isEmpty()) {
+                lookupAccountIds(tokens, accountIds);
+            }
+            for (Entry entry : entries) {
+                try {
+                    listener.found(entry.number, entry.result.join());
+                } catch (CompletionException e) {
+                    final Throwable cause = e.getCause() instanceof UncheckedDbxException ? e.getCause().getCause()
+                            : e.getCause();
+                    listener.failed(entry.number, cause instanceof Exception ? (Exception) cause : e);
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        return entries.size();
+    }
+
+    private Account currentAccount(final String token) {
+        try {
+            final DbxClientV2 client = clients.apply(token);
+            return scheduler.execute("users/get_current_account", () -> client.users().getCurrentAccount());
+        } catch (DbxException e) {
+            throw new UncheckedDbxException(e);
+        }
+    }
+
+    /**
+     * This method is used to fetch the accounts of the ids in batches with
+     * the client of the first token, in line order, which turns out valid.
+     */
+    private void lookupAccountIds(final List<Entry> tokens, final List<Entry> accountIds) {
+        DbxClientV2 client = null;
+        for (Entry token : tokens) {
+            if (!token.result.handle((account, failure) -> failure == null).join()) {
+                continue;
+            }
+            client = clients.apply(token.value);
+            break;
+        }
+        if (client == null) {
+            final IllegalStateException cause = new IllegalStateException(
+                    "No valid access token to look up account ids with");
+            for (Entry accountId : accountIds) {
+                accountId.fail(cause);
+            }
+            return;
+        }
+        for (int start = 0; start < accountIds.size(); start += MAX_BATCH_SIZE) {
+            lookupBatch(client, accountIds.subList(start, Math.min(accountIds.size(), start + MAX_BATCH_SIZE)));
+        }
+    }
+
+    /**
+     * This method is used to fetch a batch of accounts. The api rejects the
+     * whole batch for the first unknown id, which is failed and left out of
+     * the next attempt.
+     */
+    private void lookupBatch(final DbxClientV2 client, final List<Entry> batch) {
+        final Map<String, Entry> pending = new HashMap<>();
+        for (Entry entry : batch) {
+            final Entry duplicate = pending.putIfAbsent(entry.value, entry);
+            if (duplicate != null) {
+                entry.result = duplicate.result;
+            }
+        }
+        while (!pending.isEmpty()) {
+            final List<String> ids = new ArrayList<>(pending.keySet());
+            try {
+                final List<BasicAccount> accounts = scheduler.execute("users/get_account_batch",
+                        () -> client.users().getAccountBatch(ids));
+                for (BasicAccount account : accounts) {
+                    final Entry entry = pending.remove(account.getAccountId());
+                    if (entry != null) {
+                        entry.result.complete(account);
+                    }
+                }
+                final IllegalStateException cause = new IllegalStateException("Account not returned");
+                pending.values().forEach(entry -> entry.fail(cause));
+                pending.clear();
+            } catch (GetAccountBatchErrorException e) {
+                final Entry unknown = e.errorValue.isNoAccount() ? pending.remove(e.errorValue.getNoAccountValue())
+                        : null;
+                if (unknown == null) {
+                    pending.values().forEach(entry -> entry.fail(e));
+                    pending.clear();
+                } else {
+                    unknown.fail(e);
+                }
+            } catch (DbxException e) {
+                pending.values().forEach(entry -> entry.fail(e));
+                pending.clear();
+            }
+        }
+    }
+
+    /**
+     * Token or account id of a line and its pending account.
+     */
+    private static final class Entry {
+        final int number;
+        final String value;
+        CompletableFuture<Account> result = new CompletableFuture<>();
+
+        Entry(final int number, final String value) {
+            this.number = number;
+            this.value = value;
+        }
+
+        void fail(final Exception cause) {
+            result.completeExceptionally(cause);
+        }
+    }
+
+}
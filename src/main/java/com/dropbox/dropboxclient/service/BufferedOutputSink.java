@@ -0,0 +1,125 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Collects rows in a reusable character buffer and writes them to the
+ * underlying stream in large chunks. Compared to one
+ * {@code System.out.format} call per entry this avoids a synchronized,
+ * flushing write for every row when millions of entries are printed.
+ */
+public class BufferedOutputSink implements OutputSink {
+
+    final public static int DEFAULT_CAPACITY = 64 * 1024;
+    final private static String LINE_SEPARATOR = System.lineSeparator();
+    final private OutputStream out;
+    final private CharsetEncoder encoder;
+    final private StringBuilder buffer;
+    final private ByteBuffer bytes;
+    final private int capacity;
+
+    /**
+     * @param out
+     *            - stream receiving the output, encoded with the default
+     *            charset.
+     */
+    public BufferedOutputSink(final OutputStream out) {
+        this(out, Charset.defaultCharset(), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param out
+     *            - stream receiving the output.
+     * @param charset
+     *            - charset used to encode the output.
+     * @param capacity
+     *            - number of buffered characters which triggers a write at the
+     *            end of a row.
+     */
+    public BufferedOutputSink(final OutputStream out, final Charset charset, final int capacity) {
+        this.out = out;
+        this.encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.capacity = capacity;
+        this.buffer = new StringBuilder(capacity + 1024);
+        this.bytes = ByteBuffer.allocate((int) (capacity * encoder.maxBytesPerChar()) + 1024);
+    }
+
+    @Override
+    public OutputSink append(final CharSequence value) {
+        buffer.append(value);
+        return this;
+    }
+
+    @Override
+    public OutputSink append(final char value) {
+        buffer.append(value);
+        return this;
+    }
+
+    @Override
+    public OutputSink append(final long value) {
+        buffer.append(value);
+        return this;
+    }
+
+    @Override
+    public OutputSink newLine() {
+        buffer.append(LINE_SEPARATOR);
+        if (buffer.length() >= capacity) {
+            drain();
+        }
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        drain();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method is used to encode the buffered characters and write them to
+     * the stream, reusing the byte buffer for every chunk.
+     */
+    private void drain() {
+        if (buffer.length() == 0) {
+            return;
+        }
+        try {
+            final CharBuffer chars = CharBuffer.wrap(buffer);
+            encoder.reset();
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, bytes, true);
+                if (result.isOverflow()) {
+                    write();
+                }
+            } while (result.isOverflow());
+            while (encoder.flush(bytes).isOverflow()) {
+                write();
+            }
+            write();
+            buffer.setLength(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write() throws IOException {
+        out.write(bytes.array(), 0, bytes.position());
+        bytes.clear();
+    }
+}
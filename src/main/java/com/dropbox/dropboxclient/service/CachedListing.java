@@ -0,0 +1,24 @@
+package com.dropbox.dropboxclient.service;
+
+/**
+ * Folder tree of a recursive listing together with the cursor to fetch the
+ * changes made after it.
+ */
+public class CachedListing {
+
+    final private FolderTree tree;
+    final private String cursor;
+
+    public CachedListing(final FolderTree tree, final String cursor) {
+        this.tree = tree;
+        this.cursor = cursor;
+    }
+
+    public FolderTree getTree() {
+        return this.tree;
+    }
+
+    public String getCursor() {
+        return this.cursor;
+    }
+}
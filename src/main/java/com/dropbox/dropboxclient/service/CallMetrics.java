@@ -0,0 +1,346 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Counters of the Dropbox api calls per endpoint: latency, calls, errors,
+ * throttled calls, retries and bytes sent and received, plus the time calls
+ * waited in the {@link RequestScheduler} before being sent, the entries handed
+ * to the renderers and the time spent rendering them.
+ * <p>
+ * The counters only grow. A {@link #snapshot()} taken before a command is
+ * passed to {@link #report(CallMetrics, OutputSink)} to print what the command
+ * did, so one shared instance serves every command.
+ * <p>
+ * The latency of every endpoint is recorded in a Micrometer
+ * {@code dropbox.api.calls} timer, tagged with the endpoint, which publishes
+ * its p50 and p99 and a percentile histogram. As a {@link MeterBinder} the
+ * timers and counters of errors, throttled calls, retries, bytes, queued time
+ * and rendering are published to any registry bound to it. The percentiles of
+ * the report are read from the same timers, over the calls of the last
+ * minutes.
+ */
+public class CallMetrics implements MeterBinder {
+
+    /**
+     * Endpoint of the calls made without a name.
+     */
+    final static public String OTHER = "other";
+    final private ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    final private LongAdder queuedNanos = new LongAdder();
+    final private LongAdder entries = new LongAdder();
+    final private LongAdder formattingNanos = new LongAdder();
+    final private List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+    // Records the timers into the bound registries and a local one read by the report.
+    final private CompositeMeterRegistry timers;
+    final private long createdNanos;
+
+    public CallMetrics() {
+        this.createdNanos = System.nanoTime();
+        this.timers = new CompositeMeterRegistry();
+        this.timers.add(new SimpleMeterRegistry());
+    }
+
+    private CallMetrics(final long createdNanos) {
+        this.createdNanos = createdNanos;
+        this.timers = null;
+    }
+
+    /**
+     * Counters of a single endpoint.
+     */
+    public static final class Endpoint {
+        // Shared by the snapshots, null for the endpoints of a snapshot.
+        final private Timer latency;
+        final private LongAdder calls = new LongAdder();
+        final private LongAdder errors = new LongAdder();
+        final private LongAdder throttled = new LongAdder();
+        final private LongAdder retries = new LongAdder();
+        final private LongAdder sentBytes = new LongAdder();
+        final private LongAdder receivedBytes = new LongAdder();
+        final private LongAdder totalNanos = new LongAdder();
+
+        private Endpoint(final Timer latency) {
+            this.latency = latency;
+        }
+
+        /**
+         * @return Micrometer timer of the endpoint, null if never called.
+         */
+        public Timer getLatency() {
+            return latency;
+        }
+
+        /**
+         * @param percentile
+         *            - published percentile, 0.5 or 0.99.
+         * @return latency of the percentile over the recent calls, in
+         *         nanoseconds, 0 without calls.
+         */
+        public long percentile(final double percentile) {
+            if (latency == null) {
+                return 0L;
+            }
+            for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+                if (value.percentile() == percentile) {
+                    return (long) value.value(TimeUnit.NANOSECONDS);
+                }
+            }
+            return 0L;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getThrottled() {
+            return throttled.sum();
+        }
+
+        public long getRetries() {
+            return retries.sum();
+        }
+
+        public long getSentBytes() {
+            return sentBytes.sum();
+        }
+
+        public long getReceivedBytes() {
+            return receivedBytes.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        private Endpoint copy(final Endpoint earlier) {
+            final Endpoint copy = new Endpoint(latency);
+            copy.calls.add(getCalls() - (earlier == null ? 0 : earlier.getCalls()));
+            copy.errors.add(getErrors() - (earlier == null ? 0 : earlier.getErrors()));
+            copy.throttled.add(getThrottled() - (earlier == null ? 0 : earlier.getThrottled()));
+            copy.retries.add(getRetries() - (earlier == null ? 0 : earlier.getRetries()));
+            copy.sentBytes.add(getSentBytes() - (earlier == null ? 0 : earlier.getSentBytes()));
+            copy.receivedBytes.add(getReceivedBytes() - (earlier == null ? 0 : earlier.getReceivedBytes()));
+            copy.totalNanos.add(getTotalNanos() - (earlier == null ? 0 : earlier.getTotalNanos()));
+            return copy;
+        }
+    }
+
+    /**
+     * @param name
+     *            - endpoint name, null for {@link #OTHER}.
+     * @return counters of the endpoint, created on first use.
+     */
+    public Endpoint endpoint(final String name) {
+        final String key = name == null ? OTHER : name;
+        Endpoint endpoint = endpoints.get(key);
+        if (endpoint == null) {
+            endpoint = endpoints.computeIfAbsent(key, ignored -> new Endpoint(timers == null ? null
+                    : Timer.builder("dropbox.api.calls").tag("endpoint", key).publishPercentiles(0.5, 0.99)
+                            .publishPercentileHistogram().description("Attempts of Dropbox api calls")
+                            .register(timers)));
+            for (MeterRegistry registry : registries) {
+                register(registry, key, endpoint);
+            }
+        }
+        return endpoint;
+    }
+
+    /**
+     * This method is used to publish the counters to a registry, the
+     * endpoints called later are added as they show up.
+     *
+     * @param registry
+     *            - registry receiving the meters.
+     */
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        registries.add(registry);
+        timers.add(registry);
+        FunctionCounter.builder("dropbox.api.queued", this, metrics -> metrics.getQueuedNanos() / 1e9)
+                .baseUnit("seconds").description("Time calls waited for a request slot")
+                .register(registry);
+        FunctionCounter.builder("dropbox.render.entries", this, CallMetrics::getEntries)
+                .description("Entries handed to the renderers").register(registry);
+        FunctionCounter.builder("dropbox.render.time", this, metrics -> metrics.getFormattingNanos() / 1e9)
+                .baseUnit("seconds").description("Time spent rendering entries").register(registry);
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            register(registry, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * This method is used to register the meters of an endpoint, registering
+     * the same endpoint twice returns the existing meters.
+     */
+    private static void register(final MeterRegistry registry, final String name, final Endpoint endpoint) {
+        FunctionCounter.builder("dropbox.api.errors", endpoint, Endpoint::getErrors).tag("endpoint", name)
+                .register(registry);
+        FunctionCounter.builder("dropbox.api.throttled", endpoint, Endpoint::getThrottled).tag("endpoint", name)
+                .register(registry);
+        FunctionCounter.builder("dropbox.api.retries", endpoint, Endpoint::getRetries).tag("endpoint", name)
+                .register(registry);
+        FunctionCounter.builder("dropbox.api.bytes", endpoint, Endpoint::getSentBytes).tag("endpoint", name)
+                .tag("direction", "sent").baseUnit("bytes").register(registry);
+        FunctionCounter.builder("dropbox.api.bytes", endpoint, Endpoint::getReceivedBytes).tag("endpoint", name)
+                .tag("direction", "received").baseUnit("bytes").register(registry);
+    }
+
+    /**
+     * This method is used to record one attempt of a call.
+     *
+     * @param name
+     *            - endpoint name.
+     * @param nanos
+     *            - time from sending the request to the answer or the error.
+     * @param failed
+     *            - true if the attempt failed.
+     * @param throttled
+     *            - true if the server answered with a rate limit.
+     */
+    public void recordCall(final String name, final long nanos, final boolean failed, final boolean throttled) {
+        final Endpoint endpoint = endpoint(name);
+        endpoint.latency.record(nanos, TimeUnit.NANOSECONDS);
+        endpoint.calls.increment();
+        endpoint.totalNanos.add(nanos);
+        if (failed) {
+            endpoint.errors.increment();
+        }
+        if (throttled) {
+            endpoint.throttled.increment();
+        }
+    }
+
+    public void recordRetry(final String name) {
+        endpoint(name).retries.increment();
+    }
+
+    public void recordBytes(final String name, final long sent, final long received) {
+        final Endpoint endpoint = endpoint(name);
+        endpoint.sentBytes.add(sent);
+        endpoint.receivedBytes.add(received);
+    }
+
+    /**
+     * @param nanos
+     *            - time a call waited for a free slot, the end of a rate
+     *            limit pause or its retry backoff.
+     */
+    public void recordQueued(final long nanos) {
+        queuedNanos.add(nanos);
+    }
+
+    /**
+     * @param count
+     *            - rendered entries.
+     * @param nanos
+     *            - time spent rendering them.
+     */
+    public void recordRendering(final long count, final long nanos) {
+        entries.add(count);
+        formattingNanos.add(nanos);
+    }
+
+    public long getQueuedNanos() {
+        return queuedNanos.sum();
+    }
+
+    public long getEntries() {
+        return entries.sum();
+    }
+
+    public long getFormattingNanos() {
+        return formattingNanos.sum();
+    }
+
+    /**
+     * @return copy of the current counters, its creation time is now.
+     */
+    public CallMetrics snapshot() {
+        return since(null);
+    }
+
+    /**
+     * This method is used to get the counters recorded after an earlier
+     * snapshot.
+     *
+     * @param earlier
+     *            - earlier snapshot, null for all counters.
+     * @return counters recorded since the snapshot, created at the time of the
+     *         snapshot.
+     */
+    public CallMetrics since(final CallMetrics earlier) {
+        final CallMetrics copy = earlier == null ? new CallMetrics() : new CallMetrics(earlier.createdNanos);
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            final Endpoint before = earlier == null ? null : earlier.endpoints.get(entry.getKey());
+            final Endpoint delta = entry.getValue().copy(before);
+            if (earlier == null || delta.getCalls() > 0 || delta.getSentBytes() > 0 || delta.getReceivedBytes() > 0) {
+                copy.endpoints.put(entry.getKey(), delta);
+            }
+        }
+        copy.queuedNanos.add(getQueuedNanos() - (earlier == null ? 0 : earlier.getQueuedNanos()));
+        copy.entries.add(getEntries() - (earlier == null ? 0 : earlier.getEntries()));
+        copy.formattingNanos.add(getFormattingNanos() - (earlier == null ? 0 : earlier.getFormattingNanos()));
+        return copy;
+    }
+
+    /**
+     * @return counters by endpoint name, sorted by name.
+     */
+    public Map<String, Endpoint> getEndpoints() {
+        return new TreeMap<>(endpoints);
+    }
+
+    /**
+     * This method is used to print the calls made since a snapshot: the p50
+     * and p99 latency of every endpoint with its counters, the rendered entries
+     * per second and how the elapsed time splits into waiting for the api and
+     * rendering.
+     *
+     * @param earlier
+     *            - snapshot taken when the command started.
+     * @param sink
+     *            - receives the report.
+     */
+    public void report(final CallMetrics earlier, final OutputSink sink) {
+        final CallMetrics delta = since(earlier);
+        final double elapsedSeconds = (System.nanoTime() - delta.createdNanos) / 1e9;
+        sink.newLine().append(String.format(Locale.ROOT, "%-30s %7s %6s %9s %7s %10s %10s %10s %10s", "Endpoint",
+                "calls", "errors", "throttled", "retries", "p50 ms", "p99 ms", "sent", "received")).newLine();
+        long apiNanos = 0;
+        for (Map.Entry<String, Endpoint> entry : delta.getEndpoints().entrySet()) {
+            final Endpoint endpoint = entry.getValue();
+            apiNanos += endpoint.getTotalNanos();
+            sink.append(String.format(Locale.ROOT, "%-30s %7d %6d %9d %7d %10.1f %10.1f %10d %10d", entry.getKey(),
+                    endpoint.getCalls(), endpoint.getErrors(), endpoint.getThrottled(), endpoint.getRetries(),
+                    endpoint.percentile(0.5) / 1e6, endpoint.percentile(0.99) / 1e6,
+                    endpoint.getSentBytes(), endpoint.getReceivedBytes())).newLine();
+        }
+        final long entryCount = delta.getEntries();
+        sink.append(String.format(Locale.ROOT, "Entries: %d in %.3f s (%.0f entries/s)", entryCount,
+                elapsedSeconds, elapsedSeconds > 0 ? entryCount / elapsedSeconds : 0.0)).newLine();
+        sink.append(String.format(Locale.ROOT,
+                "Waiting: %.3f s in api calls (summed over concurrent calls), %.3f s for a request slot;"
+                        + " formatting: %.3f s", apiNanos / 1e9,
+                delta.getQueuedNanos() / 1e9, delta.getFormattingNanos() / 1e9)).newLine();
+    }
+}
@@ -0,0 +1,414 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.BufferedReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Supplier;
+
+/**
+ * Console of the command running on the current thread. By default commands
+ * use the process console; the daemon binds the connection of a client to the
+ * thread running its command, so the output, including the log messages, is
+ * sent back to that client, prompts are read from it and local paths are
+ * resolved against its working directory.
+ * <p>
+ * {@link #install()} replaces {@code System.out} once with a stream handing
+ * every call to the {@link PrintStream} of the console of the current thread,
+ * before taking any lock, so concurrent commands never wait for each other's
+ * output. Threads without a bound console keep writing to the previous
+ * {@code System.out}. Work handed to other threads
+ * keeps the console of the command with {@link #propagate(Runnable)}, which
+ * {@link NamedThreadFactory} applies to every worker thread it creates.
+ */
+public final class ConsoleContext {
+
+    final static private ThreadLocal<Console> CONSOLE = new ThreadLocal<>();
+    private static PrintStream processOut;
+
+    private ConsoleContext() {
+    }
+
+    /**
+     * This method is used to route {@code System.out} through the console of
+     * the current thread. Calling it again has no effect.
+     */
+    public static synchronized void install() {
+        if (processOut == null) {
+            processOut = System.out;
+            System.setOut(new RoutingPrintStream(processOut));
+        }
+    }
+
+    /**
+     * This method is used to bind a client console to the current thread.
+     *
+     * @param out
+     *            - receives the output of the command.
+     * @param in
+     *            - provides the input of the command.
+     * @param directory
+     *            - working directory of the client.
+     */
+    public static void bind(final OutputStream out, final BufferedReader in, final Path directory) {
+        CONSOLE.set(new Console(new PrintStream(out, true), in, directory));
+    }
+
+    /**
+     * This method is used to restore the process console of the current thread.
+     */
+    public static void unbind() {
+        CONSOLE.remove();
+    }
+
+    /**
+     * This method is used to get the action the daemon runs once the client
+     * of the console bound to the current thread is gone, see
+     * {@link #onClose(Runnable)}.
+     *
+     * @return action closing the console, or an action doing nothing if no
+     *         console is bound.
+     */
+    public static Runnable closeAction() {
+        final Console console = CONSOLE.get();
+        return console == null ? () -> {
+        } : console::close;
+    }
+
+    /**
+     * This method is used to stop a long running command once its client is
+     * gone, e.g. a watch which prints nothing while the folder does not
+     * change. Without a bound console the process console is never closed,
+     * so the listener is not kept.
+     *
+     * @param listener
+     *            - run once when the client disconnects, right away if it
+     *            already did.
+     */
+    public static void onClose(final Runnable listener) {
+        final Console console = CONSOLE.get();
+        if (console != null) {
+            console.onClose(listener);
+        }
+    }
+
+    /**
+     * This method is used to run a task with the console of the current
+     * thread, on a thread without a console of its own. Worker threads created
+     * by a command this way log to the client of the command.
+     *
+     * @param task
+     *            - task run on another thread.
+     * @return task binding the console of the current thread while it runs,
+     *         or the task itself if no console is bound.
+     */
+    public static Runnable propagate(final Runnable task) {
+        final Console console = CONSOLE.get();
+        if (console == null) {
+            return task;
+        }
+        return () -> {
+            CONSOLE.set(console);
+            try {
+                task.run();
+            } finally {
+                unbind();
+            }
+        };
+    }
+
+    /**
+     * This method is used to compute a value with the console of the current
+     * thread, see {@link #propagate(Runnable)}.
+     *
+     * @param task
+     *            - task run on another thread.
+     * @return task binding the console of the current thread while it runs.
+     */
+    public static <T> Supplier<T> propagate(final Supplier<T> task) {
+        final Console console = CONSOLE.get();
+        if (console == null) {
+            return task;
+        }
+        return () -> {
+            CONSOLE.set(console);
+            try {
+                return task.get();
+            } finally {
+                unbind();
+            }
+        };
+    }
+
+    /**
+     * This method is used to create the threads of a fork join pool with the
+     * console of the current thread.
+     *
+     * @return thread factory for {@link ForkJoinPool}.
+     */
+    public static ForkJoinPool.ForkJoinWorkerThreadFactory forkJoinThreads() {
+        final Console console = CONSOLE.get();
+        return pool -> new ForkJoinWorkerThread(pool) {
+            @Override
+            protected void onStart() {
+                super.onStart();
+                if (console != null) {
+                    CONSOLE.set(console);
+                }
+            }
+        };
+    }
+
+    /**
+     * This method is used to get the input of the current command.
+     *
+     * @param fallback
+     *            - input used without a bound console.
+     * @return input of the bound console or the fallback.
+     */
+    public static BufferedReader reader(final BufferedReader fallback) {
+        final Console console = CONSOLE.get();
+        return console == null ? fallback : console.in;
+    }
+
+    /**
+     * This method is used to resolve a local path given on the command line,
+     * relative paths are relative to the working directory of the client.
+     *
+     * @param path
+     *            - local path.
+     * @return resolved path.
+     */
+    public static Path path(final String path) {
+        final Console console = CONSOLE.get();
+        return console == null ? Paths.get(path) : console.directory.resolve(path);
+    }
+
+    /**
+     * Client console bound to the threads of a command.
+     */
+    private static final class Console {
+        final private PrintStream out;
+        final private BufferedReader in;
+        final private Path directory;
+
+        final private List<Runnable> closeListeners = new ArrayList<>();
+        private boolean closed;
+
+        Console(final PrintStream out, final BufferedReader in, final Path directory) {
+            this.out = out;
+            this.in = in;
+            this.directory = directory;
+        }
+
+        void onClose(final Runnable listener) {
+            synchronized (this) {
+                if (!closed) {
+                    closeListeners.add(listener);
+                    return;
+                }
+            }
+            listener.run();
+        }
+
+        void close() {
+            final List<Runnable> listeners;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                listeners = new ArrayList<>(closeListeners);
+                closeListeners.clear();
+            }
+            listeners.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Hands every call to the stream of the console bound to the current
+     * thread, or to the process console. It never locks itself, only the
+     * stream it hands the call to.
+     */
+    private static final class RoutingPrintStream extends PrintStream {
+        final private PrintStream fallback;
+
+        RoutingPrintStream(final PrintStream fallback) {
+            super(fallback, true);
+            this.fallback = fallback;
+        }
+
+        private PrintStream target() {
+            final Console console = CONSOLE.get();
+            return console == null ? fallback : console.out;
+        }
+
+        @Override
+        public void write(final int b) {
+            target().write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            target().write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            target().flush();
+        }
+
+        @Override
+        public void close() {
+            target().close();
+        }
+
+        @Override
+        public boolean checkError() {
+            return target().checkError();
+        }
+
+        @Override
+        public void print(final boolean b) {
+            target().print(b);
+        }
+
+        @Override
+        public void print(final char c) {
+            target().print(c);
+        }
+
+        @Override
+        public void print(final int i) {
+            target().print(i);
+        }
+
+        @Override
+        public void print(final long l) {
+            target().print(l);
+        }
+
+        @Override
+        public void print(final float f) {
+            target().print(f);
+        }
+
+        @Override
+        public void print(final double d) {
+            target().print(d);
+        }
+
+        @Override
+        public void print(final char[] s) {
+            target().print(s);
+        }
+
+        @Override
+        public void print(final String s) {
+            target().print(s);
+        }
+
+        @Override
+        public void print(final Object obj) {
+            target().print(obj);
+        }
+
+        @Override
+        public void println() {
+            target().println();
+        }
+
+        @Override
+        public void println(final boolean x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(final char x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(final int x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(final long x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(final float x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(final double x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(final char[] x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(final String x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(final Object x) {
+            target().println(x);
+        }
+
+        @Override
+        public PrintStream printf(final String format, final Object... args) {
+            target().printf(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream printf(final Locale l, final String format, final Object... args) {
+            target().printf(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(final String format, final Object... args) {
+            target().format(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(final Locale l, final String format, final Object... args) {
+            target().format(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(final CharSequence csq) {
+            target().append(csq);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(final CharSequence csq, final int start, final int end) {
+            target().append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(final char c) {
+            target().append(c);
+            return this;
+        }
+    }
+}
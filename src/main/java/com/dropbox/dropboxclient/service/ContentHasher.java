@@ -0,0 +1,243 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Computes the Dropbox content hash of local files: the file is split into
+ * 4 MB blocks, every block is hashed with SHA-256 and the hash of the file is
+ * the SHA-256 of the concatenated block hashes. Blocks are memory mapped and
+ * hashed in parallel, so large files are hashed at the speed of all cores.
+ * Instances are thread-safe.
+ */
+public class ContentHasher implements AutoCloseable {
+
+    final static public int BLOCK_SIZE = 4 * 1024 * 1024;
+    final static private int HASH_LENGTH = 32;
+    final static private char[] HEX = "0123456789abcdef".toCharArray();
+    final static private ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(ContentHasher::newDigest);
+    final private ForkJoinPool pool;
+    final private int parallelism;
+
+    /**
+     * @param parallelism
+     *            - number of blocks hashed concurrently, the number of
+     *            processors if not positive.
+     */
+    public ContentHasher(final int parallelism) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(this.parallelism);
+    }
+
+    /**
+     * This method is used to hash a local file, or all files below a local
+     * directory. Files are hashed concurrently and reported to the listener in
+     * the order of their paths.
+     *
+     * @param source
+     *            - local file or directory.
+     * @param listener
+     *            - receives the hash of every file.
+     * @return number of files hashed.
+     * @throws IOException
+     *             if the directory could not be read.
+     */
+    public int hashAll(final Path source, final Listener listener) throws IOException {
+        final List<Path> files;
+        if (Files.isDirectory(source)) {
+            try (Stream<Path> walk = Files.walk(source)) {
+                files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+        } else {
+            files = new ArrayList<>();
+            files.add(source);
+        }
+        final Deque<ForkJoinTask<String>> pending = new ArrayDeque<>();
+        int hashed = 0;
+        int reported = 0;
+        for (Path file : files) {
+            if (pending.size() >= this.parallelism * 2) {
+                report(files.get(reported++), pending.poll(), listener);
+            }
+            pending.add(pool.submit(() -> {
+                try {
+                    return hash(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            hashed++;
+        }
+        while (!pending.isEmpty()) {
+            report(files.get(reported++), pending.poll(), listener);
+        }
+        return hashed;
+    }
+
+    private static void report(final Path file, final ForkJoinTask<String> task, final Listener listener) {
+        try {
+            listener.hashed(file, task.join());
+        } catch (RuntimeException e) {
+            listener.failed(file, unwrap(e));
+        }
+    }
+
+    /**
+     * This method is used to compute the content hash of a local file.
+     *
+     * @param file
+     *            - local file.
+     * @return hex encoded content hash, as returned by
+     *         {@link com.dropbox.core.v2.files.FileMetadata#getContentHash()}.
+     * @throws IOException
+     *             if the file could not be read.
+     */
+    public String hash(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final int blocks = (int) ((size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+            final byte[] blockHashes = new byte[blocks * HASH_LENGTH];
+            if (blocks == 1) {
+                hashBlock(channel, 0, size, blockHashes);
+            } else if (blocks > 1) {
+                final List<ForkJoinTask<?>> tasks = new ArrayList<>(blocks);
+                for (int block = 0; block < blocks; block++) {
+                    final int index = block;
+                    tasks.add(pool.submit(() -> {
+                        hashBlock(channel, index, size, blockHashes);
+                        return null;
+                    }));
+                }
+                for (ForkJoinTask<?> task : tasks) {
+                    join(task);
+                }
+            }
+            final MessageDigest digest = DIGESTS.get();
+            digest.reset();
+            return toHex(digest.digest(blockHashes));
+        }
+    }
+
+    /**
+     * This method is used to compute the content hash of a stream, reading it
+     * sequentially.
+     *
+     * @param in
+     *            - content, not closed by this method.
+     * @return hex encoded content hash.
+     * @throws IOException
+     *             if the stream could not be read.
+     */
+    public static String hash(final InputStream in) throws IOException {
+        final MessageDigest block = newDigest();
+        final MessageDigest overall = newDigest();
+        final byte[] buffer = new byte[64 * 1024];
+        int inBlock = 0;
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            int offset = 0;
+            while (offset < read) {
+                final int count = Math.min(read - offset, BLOCK_SIZE - inBlock);
+                block.update(buffer, offset, count);
+                offset += count;
+                inBlock += count;
+                if (inBlock == BLOCK_SIZE) {
+                    overall.update(block.digest());
+                    inBlock = 0;
+                }
+            }
+        }
+        if (inBlock > 0) {
+            overall.update(block.digest());
+        }
+        return toHex(overall.digest());
+    }
+
+    private static void hashBlock(final FileChannel channel, final int block, final long size,
+            final byte[] blockHashes) {
+        final long offset = (long) block * BLOCK_SIZE;
+        try {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                    Math.min(BLOCK_SIZE, size - offset));
+            final MessageDigest digest = DIGESTS.get();
+            digest.reset();
+            digest.update(buffer);
+            digest.digest(blockHashes, block * HASH_LENGTH, HASH_LENGTH);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void join(final ForkJoinTask<?> task) throws IOException {
+        try {
+            task.join();
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * This method is used to find the read error behind a failed task. A task
+     * joined from another thread may rethrow a copy of its exception, which
+     * has the original exception as its cause.
+     */
+    private static IOException unwrap(final RuntimeException failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UncheckedIOException) {
+                return ((UncheckedIOException) cause).getCause();
+            }
+        }
+        throw failure;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Receives the hashes computed by {@link ContentHasher#hashAll(Path, Listener)}.
+     */
+    public interface Listener {
+
+        void hashed(Path file, String hash);
+
+        void failed(Path file, IOException cause);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,120 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.dropbox.core.DbxRequestConfig;
+import com.dropbox.core.http.HttpRequestor;
+import com.dropbox.core.http.StandardHttpRequestor;
+import com.dropbox.core.v2.DbxClientV2;
+
+/**
+ * Keeps one {@link DbxClientV2} per access token and locale. All clients share
+ * a single HTTP requestor, so the connections kept alive by one command are
+ * reused by the next request instead of paying a new TLS handshake.
+ * <p>
+ * The requestor is based on {@code HttpsURLConnection}, whose keep-alive pool
+ * is configured JVM wide through the {@code http.keepAlive} and
+ * {@code http.maxConnections} system properties. They are only set when they
+ * have not been given on the command line.
+ */
+public class DbxClientRegistry {
+
+    final static private String CLIENT_IDENTIFIER = "desktop-client";
+    final private ConcurrentHashMap<String, DbxClientV2> clients = new ConcurrentHashMap<>();
+    final private HttpRequestor httpRequestor;
+
+    /**
+     * @param maxConnections
+     *            - idle connections kept alive per host.
+     * @param connectTimeoutMillis
+     *            - connect timeout of every request.
+     * @param readTimeoutMillis
+     *            - read timeout of every request.
+     */
+    public DbxClientRegistry(final int maxConnections, final long connectTimeoutMillis,
+            final long readTimeoutMillis) {
+        this(createHttpRequestor(maxConnections, connectTimeoutMillis, readTimeoutMillis));
+    }
+
+    /**
+     * @param httpRequestor
+     *            - requestor shared by all clients.
+     */
+    public DbxClientRegistry(final HttpRequestor httpRequestor) {
+        this.httpRequestor = httpRequestor;
+    }
+
+    /**
+     * This method is used to create the standard requestor with a keep-alive
+     * pool and timeouts.
+     *
+     * @param maxConnections
+     *            - idle connections kept alive per host.
+     * @param connectTimeoutMillis
+     *            - connect timeout of every request.
+     * @param readTimeoutMillis
+     *            - read timeout of every request.
+     * @return requestor instance.
+     */
+    public static HttpRequestor createHttpRequestor(final int maxConnections, final long connectTimeoutMillis,
+            final long readTimeoutMillis) {
+        if (System.getProperty("http.keepAlive") == null) {
+            System.setProperty("http.keepAlive", "true");
+        }
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(Math.max(1, maxConnections)));
+        }
+        return new StandardHttpRequestor(StandardHttpRequestor.Config.builder()
+                .withConnectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+                .withReadTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS).build());
+    }
+
+    /**
+     * This method is used to get the client of an access token, the client is
+     * created on first use.
+     *
+     * @param accessToken
+     *            - user accessToken.
+     * @param locale
+     *            - user locale, may be null or empty.
+     * @return shared Dropbox api client instance.
+     */
+    public DbxClientV2 getClient(final String accessToken, final String locale) {
+        final String userLocale = locale == null || locale.isEmpty() ? null : locale;
+        final String key = accessToken + '\u0000' + (userLocale == null ? "" : userLocale);
+        DbxClientV2 client = clients.get(key);
+        if (client == null) {
+            client = clients.computeIfAbsent(key, ignored -> new DbxClientV2(createRequestConfig(userLocale),
+                    accessToken));
+        }
+        return client;
+    }
+
+    /**
+     * This method is used to create a request config using the shared
+     * requestor.
+     *
+     * @param locale
+     *            - user locale, may be null.
+     * @return request config instance.
+     */
+    public DbxRequestConfig createRequestConfig(final String locale) {
+        return DbxRequestConfig.newBuilder(CLIENT_IDENTIFIER).withUserLocale(locale)
+                .withHttpRequestor(httpRequestor).build();
+    }
+
+    /**
+     * @return requestor shared by all clients.
+     */
+    public HttpRequestor getHttpRequestor() {
+        return httpRequestor;
+    }
+
+    /**
+     * @return number of cached clients.
+     */
+    public int size() {
+        return clients.size();
+    }
+}
@@ -0,0 +1,129 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.function.Function;
+
+/**
+ * Renders every entry as a row of comma or tab separated values, preceded by
+ * a header row. Missing values are written as empty columns.
+ */
+public class DelimitedRenderer extends StructuredRenderer {
+
+    final private char separator;
+    private boolean first;
+
+    /**
+     * @param sink
+     *            - receives the rows.
+     * @param mimeTypes
+     *            - resolves the mime type of a file name, may return null.
+     * @param format
+     *            - either {@link OutputFormat#CSV} or {@link OutputFormat#TSV}.
+     */
+    public DelimitedRenderer(final OutputSink sink, final Function<String, String> mimeTypes,
+            final OutputFormat format) {
+        super(sink, mimeTypes);
+        if (format != OutputFormat.CSV && format != OutputFormat.TSV) {
+            throw new IllegalArgumentException("Not a delimited format: " + format);
+        }
+        this.separator = format == OutputFormat.CSV ? ',' : '\t';
+    }
+
+    @Override
+    protected void header(final String[] columns) {
+        beginRecord();
+        for (String column : columns) {
+            text(column, column);
+        }
+        endRecord();
+    }
+
+    @Override
+    protected void beginRecord() {
+        first = true;
+    }
+
+    @Override
+    protected void text(final String column, final CharSequence value) {
+        next();
+        if (value == null) {
+            return;
+        }
+        if (separator == ',') {
+            appendCsv(value);
+        } else {
+            appendTsv(value);
+        }
+    }
+
+    @Override
+    protected void number(final String column, final long value) {
+        next();
+        sink.append(value);
+    }
+
+    @Override
+    protected void bool(final String column, final boolean value) {
+        next();
+        sink.append(value ? "true" : "false");
+    }
+
+    @Override
+    protected void missing(final String column) {
+        next();
+    }
+
+    @Override
+    protected void endRecord() {
+        sink.newLine();
+    }
+
+    private void next() {
+        if (!first) {
+            sink.append(separator);
+        }
+        first = false;
+    }
+
+    private void appendCsv(final CharSequence value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            final char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            sink.append(value);
+            return;
+        }
+        sink.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"') {
+                sink.append('"');
+            }
+            sink.append(c);
+        }
+        sink.append('"');
+    }
+
+    private void appendTsv(final CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+            case '\t':
+                sink.append("\\t");
+                break;
+            case '\n':
+                sink.append("\\n");
+                break;
+            case '\r':
+                sink.append("\\r");
+                break;
+            case '\\':
+                sink.append("\\\\");
+                break;
+            default:
+                sink.append(c);
+            }
+        }
+    }
+}
@@ -1,16 +1,29 @@
 package com.dropbox.dropboxclient.service;
 
 import java.io.BufferedReader;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.dropbox.core.DbxAppInfo;
@@ -18,11 +31,13 @@ import com.dropbox.core.DbxAuthFinish;
 import com.dropbox.core.DbxException;
 import com.dropbox.core.DbxRequestConfig;
 import com.dropbox.core.DbxWebAuth;
+import com.dropbox.core.http.HttpRequestor;
 import com.dropbox.core.v2.DbxClientV2;
 import com.dropbox.core.v2.files.FileMetadata;
 import com.dropbox.core.v2.files.FolderMetadata;
-import com.dropbox.core.v2.files.ListFolderResult;
+import com.dropbox.core.v2.files.ListFolderContinueErrorException;
 import com.dropbox.core.v2.files.Metadata;
+import com.dropbox.core.v2.users.Account;
 import com.dropbox.core.v2.users.FullAccount;
 import com.dropbox.core.v2.users.Name;
 
@@ -30,11 +45,58 @@ import com.dropbox.core.v2.users.Name;
 public class DropboxClientAccessor {
 
     final static private Logger log = LoggerFactory.getLogger(DropboxClientAccessor.class);
-    final private String pattern = "MM-dd-yyyy HH:mm:ss";
-    final private SimpleDateFormat simpleDateFormat = new SimpleDateFormat(pattern);
+    final private MetadataFormatter formatter = new MetadataFormatter();
     private DbxClientV2 clientInstance;
     private DbxWebAuth webAuthInstance;
+    private OutputSink outputSink;
+    private MimeTypeResolver mimeTypeResolver;
+    private DbxClientRegistry clientRegistry;
+    private RequestScheduler requestScheduler;
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+    private ContentHasher contentHasher;
     private BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+    final private ThreadLocal<Boolean> statsEnabled = new ThreadLocal<>();
+    final private Map<String, SearchIndex> searchIndexes = new ConcurrentHashMap<>();
+    @Value("${dropbox.list.parallelism:8}")
+    private int listingParallelism = 8;
+    @Value("${dropbox.cache.directory:${user.home}/.dropbox-client/cache}")
+    private String cacheDirectory = System.getProperty("user.home") + "/.dropbox-client/cache";
+    @Value("${dropbox.mime.types.location:}")
+    private String mimeTypesLocation;
+    @Value("${dropbox.http.max.connections:16}")
+    private int maxConnections = 16;
+    @Value("${dropbox.http.connect.timeout.millis:20000}")
+    private long connectTimeoutMillis = 20_000L;
+    @Value("${dropbox.http.read.timeout.millis:100000}")
+    private long readTimeoutMillis = 100_000L;
+    @Value("${dropbox.watch.timeout.seconds:30}")
+    private long watchTimeoutSeconds = 30L;
+    @Value("${dropbox.api.base.url:}")
+    private String apiBaseUrl;
+    @Value("${dropbox.request.max.concurrency:16}")
+    private int maxConcurrentRequests = 16;
+    @Value("${dropbox.request.max.retries:5}")
+    private int maxRetries = 5;
+    @Value("${dropbox.stat.concurrency:32}")
+    private int statConcurrency = 32;
+    @Value("${dropbox.info.concurrency:16}")
+    private int infoConcurrency = 16;
+    @Value("${dropbox.download.parallelism:8}")
+    private int downloadParallelism = 8;
+    @Value("${dropbox.download.chunk.size:16777216}")
+    private long downloadChunkSize = 16L * 1024 * 1024;
+    @Value("${dropbox.upload.parallelism:8}")
+    private int uploadParallelism = 8;
+    @Value("${dropbox.upload.chunk.size:8388608}")
+    private long uploadChunkSize = 8L * 1024 * 1024;
+    @Value("${dropbox.upload.batch.size:1000}")
+    private int uploadBatchSize = FileUploader.MAX_BATCH_SIZE;
+    @Value("${dropbox.relocate.batch.size:1000}")
+    private int relocateBatchSize = FileRelocator.MAX_BATCH_SIZE;
+    @Value("${dropbox.relocate.jobs:2}")
+    private int relocateJobs = 2;
+    @Value("${dropbox.hash.parallelism:0}")
+    private int hashParallelism;
 
     /**
      * This method is used to retrieve the accessToken from Dropbox using Dropbox
@@ -59,7 +121,7 @@ public class DropboxClientAccessor {
 
         String code = null;
         try {
-            code = this.reader.readLine();
+            code = this.getReader().readLine();
         } catch (IOException e) {
             log.error("Invalid input data: Error :{}", e.getMessage());
         }
@@ -83,28 +145,91 @@ public class DropboxClientAccessor {
      *            - user locale
      */
     public void fetchAndDisplayUserInfo(final String accessToken, final String locale) {
-        DbxRequestConfig config = DbxRequestConfig.newBuilder("desktop-client").withUserLocale(locale).build();
-        DbxClientV2 client = this.getDBXClient(config, accessToken);
+        fetchAndDisplayUserInfo(accessToken, locale, OutputFormat.TEXT);
+    }
+
+    /**
+     * This method is used to display the user account information.
+     * 
+     * @param accessToken
+     *            - accessToken of the user account
+     * @param locale
+     *            - user locale
+     * @param format
+     *            - output format
+     */
+    public void fetchAndDisplayUserInfo(final String accessToken, final String locale, final OutputFormat format) {
+        DbxClientV2 client = this.getDBXClient(accessToken, locale);
+        final OutputSink sink = this.getOutputSink();
         try {
-            FullAccount account = client.users().getCurrentAccount();
-            Name name = account.getName();
-            System.out.println();
-            System.out.println("--------------------------------------------------------------------------");
-            System.out.format("User ID:       %s%s%n", "", account.getAccountId());
-            System.out.format("Display Name:  %s%n", name.getDisplayName());
-            System.out.format("Name:          %s %s (%s)%n", name.getGivenName(), name.getSurname(),
-                    name.getFamiliarName());
-            System.out.format("E-mail:        %s (%s)%n", account.getEmail(),
-                    account.getEmailVerified() ? "verified" : "");
-            System.out.format("Country:       %s%n", account.getCountry());
-            System.out.format("Referral link: %s%n", account.getReferralLink());
-            System.out.println("--------------------------------------------------------------------------");
+            FullAccount account = this.getRequestScheduler().execute("users/get_current_account",
+                    () -> client.users().getCurrentAccount());
+            final ListingRenderer renderer = createRenderer(format, sink, MetadataFormatter.toLocale(locale), false);
+            renderer.beginAccounts();
+            renderer.renderAccount(account);
         } catch (DbxException e) {
+            sink.flush();
             log.error("Error occured while geting user information from dropbox api: {}", e.getMessage());
+        } finally {
+            sink.flush();
         }
 
     }
 
+    /**
+     * This method is used to display the account information of many users.
+     * The access tokens are read one per line and checked concurrently,
+     * accounts given by their "dbid:" id are fetched in batches.
+     * 
+     * @param source
+     *            - file with the access tokens and account ids, "-" for the
+     *            standard input.
+     * @param locale
+     *            - user locale
+     * @param format
+     *            - output format
+     */
+    public void fetchAndDisplayUsersInfo(final String source, final String locale, final OutputFormat format) {
+        final OutputSink sink = this.getOutputSink();
+        final ListingRenderer renderer = createRenderer(format, sink, MetadataFormatter.toLocale(locale), false);
+        final AccountLookup lookup = new AccountLookup(token -> this.getDBXClient(token, locale),
+                this.getRequestScheduler(), this.infoConcurrency);
+        final AtomicInteger failures = new AtomicInteger();
+        final AccountLookup.Listener listener = new AccountLookup.Listener() {
+            @Override
+            public void found(final int line, final Account account) {
+                renderer.renderAccount(account);
+            }
+
+            @Override
+            public void failed(final int line, final Exception cause) {
+                failures.incrementAndGet();
+                sink.flush();
+                // The line number only, the access token must not end up in the logs.
+                log.error("\n Error occured while geting the account of line {}. Cause: {}", line,
+                        cause.getMessage());
+            }
+        };
+        try {
+            renderer.beginAccounts();
+            final int total;
+            if ("-".equals(source)) {
+                total = lookup.lookup(this.getReader(), listener);
+            } else {
+                try (BufferedReader lines = Files.newBufferedReader(ConsoleContext.path(source))) {
+                    total = lookup.lookup(lines, listener);
+                }
+            }
+            sink.flush();
+            log.info("{} accounts found, {} failed.", total - failures.get(), failures.get());
+        } catch (IOException e) {
+            sink.flush();
+            log.error("\n Unable to read the access tokens from {}. Cause: {}", source, e.getMessage());
+        } finally {
+            sink.flush();
+        }
+    }
+
     /**
      * This method is used to retrieve files metadata from dropbox to display.
      * 
@@ -116,104 +241,735 @@ public class DropboxClientAccessor {
      *            - user locale.
      */
     public void retrieveFileInfo(String accessToken, String path, String locale) {
-        DbxRequestConfig config = DbxRequestConfig.newBuilder("desktop-client").withUserLocale(locale).build();
-        DbxClientV2 client = this.getDBXClient(config, accessToken);
-        getDirectoryInformation(path, client);
+        retrieveFileInfo(accessToken, path, locale, new ListingOptions());
+    }
+
+    /**
+     * This method is used to retrieve files metadata from dropbox to display.
+     * 
+     * @param accessToken
+     *            - user accessToken to authorize.
+     * @param path
+     *            - directory or file path.
+     * @param locale
+     *            - user locale.
+     * @param options
+     *            - listing options.
+     */
+    public void retrieveFileInfo(String accessToken, String path, String locale, ListingOptions options) {
+        DbxClientV2 client = this.getDBXClient(accessToken, locale);
+        final OutputSink sink = this.getOutputSink();
+        try {
+            getDirectoryInformation(accessToken, path, client, options, MetadataFormatter.toLocale(locale), sink);
+        } finally {
+            sink.flush();
+        }
+    }
+
+    /**
+     * This method is used to print the total size and number of files below
+     * every folder of a Dropbox folder, down to a maximum depth. The entries
+     * are counted as the pages of a recursive listing arrive and are not
+     * kept.
+     * 
+     * @param accessToken
+     *            - user accessToken to authorize.
+     * @param path
+     *            - folder path, empty for the root folder.
+     * @param locale
+     *            - user locale.
+     * @param maxDepth
+     *            - deepest printed folder level below the path.
+     */
+    public void diskUsage(String accessToken, String path, String locale, int maxDepth) {
+        DbxClientV2 client = this.getDBXClient(accessToken, locale);
+        final OutputSink sink = this.getOutputSink();
+        final Locale userLocale = MetadataFormatter.toLocale(locale);
+        final FolderUsage usage = new FolderUsage(path, maxDepth);
+        try {
+            new RecursiveLister(client, this.getRequestScheduler()).fetch(path, usage::add);
+            final StringBuilder scratch = new StringBuilder(64);
+            usage.visit((folder, depth, bytes, files) -> {
+                scratch.setLength(0);
+                this.formatter.readableFileSize(bytes, userLocale, scratch);
+                sink.append(scratch).append('\t').append(files).append(" files\t")
+                        .append(folder.isEmpty() ? "/" : folder).newLine();
+            });
+        } catch (IllegalArgumentException e) {
+            log.error("\n Invalid path: {}, please verify and retry again. Cause: {}", path, e.getMessage());
+        } catch (DbxException e) {
+            log.error("\n Internal error cause:{}", e.getMessage());
+        } finally {
+            sink.flush();
+        }
+    }
+
+    /**
+     * This method is used to print the changes made below a Dropbox folder as
+     * they happen, one line per added, modified or deleted entry, until the
+     * thread is interrupted, nobody reads the output any more or the daemon
+     * client running the command disconnects.
+     * 
+     * @param accessToken
+     *            - user accessToken to authorize.
+     * @param path
+     *            - folder path, empty for the root folder.
+     * @param locale
+     *            - user locale.
+     */
+    public void watchFolder(String accessToken, String path, String locale) {
+        DbxClientV2 client = this.getDBXClient(accessToken, locale);
+        final OutputSink sink = this.getOutputSink();
+        final FolderWatcher watcher = new FolderWatcher(client, this.getRequestScheduler(), this.watchTimeoutSeconds);
+        // A daemon client may go away while nothing changes, the watch must not keep its thread.
+        ConsoleContext.onClose(watcher::stop);
+        try {
+            watcher.watch(path, new FolderWatcher.Listener() {
+                @Override
+                public void changed(final FolderWatcher.Change change, final Metadata metadata) {
+                    sink.append(change.value()).append('\t').append(metadata.getPathDisplay() != null
+                            ? metadata.getPathDisplay() : metadata.getPathLower());
+                    if (metadata instanceof FolderMetadata) {
+                        sink.append('/');
+                    }
+                    sink.newLine();
+                }
+
+                @Override
+                public void caughtUp() {
+                    sink.flush();
+                    if (System.out.checkError()) {
+                        // Nobody reads the output any more, e.g. a closed pipe.
+                        watcher.stop();
+                    }
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            log.error("\n Invalid path: {}, please verify and retry again. Cause: {}", path, e.getMessage());
+        } catch (DbxException e) {
+            log.error("\n Internal error cause:{}", e.getMessage());
+        } finally {
+            sink.flush();
+        }
+    }
+
+    /**
+     * This method is used to print the files of the cached listing of a folder
+     * matching a query, without calling the api. The search index is built
+     * from the cache on first use and kept up to date by later cached
+     * listings of the folder.
+     * 
+     * @param accessToken
+     *            - user accessToken, identifies the cached listing.
+     * @param path
+     *            - folder path listed with the cache option.
+     * @param locale
+     *            - user locale.
+     * @param query
+     *            - name pattern, size and date conditions.
+     */
+    public void findFiles(String accessToken, String path, String locale, SearchQuery query) {
+        final OutputSink sink = this.getOutputSink();
+        try {
+            final SearchIndex index = this.getSearchIndex(accessToken, path);
+            if (index == null) {
+                log.error("\n No cached listing of {}, run the list command with --cache first.",
+                        path.isEmpty() ? "/" : path);
+                return;
+            }
+            final List<FileMetadata> matches;
+            synchronized (index) {
+                matches = index.search(query);
+            }
+            final ListingRenderer renderer = createRenderer(query.getFormat(), sink,
+                    MetadataFormatter.toLocale(locale), true);
+            renderer.beginEntries();
+            for (FileMetadata file : matches) {
+                renderer.visitFile(file);
+            }
+        } catch (IOException e) {
+            log.error("\n Unable to read the cached listing of {}. Cause: {}", path, e.getMessage());
+        } finally {
+            sink.flush();
+        }
+    }
+
+    /**
+     * This method is used to get the search index of a cached listing,
+     * loading the listing if the index is not in memory yet.
+     * 
+     * @return search index or null if the folder has no cached listing.
+     * @throws IOException
+     *             if the cache file is unreadable.
+     */
+    private SearchIndex getSearchIndex(final String accessToken, final String path) throws IOException {
+        final String key = indexKey(accessToken, path);
+        SearchIndex index = this.searchIndexes.get(key);
+        if (index == null) {
+            final CachedListing cached = new MetadataCache(Paths.get(this.cacheDirectory)).load(accessToken, path);
+            if (cached == null) {
+                return null;
+            }
+            index = new SearchIndex(cached.getTree().entries());
+            final SearchIndex previous = this.searchIndexes.putIfAbsent(key, index);
+            index = previous != null ? previous : index;
+        }
+        return index;
+    }
+
+    private static String indexKey(final String accessToken, final String path) {
+        return accessToken + '\n' + path.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * This method is used to print the metadata of a list of paths. The paths
+     * are read one per line and resolved concurrently.
+     * 
+     * @param accessToken
+     *            - user accessToken to authorize.
+     * @param source
+     *            - file with the paths, "-" for the standard input.
+     * @param locale
+     *            - user locale.
+     * @param format
+     *            - output format.
+     * @param order
+     *            - order of the printed entries.
+     */
+    public void statPaths(String accessToken, String source, String locale, OutputFormat format, StatOrder order) {
+        DbxClientV2 client = this.getDBXClient(accessToken, locale);
+        final OutputSink sink = this.getOutputSink();
+        final ListingRenderer renderer = createRenderer(format, sink, MetadataFormatter.toLocale(locale), true);
+        try {
+            renderer.beginEntries();
+            if ("-".equals(source)) {
+                resolvePaths(client, this.getReader(), order, renderer, sink);
+            } else {
+                try (BufferedReader paths = Files.newBufferedReader(ConsoleContext.path(source))) {
+                    resolvePaths(client, paths, order, renderer, sink);
+                }
+            }
+        } catch (IOException e) {
+            sink.flush();
+            log.error("\n Unable to read the paths from {}. Cause: {}", source, e.getMessage());
+        } finally {
+            sink.flush();
+        }
+    }
+
+    private void resolvePaths(final DbxClientV2 client, final BufferedReader paths, final StatOrder order,
+            final ListingRenderer renderer, final OutputSink sink) throws IOException {
+        final PathResolver resolver = new PathResolver(client, this.getRequestScheduler(), this.statConcurrency);
+        resolver.resolve(paths, order, new PathResolver.Listener() {
+            @Override
+            public void resolved(final String path, final Metadata metadata) {
+                if (metadata instanceof FolderMetadata) {
+                    renderer.visitFolder((FolderMetadata) metadata);
+                } else if (metadata instanceof FileMetadata) {
+                    renderer.visitFile((FileMetadata) metadata);
+                }
+            }
+
+            @Override
+            public void failed(final String path, final Exception cause) {
+                sink.flush();
+                log.error("\n Invalid path: {}, please verify and retry again. Cause: {}", path, cause.getMessage());
+            }
+        });
+    }
+
+    /**
+     * This method is used to download a file or a folder with all its sub
+     * folders into a local directory.
+     * 
+     * @param accessToken
+     *            - user accessToken to authorize.
+     * @param path
+     *            - file or folder path, empty for the root folder.
+     * @param directory
+     *            - local target directory.
+     * @param locale
+     *            - user locale.
+     */
+    public void downloadFiles(String accessToken, String path, String directory, String locale) {
+        DbxClientV2 client = this.getDBXClient(accessToken, locale);
+        final OutputSink sink = this.getOutputSink();
+        final FileDownloader downloader = new FileDownloader(client, this.getRequestScheduler(),
+                this.downloadParallelism, this.downloadChunkSize);
+        try {
+            final FileDownloader.Summary summary = downloader.download(path, ConsoleContext.path(directory));
+            final StringBuilder scratch = new StringBuilder(64);
+            this.formatter.readableFileSize(summary.getBytes(), MetadataFormatter.toLocale(locale), scratch);
+            sink.append("Downloaded ").append(summary.getDownloaded()).append(" files (").append(scratch)
+                    .append("), skipped ").append(summary.getSkipped()).append(", failed ")
+                    .append(summary.getFailed()).append('.').newLine();
+        } catch (IllegalArgumentException e) {
+            log.error("\n Invalid path: {}, please verify and retry again. Cause: {}", path, e.getMessage());
+        } catch (DbxException e) {
+            log.error("\n Internal error cause:{}", e.getMessage());
+        } catch (IOException e) {
+            log.error("\n Unable to create the directory {}. Cause: {}", directory, e.getMessage());
+        } finally {
+            sink.flush();
+        }
+    }
+
+    /**
+     * This method is used to upload a local file, or all files below a local
+     * directory, into a Dropbox folder.
+     * 
+     * @param accessToken
+     *            - user accessToken to authorize.
+     * @param source
+     *            - local file or directory.
+     * @param folder
+     *            - Dropbox folder, empty for the root folder.
+     * @param locale
+     *            - user locale.
+     */
+    public void uploadFiles(String accessToken, String source, String folder, String locale) {
+        DbxClientV2 client = this.getDBXClient(accessToken, locale);
+        final OutputSink sink = this.getOutputSink();
+        final FileUploader uploader = new FileUploader(client, this.getRequestScheduler(), this.uploadParallelism,
+                this.uploadChunkSize, this.uploadBatchSize);
+        try {
+            final FileUploader.Summary summary = uploader.upload(ConsoleContext.path(source), folder);
+            final StringBuilder scratch = new StringBuilder(64);
+            this.formatter.readableFileSize(summary.getBytes(), MetadataFormatter.toLocale(locale), scratch);
+            sink.append("Uploaded ").append(summary.getUploaded()).append(" files (").append(scratch)
+                    .append("), failed ").append(summary.getFailed()).append('.').newLine();
+        } catch (IOException e) {
+            log.error("\n Unable to read {}. Cause: {}", source, e.getMessage());
+        } finally {
+            sink.flush();
+        }
+    }
+
+    /**
+     * This method is used to copy or move many files and folders inside
+     * Dropbox. The pairs of paths are read one per line, the source and the
+     * destination separated by a tab, and relocated in batches.
+     * 
+     * @param accessToken
+     *            - user accessToken to authorize.
+     * @param source
+     *            - file with the pairs of paths, "-" for the standard input.
+     * @param locale
+     *            - user locale.
+     * @param operation
+     *            - copy or move.
+     */
+    public void relocateFiles(String accessToken, String source, String locale, FileRelocator.Operation operation) {
+        DbxClientV2 client = this.getDBXClient(accessToken, locale);
+        final OutputSink sink = this.getOutputSink();
+        final FileRelocator relocator = new FileRelocator(client, this.getRequestScheduler(), this.relocateBatchSize,
+                this.relocateJobs);
+        try {
+            final FileRelocator.Summary summary;
+            if ("-".equals(source)) {
+                summary = relocator.relocate(this.getReader(), operation);
+            } else {
+                try (BufferedReader pairs = Files.newBufferedReader(ConsoleContext.path(source))) {
+                    summary = relocator.relocate(pairs, operation);
+                }
+            }
+            sink.append(operation == FileRelocator.Operation.COPY ? "Copied " : "Moved ")
+                    .append(summary.getRelocated()).append(" entries, failed ").append(summary.getFailed())
+                    .append('.').newLine();
+        } catch (IOException e) {
+            log.error("\n Unable to read the paths from {}. Cause: {}", source, e.getMessage());
+        } finally {
+            sink.flush();
+        }
+    }
+
+    /**
+     * This method is used to sync a local directory with a Dropbox folder in
+     * one direction, transferring only the files which differ.
+     * 
+     * @param accessToken
+     *            - user accessToken to authorize.
+     * @param directory
+     *            - local directory.
+     * @param folder
+     *            - Dropbox folder, empty for the root folder.
+     * @param locale
+     *            - user locale.
+     * @param direction
+     *            - side which is copied to the other one.
+     */
+    public void syncFiles(String accessToken, String directory, String folder, String locale,
+            SyncDirection direction) {
+        DbxClientV2 client = this.getDBXClient(accessToken, locale);
+        final OutputSink sink = this.getOutputSink();
+        final RequestScheduler scheduler = this.getRequestScheduler();
+        final FolderSync sync = new FolderSync(client, scheduler, this.getContentHasher(), this.listingParallelism,
+                new FileUploader(client, scheduler, this.uploadParallelism, this.uploadChunkSize,
+                        this.uploadBatchSize),
+                new FileDownloader(client, scheduler, this.downloadParallelism, this.downloadChunkSize));
+        final Path local = ConsoleContext.path(directory);
+        try {
+            final FolderSync.Summary summary = sync.sync(local, folder, direction,
+                    SyncState.fileOf(Paths.get(this.cacheDirectory), local, folder));
+            final StringBuilder scratch = new StringBuilder(64);
+            this.formatter.readableFileSize(summary.getBytes(), MetadataFormatter.toLocale(locale), scratch);
+            sink.append(direction == SyncDirection.UP ? "Uploaded " : "Downloaded ")
+                    .append(summary.getTransferred()).append(" files (").append(scratch).append("), up to date ")
+                    .append(summary.getUpToDate()).append(", hashed ").append(summary.getHashed())
+                    .append(", failed ").append(summary.getFailed()).append('.').newLine();
+        } catch (IllegalArgumentException e) {
+            log.error("\n Invalid path: {}, please verify and retry again. Cause: {}", folder, e.getMessage());
+        } catch (DbxException e) {
+            log.error("\n Internal error cause:{}", e.getMessage());
+        } catch (IOException e) {
+            log.error("\n Unable to sync {}. Cause: {}", directory, e.getMessage());
+        } finally {
+            sink.flush();
+        }
+    }
+
+    /**
+     * This method is used to print the Dropbox content hash of a local file, or
+     * of all files below a local directory with their relative paths.
+     * 
+     * @param source
+     *            - local file or directory.
+     */
+    public void hashFiles(String source) {
+        final OutputSink sink = this.getOutputSink();
+        final Path root = ConsoleContext.path(source).toAbsolutePath().normalize();
+        final Path base = Files.isDirectory(root) ? root : root.getParent();
+        try {
+            this.getContentHasher().hashAll(root, new ContentHasher.Listener() {
+                @Override
+                public void hashed(final Path file, final String hash) {
+                    sink.append(hash).append("  ").append(base.relativize(file).toString().replace('\\', '/'))
+                            .newLine();
+                }
+
+                @Override
+                public void failed(final Path file, final IOException cause) {
+                    sink.flush();
+                    log.error("\n Unable to read {}. Cause: {}", file, cause.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.error("\n Unable to read {}. Cause: {}", source, e.getMessage());
+        } finally {
+            sink.flush();
+        }
     }
 
     /**
      * This method is used to retrieve all the files metadata information from
-     * dropbox account.
+     * dropbox account. Depending on the listing mode sub folders are either
+     * listed lazily with fetches ahead by a {@link FolderIterator} or fetched
+     * with a single recursive cursor by the {@link RecursiveLister}. Only the
+     * console format of a recursive listing keeps the whole tree in memory.
      * 
+     * @param accessToken
+     *            - user accessToken, identifies the cached listing.
      * @param path
      *            - path or directory.
      * @param client
      *            - Dropbox api client instance.
+     * @param options
+     *            - listing options.
+     * @param locale
+     *            - locale of the printed sizes and dates.
+     * @param sink
+     *            - receives the rendered entries.
      */
-    private void getDirectoryInformation(final String path, final DbxClientV2 client) {
+    private void getDirectoryInformation(final String accessToken, final String path, final DbxClientV2 client,
+            final ListingOptions options, final Locale locale, final OutputSink sink) {
         try {
             Metadata metaInfo = null;
             if (!path.isEmpty()) {
-                metaInfo = client.files().getMetadata(path);
+                metaInfo = this.getRequestScheduler().execute("files/get_metadata",
+                        () -> client.files().getMetadata(path));
             }
+            final ListingRenderer renderer = createRenderer(options.getFormat(), sink, locale, false);
+            renderer.beginEntries();
             if (metaInfo instanceof FileMetadata) {
-                printFileMetadata((FileMetadata) metaInfo);
+                renderer.visitFile((FileMetadata) metaInfo);
+            } else if (options.isCache()) {
+                listCached(accessToken, path, client).visit(path, renderer);
+            } else if (options.getMode() == ListingMode.RECURSIVE && options.getFormat() == OutputFormat.TEXT) {
+                // The console format is indented by folder, the hierarchy is rebuilt first.
+                new RecursiveLister(client, this.getRequestScheduler()).list(path, renderer);
             } else {
-                ListFolderResult result = client.files().listFolder(path);
-                while (true) {
-                    for (Metadata metadata : result.getEntries()) {
+                // Structured records carry their full path, recursive pages are rendered as they arrive.
+                try (Stream<Metadata> entries = listEntries(client, path, options.getMode())) {
+                    entries.forEach(metadata -> {
                         if (metadata instanceof FolderMetadata) {
-                            System.out.format("%n%s\t\t\t : Dir%n", metadata.getPathDisplay());
-                            System.out.print("  ");
-                            getDirectoryInformation(metadata.getPathDisplay(), client);
+                            renderer.visitFolder((FolderMetadata) metadata);
                         } else {
-                            printFileMetadata((FileMetadata) metadata);
+                            renderer.visitFile((FileMetadata) metadata);
                         }
-                    }
-                    if (!result.getHasMore()) {
-                        break;
-                    }
-                    result = client.files().listFolderContinue(result.getCursor());
+                    });
+                } catch (UncheckedDbxException e) {
+                    throw e.getCause();
                 }
-
             }
         } catch (IllegalArgumentException e) {
+            sink.flush();
             log.error("\n Invalid path: {}, please verify and retry again. Cause: {}", path, e.getMessage());
         } catch (DbxException e) {
+            sink.flush();
             log.error("\n Internal error cause:{}", e.getMessage());
         }
     }
 
     /**
-     * This method is used to print the file metadata to the application console.
+     * This method is used to lazily list the folders and files below a
+     * Dropbox folder. Pages are fetched as the stream is consumed, so a
+     * consumer which stops early, e.g. with limit or findFirst, saves the
+     * remaining calls. The stream must be closed, with try-with-resources, to
+     * stop the listings fetched ahead; its iterator can be used as well.
      * 
-     * @param fileMetadata
-     *            - file metadata instance.
+     * @param accessToken
+     *            - user accessToken to authorize.
+     * @param path
+     *            - folder path, empty for the root folder.
+     * @param locale
+     *            - user locale.
+     * @param mode
+     *            - walk: depth-first, every folder followed by its sub tree;
+     *            recursive: in the order of the pages of a recursive cursor.
+     * @return lazy stream of folder and file metadata, failures are thrown as
+     *         {@link UncheckedDbxException}.
      */
-    private void printFileMetadata(final FileMetadata fileMetadata) {
+    public Stream<Metadata> listEntries(String accessToken, String path, String locale, ListingMode mode) {
+        return listEntries(this.getDBXClient(accessToken, locale), path, mode);
+    }
+
+    private Stream<Metadata> listEntries(final DbxClientV2 client, final String path, final ListingMode mode) {
+        final Iterator<Metadata> iterator;
+        final Runnable close;
+        if (mode == ListingMode.RECURSIVE) {
+            iterator = new RecursiveLister(client, this.getRequestScheduler()).iterator(path);
+            close = () -> {
+            };
+        } else {
+            final FolderIterator folders = new FolderWalker(client, this.listingParallelism,
+                    this.getRequestScheduler()).iterator(path);
+            iterator = folders;
+            close = folders::close;
+        }
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(close);
+    }
+
+    /**
+     * This method is used to list a folder through the local metadata cache. A
+     * cached listing is brought up to date with the changes made since its
+     * cursor, otherwise the folder is listed recursively. The result is saved
+     * for the next run.
+     * 
+     * @param accessToken
+     *            - user accessToken, identifies the cached listing.
+     * @param path
+     *            - path or directory.
+     * @param client
+     *            - Dropbox api client instance.
+     * @return up to date folder tree.
+     * @throws DbxException
+     *             if the listing failed.
+     */
+    private FolderTree listCached(final String accessToken, final String path, final DbxClientV2 client)
+            throws DbxException {
+        final MetadataCache cache = new MetadataCache(Paths.get(this.cacheDirectory));
+        final RecursiveLister lister = new RecursiveLister(client, this.getRequestScheduler());
+        CachedListing cached = null;
         try {
-            final Path filePath = new File(fileMetadata.getName()).toPath();
-            final String mimeType = Files.probeContentType(filePath);
-            System.out.format("- /%s \t: file, %s, %s, modified at: \"%s\"%n", fileMetadata.getName(),
-                    readableFileSize(fileMetadata.getSize()), mimeType,
-                    formatDate(fileMetadata.getClientModified(), ""));
+            cached = cache.load(accessToken, path);
         } catch (IOException e) {
-            log.error("Exception occured while retrieving file information. {}", e);
+            log.warn("Ignoring unreadable metadata cache: {}", e.getMessage());
         }
+        final String key = indexKey(accessToken, path);
+        if (cached != null) {
+            final FolderTree tree = cached.getTree();
+            final SearchIndex index = this.searchIndexes.get(key);
+            final AtomicInteger changes = new AtomicInteger();
+            try {
+                final String cursor = lister.update(cached.getCursor(), metadata -> {
+                    changes.incrementAndGet();
+                    tree.apply(metadata);
+                    if (index != null) {
+                        synchronized (index) {
+                            index.apply(metadata);
+                        }
+                    }
+                });
+                if (changes.get() > 0) {
+                    saveCache(cache, accessToken, path, new CachedListing(tree, cursor));
+                }
+                return tree;
+            } catch (ListFolderContinueErrorException e) {
+                if (!e.errorValue.isReset()) {
+                    throw e;
+                }
+                log.info("Cached listing of {} expired, listing it again.", path);
+            }
+        }
+        final FolderTree tree = new FolderTree();
+        final String cursor = lister.fetch(path, tree::apply);
+        saveCache(cache, accessToken, path, new CachedListing(tree, cursor));
+        // Rebuilt from the new listing by the next search.
+        this.searchIndexes.remove(key);
+        return tree;
+    }
+
+    private void saveCache(final MetadataCache cache, final String accessToken, final String path,
+            final CachedListing listing) {
+        try {
+            cache.save(accessToken, path, listing);
+        } catch (IOException e) {
+            log.warn("Unable to update the metadata cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * This method is used to start collecting the statistics of the command
+     * run by the current thread. The renderers it creates measure the time
+     * spent formatting, the calls are counted by the request scheduler.
+     * 
+     * @return snapshot of the call metrics to pass to
+     *         {@link #printStats(CallMetrics)}.
+     */
+    public CallMetrics beginStats() {
+        this.statsEnabled.set(Boolean.TRUE);
+        return this.getRequestScheduler().getMetrics().snapshot();
     }
 
     /**
-     * This method is used to convert the bytes into human readable file size.
-     * Example: bytes, KB, MB, GB, TB etc.
+     * This method is used to print the statistics collected since
+     * {@link #beginStats()}: latency percentiles and counters per api
+     * endpoint, entries per second and the time spent waiting and formatting.
+     * Commands running concurrently in the daemon share the call counters.
      * 
-     * @param bytes
-     *            - no of bytes
-     * @return file size in human readable format. Ex: 1KB
+     * @param started
+     *            - snapshot returned by {@link #beginStats()}.
      */
-    private String readableFileSize(final long bytes) {
-        final String s = bytes < 0 ? "-" : "";
-        long b = bytes == Long.MIN_VALUE ? Long.MAX_VALUE : Math.abs(bytes);
-        return b < 1000L ? bytes + " bytes"
-                : b < 999_950L ? String.format("%s%.1f KB", s, b / 1e3)
-                        : (b /= 1000) < 999_950L ? String.format("%s%.1f MB", s, b / 1e3)
-                                : (b /= 1000) < 999_950L ? String.format("%s%.1f GB", s, b / 1e3)
-                                        : (b /= 1000) < 999_950L ? String.format("%s%.1f TB", s, b / 1e3)
-                                                : (b /= 1000) < 999_950L ? String.format("%s%.1f PB", s, b / 1e3)
-                                                        : String.format("%s%.1f EB", s, b / 1e6);
+    public void printStats(final CallMetrics started) {
+        this.statsEnabled.remove();
+        final OutputSink sink = this.getOutputSink();
+        try {
+            this.getRequestScheduler().getMetrics().report(started, sink);
+        } finally {
+            sink.flush();
+        }
     }
 
     /**
-     * This method is used to convert the Date object into 'MM-dd-yyyy HH:mm:ss'
-     * format.
+     * This method is used to create the renderer of an output format.
      * 
-     * @param date
-     *            - date object
+     * @param format
+     *            - output format.
+     * @param sink
+     *            - receives the rendered output.
      * @param locale
-     *            - user locale
-     * @return formated date in string format Ex: 02-09-2020 13:48:26.
+     *            - locale of the console format.
+     * @param fullPaths
+     *            - prints the full path of files in the console format
+     *            instead of the name.
+     * @return renderer writing to the sink.
      */
-    private String formatDate(Date date, String locale) {
-        return this.simpleDateFormat.format(date);
+    public ListingRenderer createRenderer(final OutputFormat format, final OutputSink sink, final Locale locale,
+            final boolean fullPaths) {
+        final ListingRenderer renderer;
+        switch (format) {
+        case JSONL:
+            renderer = new JsonLinesRenderer(sink, this::probeMimeType);
+            break;
+        case CSV:
+        case TSV:
+            renderer = new DelimitedRenderer(sink, this::probeMimeType, format);
+            break;
+        default:
+            renderer = new TextRenderer(sink, locale, fullPaths);
+        }
+        if (Boolean.TRUE.equals(this.statsEnabled.get())) {
+            return new TimedRenderer(renderer, this.getRequestScheduler().getMetrics());
+        }
+        return renderer;
+    }
+
+    /**
+     * This method is used to print the file metadata to the output sink.
+     * 
+     * @param fileMetadata
+     *            - file metadata instance.
+     * @param fullPath
+     *            - prints the full path instead of the name.
+     * @param locale
+     *            - locale of the printed size and date.
+     * @param scratch
+     *            - reusable buffer of the calling renderer.
+     * @param sink
+     *            - receives the rendered row.
+     */
+    private void printFileMetadata(final FileMetadata fileMetadata, final boolean fullPath, final Locale locale,
+            final StringBuilder scratch, final OutputSink sink) {
+        final String mimeType = probeMimeType(fileMetadata.getName());
+        scratch.setLength(0);
+        if (fullPath && fileMetadata.getPathDisplay() != null) {
+            scratch.append("- ").append(fileMetadata.getPathDisplay());
+        } else {
+            scratch.append("- /").append(fileMetadata.getName());
+        }
+        scratch.append(" \t: file, ");
+        this.formatter.readableFileSize(fileMetadata.getSize(), locale, scratch).append(", ").append(mimeType)
+                .append(", modified at: \"");
+        this.formatter.formatDate(fileMetadata.getClientModified(), locale, scratch).append('"');
+        sink.append(scratch).newLine();
+    }
+
+    /**
+     * This method is used to guess the mime type of a file from its name.
+     * 
+     * @param fileName
+     *            - file name.
+     * @return mime type or null if unknown.
+     */
+    private String probeMimeType(final String fileName) {
+        return this.getMimeTypeResolver().resolve(fileName);
+    }
+
+    /**
+     * This method is used to get the sink receiving the command output. Unless
+     * a sink has been set, a new buffered sink writing to the current
+     * {@code System.out} is returned.
+     * 
+     * @return output sink.
+     */
+    public OutputSink getOutputSink() {
+        if (this.outputSink == null) {
+            return new BufferedOutputSink(System.out);
+        }
+        return this.outputSink;
+    }
+
+    public void setOutputSink(OutputSink outputSink) {
+        this.outputSink = outputSink;
+    }
+
+    /**
+     * This method is used to get the mime type resolver, which is loaded on
+     * first use.
+     * 
+     * @return mime type resolver.
+     */
+    public synchronized MimeTypeResolver getMimeTypeResolver() {
+        if (this.mimeTypeResolver == null) {
+            this.mimeTypeResolver = MimeTypeResolver.load(this.mimeTypesLocation);
+        }
+        return this.mimeTypeResolver;
+    }
+
+    public synchronized void setMimeTypeResolver(MimeTypeResolver mimeTypeResolver) {
+        this.mimeTypeResolver = mimeTypeResolver;
     }
 
     public DbxClientV2 getDBXClient(DbxRequestConfig config, String accessToken) {
@@ -227,6 +983,96 @@ public class DropboxClientAccessor {
         this.clientInstance = client;
     }
 
+    /**
+     * This method is used to get the client of an access token. Unless a client
+     * has been set, the client is taken from the registry, so repeated and
+     * concurrent calls reuse the same client and its HTTP connections.
+     * 
+     * @param accessToken
+     *            - user accessToken.
+     * @param locale
+     *            - user locale.
+     * @return Dropbox api client instance.
+     */
+    public DbxClientV2 getDBXClient(String accessToken, String locale) {
+        if (this.clientInstance == null) {
+            return this.getClientRegistry().getClient(accessToken, locale);
+        }
+        return this.clientInstance;
+    }
+
+    /**
+     * This method is used to get the client registry, which is created on first
+     * use from the configured connection settings. Its requestor counts the
+     * bytes of every call in the metrics of the request scheduler, and sends
+     * the calls to the api base url when one is configured.
+     * 
+     * @return client registry.
+     */
+    public synchronized DbxClientRegistry getClientRegistry() {
+        if (this.clientRegistry == null) {
+            HttpRequestor requestor = DbxClientRegistry.createHttpRequestor(this.maxConnections,
+                    this.connectTimeoutMillis, this.readTimeoutMillis);
+            if (this.apiBaseUrl != null && !this.apiBaseUrl.isEmpty()) {
+                requestor = new RedirectingHttpRequestor(requestor, this.apiBaseUrl);
+            }
+            this.clientRegistry = new DbxClientRegistry(
+                    new MeteredHttpRequestor(requestor, this.getRequestScheduler().getMetrics()));
+        }
+        return this.clientRegistry;
+    }
+
+    public synchronized void setClientRegistry(DbxClientRegistry clientRegistry) {
+        this.clientRegistry = clientRegistry;
+    }
+
+    /**
+     * This method is used to get the scheduler running the Dropbox api calls.
+     * It is shared by all commands, so a rate limit slows down every listing.
+     * 
+     * @return request scheduler.
+     */
+    public synchronized RequestScheduler getRequestScheduler() {
+        if (this.requestScheduler == null) {
+            this.requestScheduler = new RequestScheduler(this.maxConcurrentRequests, this.maxRetries);
+            this.requestScheduler.getMetrics().bindTo(this.meterRegistry);
+        }
+        return this.requestScheduler;
+    }
+
+    public synchronized void setRequestScheduler(RequestScheduler requestScheduler) {
+        this.requestScheduler = requestScheduler;
+    }
+
+    /**
+     * This method is used to set the registry the api call metrics are
+     * published to, the global registry unless the application provides one.
+     * 
+     * @param meterRegistry
+     *            - Micrometer registry.
+     */
+    @Autowired(required = false)
+    public synchronized void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * This method is used to get the content hasher, which is created on first
+     * use and shared by all commands.
+     * 
+     * @return content hasher.
+     */
+    public synchronized ContentHasher getContentHasher() {
+        if (this.contentHasher == null) {
+            this.contentHasher = new ContentHasher(this.hashParallelism);
+        }
+        return this.contentHasher;
+    }
+
+    public synchronized void setContentHasher(ContentHasher contentHasher) {
+        this.contentHasher = contentHasher;
+    }
+
     /**
      * This method is used to create the instance to DbxWebAuth class.
      * 
@@ -247,11 +1093,154 @@ public class DropboxClientAccessor {
         this.webAuthInstance = webAuth;
     }
 
+    public int getListingParallelism() {
+        return this.listingParallelism;
+    }
+
+    public void setListingParallelism(int listingParallelism) {
+        this.listingParallelism = listingParallelism;
+    }
+
+    public String getApiBaseUrl() {
+        return this.apiBaseUrl;
+    }
+
+    public synchronized void setApiBaseUrl(String apiBaseUrl) {
+        this.apiBaseUrl = apiBaseUrl;
+    }
+
+    public long getWatchTimeoutSeconds() {
+        return this.watchTimeoutSeconds;
+    }
+
+    public void setWatchTimeoutSeconds(long watchTimeoutSeconds) {
+        this.watchTimeoutSeconds = watchTimeoutSeconds;
+    }
+
+    public String getCacheDirectory() {
+        return this.cacheDirectory;
+    }
+
+    public void setCacheDirectory(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * This method is used to get the input of the current command, the input
+     * of the daemon client when the command runs in the daemon.
+     * 
+     * @return command input.
+     */
     public BufferedReader getReader() {
-        return this.reader;
+        return ConsoleContext.reader(this.reader);
     }
 
     public void setReader(BufferedReader reader) {
         this.reader = reader;
     }
+
+    /**
+     * Renders entries and accounts in the human readable console format.
+     */
+    private class TextRenderer implements ListingRenderer {
+
+        final static private String LINE = "--------------------------------------------------------------------------";
+        final private OutputSink sink;
+        final private Locale locale;
+        final private boolean fullPaths;
+        final private StringBuilder scratch = new StringBuilder(128);
+
+        TextRenderer(final OutputSink sink, final Locale locale, final boolean fullPaths) {
+            this.sink = sink;
+            this.locale = locale;
+            this.fullPaths = fullPaths;
+        }
+
+        @Override
+        public void beginEntries() {
+            // The console format has no header.
+        }
+
+        @Override
+        public void beginAccounts() {
+            // The console format has no header.
+        }
+
+        @Override
+        public void visitFolder(final FolderMetadata folderMetadata) {
+            sink.newLine().append(folderMetadata.getPathDisplay()).append("\t\t\t : Dir").newLine().append("  ");
+        }
+
+        @Override
+        public void visitFile(final FileMetadata fileMetadata) {
+            printFileMetadata(fileMetadata, this.fullPaths, this.locale, this.scratch, sink);
+        }
+
+        @Override
+        public void renderAccount(final Account account) {
+            final Name name = account.getName();
+            sink.newLine().append(LINE).newLine();
+            sink.append("User ID:       ").append(account.getAccountId()).newLine();
+            sink.append("Display Name:  ").append(name.getDisplayName()).newLine();
+            sink.append("Name:          ").append(name.getGivenName()).append(' ').append(name.getSurname())
+                    .append(" (").append(name.getFamiliarName()).append(')').newLine();
+            sink.append("E-mail:        ").append(account.getEmail()).append(" (")
+                    .append(account.getEmailVerified() ? "verified" : "").append(')').newLine();
+            if (account instanceof FullAccount) {
+                sink.append("Country:       ").append(((FullAccount) account).getCountry()).newLine();
+                sink.append("Referral link: ").append(((FullAccount) account).getReferralLink()).newLine();
+            }
+            sink.append(LINE).newLine();
+        }
+    }
+
+    /**
+     * Measures the time spent by another renderer and counts the rendered
+     * entries.
+     */
+    private static class TimedRenderer implements ListingRenderer {
+
+        final private ListingRenderer renderer;
+        final private CallMetrics metrics;
+
+        TimedRenderer(final ListingRenderer renderer, final CallMetrics metrics) {
+            this.renderer = renderer;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void beginEntries() {
+            final long start = System.nanoTime();
+            renderer.beginEntries();
+            metrics.recordRendering(0, System.nanoTime() - start);
+        }
+
+        @Override
+        public void beginAccounts() {
+            final long start = System.nanoTime();
+            renderer.beginAccounts();
+            metrics.recordRendering(0, System.nanoTime() - start);
+        }
+
+        @Override
+        public void visitFolder(final FolderMetadata folderMetadata) {
+            final long start = System.nanoTime();
+            renderer.visitFolder(folderMetadata);
+            metrics.recordRendering(1, System.nanoTime() - start);
+        }
+
+        @Override
+        public void visitFile(final FileMetadata fileMetadata) {
+            final long start = System.nanoTime();
+            renderer.visitFile(fileMetadata);
+            metrics.recordRendering(1, System.nanoTime() - start);
+        }
+
+        @Override
+        public void renderAccount(final Account account) {
+            final long start = System.nanoTime();
+            renderer.renderAccount(account);
+            metrics.recordRendering(1, System.nanoTime() - start);
+        }
+    }
 }
@@ -0,0 +1,508 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxDownloader;
+import com.dropbox.core.DbxException;
+import com.dropbox.core.NetworkIOException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.Metadata;
+
+/**
+ * Downloads files and folder trees into a local directory. Files larger than
+ * one chunk are split into byte ranges which are downloaded concurrently and
+ * transferred straight into their offsets of a preallocated file, small files
+ * are downloaded concurrently as a whole. Folders are downloaded while they
+ * are still being listed, the listing is paused while twice as many files as
+ * the parallelism are waiting or in progress.
+ * <p>
+ * A file is written to {@code name.part} and renamed once its size has been
+ * verified. The completed chunks of a large file are recorded in
+ * {@code name.part.state}, a failed download resumes from the missing chunks
+ * as long as the revision did not change. Files whose size and modification
+ * time already match are skipped, unless the download is forced.
+ */
+public class FileDownloader {
+
+    final static private Logger log = LoggerFactory.getLogger(FileDownloader.class);
+    final static private String PART_SUFFIX = ".part";
+    final static private String STATE_SUFFIX = ".part.state";
+    final private DbxClientV2 client;
+    final private RequestScheduler scheduler;
+    final private int parallelism;
+    final private long chunkSize;
+
+    /**
+     * @param client
+     *            - Dropbox api client instance.
+     * @param scheduler
+     *            - runs the api calls.
+     * @param parallelism
+     *            - number of chunks and files downloaded concurrently.
+     * @param chunkSize
+     *            - size of the byte ranges of large files.
+     */
+    public FileDownloader(final DbxClientV2 client, final RequestScheduler scheduler, final int parallelism,
+            final long chunkSize) {
+        this.client = client;
+        this.scheduler = scheduler;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * This method is used to download a file or a whole folder. The entries of
+     * a folder are stored below the target directory with their path relative
+     * to the folder.
+     *
+     * @param path
+     *            - file or folder path, empty for the root folder.
+     * @param directory
+     *            - local target directory.
+     * @return counters of the download.
+     * @throws DbxException
+     *             if the path could not be resolved or listed.
+     * @throws IOException
+     *             if the target directory could not be created.
+     */
+    public Summary download(final String path, final Path directory) throws DbxException, IOException {
+        final Path root = directory.toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        final Transfer transfer = new Transfer(false, null);
+        try {
+            final Metadata metadata = path.isEmpty() ? null
+                    : scheduler.execute("files/get_metadata", () -> client.files().getMetadata(path));
+            if (metadata instanceof FileMetadata) {
+                start((FileMetadata) metadata, root.resolve(metadata.getName()), transfer);
+            } else {
+                final int prefix = path.length();
+                new FolderWalker(client, parallelism, scheduler).walk(path, new MetadataVisitor() {
+                    @Override
+                    public void visitFolder(final FolderMetadata folder) {
+                        final Path local = resolve(root, folder.getPathDisplay().substring(prefix));
+                        try {
+                            if (local != null) {
+                                Files.createDirectories(local);
+                            }
+                        } catch (IOException e) {
+                            log.error("\n Unable to create folder {}. Cause: {}", local, e.getMessage());
+                        }
+                    }
+
+                    @Override
+                    public void visitFile(final FileMetadata file) {
+                        startInFolder(file, prefix, root, transfer);
+                    }
+                });
+            }
+            transfer.awaitAll();
+        } finally {
+            transfer.executor.shutdownNow();
+        }
+        return transfer.summary;
+    }
+
+    /**
+     * This method is used to download selected files of a folder. The files
+     * are stored below the target directory with their path relative to the
+     * folder.
+     *
+     * @param files
+     *            - files to download, all below the folder.
+     * @param folder
+     *            - folder path, empty for the root folder.
+     * @param directory
+     *            - local target directory.
+     * @param force
+     *            - downloads the files even if their size and modification
+     *            time match the local ones.
+     * @param downloaded
+     *            - called from the worker threads with every file which has
+     *            been downloaded and stored, may be null.
+     * @return counters of the download.
+     * @throws IOException
+     *             if the target directory could not be created.
+     */
+    public Summary download(final Iterable<FileMetadata> files, final String folder, final Path directory,
+            final boolean force, final Consumer<FileMetadata> downloaded) throws IOException {
+        final Path root = directory.toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        final Transfer transfer = new Transfer(force, downloaded);
+        try {
+            for (FileMetadata file : files) {
+                final Path local = resolve(root, file.getPathDisplay().substring(folder.length()));
+                if (local != null) {
+                    Files.createDirectories(local.getParent());
+                }
+                startInFolder(file, folder.length(), root, transfer);
+            }
+            transfer.awaitAll();
+        } finally {
+            transfer.executor.shutdownNow();
+        }
+        return transfer.summary;
+    }
+
+    private void startInFolder(final FileMetadata file, final int prefix, final Path root, final Transfer transfer) {
+        final Path local = resolve(root, file.getPathDisplay().substring(prefix));
+        if (local == null) {
+            log.error("\n Skipping {}, it would be stored outside of {}.", file.getPathDisplay(), root);
+            transfer.summary.failed.incrementAndGet();
+        } else {
+            start(file, local, transfer);
+        }
+    }
+
+    /**
+     * @return local path of a relative Dropbox path, null if it would escape
+     *         the target directory.
+     */
+    private static Path resolve(final Path root, final String relativePath) {
+        Path local = root;
+        for (String segment : relativePath.split("/")) {
+            if (!segment.isEmpty()) {
+                local = local.resolve(segment);
+            }
+        }
+        local = local.normalize();
+        return local.startsWith(root) ? local : null;
+    }
+
+    /**
+     * This method is used to queue the download of a file, blocking while the
+     * maximum number of files is queued or in progress.
+     */
+    private void start(final FileMetadata metadata, final Path target, final Transfer transfer) {
+        try {
+            transfer.queued.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while downloading", e);
+        }
+        final FileJob job = new FileJob(metadata, target, transfer.summary, transfer.downloaded);
+        job.done.whenComplete((ignored, failure) -> transfer.queued.release());
+        final ExecutorService executor = transfer.executor;
+        try {
+            if (!transfer.force && isComplete(metadata, target)) {
+                transfer.summary.skipped.incrementAndGet();
+                job.done.complete(null);
+            } else {
+                executor.execute(() -> prepare(job, executor));
+            }
+        } catch (RejectedExecutionException e) {
+            job.done.cancel(false);
+        }
+    }
+
+    private static boolean isComplete(final FileMetadata metadata, final Path target) {
+        try {
+            return Files.isRegularFile(target) && Files.size(target) == metadata.getSize()
+                    && Files.getLastModifiedTime(target).toMillis() == metadata.getClientModified().getTime();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * This method is used to open the part file and schedule the chunks which
+     * are still missing.
+     */
+    private void prepare(final FileJob job, final ExecutorService executor) {
+        final BitSet completed;
+        try {
+            Files.createDirectories(job.target.getParent());
+            completed = job.chunks > 1 ? readState(job) : new BitSet();
+            job.channel = FileChannel.open(job.part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.READ);
+            if (completed.isEmpty()) {
+                job.channel.truncate(0);
+                if (job.chunks > 1) {
+                    Files.write(job.state, job.header().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            // Transfers only write inside the current size of the file.
+            if (job.channel.size() < job.metadata.getSize()) {
+                job.channel.write(ByteBuffer.allocate(1), job.metadata.getSize() - 1);
+            }
+        } catch (IOException e) {
+            job.fail(e);
+            job.finish();
+            return;
+        }
+        job.remaining.set(job.chunks - completed.cardinality());
+        if (job.remaining.get() == 0) {
+            job.finish();
+            return;
+        }
+        for (int chunk = completed.nextClearBit(0); chunk < job.chunks; chunk = completed.nextClearBit(chunk + 1)) {
+            final int index = chunk;
+            try {
+                executor.execute(() -> downloadChunk(job, index));
+            } catch (RejectedExecutionException e) {
+                job.fail(e);
+                if (job.remaining.decrementAndGet() == 0) {
+                    job.finish();
+                }
+            }
+        }
+    }
+
+    private void downloadChunk(final FileJob job, final int chunk) {
+        if (!job.failed) {
+            final long offset = chunk * chunkSize;
+            final long length = Math.min(chunkSize, job.metadata.getSize() - offset);
+            try {
+                scheduler.execute("files/download", () -> {
+                    try (DbxDownloader<FileMetadata> downloader = job.chunks == 1
+                            ? client.files().downloadBuilder(job.metadata.getPathLower())
+                                    .withRev(job.metadata.getRev()).start()
+                            : client.files().downloadBuilder(job.metadata.getPathLower())
+                                    .withRev(job.metadata.getRev()).range(offset, length).start()) {
+                        transfer(downloader.getInputStream(), job.channel, offset, length);
+                    } catch (IOException e) {
+                        throw new NetworkIOException(e);
+                    }
+                    return null;
+                });
+                job.summary.bytes.addAndGet(length);
+                if (job.chunks > 1) {
+                    job.record(chunk);
+                }
+            } catch (DbxException | IOException | RuntimeException e) {
+                job.fail(e);
+            }
+        }
+        if (job.remaining.decrementAndGet() == 0) {
+            job.finish();
+        }
+    }
+
+    /**
+     * This method is used to copy a byte range from the response straight into
+     * the file channel at its offset.
+     *
+     * @throws EOFException
+     *             if the response ended before the range was complete.
+     */
+    static void transfer(final InputStream in, final FileChannel channel, final long offset, final long length)
+            throws IOException {
+        final ReadableByteChannel source = Channels.newChannel(in);
+        long written = 0;
+        while (written < length) {
+            final long count = channel.transferFrom(source, offset + written, length - written);
+            if (count <= 0) {
+                throw new EOFException("Expected " + length + " bytes at offset " + offset + ", received " + written);
+            }
+            written += count;
+        }
+    }
+
+    private BitSet readState(final FileJob job) throws IOException {
+        final BitSet completed = new BitSet(job.chunks);
+        if (!Files.exists(job.state) || !Files.exists(job.part)) {
+            return completed;
+        }
+        final List<String> lines = Files.readAllLines(job.state, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).equals(job.header().trim())) {
+            // The file has changed since the interrupted download.
+            return completed;
+        }
+        for (String line : lines.subList(1, lines.size())) {
+            try {
+                final int chunk = Integer.parseInt(line.trim());
+                if (chunk >= 0 && chunk < job.chunks) {
+                    completed.set(chunk);
+                }
+            } catch (NumberFormatException e) {
+                // A partially written last line, the chunk is downloaded again.
+            }
+        }
+        if (!completed.isEmpty()) {
+            log.info("Resuming download of {}, {} of {} chunks present.", job.metadata.getPathDisplay(),
+                    completed.cardinality(), job.chunks);
+        }
+        return completed;
+    }
+
+    /**
+     * Pool, counters and options of one download call. A semaphore of twice
+     * the parallelism bounds the files listed ahead of the downloads.
+     */
+    private final class Transfer {
+        final Summary summary = new Summary();
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                new NamedThreadFactory("download"));
+        final Semaphore queued = new Semaphore(parallelism * 2);
+        final boolean force;
+        final Consumer<FileMetadata> downloaded;
+
+        Transfer(final boolean force, final Consumer<FileMetadata> downloaded) {
+            this.force = force;
+            this.downloaded = downloaded;
+        }
+
+        /**
+         * This method is used to wait until every queued file is done, by
+         * taking back all the permits.
+         */
+        void awaitAll() {
+            Futures.awaitAll(queued, parallelism * 2, "downloading");
+        }
+    }
+
+    /**
+     * Download of a single file.
+     */
+    private final class FileJob {
+        final FileMetadata metadata;
+        final Path target;
+        final Path part;
+        final Path state;
+        final Summary summary;
+        final Consumer<FileMetadata> downloaded;
+        final int chunks;
+        final AtomicInteger remaining = new AtomicInteger();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        volatile FileChannel channel;
+        volatile boolean failed;
+        volatile Exception cause;
+
+        FileJob(final FileMetadata metadata, final Path target, final Summary summary,
+                final Consumer<FileMetadata> downloaded) {
+            this.metadata = metadata;
+            this.downloaded = downloaded;
+            this.target = target;
+            this.part = target.resolveSibling(target.getFileName() + PART_SUFFIX);
+            this.state = target.resolveSibling(target.getFileName() + STATE_SUFFIX);
+            this.summary = summary;
+            this.chunks = (int) ((metadata.getSize() + chunkSize - 1) / chunkSize);
+        }
+
+        String header() {
+            return metadata.getRev() + " " + metadata.getSize() + " " + chunkSize + "\n";
+        }
+
+        synchronized void record(final int chunk) throws IOException {
+            // The chunk must be on disk before the state claims it.
+            channel.force(false);
+            Files.write(state, (chunk + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        }
+
+        void fail(final Exception e) {
+            if (!failed) {
+                cause = e;
+                failed = true;
+            }
+        }
+
+        /**
+         * Called once after the last chunk, verifies and renames the file or
+         * keeps the part file for the next attempt.
+         */
+        void finish() {
+            try {
+                if (channel != null) {
+                    if (!failed && channel.size() != metadata.getSize()) {
+                        fail(new IOException("Size mismatch, expected " + metadata.getSize() + " bytes, got "
+                                + channel.size()));
+                    }
+                    if (!failed) {
+                        channel.force(true);
+                    }
+                    channel.close();
+                }
+                if (!failed) {
+                    Files.setLastModifiedTime(part, FileTime.fromMillis(metadata.getClientModified().getTime()));
+                    move(part, target);
+                    Files.deleteIfExists(state);
+                    summary.downloaded.incrementAndGet();
+                    if (downloaded != null) {
+                        downloaded.accept(metadata);
+                    }
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+            if (failed) {
+                summary.failed.incrementAndGet();
+                log.error("\n Unable to download {}. Cause: {}", metadata.getPathDisplay(), cause.getMessage());
+            }
+            done.complete(null);
+        }
+    }
+
+    private static void move(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Counters of a download, updated concurrently by the workers.
+     */
+    public static final class Summary {
+        final private AtomicInteger downloaded = new AtomicInteger();
+        final private AtomicInteger skipped = new AtomicInteger();
+        final private AtomicInteger failed = new AtomicInteger();
+        final private AtomicLong bytes = new AtomicLong();
+
+        /**
+         * @return number of downloaded files.
+         */
+        public int getDownloaded() {
+            return downloaded.get();
+        }
+
+        /**
+         * @return number of files which were already up to date.
+         */
+        public int getSkipped() {
+            return skipped.get();
+        }
+
+        /**
+         * @return number of files which could not be downloaded.
+         */
+        public int getFailed() {
+            return failed.get();
+        }
+
+        /**
+         * @return number of bytes transferred.
+         */
+        public long getBytes() {
+            return bytes.get();
+        }
+    }
+
+}
@@ -0,0 +1,293 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.RelocationBatchResultEntry;
+import com.dropbox.core.v2.files.RelocationBatchV2JobStatus;
+import com.dropbox.core.v2.files.RelocationBatchV2Launch;
+import com.dropbox.core.v2.files.RelocationBatchV2Result;
+import com.dropbox.core.v2.files.RelocationPath;
+
+/**
+ * Copies or moves many files and folders inside Dropbox with
+ * files/copy_batch_v2 and files/move_batch_v2. The source and destination
+ * pairs are read one per line and sent in batches of up to
+ * {@value #MAX_BATCH_SIZE} entries. The server runs a batch as an async job:
+ * while worker threads poll the jobs in flight, the next batch is read and
+ * submitted, up to a fixed number of jobs at once.
+ * <p>
+ * The poll interval adapts to the observed speed: the time per entry of the
+ * completed jobs predicts when the next job is done, the first check waits
+ * for that time and the following ones back off exponentially. A job is taken
+ * to have completed halfway between its last pending check and the check
+ * which found it complete, so a job done before the first check lowers the
+ * prediction instead of confirming it.
+ */
+public class FileRelocator {
+
+    final static private Logger log = LoggerFactory.getLogger(FileRelocator.class);
+    final static public int MAX_BATCH_SIZE = 1000;
+    final static private long MIN_POLL_INTERVAL_MILLIS = 100L;
+    final static private long MAX_POLL_INTERVAL_MILLIS = 5_000L;
+    final private DbxClientV2 client;
+    final private RequestScheduler scheduler;
+    final private int batchSize;
+    final private int jobs;
+    // Server time per entry of the completed jobs, 0 until the first one completed.
+    private double millisPerEntry;
+
+    /**
+     * Kind of relocation.
+     */
+    public enum Operation {
+        COPY("files/copy_batch_v2", "files/copy_batch/check_v2"),
+        MOVE("files/move_batch_v2", "files/move_batch/check_v2");
+
+        final private String endpoint;
+        final private String checkEndpoint;
+
+        Operation(final String endpoint, final String checkEndpoint) {
+            this.endpoint = endpoint;
+            this.checkEndpoint = checkEndpoint;
+        }
+
+        public String value() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * @param client
+     *            - Dropbox api client instance.
+     * @param scheduler
+     *            - runs the api calls.
+     * @param batchSize
+     *            - entries sent by one batch call, at most 1000.
+     * @param jobs
+     *            - batch jobs running on the server at the same time.
+     */
+    public FileRelocator(final DbxClientV2 client, final RequestScheduler scheduler, final int batchSize,
+            final int jobs) {
+        this.client = client;
+        this.scheduler = scheduler;
+        this.batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, batchSize));
+        this.jobs = Math.max(1, jobs);
+    }
+
+    /**
+     * This method is used to copy or move every pair of paths read from the
+     * lines. A line holds the source and the destination path separated by a
+     * tab, blank lines and lines starting with "#" are skipped.
+     *
+     * @param pairs
+     *            - source and destination paths, one pair per line.
+     * @param operation
+     *            - copy or move.
+     * @return counters of the relocation.
+     * @throws IOException
+     *             if the lines could not be read.
+     */
+    public Summary relocate(final BufferedReader pairs, final Operation operation) throws IOException {
+        final Summary summary = new Summary();
+        final ExecutorService polls = Executors.newFixedThreadPool(jobs, new NamedThreadFactory("relocate"));
+        final Semaphore inFlight = new Semaphore(jobs);
+        final List<Future<?>> pending = new ArrayList<>();
+        List<RelocationPath> batch = new ArrayList<>();
+        String line;
+        int number = 0;
+        try {
+            while ((line = pairs.readLine()) != null) {
+                number++;
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                final int tab = line.indexOf('\t');
+                try {
+                    if (tab < 0) {
+                        throw new IllegalArgumentException("expected a source and a destination separated by a tab");
+                    }
+                    batch.add(new RelocationPath(line.substring(0, tab).trim(), line.substring(tab + 1).trim()));
+                } catch (IllegalArgumentException e) {
+                    summary.failed.incrementAndGet();
+                    log.error("\n Invalid paths on line {}, please verify and retry again. Cause: {}", number,
+                            e.getMessage());
+                    continue;
+                }
+                if (batch.size() >= batchSize) {
+                    submit(batch, operation, polls, inFlight, summary, pending);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(batch, operation, polls, inFlight, summary, pending);
+            }
+            for (Future<?> job : pending) {
+                Futures.await(job, "relocating");
+            }
+        } finally {
+            polls.shutdownNow();
+        }
+        return summary;
+    }
+
+    /**
+     * This method is used to launch a batch on the calling thread and hand its
+     * job to a poll thread, blocking while the maximum number of jobs is in
+     * flight.
+     */
+    private void submit(final List<RelocationPath> batch, final Operation operation, final ExecutorService polls,
+            final Semaphore inFlight, final Summary summary, final List<Future<?>> pending) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while relocating", e);
+        }
+        boolean handedOver = false;
+        try {
+            final long started = System.nanoTime();
+            // A repeated launch would start a second job, for a move its entries all fail.
+            final RelocationBatchV2Launch launch = scheduler.executeOnce(operation.endpoint,
+                    () -> operation == Operation.COPY ? client.files().copyBatchV2(batch)
+                            : client.files().moveBatchV2(batch));
+            if (launch.isComplete()) {
+                record(batch, launch.getCompleteValue(), operation, summary);
+            } else if (launch.isAsyncJobId()) {
+                final String asyncJobId = launch.getAsyncJobIdValue();
+                pending.add(polls.submit(() -> {
+                    try {
+                        record(batch, poll(asyncJobId, batch.size(), started, operation), operation, summary);
+                    } catch (DbxException e) {
+                        fail(batch, operation, summary, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+                handedOver = true;
+            } else {
+                throw new DbxException("Unexpected " + operation.endpoint + " result: " + launch);
+            }
+        } catch (DbxException e) {
+            fail(batch, operation, summary, e);
+        } finally {
+            if (!handedOver) {
+                inFlight.release();
+            }
+        }
+    }
+
+    /**
+     * This method is used to wait for a job, first for the time predicted by
+     * the completed jobs, then polling with a growing interval.
+     */
+    private RelocationBatchV2Result poll(final String asyncJobId, final int size, final long started,
+            final Operation operation) throws DbxException {
+        long interval = expectedMillis(size);
+        long backoff = MIN_POLL_INTERVAL_MILLIS;
+        // Latest time the job was known to be still running.
+        long pending = started;
+        while (true) {
+            sleep(interval);
+            final long checked = System.nanoTime();
+            final RelocationBatchV2JobStatus status = scheduler.execute(operation.checkEndpoint,
+                    () -> operation == Operation.COPY ? client.files().copyBatchCheckV2(asyncJobId)
+                            : client.files().moveBatchCheckV2(asyncJobId));
+            if (status.isComplete()) {
+                learn(size, TimeUnit.NANOSECONDS.toMillis(pending + (checked - pending) / 2 - started));
+                return status.getCompleteValue();
+            }
+            pending = checked;
+            // Past the predicted time the job is close to done, check again soon.
+            interval = backoff;
+            backoff = Math.min(MAX_POLL_INTERVAL_MILLIS, backoff * 2);
+        }
+    }
+
+    /**
+     * @return predicted remaining time of a job of the given size, at least
+     *         the minimum poll interval.
+     */
+    private synchronized long expectedMillis(final int size) {
+        final long expected = (long) (millisPerEntry * size);
+        return Math.max(MIN_POLL_INTERVAL_MILLIS, Math.min(MAX_POLL_INTERVAL_MILLIS * 4, expected));
+    }
+
+    /**
+     * This method is used to update the time per entry with the duration of a
+     * completed job, the recent jobs weigh the most.
+     */
+    private synchronized void learn(final int size, final long millis) {
+        final double observed = (double) millis / size;
+        millisPerEntry = millisPerEntry == 0 ? observed : (millisPerEntry + observed) / 2;
+    }
+
+    private void record(final List<RelocationPath> batch, final RelocationBatchV2Result result,
+            final Operation operation, final Summary summary) {
+        final List<RelocationBatchResultEntry> entries = result.getEntries();
+        for (int i = 0; i < batch.size(); i++) {
+            final RelocationBatchResultEntry entry = i < entries.size() ? entries.get(i) : null;
+            if (entry != null && entry.isSuccess()) {
+                summary.relocated.incrementAndGet();
+                continue;
+            }
+            final Object cause = entry == null ? "no result" : entry.isFailure() ? entry.getFailureValue() : entry;
+            summary.failed.incrementAndGet();
+            log.error("\n Unable to {} {} to {}. Cause: {}", operation.value(), batch.get(i).getFromPath(),
+                    batch.get(i).getToPath(), cause);
+        }
+    }
+
+    private void fail(final List<RelocationPath> batch, final Operation operation, final Summary summary,
+            final DbxException cause) {
+        summary.failed.addAndGet(batch.size());
+        log.error("\n Unable to {} {} entries starting with {}. Cause: {}", operation.value(), batch.size(),
+                batch.get(0).getFromPath(), cause.getMessage());
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while relocating", e);
+        }
+    }
+
+    /**
+     * Counters of a relocation, updated concurrently by the poll threads.
+     */
+    public static final class Summary {
+        final private AtomicInteger relocated = new AtomicInteger();
+        final private AtomicInteger failed = new AtomicInteger();
+
+        /**
+         * @return number of copied or moved entries.
+         */
+        public int getRelocated() {
+            return relocated.get();
+        }
+
+        /**
+         * @return number of entries which could not be copied or moved.
+         */
+        public int getFailed() {
+            return failed.get();
+        }
+    }
+
+}
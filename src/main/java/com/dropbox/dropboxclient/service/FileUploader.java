@@ -0,0 +1,415 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.DbxUploader;
+import com.dropbox.core.NetworkIOException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.CommitInfo;
+import com.dropbox.core.v2.files.UploadSessionAppendV2Uploader;
+import com.dropbox.core.v2.files.UploadSessionCursor;
+import com.dropbox.core.v2.files.UploadSessionFinishArg;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchJobStatus;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchLaunch;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchResult;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchResultEntry;
+import com.dropbox.core.v2.files.UploadSessionLookupErrorException;
+import com.dropbox.core.v2.files.UploadSessionStartUploader;
+import com.dropbox.core.v2.files.WriteMode;
+
+/**
+ * Uploads local files and folder trees with upload sessions. Every file is
+ * sent in chunks, the chunks are memory mapped and the next chunk is loaded
+ * from disk while the previous one is on the wire. Many files are uploaded
+ * concurrently and their sessions are committed together with
+ * upload_session/finish_batch, which also avoids the write conflicts of
+ * concurrent single commits into the same folder.
+ */
+public class FileUploader {
+
+    final static private Logger log = LoggerFactory.getLogger(FileUploader.class);
+    final static public int MAX_BATCH_SIZE = 1000;
+    final static private long MAX_POLL_INTERVAL_MILLIS = 2_000L;
+    final private DbxClientV2 client;
+    final private RequestScheduler scheduler;
+    final private int parallelism;
+    final private long chunkSize;
+    final private int batchSize;
+
+    /**
+     * @param client
+     *            - Dropbox api client instance.
+     * @param scheduler
+     *            - runs the api calls.
+     * @param parallelism
+     *            - number of files uploaded concurrently.
+     * @param chunkSize
+     *            - size of the chunks appended to a session.
+     * @param batchSize
+     *            - sessions committed by one finish_batch call, at most 1000.
+     */
+    public FileUploader(final DbxClientV2 client, final RequestScheduler scheduler, final int parallelism,
+            final long chunkSize, final int batchSize) {
+        this.client = client;
+        this.scheduler = scheduler;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, batchSize));
+    }
+
+    /**
+     * This method is used to upload a file, or all files below a directory,
+     * into a Dropbox folder. Files keep their path relative to the directory.
+     *
+     * @param source
+     *            - local file or directory.
+     * @param folder
+     *            - Dropbox folder, empty for the root folder.
+     * @return counters of the upload.
+     * @throws IOException
+     *             if the source could not be read.
+     */
+    public Summary upload(final Path source, final String folder) throws IOException {
+        final Path root = source.toAbsolutePath().normalize();
+        if (Files.isRegularFile(root)) {
+            return upload(root.getParent(), Collections.singletonList(root), folder);
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            return upload(root, (Iterable<Path>) files.filter(Files::isRegularFile)::iterator, folder);
+        }
+    }
+
+    /**
+     * This method is used to upload selected files below a local directory
+     * into a Dropbox folder. Files keep their path relative to the directory.
+     *
+     * @param directory
+     *            - local directory the files are relative to.
+     * @param files
+     *            - files to upload, relative to the directory or absolute.
+     * @param folder
+     *            - Dropbox folder, empty for the root folder.
+     * @return counters of the upload.
+     */
+    public Summary upload(final Path directory, final Iterable<Path> files, final String folder) {
+        final Summary summary = new Summary();
+        final Path root = directory.toAbsolutePath().normalize();
+        final String remoteRoot = folder.endsWith("/") ? folder.substring(0, folder.length() - 1) : folder;
+        final ExecutorService uploads = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory("upload"));
+        final ExecutorService prefetch = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory("read"));
+        final ExecutorService commits = Executors.newSingleThreadExecutor(new NamedThreadFactory("commit"));
+        final Batcher batcher = new Batcher(commits, summary);
+        // Bounds the files read ahead of the uploads.
+        final Semaphore queued = new Semaphore(parallelism * 2);
+        try {
+            for (Path file : files) {
+                final Path local = root.resolve(file).normalize();
+                submit(local, remoteRoot + "/" + toRemotePath(root.relativize(local)), uploads, prefetch, batcher,
+                        queued, summary);
+            }
+            Futures.awaitAll(queued, parallelism * 2, "uploading");
+            final Future<?> lastCommit = batcher.flush();
+            if (lastCommit != null) {
+                Futures.await(lastCommit, "uploading");
+            }
+        } finally {
+            uploads.shutdownNow();
+            prefetch.shutdownNow();
+            commits.shutdownNow();
+        }
+        return summary;
+    }
+
+    private static String toRemotePath(final Path relative) {
+        final StringBuilder path = new StringBuilder();
+        for (Path segment : relative) {
+            if (path.length() > 0) {
+                path.append('/');
+            }
+            path.append(segment.toString());
+        }
+        return path.toString();
+    }
+
+    /**
+     * This method is used to upload a file on a worker thread, holding a
+     * permit until it is done. Failures are counted in the summary.
+     */
+    private void submit(final Path file, final String remotePath, final ExecutorService uploads,
+            final ExecutorService prefetch, final Batcher batcher, final Semaphore queued, final Summary summary) {
+        try {
+            queued.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while uploading", e);
+        }
+        uploads.execute(() -> {
+            try {
+                batcher.add(uploadSession(file, remotePath, prefetch));
+            } catch (DbxException | IOException | RuntimeException e) {
+                summary.failed.incrementAndGet();
+                log.error("\n Unable to upload {}. Cause: {}", file, e.getMessage());
+            } finally {
+                queued.release();
+            }
+        });
+    }
+
+    /**
+     * This method is used to send the content of a file into a new, closed
+     * upload session.
+     *
+     * @return the session ready to be committed.
+     */
+    private UploadSessionFinishArg uploadSession(final Path file, final String remotePath,
+            final ExecutorService prefetch) throws DbxException, IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final Date modified = new Date(Files.getLastModifiedTime(file).toMillis());
+            CompletableFuture<MappedByteBuffer> next = map(channel, 0, Math.min(chunkSize, size), prefetch);
+            String sessionId = null;
+            long offset = 0;
+            do {
+                final ByteBuffer chunk = awaitChunk(next);
+                final long length = chunk.remaining();
+                final boolean last = offset + length >= size;
+                if (!last) {
+                    next = map(channel, offset + length, Math.min(chunkSize, size - offset - length), prefetch);
+                }
+                if (sessionId == null) {
+                    sessionId = start(chunk, last);
+                } else {
+                    append(sessionId, offset, chunk, last);
+                }
+                offset += length;
+            } while (offset < size);
+            final CommitInfo commit = CommitInfo.newBuilder(remotePath).withMode(WriteMode.OVERWRITE)
+                    .withClientModified(modified).withMute(true).build();
+            return new UploadSessionFinishArg(new UploadSessionCursor(sessionId, offset), commit);
+        }
+    }
+
+    /**
+     * This method is used to map a chunk of the file and load it into memory
+     * on a reader thread.
+     */
+    private static CompletableFuture<MappedByteBuffer> map(final FileChannel channel, final long offset,
+            final long length, final ExecutorService prefetch) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                buffer.load();
+                return buffer;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, prefetch);
+    }
+
+    private String start(final ByteBuffer chunk, final boolean close) throws DbxException {
+        return scheduler.execute("files/upload_session/start", () -> {
+            try (UploadSessionStartUploader uploader = client.files().uploadSessionStart(close)) {
+                write(uploader, chunk);
+                return uploader.finish().getSessionId();
+            } catch (IOException e) {
+                throw new NetworkIOException(e);
+            }
+        });
+    }
+
+    private void append(final String sessionId, final long offset, final ByteBuffer chunk, final boolean close)
+            throws DbxException {
+        final long length = chunk.remaining();
+        scheduler.execute("files/upload_session/append_v2", () -> {
+            try (UploadSessionAppendV2Uploader uploader = client.files()
+                    .uploadSessionAppendV2(new UploadSessionCursor(sessionId, offset), close)) {
+                write(uploader, chunk);
+                uploader.finish();
+            } catch (UploadSessionLookupErrorException e) {
+                // A retried append which already reached the server.
+                if (!e.errorValue.isIncorrectOffset()
+                        || e.errorValue.getIncorrectOffsetValue().getCorrectOffset() != offset + length) {
+                    throw e;
+                }
+            } catch (IOException e) {
+                throw new NetworkIOException(e);
+            }
+            return null;
+        });
+    }
+
+    private static void write(final DbxUploader<?, ?, ?> uploader, final ByteBuffer chunk) throws IOException {
+        final WritableByteChannel out = Channels.newChannel(uploader.getOutputStream());
+        final ByteBuffer data = chunk.duplicate();
+        while (data.hasRemaining()) {
+            out.write(data);
+        }
+    }
+
+    /**
+     * This method is used to commit a batch of sessions and wait for the
+     * result, polling with a growing interval while the job is running.
+     */
+    private void commit(final List<UploadSessionFinishArg> batch, final Summary summary) {
+        try {
+            // A repeated finish after the first one committed fails every entry with a lookup error.
+            final UploadSessionFinishBatchLaunch launch = scheduler
+                    .executeOnce("files/upload_session/finish_batch",
+                            () -> client.files().uploadSessionFinishBatch(batch));
+            final UploadSessionFinishBatchResult result;
+            if (launch.isComplete()) {
+                result = launch.getCompleteValue();
+            } else if (launch.isAsyncJobId()) {
+                result = poll(launch.getAsyncJobIdValue());
+            } else {
+                throw new DbxException("Unexpected finish_batch result: " + launch);
+            }
+            final List<UploadSessionFinishBatchResultEntry> entries = result.getEntries();
+            for (int i = 0; i < entries.size(); i++) {
+                final UploadSessionFinishBatchResultEntry entry = entries.get(i);
+                if (entry.isSuccess()) {
+                    summary.uploaded.incrementAndGet();
+                    summary.bytes.addAndGet(entry.getSuccessValue().getSize());
+                } else {
+                    summary.failed.incrementAndGet();
+                    log.error("\n Unable to commit {}. Cause: {}", batch.get(i).getCommit().getPath(),
+                            entry.getFailureValue());
+                }
+            }
+        } catch (DbxException e) {
+            summary.failed.addAndGet(batch.size());
+            log.error("\n Unable to commit {} uploaded files. Cause: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private UploadSessionFinishBatchResult poll(final String asyncJobId) throws DbxException {
+        long interval = 100L;
+        while (true) {
+            final UploadSessionFinishBatchJobStatus status = scheduler
+                    .execute("files/upload_session/finish_batch/check",
+                            () -> client.files().uploadSessionFinishBatchCheck(asyncJobId));
+            if (status.isComplete()) {
+                return status.getCompleteValue();
+            }
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while committing uploads", e);
+            }
+            interval = Math.min(MAX_POLL_INTERVAL_MILLIS, interval * 2);
+        }
+    }
+
+    private static ByteBuffer awaitChunk(final CompletableFuture<MappedByteBuffer> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+
+    /**
+     * Collects the uploaded sessions and hands every full batch to the commit
+     * thread, so uploads continue while a batch is committed.
+     */
+    private final class Batcher {
+        final private ExecutorService commits;
+        final private Summary summary;
+        // The commits run one after the other, the last one finishes last.
+        private Future<?> lastCommit;
+        private List<UploadSessionFinishArg> batch = new ArrayList<>();
+
+        Batcher(final ExecutorService commits, final Summary summary) {
+            this.commits = commits;
+            this.summary = summary;
+        }
+
+        synchronized void add(final UploadSessionFinishArg session) {
+            batch.add(session);
+            if (batch.size() >= batchSize) {
+                submitBatch();
+            }
+        }
+
+        /**
+         * @return the last commit, null if nothing was committed.
+         */
+        synchronized Future<?> flush() {
+            if (!batch.isEmpty()) {
+                submitBatch();
+            }
+            return lastCommit;
+        }
+
+        private void submitBatch() {
+            final List<UploadSessionFinishArg> full = batch;
+            batch = new ArrayList<>();
+            lastCommit = commits.submit(() -> commit(full, summary));
+        }
+    }
+
+    /**
+     * Counters of an upload, updated concurrently by the workers.
+     */
+    public static final class Summary {
+        final private AtomicInteger uploaded = new AtomicInteger();
+        final private AtomicInteger failed = new AtomicInteger();
+        final private AtomicLong bytes = new AtomicLong();
+
+        /**
+         * @return number of committed files.
+         */
+        public int getUploaded() {
+            return uploaded.get();
+        }
+
+        /**
+         * @return number of files which could not be uploaded.
+         */
+        public int getFailed() {
+            return failed.get();
+        }
+
+        /**
+         * @return number of committed bytes.
+         */
+        public long getBytes() {
+            return bytes.get();
+        }
+    }
+
+}
@@ -0,0 +1,294 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.ListFolderResult;
+import com.dropbox.core.v2.files.Metadata;
+
+/**
+ * Lazily iterates the folders and files below a Dropbox folder in depth-first
+ * order, every folder followed by its sub tree. Pages are only fetched when
+ * the iteration reaches them, so a consumer which stops early, or calls
+ * {@link #close()}, saves the remaining calls.
+ * <p>
+ * The traversal is iterative: a stack holds the current page of every folder
+ * on the path to the current entry. To overlap round-trips the first pages of
+ * the next sub folders, in depth-first order, are fetched ahead by a pool of
+ * worker threads, but never more than a fixed window of them, so the memory
+ * is bounded by the folder depth, the page size and the window, not by the
+ * size of the tree.
+ * <p>
+ * Failures while listing a sub folder are logged and the sub tree is skipped,
+ * failures while listing the root folder are thrown as
+ * {@link UncheckedDbxException}.
+ */
+public class FolderIterator implements Iterator<Metadata>, Closeable {
+
+    final static private Logger log = LoggerFactory.getLogger(FolderIterator.class);
+    final private DbxClientV2 client;
+    final private RequestScheduler scheduler;
+    final private String path;
+    final private int threads;
+    final private int window;
+    final private Deque<Frame> stack = new ArrayDeque<>();
+    private ExecutorService executor;
+    private int prefetched;
+    private boolean started;
+    private boolean closed;
+    private FolderMetadata opening;
+    private Listing openingListing;
+    private Metadata next;
+
+    /**
+     * @param client
+     *            - Dropbox api client instance.
+     * @param scheduler
+     *            - runs the api calls.
+     * @param path
+     *            - folder path, empty for the root folder.
+     * @param threads
+     *            - worker threads fetching sub folders ahead, 0 to fetch every
+     *            page when it is reached.
+     * @param window
+     *            - sub folders fetched ahead and not consumed yet.
+     */
+    public FolderIterator(final DbxClientV2 client, final RequestScheduler scheduler, final String path,
+            final int threads, final int window) {
+        this.client = client;
+        this.scheduler = scheduler;
+        this.path = path;
+        this.threads = Math.max(0, threads);
+        this.window = this.threads == 0 ? 0 : Math.max(1, window);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !closed) {
+            next = advance();
+            if (next == null) {
+                close();
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Metadata next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Metadata metadata = next;
+        next = null;
+        return metadata;
+    }
+
+    /**
+     * This method is used to stop the iteration and the fetches in flight.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        next = null;
+        stack.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private Metadata advance() {
+        if (!started) {
+            started = true;
+            try {
+                stack.push(new Frame(listFolder(path)));
+            } catch (DbxException e) {
+                throw new UncheckedDbxException(e);
+            }
+            prefetch();
+        }
+        if (opening != null) {
+            open();
+        }
+        while (!stack.isEmpty()) {
+            final Frame frame = stack.peek();
+            if (frame.index == frame.entries.size()) {
+                if (!frame.hasMore) {
+                    stack.pop();
+                    continue;
+                }
+                try {
+                    frame.load(scheduler.execute("files/list_folder/continue",
+                            () -> client.files().listFolderContinue(frame.cursor)));
+                } catch (DbxException e) {
+                    if (stack.size() == 1) {
+                        throw new UncheckedDbxException(e);
+                    }
+                    log.error("\n Internal error cause:{}", e.getMessage());
+                    stack.pop();
+                }
+                prefetch();
+                continue;
+            }
+            final int index = frame.index++;
+            final Metadata metadata = frame.entries.get(index);
+            if (metadata instanceof FolderMetadata) {
+                // The sub folder is opened once the consumer asks for the entry after it.
+                opening = (FolderMetadata) metadata;
+                openingListing = frame.children[index];
+                frame.children[index] = null;
+                return metadata;
+            }
+            if (metadata instanceof FileMetadata) {
+                return metadata;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method is used to push the first page of the folder returned last,
+     * from the fetches ahead if it was fetched already.
+     */
+    private void open() {
+        final String folder = opening.getPathDisplay();
+        final Listing listing = openingListing;
+        opening = null;
+        openingListing = null;
+        try {
+            if (listing != null) {
+                prefetched--;
+                stack.push(new Frame(await(listing)));
+            } else {
+                stack.push(new Frame(listFolder(folder)));
+            }
+        } catch (IllegalArgumentException e) {
+            log.error("\n Invalid path: {}, please verify and retry again. Cause: {}", folder, e.getMessage());
+        } catch (DbxException e) {
+            log.error("\n Internal error cause:{}", e.getMessage());
+        }
+        prefetch();
+    }
+
+    /**
+     * This method is used to fetch the next sub folders ahead until the window
+     * is full. The remaining sub folders of the deepest page come first in
+     * depth-first order, then the ones of its parent and so on.
+     */
+    private void prefetch() {
+        for (Frame frame : stack) {
+            frame.scheduled = Math.max(frame.scheduled, frame.index);
+            while (prefetched < window && frame.scheduled < frame.entries.size()) {
+                final int index = frame.scheduled++;
+                final Metadata metadata = frame.entries.get(index);
+                if (metadata instanceof FolderMetadata) {
+                    final Listing listing = new Listing(metadata.getPathDisplay());
+                    frame.children[index] = listing;
+                    prefetched++;
+                    submit(listing);
+                }
+            }
+            if (prefetched >= window) {
+                return;
+            }
+        }
+    }
+
+    private void submit(final Listing listing) {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory("list"));
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    listing.result.complete(listFolder(listing.path));
+                } catch (DbxException | RuntimeException e) {
+                    listing.result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The iteration has been closed, nobody waits for this listing anymore.
+            listing.result.cancel(false);
+        }
+    }
+
+    private ListFolderResult listFolder(final String folder) throws DbxException {
+        return scheduler.execute("files/list_folder", () -> client.files().listFolder(folder));
+    }
+
+    /**
+     * This method blocks until the listing is available and unwraps the
+     * failure of the worker thread.
+     */
+    private ListFolderResult await(final Listing listing) throws DbxException {
+        try {
+            return listing.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while listing " + listing.path, e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof DbxException) {
+                throw (DbxException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Pending or completed first page of a sub folder fetched ahead.
+     */
+    private static final class Listing {
+        final String path;
+        final CompletableFuture<ListFolderResult> result = new CompletableFuture<>();
+
+        Listing(final String path) {
+            this.path = path;
+        }
+    }
+
+    /**
+     * Current page of a folder and position of the traversal inside it. The
+     * sub folder fetched ahead for entry i is stored at index i.
+     */
+    private static final class Frame {
+        List<Metadata> entries;
+        Listing[] children;
+        String cursor;
+        boolean hasMore;
+        int index;
+        int scheduled;
+
+        Frame(final ListFolderResult result) {
+            load(result);
+        }
+
+        void load(final ListFolderResult result) {
+            entries = result.getEntries();
+            children = new Listing[entries.size()];
+            cursor = result.getCursor();
+            hasMore = result.getHasMore();
+            index = 0;
+            scheduled = 0;
+        }
+    }
+
+}
@@ -0,0 +1,241 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.ListFolderErrorException;
+
+/**
+ * One-way sync between a local directory and a Dropbox folder. The local tree
+ * is scanned while the remote folder is listed, files are matched by their
+ * relative path, ignoring case like Dropbox does, and only files whose size or
+ * content hash differ are transferred. Nothing is deleted on either side.
+ * <p>
+ * The size, modification time and hash of the local files are kept in a
+ * {@link SyncState} between runs, so a sync without changes reads no file
+ * content at all.
+ */
+public class FolderSync {
+
+    final static private Logger log = LoggerFactory.getLogger(FolderSync.class);
+    final private DbxClientV2 client;
+    final private RequestScheduler scheduler;
+    final private ContentHasher hasher;
+    final private int parallelism;
+    final private FileUploader uploader;
+    final private FileDownloader downloader;
+
+    /**
+     * @param client
+     *            - Dropbox api client instance.
+     * @param scheduler
+     *            - runs the api calls.
+     * @param hasher
+     *            - computes the hash of changed local files.
+     * @param parallelism
+     *            - number of local and remote folders read concurrently.
+     * @param uploader
+     *            - transfers the changed files up.
+     * @param downloader
+     *            - transfers the changed files down.
+     */
+    public FolderSync(final DbxClientV2 client, final RequestScheduler scheduler, final ContentHasher hasher,
+            final int parallelism, final FileUploader uploader, final FileDownloader downloader) {
+        this.client = client;
+        this.scheduler = scheduler;
+        this.hasher = hasher;
+        this.parallelism = Math.max(1, parallelism);
+        this.uploader = uploader;
+        this.downloader = downloader;
+    }
+
+    /**
+     * This method is used to bring one side up to date with the other.
+     *
+     * @param directory
+     *            - local directory.
+     * @param folder
+     *            - Dropbox folder, empty for the root folder.
+     * @param direction
+     *            - side which is copied to the other one.
+     * @param stateFile
+     *            - file keeping the local state between runs.
+     * @return counters of the sync.
+     * @throws DbxException
+     *             if the remote folder could not be listed.
+     * @throws IOException
+     *             if the local directory or the state could not be accessed.
+     */
+    public Summary sync(final Path directory, final String folder, final SyncDirection direction,
+            final Path stateFile) throws DbxException, IOException {
+        final Summary summary = new Summary();
+        final Path root = directory.toAbsolutePath().normalize();
+        final String remoteRoot = folder.endsWith("/") ? folder.substring(0, folder.length() - 1) : folder;
+        Files.createDirectories(root);
+        final SyncState previous = SyncState.load(stateFile);
+        final LocalScanner scanner = new LocalScanner(hasher, parallelism);
+        final CompletableFuture<SyncState> scan = CompletableFuture
+                .supplyAsync(ConsoleContext.propagate(() -> scanner.scan(root, previous)));
+        final Map<String, FileMetadata> remote = listRemote(remoteRoot);
+        final SyncState local = Futures.await(scan, "scanning");
+        summary.hashed = scanner.getHashedCount();
+        summary.failed = scanner.getFailedCount();
+        if (direction == SyncDirection.UP) {
+            final List<Path> changed = new ArrayList<>();
+            for (Map.Entry<String, SyncState.Entry> entry : local.entries().entrySet()) {
+                if (isChanged(entry.getValue(), remote.get(entry.getKey().toLowerCase(Locale.ROOT)))) {
+                    changed.add(root.resolve(entry.getKey()));
+                } else {
+                    summary.upToDate++;
+                }
+            }
+            if (!changed.isEmpty()) {
+                final FileUploader.Summary upload = uploader.upload(root, changed, remoteRoot);
+                summary.transferred = upload.getUploaded();
+                summary.failed += upload.getFailed();
+                summary.bytes = upload.getBytes();
+            }
+        } else {
+            final Map<String, SyncState.Entry> localByKey = new HashMap<>();
+            for (Map.Entry<String, SyncState.Entry> entry : local.entries().entrySet()) {
+                localByKey.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue());
+            }
+            final List<FileMetadata> changed = new ArrayList<>();
+            for (Map.Entry<String, FileMetadata> entry : remote.entrySet()) {
+                if (isChanged(localByKey.get(entry.getKey()), entry.getValue())) {
+                    changed.add(entry.getValue());
+                } else {
+                    summary.upToDate++;
+                }
+            }
+            if (!changed.isEmpty()) {
+                // The hashes differ, so a matching size and modification time must not skip the file.
+                final List<FileMetadata> downloaded = Collections.synchronizedList(new ArrayList<>());
+                final FileDownloader.Summary download = downloader.download(changed, remoteRoot, root, true,
+                        downloaded::add);
+                summary.transferred = download.getDownloaded();
+                summary.failed += download.getFailed();
+                summary.bytes = download.getBytes();
+                record(downloaded, remoteRoot.length(), root, local);
+            }
+        }
+        local.save(stateFile);
+        return summary;
+    }
+
+    /**
+     * This method is used to list all files below the remote folder, keyed by
+     * their lower case path relative to the folder. A missing folder is empty.
+     */
+    private Map<String, FileMetadata> listRemote(final String folder) throws DbxException {
+        final Map<String, FileMetadata> files = new ConcurrentHashMap<>();
+        final int prefix = folder.length() + 1;
+        try {
+            new FolderWalker(client, parallelism, scheduler).walk(folder, new MetadataVisitor() {
+                @Override
+                public void visitFolder(final FolderMetadata metadata) {
+                }
+
+                @Override
+                public void visitFile(final FileMetadata metadata) {
+                    files.put(metadata.getPathLower().substring(prefix), metadata);
+                }
+            });
+        } catch (ListFolderErrorException e) {
+            if (!e.errorValue.isPath() || !e.errorValue.getPathValue().isNotFound()) {
+                throw e;
+            }
+            log.debug("Folder {} does not exist yet.", folder);
+        }
+        return files;
+    }
+
+    private static boolean isChanged(final SyncState.Entry local, final FileMetadata remote) {
+        return local == null || remote == null || local.getSize() != remote.getSize()
+                || !local.getHash().equals(remote.getContentHash());
+    }
+
+    /**
+     * This method is used to add the files reported as downloaded to the local
+     * state, so they are not hashed again by the next sync.
+     */
+    private static void record(final List<FileMetadata> files, final int prefix, final Path root,
+            final SyncState state) {
+        for (FileMetadata file : files) {
+            final String path = file.getPathDisplay().substring(prefix + 1);
+            final Path local = root.resolve(path);
+            try {
+                final long modified = Files.getLastModifiedTime(local).toMillis();
+                if (file.getContentHash() != null && Files.size(local) == file.getSize()
+                        && modified == file.getClientModified().getTime()) {
+                    state.put(path, new SyncState.Entry(file.getSize(), modified, file.getContentHash()));
+                }
+            } catch (IOException e) {
+                // Changed since the download, the next sync hashes it.
+            }
+        }
+    }
+
+    /**
+     * Counters of a sync.
+     */
+    public static final class Summary {
+        private int transferred;
+        private int upToDate;
+        private int hashed;
+        private int failed;
+        private long bytes;
+
+        /**
+         * @return number of files copied to the other side.
+         */
+        public int getTransferred() {
+            return transferred;
+        }
+
+        /**
+         * @return number of files which were already the same on both sides.
+         */
+        public int getUpToDate() {
+            return upToDate;
+        }
+
+        /**
+         * @return number of local files hashed because they changed since the
+         *         last sync.
+         */
+        public int getHashed() {
+            return hashed;
+        }
+
+        /**
+         * @return number of files which could not be read or transferred.
+         */
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return number of transferred bytes.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
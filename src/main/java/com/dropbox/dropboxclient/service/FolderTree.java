@@ -0,0 +1,131 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.dropbox.core.v2.files.DeletedMetadata;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.Metadata;
+
+/**
+ * Rebuilds the folder hierarchy of a flat, recursive listing. Entries are
+ * grouped by their parent folder and keep their arrival order inside it.
+ */
+public class FolderTree {
+
+    final private Map<String, Map<String, Metadata>> children = new HashMap<>();
+    private int size;
+
+    /**
+     * This method is used to add or replace an entry. A
+     * {@link DeletedMetadata} entry removes the entry and, for folders, the
+     * whole sub tree.
+     *
+     * @param metadata
+     *            - entry of the listing.
+     */
+    public void apply(final Metadata metadata) {
+        final String pathLower = metadata.getPathLower();
+        if (metadata instanceof DeletedMetadata) {
+            remove(pathLower);
+            return;
+        }
+        final Map<String, Metadata> siblings = children.computeIfAbsent(parentOf(pathLower),
+                key -> new LinkedHashMap<>());
+        final Metadata previous = siblings.put(pathLower, metadata);
+        if (previous == null) {
+            size++;
+        } else if (previous instanceof FolderMetadata && !(metadata instanceof FolderMetadata)) {
+            removeChildren(pathLower);
+        }
+    }
+
+    /**
+     * This method is used to remove an entry together with its sub tree.
+     *
+     * @param pathLower
+     *            - lower case path of the entry.
+     */
+    public void remove(final String pathLower) {
+        final Map<String, Metadata> siblings = children.get(parentOf(pathLower));
+        if (siblings != null && siblings.remove(pathLower) != null) {
+            size--;
+        }
+        removeChildren(pathLower);
+    }
+
+    private void removeChildren(final String pathLower) {
+        final Deque<String> pending = new ArrayDeque<>();
+        pending.push(pathLower);
+        while (!pending.isEmpty()) {
+            final Map<String, Metadata> removed = children.remove(pending.pop());
+            if (removed != null) {
+                size -= removed.size();
+                pending.addAll(removed.keySet());
+            }
+        }
+    }
+
+    /**
+     * @return number of entries in the tree.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return all entries grouped by folder, used to persist the tree.
+     */
+    public Iterable<Metadata> entries() {
+        return () -> children.values().stream().flatMap(siblings -> siblings.values().stream()).iterator();
+    }
+
+    /**
+     * This method is used to hand the sub tree of a folder to the visitor in
+     * depth-first order. The folder itself is not visited.
+     *
+     * @param path
+     *            - folder path, empty for the root folder.
+     * @param visitor
+     *            - receives the entries.
+     */
+    public void visit(final String path, final MetadataVisitor visitor) {
+        final Deque<Iterator<Metadata>> stack = new ArrayDeque<>();
+        push(stack, path.toLowerCase(Locale.ROOT));
+        while (!stack.isEmpty()) {
+            final Iterator<Metadata> iterator = stack.peek();
+            if (!iterator.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            final Metadata metadata = iterator.next();
+            if (metadata instanceof FolderMetadata) {
+                visitor.visitFolder((FolderMetadata) metadata);
+                push(stack, metadata.getPathLower());
+            } else if (metadata instanceof FileMetadata) {
+                visitor.visitFile((FileMetadata) metadata);
+            }
+        }
+    }
+
+    private void push(final Deque<Iterator<Metadata>> stack, final String pathLower) {
+        final Map<String, Metadata> siblings = children.get(pathLower);
+        if (siblings != null) {
+            stack.push(siblings.values().iterator());
+        }
+    }
+
+    /**
+     * @return lower case path of the parent folder, empty for the root folder.
+     */
+    static String parentOf(final String pathLower) {
+        final int index = pathLower.lastIndexOf('/');
+        return index <= 0 ? "" : pathLower.substring(0, index);
+    }
+}
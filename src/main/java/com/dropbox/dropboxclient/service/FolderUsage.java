@@ -0,0 +1,219 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.Metadata;
+
+/**
+ * Sums the bytes and files below every folder of a listing up to a maximum
+ * depth while the entries stream in, without keeping the entries.
+ * <p>
+ * Only the folders down to the maximum depth are interned, a deeper entry is
+ * counted in its ancestor at the maximum depth, so the memory depends on the
+ * number of reported folders and not on the size of the listing. Every folder
+ * gets an int id from an open addressing table, its parent id and its sums
+ * are kept in primitive arrays indexed by the id. A folder is interned after
+ * its parent, so the sums roll up in a single pass over decreasing ids.
+ */
+public class FolderUsage {
+
+    final private String root;
+    final private int maxDepth;
+    private String[] keys = new String[64];
+    private int[] slots = new int[64];
+    private int count;
+    private String[] paths = new String[32];
+    private int[] parents = new int[32];
+    private long[] bytes = new long[32];
+    private long[] files = new long[32];
+    private boolean rolledUp;
+
+    /**
+     * @param root
+     *            - listed folder, empty for the root folder.
+     * @param maxDepth
+     *            - deepest reported folder level below the listed folder.
+     */
+    public FolderUsage(final String root, final int maxDepth) {
+        this.root = root.endsWith("/") ? root.substring(0, root.length() - 1) : root;
+        this.maxDepth = Math.max(0, maxDepth);
+        intern(this.root.toLowerCase(Locale.ROOT), this.root);
+    }
+
+    /**
+     * This method is used to count an entry of the listing. Files are added
+     * to their folder, folders are interned so empty folders are reported,
+     * other entries are ignored.
+     *
+     * @param metadata
+     *            - entry of the listing.
+     */
+    public void add(final Metadata metadata) {
+        final String pathLower = metadata.getPathLower();
+        if (pathLower == null || pathLower.length() <= root.length()) {
+            return;
+        }
+        final String pathDisplay = metadata.getPathDisplay() != null
+                && metadata.getPathDisplay().length() == pathLower.length() ? metadata.getPathDisplay() : pathLower;
+        if (metadata instanceof FileMetadata) {
+            final int id = folderOf(pathLower, pathDisplay, pathLower.lastIndexOf('/'));
+            bytes[id] += ((FileMetadata) metadata).getSize();
+            files[id]++;
+        } else if (metadata instanceof FolderMetadata) {
+            folderOf(pathLower, pathDisplay, pathLower.length());
+        }
+    }
+
+    /**
+     * This method is used to get the id of the folder counting an entry: the
+     * folder itself, or its ancestor at the maximum depth.
+     *
+     * @param end
+     *            - end of the folder path in the entry path.
+     */
+    private int folderOf(final String pathLower, final String pathDisplay, final int end) {
+        int cut = end;
+        int depth = 0;
+        for (int i = root.length(); i < end; i++) {
+            if (pathLower.charAt(i) == '/' && ++depth > maxDepth) {
+                cut = i;
+                break;
+            }
+        }
+        return intern(pathLower.substring(0, cut), pathDisplay);
+    }
+
+    /**
+     * This method is used to get the id of a folder, interning it and its
+     * missing ancestors.
+     *
+     * @param pathLower
+     *            - lower case folder path.
+     * @param pathDisplay
+     *            - display path starting with the folder path.
+     * @return folder id.
+     */
+    private int intern(final String pathLower, final String pathDisplay) {
+        final int mask = keys.length - 1;
+        int slot = mix(pathLower.hashCode()) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(pathLower)) {
+                return slots[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        final int parent = pathLower.length() > root.length()
+                ? intern(pathLower.substring(0, pathLower.lastIndexOf('/')), pathDisplay)
+                : -1;
+        final int id = count++;
+        if (id == paths.length) {
+            final int capacity = paths.length * 2;
+            paths = Arrays.copyOf(paths, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            bytes = Arrays.copyOf(bytes, capacity);
+            files = Arrays.copyOf(files, capacity);
+        }
+        paths[id] = pathDisplay.substring(0, pathLower.length());
+        parents[id] = parent;
+        put(pathLower, id);
+        return id;
+    }
+
+    private void put(final String pathLower, final int id) {
+        if ((count + 1) * 2 > keys.length) {
+            final String[] oldKeys = keys;
+            final int[] oldSlots = slots;
+            keys = new String[oldKeys.length * 2];
+            slots = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    insert(oldKeys[i], oldSlots[i]);
+                }
+            }
+        }
+        insert(pathLower, id);
+    }
+
+    private void insert(final String pathLower, final int id) {
+        final int mask = keys.length - 1;
+        int slot = mix(pathLower.hashCode()) & mask;
+        while (keys[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = pathLower;
+        slots[slot] = id;
+    }
+
+    private static int mix(final int hash) {
+        final int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Receives the folders with their totals.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(String path, int depth, long bytes, long files);
+    }
+
+    /**
+     * This method is used to visit the folders with the totals of their whole
+     * sub tree, parents before their sub folders and sub folders sorted by
+     * name. Must be called once the listing is complete.
+     *
+     * @param visitor
+     *            - receives the folders.
+     */
+    public void visit(final Visitor visitor) {
+        if (!rolledUp) {
+            // Children have higher ids than their parents.
+            for (int id = count - 1; id > 0; id--) {
+                bytes[parents[id]] += bytes[id];
+                files[parents[id]] += files[id];
+            }
+            rolledUp = true;
+        }
+        final Integer[] order = new Integer[count];
+        for (int id = 0; id < count; id++) {
+            order[id] = id;
+        }
+        Arrays.sort(order, (a, b) -> comparePaths(paths[a], paths[b]));
+        for (int id : order) {
+            final String path = paths[id];
+            int depth = 0;
+            for (int i = root.length(); i < path.length(); i++) {
+                if (path.charAt(i) == '/') {
+                    depth++;
+                }
+            }
+            visitor.visit(path, depth, bytes[id], files[id]);
+        }
+    }
+
+    /**
+     * Orders paths case insensitively with the separator before every other
+     * character, so a folder is followed by its whole sub tree.
+     */
+    private static int comparePaths(final String a, final String b) {
+        final int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            final char x = Character.toLowerCase(a.charAt(i));
+            final char y = Character.toLowerCase(b.charAt(i));
+            if (x != y) {
+                return x == '/' ? -1 : y == '/' ? 1 : Character.compare(x, y);
+            }
+        }
+        return Integer.compare(a.length(), b.length());
+    }
+
+    /**
+     * @return number of interned folders, the listed folder included.
+     */
+    public int getFolderCount() {
+        return count;
+    }
+}
@@ -0,0 +1,79 @@
+package com.dropbox.dropboxclient.service;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.Metadata;
+
+/**
+ * Walks a Dropbox folder tree with a bounded pool of worker threads. The
+ * listings of the next sub folders are fetched ahead while the calling thread
+ * hands the entries to the visitor in the same depth-first order as a
+ * sequential walk, so the round-trips of sibling and cousin folders overlap
+ * and the output does not depend on the parallelism. The traversal itself is
+ * done by a {@link FolderIterator}, which bounds the listings fetched ahead.
+ */
+public class FolderWalker {
+
+    final static private int PREFETCH_PER_THREAD = 4;
+    final private DbxClientV2 client;
+    final private int parallelism;
+    final private RequestScheduler scheduler;
+
+    /**
+     * @param client
+     *            - Dropbox api client instance.
+     * @param parallelism
+     *            - maximum number of folder listings in flight.
+     * @param scheduler
+     *            - runs the api calls, may lower the number of calls in
+     *            flight when the server is overloaded.
+     */
+    public FolderWalker(final DbxClientV2 client, final int parallelism, final RequestScheduler scheduler) {
+        this.client = client;
+        this.parallelism = Math.max(1, parallelism);
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * This method is used to visit every folder and file below the given path.
+     * Failures while listing a sub folder are logged and the sub tree is
+     * skipped, failures while listing the root folder are thrown.
+     *
+     * @param path
+     *            - folder path, empty for the root folder.
+     * @param visitor
+     *            - receives the entries in depth-first order.
+     * @throws DbxException
+     *             if the root folder could not be listed.
+     */
+    public void walk(final String path, final MetadataVisitor visitor) throws DbxException {
+        try (FolderIterator entries = iterator(path)) {
+            while (entries.hasNext()) {
+                final Metadata metadata = entries.next();
+                if (metadata instanceof FolderMetadata) {
+                    visitor.visitFolder((FolderMetadata) metadata);
+                } else {
+                    visitor.visitFile((FileMetadata) metadata);
+                }
+            }
+        } catch (UncheckedDbxException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * This method is used to lazily iterate the folders and files below the
+     * given path in depth-first order. Sub folders are fetched ahead by up to
+     * the parallelism of the walker, the iterator must be closed when the
+     * iteration is stopped early.
+     *
+     * @param path
+     *            - folder path, empty for the root folder.
+     * @return iterator over the entries.
+     */
+    public FolderIterator iterator(final String path) {
+        return new FolderIterator(client, scheduler, path, parallelism, parallelism * PREFETCH_PER_THREAD);
+    }
+}
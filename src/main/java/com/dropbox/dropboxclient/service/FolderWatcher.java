@@ -0,0 +1,239 @@
+package com.dropbox.dropboxclient.service;
+
+import java.net.SocketTimeoutException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.NetworkIOException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.DeletedMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.ListFolderContinueErrorException;
+import com.dropbox.core.v2.files.ListFolderLongpollError;
+import com.dropbox.core.v2.files.ListFolderLongpollErrorException;
+import com.dropbox.core.v2.files.ListFolderLongpollResult;
+import com.dropbox.core.v2.files.Metadata;
+
+/**
+ * Streams the changes made below a Dropbox folder. The folder is listed once
+ * with a recursive cursor, then the watcher blocks on
+ * files/list_folder/longpoll, which returns as soon as something changed, and
+ * only fetches the changes with files/list_folder/continue. While nothing
+ * changes the watcher costs one long poll request per timeout and no CPU.
+ * <p>
+ * The paths seen so far are kept to tell added from modified entries. An
+ * expired cursor is replaced by listing the folder again and reporting the
+ * difference.
+ */
+public class FolderWatcher {
+
+    final static private Logger log = LoggerFactory.getLogger(FolderWatcher.class);
+    final static private String LONGPOLL = "files/list_folder/longpoll";
+    final static private long MAX_FAILURE_DELAY_SECONDS = 60;
+    final private DbxClientV2 client;
+    final private RequestScheduler scheduler;
+    final private RecursiveLister lister;
+    final private long timeoutSeconds;
+    private Set<String> known = new HashSet<>();
+    private Set<String> folders = new HashSet<>();
+    private volatile boolean stopped;
+
+    /**
+     * Kind of change of an entry.
+     */
+    public enum Change {
+        ADDED, MODIFIED, DELETED;
+
+        public String value() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Receives the changes of the watched folder.
+     */
+    public interface Listener {
+
+        /**
+         * This method is called for every changed entry.
+         *
+         * @param change
+         *            - kind of change.
+         * @param metadata
+         *            - new metadata, a {@link DeletedMetadata} for deleted
+         *            entries.
+         */
+        void changed(Change change, Metadata metadata);
+
+        /**
+         * This method is called once the changes reported by a long poll have
+         * been fetched, before waiting for the next ones.
+         */
+        default void caughtUp() {
+        }
+    }
+
+    /**
+     * @param client
+     *            - Dropbox api client instance.
+     * @param scheduler
+     *            - runs the listing calls.
+     * @param timeoutSeconds
+     *            - how long a long poll waits for changes, the api accepts 30
+     *            to 480 seconds and adds up to 90 seconds of jitter.
+     */
+    public FolderWatcher(final DbxClientV2 client, final RequestScheduler scheduler, final long timeoutSeconds) {
+        this.client = client;
+        this.scheduler = scheduler;
+        this.lister = new RecursiveLister(client, scheduler);
+        this.timeoutSeconds = Math.max(30, Math.min(480, timeoutSeconds));
+    }
+
+    /**
+     * This method is used to watch a folder until {@link #stop()} is called
+     * or the thread is interrupted.
+     *
+     * @param path
+     *            - folder path, empty for the root folder.
+     * @param listener
+     *            - receives the changes.
+     * @throws DbxException
+     *             if the folder could not be listed or watched.
+     */
+    public void watch(final String path, final Listener listener) throws DbxException {
+        String cursor = relist(path, null);
+        int failures = 0;
+        while (!stopped && !Thread.currentThread().isInterrupted()) {
+            final ListFolderLongpollResult result;
+            final long started = System.nanoTime();
+            try {
+                // Not run by the scheduler: a long poll would hold a request slot while it waits.
+                result = client.files().listFolderLongpoll(cursor, timeoutSeconds);
+                scheduler.getMetrics().recordCall(LONGPOLL, System.nanoTime() - started, false, false);
+                failures = 0;
+            } catch (ListFolderLongpollErrorException e) {
+                if (e.errorValue != ListFolderLongpollError.RESET) {
+                    throw e;
+                }
+                log.info("Cursor of {} expired, listing it again.", path);
+                cursor = relist(path, listener);
+                listener.caughtUp();
+                continue;
+            } catch (NetworkIOException e) {
+                scheduler.getMetrics().recordCall(LONGPOLL, System.nanoTime() - started, true, false);
+                // The jitter added by the api can outlast the read timeout, it only means nothing changed.
+                if (!(e.getCause() instanceof SocketTimeoutException)) {
+                    log.warn("Long poll failed, polling again: {}", e.getMessage());
+                    final long delay = Math.min(MAX_FAILURE_DELAY_SECONDS, 1L << Math.min(failures++, 6));
+                    sleep(TimeUnit.SECONDS.toMillis(delay));
+                }
+                continue;
+            }
+            if (result.getChanges()) {
+                try {
+                    cursor = lister.update(cursor, metadata -> apply(metadata, listener));
+                } catch (ListFolderContinueErrorException e) {
+                    if (!e.errorValue.isReset()) {
+                        throw e;
+                    }
+                    log.info("Cursor of {} expired, listing it again.", path);
+                    cursor = relist(path, listener);
+                }
+                listener.caughtUp();
+            }
+            if (result.getBackoff() != null) {
+                sleep(TimeUnit.SECONDS.toMillis(result.getBackoff()));
+            }
+        }
+    }
+
+    /**
+     * This method is used to stop watching once the pending long poll
+     * returns.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return number of known files and folders.
+     */
+    public int getKnownCount() {
+        return known.size();
+    }
+
+    /**
+     * This method is used to list the folder for a new cursor. Unless it is
+     * the first listing, entries which appeared are reported as added and the
+     * ones which are gone as deleted.
+     *
+     * @param listener
+     *            - receives the differences, null for the first listing.
+     * @return cursor of the listing.
+     */
+    private String relist(final String path, final Listener listener) throws DbxException {
+        final Set<String> previous = known;
+        known = new HashSet<>();
+        folders = new HashSet<>();
+        final String cursor = lister.fetch(path, metadata -> {
+            known.add(metadata.getPathLower());
+            if (metadata instanceof FolderMetadata) {
+                folders.add(metadata.getPathLower());
+            }
+            if (listener != null && !previous.contains(metadata.getPathLower())) {
+                listener.changed(Change.ADDED, metadata);
+            }
+        });
+        if (listener != null) {
+            for (String pathLower : previous) {
+                if (!known.contains(pathLower)) {
+                    final String name = pathLower.substring(pathLower.lastIndexOf('/') + 1);
+                    listener.changed(Change.DELETED, new DeletedMetadata(name, pathLower, pathLower, null));
+                }
+            }
+        }
+        return cursor;
+    }
+
+    /**
+     * This method is used to report a changed entry and update the known
+     * paths. Deletions of entries which were never seen, e.g. added and
+     * removed between two polls, are not reported.
+     */
+    private void apply(final Metadata metadata, final Listener listener) {
+        final String pathLower = metadata.getPathLower();
+        if (metadata instanceof DeletedMetadata) {
+            if (known.remove(pathLower)) {
+                if (folders.remove(pathLower)) {
+                    final String prefix = pathLower + "/";
+                    known.removeIf(child -> child.startsWith(prefix));
+                    folders.removeIf(child -> child.startsWith(prefix));
+                }
+                listener.changed(Change.DELETED, metadata);
+            }
+            return;
+        }
+        final boolean added = known.add(pathLower);
+        final boolean folder = metadata instanceof FolderMetadata;
+        final boolean typeChanged = folder ? folders.add(pathLower) : folders.remove(pathLower);
+        if (added) {
+            listener.changed(Change.ADDED, metadata);
+        } else if (!folder || typeChanged) {
+            listener.changed(Change.MODIFIED, metadata);
+        }
+    }
+
+    private void sleep(final long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Waits for the results of worker threads.
+ */
+final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * This method is used to wait for a result. An interruption restores the
+     * interrupt flag, both an interruption and a failure of the task are
+     * thrown as {@link IllegalStateException}.
+     *
+     * @param future
+     *            - pending result.
+     * @param activity
+     *            - what the caller is doing, e.g. "downloading".
+     * @return the result.
+     */
+    static <T> T await(final Future<T> future, final String activity) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while " + activity, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * This method is used to wait until every task holding a permit is done,
+     * by taking back all the permits. Tasks report their failures themselves,
+     * so no future has to be kept per task.
+     *
+     * @param permits
+     *            - semaphore bounding the queued tasks.
+     * @param count
+     *            - total number of permits of the semaphore.
+     * @param activity
+     *            - what the caller is doing, e.g. "downloading".
+     */
+    static void awaitAll(final Semaphore permits, final int count, final String activity) {
+        try {
+            permits.acquire(count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while " + activity, e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.function.Function;
+
+/**
+ * Renders every entry as a JSON object on its own line. Missing values are
+ * left out of the object.
+ */
+public class JsonLinesRenderer extends StructuredRenderer {
+
+    final static private char[] HEX = "0123456789abcdef".toCharArray();
+    private boolean first;
+
+    public JsonLinesRenderer(final OutputSink sink, final Function<String, String> mimeTypes) {
+        super(sink, mimeTypes);
+    }
+
+    @Override
+    protected void header(final String[] columns) {
+        // JSON objects carry their own field names.
+    }
+
+    @Override
+    protected void beginRecord() {
+        sink.append('{');
+        first = true;
+    }
+
+    @Override
+    protected void text(final String column, final CharSequence value) {
+        if (value == null) {
+            return;
+        }
+        name(column);
+        sink.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                sink.append("\\\"");
+                break;
+            case '\\':
+                sink.append("\\\\");
+                break;
+            case '\n':
+                sink.append("\\n");
+                break;
+            case '\r':
+                sink.append("\\r");
+                break;
+            case '\t':
+                sink.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    sink.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+                } else {
+                    sink.append(c);
+                }
+            }
+        }
+        sink.append('"');
+    }
+
+    @Override
+    protected void number(final String column, final long value) {
+        name(column);
+        sink.append(value);
+    }
+
+    @Override
+    protected void bool(final String column, final boolean value) {
+        name(column);
+        sink.append(value ? "true" : "false");
+    }
+
+    @Override
+    protected void missing(final String column) {
+        // Missing values are omitted.
+    }
+
+    @Override
+    protected void endRecord() {
+        sink.append('}').newLine();
+    }
+
+    private void name(final String column) {
+        if (!first) {
+            sink.append(',');
+        }
+        first = false;
+        sink.append('"').append(column).append("\":");
+    }
+}
@@ -0,0 +1,30 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.Locale;
+
+/**
+ * Strategies of the list command to retrieve a folder tree.
+ */
+public enum ListingMode {
+    /**
+     * One list_folder request per folder, sub folders are listed concurrently.
+     */
+    WALK,
+    /**
+     * A single recursive list_folder cursor for the whole tree.
+     */
+    RECURSIVE;
+
+    /**
+     * This method is used to resolve the mode from a command line value.
+     *
+     * @param value
+     *            - mode name, case insensitive.
+     * @return the matching mode.
+     * @throws IllegalArgumentException
+     *             if the value is not a known mode.
+     */
+    public static ListingMode fromValue(final String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
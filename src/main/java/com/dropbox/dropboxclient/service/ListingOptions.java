@@ -0,0 +1,39 @@
+package com.dropbox.dropboxclient.service;
+
+/**
+ * Optional settings of the list command.
+ */
+public class ListingOptions {
+
+    private ListingMode mode = ListingMode.WALK;
+    private boolean cache;
+    private OutputFormat format = OutputFormat.TEXT;
+
+    public ListingMode getMode() {
+        return this.mode;
+    }
+
+    public void setMode(ListingMode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * @return true if the listing is read from and saved to the local metadata
+     *         cache, which always uses a recursive cursor.
+     */
+    public boolean isCache() {
+        return this.cache;
+    }
+
+    public void setCache(boolean cache) {
+        this.cache = cache;
+    }
+
+    public OutputFormat getFormat() {
+        return this.format;
+    }
+
+    public void setFormat(OutputFormat format) {
+        this.format = format;
+    }
+}
@@ -0,0 +1,30 @@
+package com.dropbox.dropboxclient.service;
+
+import com.dropbox.core.v2.users.Account;
+
+/**
+ * Renders listing entries and account information into an output sink in one
+ * of the {@link OutputFormat output formats}.
+ */
+public interface ListingRenderer extends MetadataVisitor {
+
+    /**
+     * This method is called once before the first folder or file is visited.
+     */
+    void beginEntries();
+
+    /**
+     * This method is called once before the first account is rendered.
+     */
+    void beginAccounts();
+
+    /**
+     * This method is used to render the information of a user account.
+     *
+     * @param account
+     *            - account returned by the api, country and referral link
+     *            are only known for a
+     *            {@link com.dropbox.core.v2.users.FullAccount}.
+     */
+    void renderAccount(Account account);
+}
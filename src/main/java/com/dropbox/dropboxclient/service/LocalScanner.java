@@ -0,0 +1,139 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scans a local directory tree for the sync command. Folders are read
+ * concurrently and every file is compared with the state of the last sync:
+ * only files whose size or modification time changed are hashed again, the
+ * others keep their previous hash. Partial downloads are ignored.
+ */
+public class LocalScanner {
+
+    final static private Logger log = LoggerFactory.getLogger(LocalScanner.class);
+    final static private String PART_SUFFIX = ".part";
+    final static private String STATE_SUFFIX = ".part.state";
+    final private ContentHasher hasher;
+    final private int parallelism;
+    final private AtomicInteger hashed = new AtomicInteger();
+    final private AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * @param hasher
+     *            - computes the hash of changed files.
+     * @param parallelism
+     *            - number of folders scanned concurrently.
+     */
+    public LocalScanner(final ContentHasher hasher, final int parallelism) {
+        this.hasher = hasher;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * This method is used to scan a directory tree.
+     *
+     * @param directory
+     *            - local directory.
+     * @param previous
+     *            - state of the last sync, empty on the first one.
+     * @return current state of every readable file below the directory.
+     */
+    public SyncState scan(final Path directory, final SyncState previous) {
+        final SyncState current = new SyncState();
+        final ForkJoinPool pool = new ForkJoinPool(parallelism, ConsoleContext.forkJoinThreads(), null, false);
+        try {
+            pool.invoke(new ScanFolder(directory.toAbsolutePath().normalize(), "", previous, current));
+        } finally {
+            pool.shutdownNow();
+        }
+        return current;
+    }
+
+    /**
+     * @return number of files hashed because they changed since the last sync.
+     */
+    public int getHashedCount() {
+        return hashed.get();
+    }
+
+    /**
+     * @return number of files and folders which could not be read.
+     */
+    public int getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Scans one folder and forks the scans of its sub folders.
+     */
+    private final class ScanFolder extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final private Path folder;
+        final private String prefix;
+        final private SyncState previous;
+        final private SyncState current;
+
+        ScanFolder(final Path folder, final String prefix, final SyncState previous, final SyncState current) {
+            this.folder = folder;
+            this.prefix = prefix;
+            this.previous = previous;
+            this.current = current;
+        }
+
+        @Override
+        protected void compute() {
+            final List<ScanFolder> children = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(folder)) {
+                for (Path entry : entries) {
+                    final String name = entry.getFileName().toString();
+                    final BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isDirectory()) {
+                        final ScanFolder child = new ScanFolder(entry, prefix + name + "/", previous, current);
+                        child.fork();
+                        children.add(child);
+                    } else if (attributes.isRegularFile() && !name.endsWith(PART_SUFFIX)
+                            && !name.endsWith(STATE_SUFFIX)) {
+                        scanFile(entry, prefix + name, attributes);
+                    }
+                }
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                log.error("\n Unable to read folder {}. Cause: {}", folder, e.getMessage());
+            }
+            for (ScanFolder child : children) {
+                child.join();
+            }
+        }
+
+        private void scanFile(final Path file, final String path, final BasicFileAttributes attributes) {
+            final long size = attributes.size();
+            final long modified = attributes.lastModifiedTime().toMillis();
+            final SyncState.Entry last = previous.get(path);
+            if (last != null && last.matches(size, modified)) {
+                current.put(path, last);
+                return;
+            }
+            try {
+                current.put(path, new SyncState.Entry(size, modified, hasher.hash(file)));
+                hashed.incrementAndGet();
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                log.error("\n Unable to read {}. Cause: {}", file, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Locale;
+
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.Metadata;
+
+/**
+ * Stores recursive listings on the local disk. Every listing is kept in its
+ * own file, named after a digest of the access token and the listed path so
+ * the token itself is never written to disk. Entries are written in a compact
+ * binary format which loads much faster than the JSON returned by the api.
+ */
+public class MetadataCache {
+
+    final static private int VERSION = 1;
+    final static private int BUFFER_SIZE = 1 << 16;
+    final static private byte FOLDER = 0;
+    final static private byte FILE = 1;
+    final private Path directory;
+
+    /**
+     * @param directory
+     *            - folder holding the cache files, created on first save.
+     */
+    public MetadataCache(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * This method is used to read a previously saved listing.
+     *
+     * @param accessToken
+     *            - user accessToken the listing belongs to.
+     * @param path
+     *            - listed folder path.
+     * @return the cached listing or null if there is none.
+     * @throws IOException
+     *             if the cache file is unreadable.
+     */
+    public CachedListing load(final String accessToken, final String path) throws IOException {
+        final Path file = fileOf(accessToken, path);
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != VERSION) {
+                return null;
+            }
+            final String cursor = in.readUTF();
+            final int count = in.readInt();
+            final FolderTree tree = new FolderTree();
+            for (int i = 0; i < count; i++) {
+                tree.apply(readEntry(in));
+            }
+            return new CachedListing(tree, cursor);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * This method is used to replace the cached listing of a folder. The file
+     * is written next to the old one and moved in place afterwards, so an
+     * interrupted save never leaves a truncated cache behind.
+     *
+     * @param accessToken
+     *            - user accessToken the listing belongs to.
+     * @param path
+     *            - listed folder path.
+     * @param listing
+     *            - listing to store.
+     * @throws IOException
+     *             if the cache file could not be written.
+     */
+    public void save(final String accessToken, final String path, final CachedListing listing) throws IOException {
+        Files.createDirectories(directory);
+        final Path file = fileOf(accessToken, path);
+        final Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE))) {
+                out.writeInt(VERSION);
+                out.writeUTF(listing.getCursor());
+                out.writeInt(listing.getTree().size());
+                for (Metadata metadata : listing.getTree().entries()) {
+                    writeEntry(out, metadata);
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void writeEntry(final DataOutputStream out, final Metadata metadata) throws IOException {
+        if (metadata instanceof FileMetadata) {
+            final FileMetadata file = (FileMetadata) metadata;
+            out.writeByte(FILE);
+            writeCommon(out, metadata, file.getId());
+            out.writeUTF(file.getRev());
+            out.writeLong(file.getSize());
+            out.writeLong(file.getClientModified().getTime());
+            out.writeLong(file.getServerModified().getTime());
+            writeOptional(out, file.getContentHash());
+        } else {
+            out.writeByte(FOLDER);
+            writeCommon(out, metadata, ((FolderMetadata) metadata).getId());
+        }
+    }
+
+    private void writeCommon(final DataOutputStream out, final Metadata metadata, final String id)
+            throws IOException {
+        out.writeUTF(metadata.getName());
+        out.writeUTF(id);
+        out.writeUTF(metadata.getPathLower());
+        writeOptional(out, metadata.getPathDisplay());
+    }
+
+    private void writeOptional(final DataOutputStream out, final String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private Metadata readEntry(final DataInputStream in) throws IOException {
+        final byte type = in.readByte();
+        final String name = in.readUTF();
+        final String id = in.readUTF();
+        final String pathLower = in.readUTF();
+        final String pathDisplay = readOptional(in);
+        if (type == FOLDER) {
+            return FolderMetadata.newBuilder(name, id).withPathLower(pathLower).withPathDisplay(pathDisplay).build();
+        }
+        final String rev = in.readUTF();
+        final long size = in.readLong();
+        final Date clientModified = new Date(in.readLong());
+        final Date serverModified = new Date(in.readLong());
+        final String contentHash = readOptional(in);
+        return FileMetadata.newBuilder(name, id, clientModified, serverModified, rev, size).withPathLower(pathLower)
+                .withPathDisplay(pathDisplay).withContentHash(contentHash).build();
+    }
+
+    private String readOptional(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private Path fileOf(final String accessToken, final String path) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(accessToken.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(path.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+            final StringBuilder name = new StringBuilder("listing-");
+            for (byte b : digest.digest()) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return directory.resolve(name.append(".bin").toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.dropbox.dropboxclient.service;
+
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DecimalStyle;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Formats file sizes and modification dates for the console output. The
+ * formatters are immutable and cached per locale, so a single instance can be
+ * shared by any number of threads. Both methods append to a buffer supplied by
+ * the caller instead of returning new strings.
+ */
+public class MetadataFormatter {
+
+    final static private String DATE_PATTERN = "MM-dd-yyyy HH:mm:ss";
+    final static private String[] UNITS = { " KB", " MB", " GB", " TB", " PB" };
+    final private ConcurrentHashMap<Locale, DateTimeFormatter> dateFormatters = new ConcurrentHashMap<>();
+    final private ConcurrentHashMap<Locale, Character> decimalSeparators = new ConcurrentHashMap<>();
+    final private ZoneId zone;
+
+    /**
+     * Creates a formatter printing dates in the system default time zone.
+     */
+    public MetadataFormatter() {
+        this(ZoneId.systemDefault());
+    }
+
+    /**
+     * @param zone
+     *            - time zone of the printed dates.
+     */
+    public MetadataFormatter(final ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * This method is used to convert the user locale argument into a
+     * {@link Locale}. Both {@code en_US} and {@code en-US} are accepted.
+     *
+     * @param locale
+     *            - user locale, null or empty for the default locale.
+     * @return locale instance.
+     */
+    public static Locale toLocale(final String locale) {
+        if (locale == null || locale.isEmpty()) {
+            return Locale.getDefault(Locale.Category.FORMAT);
+        }
+        return Locale.forLanguageTag(locale.replace('_', '-'));
+    }
+
+    /**
+     * This method is used to append the bytes as human readable file size.
+     * Example: bytes, KB, MB, GB, TB etc. Sizes are rounded half up to one
+     * decimal place and use the decimal separator of the locale.
+     *
+     * @param bytes
+     *            - no of bytes
+     * @param locale
+     *            - user locale
+     * @param buffer
+     *            - receives the file size, Ex: 1.5 KB
+     * @return the buffer.
+     */
+    public StringBuilder readableFileSize(final long bytes, final Locale locale, final StringBuilder buffer) {
+        long b = bytes == Long.MIN_VALUE ? Long.MAX_VALUE : Math.abs(bytes);
+        if (b < 1000L) {
+            return buffer.append(bytes).append(" bytes");
+        }
+        if (bytes < 0) {
+            buffer.append('-');
+        }
+        final char separator = decimalSeparator(locale);
+        for (int unit = 0; unit < UNITS.length; unit++) {
+            if (unit > 0) {
+                b /= 1000;
+            }
+            if (b < 999_950L) {
+                return appendTenths(buffer, (b + 50) / 100, separator).append(UNITS[unit]);
+            }
+        }
+        return appendTenths(buffer, (b + 50_000) / 100_000, separator).append(" EB");
+    }
+
+    /**
+     * This method is used to append the date in 'MM-dd-yyyy HH:mm:ss' format.
+     *
+     * @param date
+     *            - date object
+     * @param locale
+     *            - user locale
+     * @param buffer
+     *            - receives the date, Ex: 02-09-2020 13:48:26.
+     * @return the buffer.
+     */
+    public StringBuilder formatDate(final Date date, final Locale locale, final StringBuilder buffer) {
+        dateFormatter(locale).formatTo(LocalDateTime.ofInstant(date.toInstant(), zone), buffer);
+        return buffer;
+    }
+
+    private DateTimeFormatter dateFormatter(final Locale locale) {
+        DateTimeFormatter formatter = dateFormatters.get(locale);
+        if (formatter == null) {
+            formatter = dateFormatters.computeIfAbsent(locale, key -> DateTimeFormatter
+                    .ofPattern(DATE_PATTERN, key).withDecimalStyle(DecimalStyle.of(key)));
+        }
+        return formatter;
+    }
+
+    private char decimalSeparator(final Locale locale) {
+        Character separator = decimalSeparators.get(locale);
+        if (separator == null) {
+            separator = decimalSeparators.computeIfAbsent(locale,
+                    key -> DecimalFormatSymbols.getInstance(key).getDecimalSeparator());
+        }
+        return separator;
+    }
+
+    private static StringBuilder appendTenths(final StringBuilder buffer, final long tenths, final char separator) {
+        return buffer.append(tenths / 10).append(separator).append((char) ('0' + tenths % 10));
+    }
+}
@@ -0,0 +1,27 @@
+package com.dropbox.dropboxclient.service;
+
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+
+/**
+ * Callback used by the listing engines to hand over the folders and files of a
+ * Dropbox tree in depth-first order.
+ */
+public interface MetadataVisitor {
+
+    /**
+     * This method is called for a folder before any of its entries are visited.
+     *
+     * @param folderMetadata
+     *            - folder metadata instance.
+     */
+    void visitFolder(FolderMetadata folderMetadata);
+
+    /**
+     * This method is called for every file of the tree.
+     *
+     * @param fileMetadata
+     *            - file metadata instance.
+     */
+    void visitFile(FileMetadata fileMetadata);
+}
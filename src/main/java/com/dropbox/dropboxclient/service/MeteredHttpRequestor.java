@@ -0,0 +1,140 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.dropbox.core.http.HttpRequestor;
+
+/**
+ * Counts the bytes of the requests and responses of another requestor in
+ * {@link CallMetrics}, under the api route of the url, e.g.
+ * "files/list_folder" for "https://api.dropboxapi.com/2/files/list_folder".
+ */
+public class MeteredHttpRequestor extends HttpRequestor {
+
+    final private HttpRequestor delegate;
+    final private CallMetrics metrics;
+
+    /**
+     * @param delegate
+     *            - requestor sending the requests.
+     * @param metrics
+     *            - receives the byte counts.
+     */
+    public MeteredHttpRequestor(final HttpRequestor delegate, final CallMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    /**
+     * This method is used to get the api route of a request url.
+     *
+     * @param url
+     *            - request url.
+     * @return path after the api version, without the query.
+     */
+    static String routeOf(final String url) {
+        int start = url.indexOf("/2/");
+        start = start < 0 ? url.lastIndexOf('/') + 1 : start + 3;
+        final int query = url.indexOf('?', start);
+        return query < 0 ? url.substring(start) : url.substring(start, query);
+    }
+
+    @Override
+    public Response doGet(final String url, final Iterable<Header> headers) throws IOException {
+        return metered(routeOf(url), delegate.doGet(url, headers));
+    }
+
+    @Override
+    public Uploader startPost(final String url, final Iterable<Header> headers) throws IOException {
+        return new MeteredUploader(routeOf(url), delegate.startPost(url, headers));
+    }
+
+    @Override
+    public Uploader startPostInStreamingMode(final String url, final Iterable<Header> headers) throws IOException {
+        return new MeteredUploader(routeOf(url), delegate.startPostInStreamingMode(url, headers));
+    }
+
+    @Override
+    public Uploader startPut(final String url, final Iterable<Header> headers) throws IOException {
+        return new MeteredUploader(routeOf(url), delegate.startPut(url, headers));
+    }
+
+    private Response metered(final String route, final Response response) {
+        final InputStream body = response.getBody();
+        if (body == null) {
+            return response;
+        }
+        return new Response(response.getStatusCode(), new FilterInputStream(body) {
+            @Override
+            public int read() throws IOException {
+                final int b = super.read();
+                if (b >= 0) {
+                    metrics.recordBytes(route, 0L, 1L);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+                final int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    metrics.recordBytes(route, 0L, read);
+                }
+                return read;
+            }
+        }, response.getHeaders());
+    }
+
+    /**
+     * Counts the bytes written to the request body.
+     */
+    private final class MeteredUploader extends Uploader {
+        final private String route;
+        final private Uploader uploader;
+        private OutputStream body;
+
+        MeteredUploader(final String route, final Uploader uploader) {
+            this.route = route;
+            this.uploader = uploader;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            if (body == null) {
+                body = new FilterOutputStream(uploader.getBody()) {
+                    @Override
+                    public void write(final int b) throws IOException {
+                        out.write(b);
+                        metrics.recordBytes(route, 1L, 0L);
+                    }
+
+                    @Override
+                    public void write(final byte[] buffer, final int offset, final int length) throws IOException {
+                        out.write(buffer, offset, length);
+                        metrics.recordBytes(route, length, 0L);
+                    }
+                };
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            uploader.close();
+        }
+
+        @Override
+        public void abort() {
+            uploader.abort();
+        }
+
+        @Override
+        public Response finish() throws IOException {
+            return metered(route, uploader.finish());
+        }
+    }
+}
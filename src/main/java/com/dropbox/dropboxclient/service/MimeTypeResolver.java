@@ -0,0 +1,103 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the mime type of a remote file from the extension of its name.
+ * The lookup table is loaded once from {@code mime-types.properties} and never
+ * changes afterwards. Extensions missing from the table are probed once with
+ * {@link Files#probeContentType} and the answer is cached, so the installed
+ * file type detectors are not consulted for every entry of a listing.
+ */
+public class MimeTypeResolver {
+
+    final static private Logger log = LoggerFactory.getLogger(MimeTypeResolver.class);
+    final static private String DEFAULT_TABLE = "/mime-types.properties";
+    final private Map<String, String> table;
+    final private Map<String, Optional<String>> probed = new ConcurrentHashMap<>();
+
+    /**
+     * @param table
+     *            - lower case extension to mime type table.
+     */
+    public MimeTypeResolver(final Map<String, String> table) {
+        this.table = Collections.unmodifiableMap(new HashMap<>(table));
+    }
+
+    /**
+     * This method is used to create a resolver from the bundled table,
+     * extended with the entries of an optional properties file.
+     *
+     * @param location
+     *            - path of a properties file with additional "extension=mime
+     *            type" entries, null or empty for none.
+     * @return the resolver.
+     */
+    public static MimeTypeResolver load(final String location) {
+        final Map<String, String> table = new HashMap<>();
+        try (InputStream in = MimeTypeResolver.class.getResourceAsStream(DEFAULT_TABLE)) {
+            read(new InputStreamReader(in, StandardCharsets.UTF_8), table);
+        } catch (IOException e) {
+            log.error("Unable to read the bundled mime type table: {}", e.getMessage());
+        }
+        if (location != null && !location.isEmpty()) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(location), StandardCharsets.UTF_8)) {
+                read(reader, table);
+            } catch (IOException e) {
+                log.error("Unable to read the mime type table {}: {}", location, e.getMessage());
+            }
+        }
+        return new MimeTypeResolver(table);
+    }
+
+    private static void read(final Reader reader, final Map<String, String> table) throws IOException {
+        final Properties properties = new Properties();
+        properties.load(reader);
+        for (String extension : properties.stringPropertyNames()) {
+            table.put(extension.toLowerCase(Locale.ROOT), properties.getProperty(extension).trim());
+        }
+    }
+
+    /**
+     * This method is used to resolve the mime type of a file name.
+     *
+     * @param fileName
+     *            - file name, only the extension is used.
+     * @return mime type or null if unknown.
+     */
+    public String resolve(final String fileName) {
+        final int dot = fileName.lastIndexOf('.');
+        final String extension = dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+        final String mimeType = table.get(extension);
+        if (mimeType != null) {
+            return mimeType;
+        }
+        return probed.computeIfAbsent(extension, MimeTypeResolver::probe).orElse(null);
+    }
+
+    private static Optional<String> probe(final String extension) {
+        try {
+            final String name = extension.isEmpty() ? "file" : "file." + extension;
+            return Optional.ofNullable(Files.probeContentType(Paths.get(name)));
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unable to probe the mime type of .{}: {}", extension, e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
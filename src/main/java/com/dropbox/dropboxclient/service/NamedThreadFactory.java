@@ -0,0 +1,32 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the daemon worker threads of the client, named "dropbox-" followed
+ * by the name of the pool and a counter, e.g. "dropbox-download-3", so they
+ * are recognisable in thread dumps and never keep the process alive. A thread
+ * writes to the console of the command which created it.
+ */
+public final class NamedThreadFactory implements ThreadFactory {
+
+    final private String name;
+    final private AtomicInteger counter = new AtomicInteger();
+
+    /**
+     * @param name
+     *            - name of the pool, e.g. "download".
+     */
+    public NamedThreadFactory(final String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(ConsoleContext.propagate(runnable),
+                "dropbox-" + name + "-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,40 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.Locale;
+
+/**
+ * Output formats of the list and info commands.
+ */
+public enum OutputFormat {
+    /**
+     * Human readable console output.
+     */
+    TEXT,
+    /**
+     * One JSON object per line.
+     */
+    JSONL,
+    /**
+     * Comma separated values with a header row, quoted as described in RFC
+     * 4180.
+     */
+    CSV,
+    /**
+     * Tab separated values with a header row, tabs, line breaks and
+     * backslashes inside values are escaped with a backslash.
+     */
+    TSV;
+
+    /**
+     * This method is used to resolve the format from a command line value.
+     *
+     * @param value
+     *            - format name, case insensitive.
+     * @return the matching format.
+     * @throws IllegalArgumentException
+     *             if the value is not a known format.
+     */
+    public static OutputFormat fromValue(final String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
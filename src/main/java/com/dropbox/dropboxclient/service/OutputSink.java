@@ -0,0 +1,30 @@
+package com.dropbox.dropboxclient.service;
+
+/**
+ * Destination of the rendered command output. Implementations are used by a
+ * single thread and may keep the output in a buffer until
+ * {@link #flush()} is called.
+ */
+public interface OutputSink {
+
+    OutputSink append(CharSequence value);
+
+    OutputSink append(char value);
+
+    OutputSink append(long value);
+
+    /**
+     * This method is used to terminate the current row with the platform line
+     * separator. Buffered implementations only hand complete rows to the
+     * underlying stream.
+     *
+     * @return this sink.
+     */
+    OutputSink newLine();
+
+    /**
+     * This method is used to write all buffered output to the underlying
+     * stream.
+     */
+    void flush();
+}
@@ -0,0 +1,191 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.Metadata;
+
+/**
+ * Resolves the metadata of a stream of paths. Paths are read one by one and
+ * resolved concurrently, at most {@code window} paths are read ahead of the
+ * last reported one, so arbitrarily long path lists use constant memory. All
+ * results are reported on the calling thread.
+ */
+public class PathResolver {
+
+    final private DbxClientV2 client;
+    final private RequestScheduler scheduler;
+    final private int window;
+
+    /**
+     * @param client
+     *            - Dropbox api client instance.
+     * @param scheduler
+     *            - runs the api calls.
+     * @param window
+     *            - maximum number of paths resolved concurrently.
+     */
+    public PathResolver(final DbxClientV2 client, final RequestScheduler scheduler, final int window) {
+        this.client = client;
+        this.scheduler = scheduler;
+        this.window = Math.max(1, window);
+    }
+
+    /**
+     * Receives the outcome of every path.
+     */
+    public interface Listener {
+
+        /**
+         * @param path
+         *            - path as read from the input.
+         * @param metadata
+         *            - metadata of the path.
+         */
+        void resolved(String path, Metadata metadata);
+
+        /**
+         * @param path
+         *            - path as read from the input.
+         * @param cause
+         *            - reason the path could not be resolved.
+         */
+        void failed(String path, Exception cause);
+    }
+
+    /**
+     * This method is used to resolve every non-blank line of the reader.
+     *
+     * @param paths
+     *            - one path per line.
+     * @param order
+     *            - order of the reported results.
+     * @param listener
+     *            - receives the results.
+     * @return number of paths read.
+     * @throws IOException
+     *             if the paths could not be read.
+     */
+    public int resolve(final BufferedReader paths, final StatOrder order, final Listener listener)
+            throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(window, new NamedThreadFactory("stat"));
+        try {
+            return order == StatOrder.INPUT ? resolveInInputOrder(paths, executor, listener)
+                    : resolveAsCompleted(paths, executor, listener);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int resolveInInputOrder(final BufferedReader paths, final ExecutorService executor,
+            final Listener listener) throws IOException {
+        final Deque<Future<Result>> pending = new ArrayDeque<>();
+        int count = 0;
+        String path;
+        while ((path = nextPath(paths)) != null) {
+            if (pending.size() >= window) {
+                report(Futures.await(pending.poll(), "resolving paths"), listener);
+            }
+            pending.add(executor.submit(lookup(path)));
+            count++;
+            while (!pending.isEmpty() && pending.peek().isDone()) {
+                report(Futures.await(pending.poll(), "resolving paths"), listener);
+            }
+        }
+        while (!pending.isEmpty()) {
+            report(Futures.await(pending.poll(), "resolving paths"), listener);
+        }
+        return count;
+    }
+
+    private int resolveAsCompleted(final BufferedReader paths, final ExecutorService executor,
+            final Listener listener) throws IOException {
+        final CompletionService<Result> completion = new ExecutorCompletionService<>(executor);
+        int outstanding = 0;
+        int count = 0;
+        String path;
+        while ((path = nextPath(paths)) != null) {
+            if (outstanding >= window) {
+                report(Futures.await(take(completion), "resolving paths"), listener);
+                outstanding--;
+            }
+            completion.submit(lookup(path));
+            outstanding++;
+            count++;
+            Future<Result> done;
+            while ((done = completion.poll()) != null) {
+                report(Futures.await(done, "resolving paths"), listener);
+                outstanding--;
+            }
+        }
+        for (; outstanding > 0; outstanding--) {
+            report(Futures.await(take(completion), "resolving paths"), listener);
+        }
+        return count;
+    }
+
+    private static String nextPath(final BufferedReader paths) throws IOException {
+        String line;
+        while ((line = paths.readLine()) != null) {
+            if (!line.trim().isEmpty()) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    private Callable<Result> lookup(final String path) {
+        return () -> {
+            final Result result = new Result(path);
+            try {
+                result.metadata = scheduler.execute("files/get_metadata",
+                        () -> client.files().getMetadata(path));
+            } catch (DbxException | RuntimeException e) {
+                result.error = e;
+            }
+            return result;
+        };
+    }
+
+    private static void report(final Result result, final Listener listener) {
+        if (result.error == null) {
+            listener.resolved(result.path, result.metadata);
+        } else {
+            listener.failed(result.path, result.error);
+        }
+    }
+
+    private static Future<Result> take(final CompletionService<Result> completion) {
+        try {
+            return completion.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while resolving paths", e);
+        }
+    }
+
+
+    /**
+     * Outcome of a single lookup.
+     */
+    private static final class Result {
+        final String path;
+        Metadata metadata;
+        Exception error;
+
+        Result(final String path) {
+            this.path = path;
+        }
+    }
+
+}
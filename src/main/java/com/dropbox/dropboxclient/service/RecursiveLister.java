@@ -0,0 +1,170 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.ListFolderResult;
+import com.dropbox.core.v2.files.Metadata;
+
+/**
+ * Lists a whole Dropbox tree with a single recursive list_folder cursor. The
+ * server returns the entries of all sub folders in a few large pages instead
+ * of one round-trip per folder, the hierarchy is rebuilt locally with a
+ * {@link FolderTree}.
+ */
+public class RecursiveLister {
+
+    final private DbxClientV2 client;
+    final private RequestScheduler scheduler;
+
+    /**
+     * @param client
+     *            - Dropbox api client instance.
+     * @param scheduler
+     *            - runs the api calls.
+     */
+    public RecursiveLister(final DbxClientV2 client, final RequestScheduler scheduler) {
+        this.client = client;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * This method is used to visit every folder and file below the given path
+     * in depth-first order.
+     *
+     * @param path
+     *            - folder path, empty for the root folder.
+     * @param visitor
+     *            - receives the entries.
+     * @throws DbxException
+     *             if the listing failed.
+     */
+    public void list(final String path, final MetadataVisitor visitor) throws DbxException {
+        final FolderTree tree = new FolderTree();
+        fetch(path, tree::apply);
+        tree.visit(path, visitor);
+    }
+
+    /**
+     * This method is used to lazily iterate the folders and files below the
+     * given path in the order of the pages. A page is only fetched once the
+     * entries of the previous one have been consumed, failures are thrown as
+     * {@link UncheckedDbxException}.
+     *
+     * @param path
+     *            - folder path, empty for the root folder.
+     * @return iterator over the entries, the folder itself excluded.
+     */
+    public Iterator<Metadata> iterator(final String path) {
+        final String rootLower = path.toLowerCase(Locale.ROOT);
+        return new Iterator<Metadata>() {
+            private List<Metadata> entries;
+            private int index;
+            private String cursor;
+            private boolean hasMore = true;
+            private Metadata next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && (entries != null && index < entries.size() || hasMore)) {
+                    if (entries == null || index == entries.size()) {
+                        load();
+                        continue;
+                    }
+                    final Metadata metadata = entries.get(index++);
+                    if (metadata instanceof FileMetadata || metadata instanceof FolderMetadata
+                            && !metadata.getPathLower().equals(rootLower)) {
+                        next = metadata;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Metadata next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final Metadata metadata = next;
+                next = null;
+                return metadata;
+            }
+
+            private void load() {
+                final String previous = cursor;
+                final ListFolderResult result;
+                try {
+                    result = previous == null
+                            ? scheduler.execute("files/list_folder",
+                                    () -> client.files().listFolderBuilder(path).withRecursive(true).start())
+                            : scheduler.execute("files/list_folder/continue",
+                                    () -> client.files().listFolderContinue(previous));
+                } catch (DbxException e) {
+                    hasMore = false;
+                    throw new UncheckedDbxException(e);
+                }
+                entries = result.getEntries();
+                index = 0;
+                cursor = result.getCursor();
+                hasMore = result.getHasMore();
+            }
+        };
+    }
+
+    /**
+     * This method is used to stream all pages of a recursive listing.
+     *
+     * @param path
+     *            - folder path, empty for the root folder.
+     * @param consumer
+     *            - receives the entries in the order of the pages.
+     * @return cursor of the last page, usable to fetch later changes.
+     * @throws DbxException
+     *             if the listing failed.
+     */
+    public String fetch(final String path, final Consumer<Metadata> consumer) throws DbxException {
+        return drain(scheduler.execute("files/list_folder",
+                () -> client.files().listFolderBuilder(path).withRecursive(true).start()), consumer);
+    }
+
+    /**
+     * This method is used to stream the changes made since the cursor was
+     * returned. Deleted entries are passed as
+     * {@link com.dropbox.core.v2.files.DeletedMetadata}.
+     *
+     * @param cursor
+     *            - cursor of a previous listing.
+     * @param consumer
+     *            - receives the changed entries.
+     * @return cursor of the last page.
+     * @throws DbxException
+     *             if the changes could not be fetched, a
+     *             {@link com.dropbox.core.v2.files.ListFolderContinueErrorException}
+     *             with a reset error means the cursor expired.
+     */
+    public String update(final String cursor, final Consumer<Metadata> consumer) throws DbxException {
+        return drain(scheduler.execute("files/list_folder/continue",
+                () -> client.files().listFolderContinue(cursor)), consumer);
+    }
+
+    private String drain(ListFolderResult result, final Consumer<Metadata> consumer) throws DbxException {
+        while (true) {
+            for (Metadata metadata : result.getEntries()) {
+                consumer.accept(metadata);
+            }
+            if (!result.getHasMore()) {
+                return result.getCursor();
+            }
+            final String cursor = result.getCursor();
+            result = scheduler.execute("files/list_folder/continue",
+                    () -> client.files().listFolderContinue(cursor));
+        }
+    }
+}
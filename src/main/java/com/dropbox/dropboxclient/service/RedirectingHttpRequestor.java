@@ -0,0 +1,61 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.IOException;
+
+import com.dropbox.core.http.HttpRequestor;
+
+/**
+ * Sends the requests of another requestor to a different server: the scheme
+ * and host of every url are replaced by a base url, e.g.
+ * "http://127.0.0.1:8080", and the path is kept. Used to point the client at a
+ * local stand-in of the Dropbox api, which does not need TLS.
+ */
+public class RedirectingHttpRequestor extends HttpRequestor {
+
+    final private HttpRequestor delegate;
+    final private String baseUrl;
+
+    /**
+     * @param delegate
+     *            - requestor sending the requests.
+     * @param baseUrl
+     *            - scheme, host and port the requests are sent to.
+     */
+    public RedirectingHttpRequestor(final HttpRequestor delegate, final String baseUrl) {
+        this.delegate = delegate;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    /**
+     * This method is used to replace the scheme and host of a url.
+     *
+     * @param url
+     *            - request url.
+     * @return url on the base url.
+     */
+    public String redirect(final String url) {
+        final int host = url.indexOf("://");
+        final int path = url.indexOf('/', host < 0 ? 0 : host + 3);
+        return baseUrl + (path < 0 ? "" : url.substring(path));
+    }
+
+    @Override
+    public Response doGet(final String url, final Iterable<Header> headers) throws IOException {
+        return delegate.doGet(redirect(url), headers);
+    }
+
+    @Override
+    public Uploader startPost(final String url, final Iterable<Header> headers) throws IOException {
+        return delegate.startPost(redirect(url), headers);
+    }
+
+    @Override
+    public Uploader startPostInStreamingMode(final String url, final Iterable<Header> headers) throws IOException {
+        return delegate.startPostInStreamingMode(redirect(url), headers);
+    }
+
+    @Override
+    public Uploader startPut(final String url, final Iterable<Header> headers) throws IOException {
+        return delegate.startPut(redirect(url), headers);
+    }
+}
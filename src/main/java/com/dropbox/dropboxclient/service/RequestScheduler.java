@@ -0,0 +1,269 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.NetworkIOException;
+import com.dropbox.core.RetryException;
+import com.dropbox.core.ServerException;
+
+/**
+ * Runs Dropbox api calls under an adaptive concurrency limit. The limit grows
+ * by one call per round of successful calls and is halved whenever the server
+ * asks to slow down (additive increase, multiplicative decrease), so the number
+ * of calls in flight settles just below the rate the server accepts.
+ * <p>
+ * A {@link com.dropbox.core.RateLimitException} pauses all callers for the
+ * Retry-After delay sent by the server. Rate limits, server errors and network
+ * failures are retried with a jittered exponential backoff, all other errors
+ * are thrown immediately. Calls which must not run twice, e.g. the launch of a
+ * batch job, are run with {@link #executeOnce(String, Call)}, which only
+ * retries the calls the server rejected before processing them.
+ * <p>
+ * Every attempt is recorded in the {@link CallMetrics} of the scheduler under
+ * the endpoint name given to {@link #execute(String, Call)}.
+ */
+public class RequestScheduler {
+
+    final static private Logger log = LoggerFactory.getLogger(RequestScheduler.class);
+    final static private long BASE_BACKOFF_MILLIS = 100L;
+    final static private long MAX_BACKOFF_MILLIS = 30_000L;
+    final private int maxConcurrency;
+    final private int maxRetries;
+    final private AtomicLong throttledCount = new AtomicLong();
+    final private AtomicLong retryCount = new AtomicLong();
+    final private CallMetrics metrics = new CallMetrics();
+    private double limit;
+    private int inFlight;
+    private long pausedUntilNanos = System.nanoTime();
+    private long lastDecreaseNanos = pausedUntilNanos;
+
+    /**
+     * Creates a scheduler allowing up to 64 calls in flight and 5 retries.
+     */
+    public RequestScheduler() {
+        this(64, 5);
+    }
+
+    /**
+     * @param maxConcurrency
+     *            - upper bound of the concurrency limit.
+     * @param maxRetries
+     *            - retries of a failing call before its error is thrown.
+     */
+    public RequestScheduler(final int maxConcurrency, final int maxRetries) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.limit = this.maxConcurrency;
+    }
+
+    /**
+     * Dropbox api call.
+     *
+     * @param <T>
+     *            result type.
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws DbxException;
+    }
+
+    /**
+     * This method is used to run a call once a slot is available, retrying it
+     * on transient failures. The call is recorded under
+     * {@link CallMetrics#OTHER}.
+     *
+     * @param call
+     *            - Dropbox api call.
+     * @return result of the call.
+     * @throws DbxException
+     *             if the call failed and is not retryable, or all retries
+     *             failed.
+     */
+    public <T> T execute(final Call<T> call) throws DbxException {
+        return execute(null, call);
+    }
+
+    /**
+     * This method is used to run a call once a slot is available, retrying it
+     * on transient failures.
+     *
+     * @param endpoint
+     *            - api route of the call, e.g. "files/list_folder", under which
+     *            its attempts are recorded.
+     * @param call
+     *            - Dropbox api call.
+     * @return result of the call.
+     * @throws DbxException
+     *             if the call failed and is not retryable, or all retries
+     *             failed.
+     */
+    public <T> T execute(final String endpoint, final Call<T> call) throws DbxException {
+        return execute(endpoint, call, true);
+    }
+
+    /**
+     * This method is used to run a call which is not idempotent once a slot
+     * is available. A server error or network failure may come after the
+     * server already ran the call, so only rate limits and "too busy" answers
+     * are retried.
+     *
+     * @param endpoint
+     *            - api route of the call, under which its attempts are
+     *            recorded.
+     * @param call
+     *            - Dropbox api call.
+     * @return result of the call.
+     * @throws DbxException
+     *             if the call failed, or all retries of a rejected call
+     *             failed.
+     */
+    public <T> T executeOnce(final String endpoint, final Call<T> call) throws DbxException {
+        return execute(endpoint, call, false);
+    }
+
+    private <T> T execute(final String endpoint, final Call<T> call, final boolean idempotent)
+            throws DbxException {
+        long waitingSince = System.nanoTime();
+        for (int attempt = 0;; attempt++) {
+            final long startNanos = acquire();
+            metrics.recordQueued(startNanos - waitingSince);
+            long backoffMillis;
+            try {
+                final T result = call.call();
+                metrics.recordCall(endpoint, System.nanoTime() - startNanos, false, false);
+                release(Outcome.SUCCESS, startNanos, 0L);
+                return result;
+            } catch (RetryException e) {
+                // Rate limits and "too busy" answers both mean the server is overloaded.
+                // The Retry-After delay pauses every caller, not only this one.
+                metrics.recordCall(endpoint, System.nanoTime() - startNanos, true, true);
+                throttledCount.incrementAndGet();
+                release(Outcome.THROTTLED, startNanos, e.getBackoffMillis());
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                backoffMillis = backoff(attempt);
+            } catch (ServerException | NetworkIOException e) {
+                metrics.recordCall(endpoint, System.nanoTime() - startNanos, true, false);
+                release(Outcome.FAILED, startNanos, 0L);
+                if (!idempotent || attempt >= maxRetries) {
+                    throw e;
+                }
+                backoffMillis = backoff(attempt);
+            } catch (DbxException | RuntimeException e) {
+                metrics.recordCall(endpoint, System.nanoTime() - startNanos, true, false);
+                release(Outcome.FAILED, startNanos, 0L);
+                throw e;
+            }
+            retryCount.incrementAndGet();
+            metrics.recordRetry(endpoint);
+            waitingSince = System.nanoTime();
+            log.debug("Retrying request in {} ms, attempt {} of {}.", backoffMillis, attempt + 1, maxRetries);
+            sleep(jitter(backoffMillis));
+        }
+    }
+
+    private synchronized long acquire() {
+        while (true) {
+            final long now = System.nanoTime();
+            final long pausedNanos = pausedUntilNanos - now;
+            if (pausedNanos <= 0 && inFlight < (int) limit) {
+                inFlight++;
+                return now;
+            }
+            try {
+                if (pausedNanos > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, pausedNanos);
+                } else {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a request slot", e);
+            }
+        }
+    }
+
+    private synchronized void release(final Outcome outcome, final long startNanos, final long pauseMillis) {
+        inFlight--;
+        switch (outcome) {
+        case SUCCESS:
+            limit = Math.min(maxConcurrency, limit + 1.0 / limit);
+            break;
+        case THROTTLED:
+            // Calls started before the last decrease saw the old limit, they
+            // must not halve it again.
+            if (startNanos - lastDecreaseNanos > 0) {
+                limit = Math.max(1.0, limit / 2);
+                lastDecreaseNanos = System.nanoTime();
+            }
+            if (pauseMillis > 0) {
+                pausedUntilNanos = Math.max(pausedUntilNanos,
+                        System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pauseMillis));
+            }
+            break;
+        default:
+            break;
+        }
+        notifyAll();
+    }
+
+    private static long backoff(final int attempt) {
+        return Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt, 16));
+    }
+
+    /**
+     * Spreads the retries of concurrent callers over the second half of the
+     * backoff, so they do not hit the server at the same instant.
+     */
+    private static long jitter(final long backoffMillis) {
+        return backoffMillis / 2 + ThreadLocalRandom.current().nextLong(backoffMillis / 2 + 1);
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry a request", e);
+        }
+    }
+
+    /**
+     * @return current concurrency limit.
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return number of calls rejected because the server was overloaded.
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    /**
+     * @return number of retried calls.
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * @return counters of the calls run by this scheduler.
+     */
+    public CallMetrics getMetrics() {
+        return metrics;
+    }
+
+    private enum Outcome {
+        SUCCESS, THROTTLED, FAILED
+    }
+}
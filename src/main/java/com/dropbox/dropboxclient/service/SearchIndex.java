@@ -0,0 +1,303 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.dropbox.core.v2.files.DeletedMetadata;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.Metadata;
+
+/**
+ * In memory index of the files of a listing answering {@link SearchQuery find
+ * queries} without calling the api. The lower case names, extensions, sizes
+ * and modification dates are kept in columns indexed by an entry id, and every
+ * trigram of a name points to the sorted ids of the names containing it.
+ * <p>
+ * A pattern like "*.psd" is answered by scanning the extension column, other
+ * patterns by intersecting the posting lists of the trigrams of their literal
+ * parts; the remaining conditions are only checked on those candidates.
+ * Changes of the listing are applied incrementally: new entries are appended,
+ * replaced and deleted entries are marked dead and the index is compacted
+ * once most entries are dead. Not thread safe.
+ */
+public class SearchIndex {
+
+    final static private int INITIAL_CAPACITY = 256;
+    final static private int NO_EXTENSION = -1;
+    final static private int MIN_COMPACTION = 1024;
+    final private Map<String, Integer> ids = new HashMap<>();
+    final private Map<String, Integer> extensionIds = new HashMap<>();
+    final private Map<Long, Postings> trigrams = new HashMap<>();
+    final private BitSet dead = new BitSet();
+    private FileMetadata[] files = new FileMetadata[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] extensions = new int[INITIAL_CAPACITY];
+    private long[] sizes = new long[INITIAL_CAPACITY];
+    private long[] modified = new long[INITIAL_CAPACITY];
+    private int count;
+    private int deadCount;
+
+    public SearchIndex() {
+    }
+
+    /**
+     * @param entries
+     *            - entries of a listing, e.g. a cached {@link FolderTree}.
+     */
+    public SearchIndex(final Iterable<Metadata> entries) {
+        for (Metadata metadata : entries) {
+            apply(metadata);
+        }
+    }
+
+    /**
+     * This method is used to add or replace a file. A {@link DeletedMetadata}
+     * entry removes the file or, for folders, all the files below. Folders are
+     * not indexed but replace a file of the same path.
+     *
+     * @param metadata
+     *            - entry of the listing.
+     */
+    public void apply(final Metadata metadata) {
+        final String pathLower = metadata.getPathLower();
+        if (pathLower == null) {
+            return;
+        }
+        final boolean removed = kill(pathLower);
+        if (metadata instanceof FileMetadata) {
+            append((FileMetadata) metadata);
+        } else if (metadata instanceof DeletedMetadata && !removed) {
+            final String prefix = pathLower + "/";
+            ids.entrySet().removeIf(entry -> entry.getKey().startsWith(prefix) && markDead(entry.getValue()));
+        }
+        if (deadCount > MIN_COMPACTION && deadCount > count / 2) {
+            compact();
+        }
+    }
+
+    private boolean kill(final String pathLower) {
+        final Integer id = ids.remove(pathLower);
+        return id != null && markDead(id);
+    }
+
+    private boolean markDead(final int id) {
+        dead.set(id);
+        files[id] = null;
+        deadCount++;
+        return true;
+    }
+
+    private void append(final FileMetadata file) {
+        final int id = count++;
+        if (id == files.length) {
+            final int capacity = files.length * 2;
+            files = Arrays.copyOf(files, capacity);
+            names = Arrays.copyOf(names, capacity);
+            extensions = Arrays.copyOf(extensions, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            modified = Arrays.copyOf(modified, capacity);
+        }
+        final String name = file.getName().toLowerCase(Locale.ROOT);
+        files[id] = file;
+        names[id] = name;
+        final String extension = extensionOf(name);
+        extensions[id] = extension == null ? NO_EXTENSION
+                : extensionIds.computeIfAbsent(extension, key -> extensionIds.size());
+        sizes[id] = file.getSize();
+        modified[id] = file.getClientModified().getTime();
+        ids.put(file.getPathLower(), id);
+        for (int i = 0; i + 3 <= name.length(); i++) {
+            trigrams.computeIfAbsent(trigram(name, i), key -> new Postings()).add(id);
+        }
+    }
+
+    /**
+     * This method is used to rebuild the index from its live entries.
+     */
+    private void compact() {
+        final FileMetadata[] live = new FileMetadata[count - deadCount];
+        int next = 0;
+        for (int id = 0; id < count; id++) {
+            if (!dead.get(id)) {
+                live[next++] = files[id];
+            }
+        }
+        ids.clear();
+        extensionIds.clear();
+        trigrams.clear();
+        dead.clear();
+        count = 0;
+        deadCount = 0;
+        for (FileMetadata file : live) {
+            append(file);
+        }
+    }
+
+    /**
+     * @return number of indexed files.
+     */
+    public int size() {
+        return count - deadCount;
+    }
+
+    /**
+     * This method is used to find the files matching a query.
+     *
+     * @param query
+     *            - name pattern, size and date conditions.
+     * @return matching files sorted by path.
+     */
+    public List<FileMetadata> search(final SearchQuery query) {
+        final String pattern = query.getPattern().toLowerCase(Locale.ROOT);
+        final List<FileMetadata> matches = new ArrayList<>();
+        final String extension = pattern.startsWith("*.") ? literal(pattern.substring(2)) : null;
+        int[] candidates = null;
+        int extensionId = NO_EXTENSION;
+        if (extension != null && extension.indexOf('.') < 0) {
+            final Integer known = extensionIds.get(extension);
+            if (known == null) {
+                return matches;
+            }
+            extensionId = known;
+        } else {
+            candidates = candidates(pattern);
+        }
+        final int total = candidates == null ? count : candidates.length;
+        for (int i = 0; i < total; i++) {
+            final int id = candidates == null ? i : candidates[i];
+            if (dead.get(id) || sizes[id] <= query.getMinSize() || sizes[id] >= query.getMaxSize()
+                    || modified[id] < query.getModifiedAfter() || modified[id] >= query.getModifiedBefore()) {
+                continue;
+            }
+            if (extensionId == NO_EXTENSION ? matches(pattern, names[id]) : extensions[id] == extensionId) {
+                matches.add(files[id]);
+            }
+        }
+        matches.sort(Comparator.comparing(FileMetadata::getPathLower));
+        return matches;
+    }
+
+    /**
+     * This method is used to intersect the posting lists of the trigrams of
+     * the literal parts of a pattern.
+     *
+     * @return sorted candidate ids, or null if the pattern has no trigram and
+     *         every entry is a candidate.
+     */
+    private int[] candidates(final String pattern) {
+        final List<Postings> lists = new ArrayList<>();
+        int start = 0;
+        for (int end = 0; end <= pattern.length(); end++) {
+            if (end == pattern.length() || pattern.charAt(end) == '*' || pattern.charAt(end) == '?') {
+                for (int i = start; i + 3 <= end; i++) {
+                    final Postings postings = trigrams.get(trigram(pattern, i));
+                    if (postings == null) {
+                        return new int[0];
+                    }
+                    lists.add(postings);
+                }
+                start = end + 1;
+            }
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+        lists.sort(Comparator.comparingInt(postings -> postings.size));
+        int[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        for (int l = 1; l < lists.size() && result.length > 0; l++) {
+            result = intersect(result, lists.get(l));
+        }
+        return result;
+    }
+
+    private static int[] intersect(final int[] left, final Postings right) {
+        final int[] result = new int[left.length];
+        int size = 0;
+        int j = 0;
+        for (int i = 0; i < left.length && j < right.size; i++) {
+            while (j < right.size && right.ids[j] < left[i]) {
+                j++;
+            }
+            if (j < right.size && right.ids[j] == left[i]) {
+                result[size++] = left[i];
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * This method is used to match a name against a pattern where "*" matches
+     * any characters and "?" a single character.
+     *
+     * @param pattern
+     *            - lower case pattern.
+     * @param name
+     *            - lower case name.
+     * @return true if the whole name matches.
+     */
+    static boolean matches(final String pattern, final String name) {
+        int p = 0;
+        int n = 0;
+        int star = -1;
+        int mark = 0;
+        while (n < name.length()) {
+            final char c = p < pattern.length() ? pattern.charAt(p) : 0;
+            if (p < pattern.length() && (c == '?' || c == name.charAt(n))) {
+                p++;
+                n++;
+            } else if (c == '*') {
+                star = p++;
+                mark = n;
+            } else if (star >= 0) {
+                p = star + 1;
+                n = ++mark;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length() && pattern.charAt(p) == '*') {
+            p++;
+        }
+        return p == pattern.length();
+    }
+
+    /**
+     * @return the text if it has no wildcard, otherwise null.
+     */
+    private static String literal(final String text) {
+        return text.isEmpty() || text.indexOf('*') >= 0 || text.indexOf('?') >= 0 ? null : text;
+    }
+
+    private static String extensionOf(final String name) {
+        final int dot = name.lastIndexOf('.');
+        return dot < 0 || dot == name.length() - 1 ? null : name.substring(dot + 1);
+    }
+
+    private static long trigram(final String text, final int index) {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+
+    /**
+     * Growable list of increasing ids.
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(final int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
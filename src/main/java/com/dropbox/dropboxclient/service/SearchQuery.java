@@ -0,0 +1,79 @@
+package com.dropbox.dropboxclient.service;
+
+/**
+ * Conditions of the find command. A file matches when its name matches the
+ * pattern and its size and modification date are inside the given bounds.
+ */
+public class SearchQuery {
+
+    private String pattern = "*";
+    private long minSize = -1L;
+    private long maxSize = Long.MAX_VALUE;
+    private long modifiedAfter = Long.MIN_VALUE;
+    private long modifiedBefore = Long.MAX_VALUE;
+    private OutputFormat format = OutputFormat.TEXT;
+
+    /**
+     * @return case insensitive name pattern, "*" matches any characters and
+     *         "?" a single character.
+     */
+    public String getPattern() {
+        return this.pattern;
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * @return size in bytes the files must be larger than, -1 for any size.
+     */
+    public long getMinSize() {
+        return this.minSize;
+    }
+
+    public void setMinSize(long minSize) {
+        this.minSize = minSize;
+    }
+
+    /**
+     * @return size in bytes the files must be smaller than.
+     */
+    public long getMaxSize() {
+        return this.maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return epoch milliseconds the files must be modified at or after.
+     */
+    public long getModifiedAfter() {
+        return this.modifiedAfter;
+    }
+
+    public void setModifiedAfter(long modifiedAfter) {
+        this.modifiedAfter = modifiedAfter;
+    }
+
+    /**
+     * @return epoch milliseconds the files must be modified before.
+     */
+    public long getModifiedBefore() {
+        return this.modifiedBefore;
+    }
+
+    public void setModifiedBefore(long modifiedBefore) {
+        this.modifiedBefore = modifiedBefore;
+    }
+
+    public OutputFormat getFormat() {
+        return this.format;
+    }
+
+    public void setFormat(OutputFormat format) {
+        this.format = format;
+    }
+}
@@ -0,0 +1,30 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.Locale;
+
+/**
+ * Order in which the stat command prints the resolved paths.
+ */
+public enum StatOrder {
+    /**
+     * Same order as the paths were read.
+     */
+    INPUT,
+    /**
+     * As soon as the metadata of a path is available.
+     */
+    COMPLETED;
+
+    /**
+     * This method is used to resolve the order from a command line value.
+     *
+     * @param value
+     *            - order name, case insensitive.
+     * @return the matching order.
+     * @throws IllegalArgumentException
+     *             if the value is not a known order.
+     */
+    public static StatOrder fromValue(final String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
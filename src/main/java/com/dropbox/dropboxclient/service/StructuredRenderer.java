@@ -0,0 +1,148 @@
+package com.dropbox.dropboxclient.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.function.Function;
+
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.users.Account;
+import com.dropbox.core.v2.users.FullAccount;
+import com.dropbox.core.v2.users.Name;
+
+/**
+ * Base class of the machine readable renderers. Every entry becomes one
+ * record with a fixed set of columns, values are escaped character by
+ * character straight into the sink so no intermediate strings are created per
+ * entry. Timestamps are written as ISO-8601 UTC instants.
+ */
+public abstract class StructuredRenderer implements ListingRenderer {
+
+    final static protected String[] ENTRY_COLUMNS = { "type", "id", "path", "name", "size", "mime_type",
+            "client_modified", "server_modified", "rev", "content_hash" };
+    final static protected String[] ACCOUNT_COLUMNS = { "account_id", "display_name", "given_name", "surname",
+            "familiar_name", "email", "email_verified", "country", "referral_link" };
+    final protected OutputSink sink;
+    final private Function<String, String> mimeTypes;
+    final private StringBuilder scratch = new StringBuilder(24);
+
+    /**
+     * @param sink
+     *            - receives the records.
+     * @param mimeTypes
+     *            - resolves the mime type of a file name, may return null.
+     */
+    protected StructuredRenderer(final OutputSink sink, final Function<String, String> mimeTypes) {
+        this.sink = sink;
+        this.mimeTypes = mimeTypes;
+    }
+
+    @Override
+    public void beginEntries() {
+        header(ENTRY_COLUMNS);
+    }
+
+    @Override
+    public void beginAccounts() {
+        header(ACCOUNT_COLUMNS);
+    }
+
+    @Override
+    public void visitFolder(final FolderMetadata folderMetadata) {
+        beginRecord();
+        text("type", "folder");
+        text("id", folderMetadata.getId());
+        text("path", folderMetadata.getPathDisplay());
+        text("name", folderMetadata.getName());
+        missing("size");
+        missing("mime_type");
+        missing("client_modified");
+        missing("server_modified");
+        missing("rev");
+        missing("content_hash");
+        endRecord();
+    }
+
+    @Override
+    public void visitFile(final FileMetadata fileMetadata) {
+        beginRecord();
+        text("type", "file");
+        text("id", fileMetadata.getId());
+        text("path", fileMetadata.getPathDisplay());
+        text("name", fileMetadata.getName());
+        number("size", fileMetadata.getSize());
+        text("mime_type", mimeTypes.apply(fileMetadata.getName()));
+        timestamp("client_modified", fileMetadata.getClientModified());
+        timestamp("server_modified", fileMetadata.getServerModified());
+        text("rev", fileMetadata.getRev());
+        text("content_hash", fileMetadata.getContentHash());
+        endRecord();
+    }
+
+    @Override
+    public void renderAccount(final Account account) {
+        final Name name = account.getName();
+        beginRecord();
+        text("account_id", account.getAccountId());
+        text("display_name", name.getDisplayName());
+        text("given_name", name.getGivenName());
+        text("surname", name.getSurname());
+        text("familiar_name", name.getFamiliarName());
+        text("email", account.getEmail());
+        bool("email_verified", account.getEmailVerified());
+        if (account instanceof FullAccount) {
+            text("country", ((FullAccount) account).getCountry());
+            text("referral_link", ((FullAccount) account).getReferralLink());
+        } else {
+            missing("country");
+            missing("referral_link");
+        }
+        endRecord();
+    }
+
+    private void timestamp(final String column, final Date date) {
+        if (date == null) {
+            missing(column);
+            return;
+        }
+        final long millis = date.getTime();
+        final LocalDateTime time = LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L), 0, ZoneOffset.UTC);
+        scratch.setLength(0);
+        scratch.append(time.getYear()).append('-');
+        pad(time.getMonthValue()).append('-');
+        pad(time.getDayOfMonth()).append('T');
+        pad(time.getHour()).append(':');
+        pad(time.getMinute()).append(':');
+        pad(time.getSecond()).append('Z');
+        text(column, scratch);
+    }
+
+    private StringBuilder pad(final int value) {
+        if (value < 10) {
+            scratch.append('0');
+        }
+        return scratch.append(value);
+    }
+
+    /**
+     * This method is used to write the header row of a record type.
+     */
+    protected abstract void header(String[] columns);
+
+    protected abstract void beginRecord();
+
+    /**
+     * This method is used to write a text column, null values are treated as
+     * missing.
+     */
+    protected abstract void text(String column, CharSequence value);
+
+    protected abstract void number(String column, long value);
+
+    protected abstract void bool(String column, boolean value);
+
+    protected abstract void missing(String column);
+
+    protected abstract void endRecord();
+}
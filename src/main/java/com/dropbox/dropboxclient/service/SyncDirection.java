@@ -0,0 +1,30 @@
+package com.dropbox.dropboxclient.service;
+
+import java.util.Locale;
+
+/**
+ * Direction in which the sync command transfers changed files.
+ */
+public enum SyncDirection {
+    /**
+     * From the local directory into the Dropbox folder.
+     */
+    UP,
+    /**
+     * From the Dropbox folder into the local directory.
+     */
+    DOWN;
+
+    /**
+     * This method is used to resolve the direction from a command line value.
+     *
+     * @param value
+     *            - direction name, case insensitive.
+     * @return the matching direction.
+     * @throws IllegalArgumentException
+     *             if the value is not a known direction.
+     */
+    public static SyncDirection fromValue(final String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,181 @@
+package com.dropbox.dropboxclient.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Size, modification time and content hash of the files of a local directory
+ * as seen by the last sync. A file whose size and modification time did not
+ * change keeps its hash, so only changed files have to be read again. Entries
+ * are keyed by their path relative to the directory, with "/" separators.
+ * Instances are thread-safe.
+ */
+public class SyncState {
+
+    final static private int VERSION = 1;
+    final static private int BUFFER_SIZE = 1 << 16;
+    final private Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * This method is used to read a previously saved state.
+     *
+     * @param file
+     *            - state file.
+     * @return the saved state, an empty state if there is none.
+     * @throws IOException
+     *             if the state file is unreadable.
+     */
+    public static SyncState load(final Path file) throws IOException {
+        final SyncState state = new SyncState();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != VERSION) {
+                return state;
+            }
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final String path = in.readUTF();
+                state.put(path, new Entry(in.readLong(), in.readLong(), in.readUTF()));
+            }
+        } catch (NoSuchFileException e) {
+            // First sync of the directory.
+        }
+        return state;
+    }
+
+    /**
+     * This method is used to replace the saved state. The file is written next
+     * to the old one and moved in place afterwards.
+     *
+     * @param file
+     *            - state file.
+     * @throws IOException
+     *             if the state file could not be written.
+     */
+    public void save(final Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        final Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE))) {
+                out.writeInt(VERSION);
+                final Map<String, Entry> snapshot = new TreeMap<>(entries);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> entry : snapshot.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().getSize());
+                    out.writeLong(entry.getValue().getModified());
+                    out.writeUTF(entry.getValue().getHash());
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * This method is used to name the state file of a local directory synced
+     * with a Dropbox folder.
+     *
+     * @param directory
+     *            - folder holding the state files.
+     * @param local
+     *            - synced local directory.
+     * @param folder
+     *            - synced Dropbox folder.
+     * @return state file below the directory.
+     */
+    public static Path fileOf(final Path directory, final Path local, final String folder) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(local.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(folder.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+            final StringBuilder name = new StringBuilder("sync-");
+            for (byte b : digest.digest()) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return directory.resolve(name.append(".bin").toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    public Entry get(final String path) {
+        return entries.get(path);
+    }
+
+    public void put(final String path, final Entry entry) {
+        entries.put(path, entry);
+    }
+
+    /**
+     * @return read-only view of the entries by relative path.
+     */
+    public Map<String, Entry> entries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * State of a single file.
+     */
+    public static final class Entry {
+        final private long size;
+        final private long modified;
+        final private String hash;
+
+        /**
+         * @param size
+         *            - file size in bytes.
+         * @param modified
+         *            - modification time in milliseconds.
+         * @param hash
+         *            - Dropbox content hash of the file.
+         */
+        public Entry(final long size, final long modified, final String hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getModified() {
+            return modified;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * @return true if the file still has the size and modification time
+         *         its hash was computed for.
+         */
+        public boolean matches(final long size, final long modified) {
+            return this.size == size && this.modified == modified;
+        }
+    }
+}
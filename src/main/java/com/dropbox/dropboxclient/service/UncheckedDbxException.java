@@ -0,0 +1,25 @@
+package com.dropbox.dropboxclient.service;
+
+import com.dropbox.core.DbxException;
+
+/**
+ * Wraps the {@link DbxException} of a lazy listing, whose iterators and
+ * streams cannot throw checked exceptions.
+ */
+public class UncheckedDbxException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param cause
+     *            - failure of the api call.
+     */
+    public UncheckedDbxException(final DbxException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized DbxException getCause() {
+        return (DbxException) super.getCause();
+    }
+}
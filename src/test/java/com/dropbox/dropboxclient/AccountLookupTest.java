@@ -0,0 +1,131 @@
+package com.dropbox.dropboxclient;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.users.Account;
+import com.dropbox.core.v2.users.BasicAccount;
+import com.dropbox.core.v2.users.DbxUserUsersRequests;
+import com.dropbox.core.v2.users.GetAccountBatchError;
+import com.dropbox.core.v2.users.GetAccountBatchErrorException;
+import com.dropbox.core.v2.users.Name;
+import com.dropbox.dropboxclient.service.AccountLookup;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+
+public class AccountLookupTest {
+    final static private Logger log = LoggerFactory.getLogger(AccountLookupTest.class);
+
+    @Test
+    public void testTokensAndAccountIdsInLineOrder() throws IOException, DbxException {
+        log.info("*******Test case Started : Account lookup reports tokens and account ids in line order. ******\n");
+        Map<String, DbxClientV2> clients = new HashMap<>();
+        clients.put("token-1", client(id("one")));
+        DbxClientV2 invalid = Mockito.mock(DbxClientV2.class);
+        DbxUserUsersRequests users = Mockito.mock(DbxUserUsersRequests.class);
+        Mockito.when(invalid.users()).thenReturn(users);
+        Mockito.when(users.getCurrentAccount()).thenThrow(new DbxException("invalid_access_token"));
+        clients.put("token-2", invalid);
+        DbxUserUsersRequests batch = clients.get("token-1").users();
+        Mockito.when(batch.getAccountBatch(Mockito.anyList())).thenAnswer(invocation -> {
+            List<String> ids = invocation.getArgument(0);
+            if (ids.contains(id("unknown"))) {
+                throw new GetAccountBatchErrorException("2/users/get_account_batch", "req", null,
+                        GetAccountBatchError.noAccount(id("unknown")));
+            }
+            List<BasicAccount> accounts = new ArrayList<>();
+            for (String id : ids) {
+                accounts.add(basicAccount(id));
+            }
+            return accounts;
+        });
+        String lines = "# team accounts\ntoken-2\n\n" + id("unknown") + "\ntoken-1\n" + id("two") + "\n"
+                + id("two") + "\n";
+        List<String> results = new ArrayList<>();
+        int total = new AccountLookup(clients::get, new RequestScheduler(), 4)
+                .lookup(new BufferedReader(new StringReader(lines)), new AccountLookup.Listener() {
+                    @Override
+                    public void found(int line, Account account) {
+                        String id = account.getAccountId();
+                        results.add(line + " " + id.substring(0, id.indexOf('-')));
+                    }
+
+                    @Override
+                    public void failed(int line, Exception cause) {
+                        results.add(line + " failed");
+                    }
+                });
+        Assert.assertEquals(5, total);
+        Assert.assertEquals("[2 failed, 4 failed, 5 dbid:one, 6 dbid:two, 7 dbid:two]", results.toString());
+        Mockito.verify(batch, Mockito.times(2)).getAccountBatch(Mockito.anyList());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testAccountIdsSplitIntoBatches() throws IOException, DbxException {
+        log.info("*******Test case Started : Account lookup fetches at most 300 account ids per call. ******\n");
+        DbxClientV2 client = client(id("owner"));
+        Mockito.when(client.users().getAccountBatch(Mockito.anyList())).thenAnswer(invocation -> {
+            List<String> ids = invocation.getArgument(0);
+            Assert.assertTrue(ids.size() <= AccountLookup.MAX_BATCH_SIZE);
+            List<BasicAccount> accounts = new ArrayList<>();
+            for (String id : ids) {
+                accounts.add(basicAccount(id));
+            }
+            return accounts;
+        });
+        StringBuilder lines = new StringBuilder("token\n");
+        for (int i = 0; i < 650; i++) {
+            lines.append(id(String.valueOf(i))).append('\n');
+        }
+        List<Integer> found = new ArrayList<>();
+        int total = new AccountLookup(token -> client, new RequestScheduler(), 2)
+                .lookup(new BufferedReader(new StringReader(lines.toString())), new AccountLookup.Listener() {
+                    @Override
+                    public void found(int line, Account account) {
+                        found.add(line);
+                    }
+
+                    @Override
+                    public void failed(int line, Exception cause) {
+                        Assert.fail("Unexpected failure of line " + line + ": " + cause.getMessage());
+                    }
+                });
+        Assert.assertEquals(651, total);
+        Assert.assertEquals(651, found.size());
+        Mockito.verify(client.users(), Mockito.times(3)).getAccountBatch(Mockito.anyList());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    private static DbxClientV2 client(String accountId) throws DbxException {
+        DbxClientV2 client = Mockito.mock(DbxClientV2.class);
+        DbxUserUsersRequests users = Mockito.mock(DbxUserUsersRequests.class);
+        Mockito.when(client.users()).thenReturn(users);
+        Mockito.when(users.getCurrentAccount()).thenReturn(SyntheticDropboxTree.account(accountId));
+        return client;
+    }
+
+    /**
+     * Account ids are 40 characters long.
+     */
+    private static String id(String name) {
+        return String.format("%-40s", "dbid:" + name + "-").replace(' ', 'x');
+    }
+
+    private static BasicAccount basicAccount(String accountId) {
+        Name name = new Name("Team", "Member", "Team", "Team Member", "TM");
+        return new BasicAccount(accountId, name, "member@example.com", true, false, false);
+    }
+}
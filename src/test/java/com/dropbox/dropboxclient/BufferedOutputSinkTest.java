@@ -0,0 +1,89 @@
+package com.dropbox.dropboxclient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.dropboxclient.service.BufferedOutputSink;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+
+public class BufferedOutputSinkTest {
+    final static private Logger log = LoggerFactory.getLogger(BufferedOutputSinkTest.class);
+    final static private String NL = System.lineSeparator();
+
+    @Test
+    public void testRowsAreWrittenInChunks() {
+        log.info("*******Test case Started : Rows are written in large chunks. ******\n");
+        CountingStream out = new CountingStream();
+        BufferedOutputSink sink = new BufferedOutputSink(out, StandardCharsets.UTF_8, 100);
+        for (int i = 0; i < 100; i++) {
+            sink.append("row ").append(i).append(' ').append("é文").newLine();
+        }
+        int writesBeforeFlush = out.writes.get();
+        sink.flush();
+        String expected = buildExpected();
+        Assert.assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+        Assert.assertTrue("Chunked writes", writesBeforeFlush > 0 && writesBeforeFlush < 30);
+        Assert.assertEquals(1, out.flushes.get());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testNothingIsWrittenBeforeCapacity() {
+        log.info("*******Test case Started : Rows stay buffered until flush. ******\n");
+        CountingStream out = new CountingStream();
+        BufferedOutputSink sink = new BufferedOutputSink(out);
+        sink.append("partial row").newLine();
+        Assert.assertEquals(0, out.size());
+        sink.flush();
+        Assert.assertEquals("partial row" + NL, new String(out.toByteArray()));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testAccessorWritesToSink() throws DbxException {
+        log.info("*******Test case Started : Listing is rendered into the configured sink. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(1, 1, 1);
+        CountingStream out = new CountingStream();
+        DropboxClientAccessor accessor = new DropboxClientAccessor();
+        accessor.setDBXClient(tree.client());
+        accessor.setOutputSink(new BufferedOutputSink(out));
+        accessor.retrieveFileInfo("token", "", "");
+        String output = new String(out.toByteArray());
+        Assert.assertTrue(output.startsWith("- /File0.pdf \t: file, 1.0 KB, "));
+        Assert.assertTrue(output.contains(NL + "/Folder0\t\t\t : Dir" + NL + "  - /File0.pdf \t: file"));
+        Assert.assertEquals(1, out.flushes.get());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    private String buildExpected() {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            expected.append("row ").append(i).append(" é文").append(NL);
+        }
+        return expected.toString();
+    }
+
+    private static class CountingStream extends ByteArrayOutputStream {
+        final AtomicInteger writes = new AtomicInteger();
+        final AtomicInteger flushes = new AtomicInteger();
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes.incrementAndGet();
+            super.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushes.incrementAndGet();
+        }
+    }
+}
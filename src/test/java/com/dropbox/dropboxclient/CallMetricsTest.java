@@ -0,0 +1,102 @@
+package com.dropbox.dropboxclient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.ServerException;
+import com.dropbox.dropboxclient.service.BufferedOutputSink;
+import com.dropbox.dropboxclient.service.CallMetrics;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+import com.dropbox.dropboxclient.service.ListingOptions;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+
+public class CallMetricsTest {
+    final static private Logger log = LoggerFactory.getLogger(CallMetricsTest.class);
+
+    @Test
+    public void testSchedulerRecordsEndpoints() throws DbxException {
+        log.info("*******Test case Started : Calls, errors and retries are recorded per endpoint. ******\n");
+        RequestScheduler scheduler = new RequestScheduler(4, 3);
+        scheduler.execute("files/get_metadata", () -> "found");
+        CallMetrics started = scheduler.getMetrics().snapshot();
+        AtomicInteger attempts = new AtomicInteger();
+        scheduler.execute("files/list_folder", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ServerException("req", "unavailable");
+            }
+            return "listed";
+        });
+        CallMetrics delta = scheduler.getMetrics().since(started);
+        Assert.assertFalse("Earlier calls excluded", delta.getEndpoints().containsKey("files/get_metadata"));
+        CallMetrics.Endpoint listFolder = delta.getEndpoints().get("files/list_folder");
+        Assert.assertEquals(3, listFolder.getCalls());
+        Assert.assertEquals(2, listFolder.getErrors());
+        Assert.assertEquals(2, listFolder.getRetries());
+        Assert.assertEquals(1, scheduler.getMetrics().endpoint("files/get_metadata").getCalls());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testMetricsArePublishedToRegistry() throws DbxException {
+        log.info("*******Test case Started : Endpoint counters are published as meters. ******\n");
+        RequestScheduler scheduler = new RequestScheduler(4, 3);
+        scheduler.execute("files/get_metadata", () -> "found");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        scheduler.getMetrics().bindTo(registry);
+        AtomicInteger attempts = new AtomicInteger();
+        scheduler.execute("files/list_folder", () -> {
+            if (attempts.incrementAndGet() < 2) {
+                throw new ServerException("req", "unavailable");
+            }
+            return "listed";
+        });
+        scheduler.getMetrics().recordBytes("files/list_folder", 10, 250);
+        Timer listFolder = registry.get("dropbox.api.calls").tag("endpoint", "files/list_folder").timer();
+        Assert.assertEquals(2, listFolder.count());
+        Assert.assertEquals(2, listFolder.takeSnapshot().percentileValues().length);
+        Assert.assertEquals("Endpoint called before binding", 0,
+                registry.get("dropbox.api.calls").tag("endpoint", "files/get_metadata").timer().count());
+        Assert.assertEquals(1.0, registry.get("dropbox.api.errors").tag("endpoint", "files/list_folder")
+                .functionCounter().count(), 0.0);
+        Assert.assertEquals(1.0, registry.get("dropbox.api.retries").tag("endpoint", "files/list_folder")
+                .functionCounter().count(), 0.0);
+        Assert.assertEquals(250.0, registry.get("dropbox.api.bytes").tag("endpoint", "files/list_folder")
+                .tag("direction", "received").functionCounter().count(), 0.0);
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testListingStatsReport() throws DbxException, UnsupportedEncodingException {
+        log.info("*******Test case Started : Statistics of a listing. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(2, 3, 4);
+        DropboxClientAccessor accessor = new DropboxClientAccessor();
+        accessor.setDBXClient(tree.client());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        accessor.setOutputSink(new BufferedOutputSink(out));
+        CallMetrics started = accessor.beginStats();
+        accessor.retrieveFileInfo("token", "", "en-US", new ListingOptions());
+        CallMetrics delta = accessor.getRequestScheduler().getMetrics().since(started);
+        accessor.printStats(started);
+        String output = out.toString("UTF-8");
+        log.info("Statistics: {}", output.substring(output.indexOf("Endpoint")));
+        Assert.assertEquals(tree.getEntryCount(), delta.getEntries());
+        Assert.assertTrue("Formatting measured", delta.getFormattingNanos() > 0);
+        Assert.assertTrue("Listing calls reported", output.contains("files/list_folder "));
+        Assert.assertTrue("Percentiles from the timer",
+                delta.getEndpoints().get("files/list_folder").percentile(0.99) > 0);
+        Assert.assertTrue("Entries reported", output.contains("Entries: " + tree.getEntryCount() + " in "));
+        Assert.assertTrue("Waiting reported", output.contains("formatting: "));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+}
@@ -0,0 +1,111 @@
+package com.dropbox.dropboxclient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.dropboxclient.service.BufferedOutputSink;
+import com.dropbox.dropboxclient.service.ContentHasher;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+
+public class ContentHasherTest {
+    final static private Logger log = LoggerFactory.getLogger(ContentHasherTest.class);
+    final static private String EMPTY_HASH = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+    private Path directory;
+    private ContentHasher hasher;
+
+    @Before
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("hash");
+        hasher = new ContentHasher(4);
+    }
+
+    @Test
+    public void testSmallFiles() throws IOException, NoSuchAlgorithmException {
+        log.info("*******Test case Started : Hash of empty and single block files. ******\n");
+        byte[] content = "hello dropbox".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(EMPTY_HASH, hasher.hash(Files.createFile(directory.resolve("empty.txt"))));
+        Assert.assertEquals(EMPTY_HASH, ContentHasher.hash(new ByteArrayInputStream(new byte[0])));
+        Path file = Files.write(directory.resolve("hello.txt"), content);
+        Assert.assertEquals(expected(content), hasher.hash(file));
+        Assert.assertEquals(expected(content), ContentHasher.hash(new ByteArrayInputStream(content)));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testBlocksAreHashedInParallel() throws IOException, NoSuchAlgorithmException {
+        log.info("*******Test case Started : Multi block files match the sequential hash. ******\n");
+        Random random = new Random(42);
+        for (int size : new int[] { ContentHasher.BLOCK_SIZE, 2 * ContentHasher.BLOCK_SIZE + 17 }) {
+            byte[] content = new byte[size];
+            random.nextBytes(content);
+            Path file = Files.write(directory.resolve("data" + size), content);
+            String hash = hasher.hash(file);
+            Assert.assertEquals(expected(content), hash);
+            Assert.assertEquals(hash, ContentHasher.hash(new ByteArrayInputStream(content)));
+        }
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testHashCommandPrintsRelativePaths() throws IOException, NoSuchAlgorithmException {
+        log.info("*******Test case Started : Hash command prints every file of a directory. ******\n");
+        Files.createDirectories(directory.resolve("docs/old"));
+        Files.write(directory.resolve("b.txt"), "b".getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("docs/a.txt"), "a".getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("docs/old/c.txt"), new byte[0]);
+        DropboxClientAccessor accessor = new DropboxClientAccessor();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        accessor.setOutputSink(new BufferedOutputSink(out));
+        accessor.setContentHasher(hasher);
+        accessor.hashFiles(directory.toString());
+        String nl = System.lineSeparator();
+        Assert.assertEquals(expected("b".getBytes(StandardCharsets.UTF_8)) + "  b.txt" + nl
+                + expected("a".getBytes(StandardCharsets.UTF_8)) + "  docs/a.txt" + nl + EMPTY_HASH
+                + "  docs/old/c.txt" + nl, out.toString("UTF-8"));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    /**
+     * Reference implementation: SHA-256 over the SHA-256 of every 4 MB block.
+     */
+    private static String expected(byte[] content) throws NoSuchAlgorithmException {
+        MessageDigest overall = MessageDigest.getInstance("SHA-256");
+        for (int offset = 0; offset < content.length; offset += ContentHasher.BLOCK_SIZE) {
+            byte[] block = Arrays.copyOfRange(content, offset,
+                    Math.min(content.length, offset + ContentHasher.BLOCK_SIZE));
+            overall.update(MessageDigest.getInstance("SHA-256").digest(block));
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte value : overall.digest()) {
+            hex.append(String.format("%02x", value));
+        }
+        return hex.toString();
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        hasher.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.dropbox.dropboxclient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.ListFolderLongpollResult;
+import com.dropbox.dropboxclient.daemon.DaemonClient;
+import com.dropbox.dropboxclient.daemon.DaemonServer;
+import com.dropbox.dropboxclient.service.ConsoleContext;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+import com.dropbox.dropboxclient.service.NamedThreadFactory;
+
+public class DaemonServerTest {
+    final static private Logger log = LoggerFactory.getLogger(DaemonServerTest.class);
+    private DaemonServer server;
+    private Thread serving;
+    private CountDownLatch started;
+    private CountDownLatch held;
+    private CountDownLatch release;
+    private Path directory;
+    private AtomicInteger runs;
+
+    @Before
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("daemon").resolve(".dropbox-client");
+        started = new CountDownLatch(2);
+        held = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        runs = new AtomicInteger();
+        CommandLineRunner runner = args -> {
+            runs.incrementAndGet();
+            if (args[0].equals("wait")) {
+                // Both commands are running before either one prints.
+                started.countDown();
+                started.await(5, TimeUnit.SECONDS);
+            }
+            System.out.println("ran " + String.join(" ", args));
+            if (args[0].equals("auth")) {
+                System.out.println("read " + ConsoleContext.reader(null).readLine());
+            }
+            if (args[0].equals("workers")) {
+                Thread worker = new NamedThreadFactory("test").newThread(() -> System.out.println("from worker"));
+                worker.start();
+                worker.join();
+            }
+            if (args[0].equals("hold")) {
+                // Keeps System.out locked, as a write to a client not reading its output does.
+                synchronized (System.out) {
+                    held.countDown();
+                    release.await(10, TimeUnit.SECONDS);
+                }
+            }
+        };
+        server = new DaemonServer(runner, 0, 4, directory);
+        serving = new Thread(server::serve);
+        serving.setDaemon(true);
+        serving.start();
+    }
+
+    @Test
+    public void testOutputAndInputAreForwarded() throws IOException {
+        log.info("*******Test case Started : Command runs in the daemon with the client console. ******\n");
+        List<String> command = new ArrayList<>();
+        int port = DaemonClient.parseOption(new String[] { "auth", "--daemon=" + server.getPort(), "key" }, command);
+        Assert.assertEquals(server.getPort(), port);
+        Assert.assertEquals(Arrays.asList("auth", "key"), command);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assert.assertTrue(DaemonClient.forward(directory, port, command,
+                new ByteArrayInputStream("the-code\n".getBytes(StandardCharsets.UTF_8)), out));
+        String nl = System.lineSeparator();
+        Assert.assertEquals("ran auth key" + nl + "read the-code" + nl, out.toString("UTF-8"));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testConcurrentCommandsKeepTheirOutput() throws Exception {
+        log.info("*******Test case Started : Concurrent commands write to their own client. ******\n");
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<String>> outputs = new ArrayList<>();
+            for (String name : new String[] { "first", "second" }) {
+                outputs.add(clients.submit(() -> {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    DaemonClient.forward(directory, server.getPort(), Arrays.asList("wait", name),
+                            new ByteArrayInputStream(new byte[0]), out);
+                    return out.toString("UTF-8");
+                }));
+            }
+            String nl = System.lineSeparator();
+            Assert.assertEquals("ran wait first" + nl, outputs.get(0).get(10, TimeUnit.SECONDS));
+            Assert.assertEquals("ran wait second" + nl, outputs.get(1).get(10, TimeUnit.SECONDS));
+        } finally {
+            clients.shutdownNow();
+        }
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testLockedOutputDoesNotBlockOtherClients() throws Exception {
+        log.info("*******Test case Started : Output of a command does not wait for other clients. ******\n");
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> holding = clients.submit(() -> forward("hold"));
+            Assert.assertTrue(held.await(5, TimeUnit.SECONDS));
+            Future<String> output = clients.submit(() -> forward("workers"));
+            String nl = System.lineSeparator();
+            Assert.assertEquals("ran workers" + nl + "from worker" + nl, output.get(5, TimeUnit.SECONDS));
+            release.countDown();
+            Assert.assertEquals("ran hold" + nl, holding.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            clients.shutdownNow();
+        }
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testDisconnectedWatchReleasesItsThread() throws Exception {
+        log.info("*******Test case Started : Watch of a disconnected client stops and frees the daemon. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(0, 0, 1);
+        DbxClientV2 client = tree.client();
+        CountDownLatch polling = new CountDownLatch(1);
+        Mockito.when(client.files().listFolderLongpoll(Mockito.anyString(), Mockito.anyLong())).thenAnswer(
+                invocation -> {
+                    polling.countDown();
+                    TimeUnit.MILLISECONDS.sleep(20);
+                    return new ListFolderLongpollResult(false);
+                });
+        DropboxClientAccessor accessor = new DropboxClientAccessor();
+        accessor.setDBXClient(client);
+        CommandLineRunner runner = args -> {
+            if (args[0].equals("watch")) {
+                accessor.watchFolder("token", "", "");
+            }
+            System.out.println("ran " + args[0]);
+        };
+        server.close();
+        server = new DaemonServer(runner, 0, 1, directory);
+        serving = new Thread(server::serve);
+        serving.setDaemon(true);
+        serving.start();
+        try (Socket watching = send("watch")) {
+            Assert.assertTrue(polling.await(5, TimeUnit.SECONDS));
+        }
+        ExecutorService clients = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> output = clients.submit(() -> forward("info"));
+            Assert.assertEquals("ran info" + System.lineSeparator(), output.get(5, TimeUnit.SECONDS));
+        } finally {
+            clients.shutdownNow();
+        }
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testWorkerThreadsWriteToTheClient() throws IOException {
+        log.info("*******Test case Started : Output of the worker threads reaches the client. ******\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assert.assertTrue(DaemonClient.forward(directory, server.getPort(), Arrays.asList("workers"),
+                new ByteArrayInputStream(new byte[0]), out));
+        String nl = System.lineSeparator();
+        Assert.assertEquals("ran workers" + nl + "from worker" + nl, out.toString("UTF-8"));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testConnectionWithoutSecretIsRejected() throws IOException {
+        log.info("*******Test case Started : Daemon only runs commands sent with its secret. ******\n");
+        Path secretFile = DaemonClient.secretFile(directory, server.getPort());
+        if (Files.getFileStore(secretFile).supportsFileAttributeView("posix")) {
+            Assert.assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(secretFile)));
+        }
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            DataOutputStream request = new DataOutputStream(socket.getOutputStream());
+            request.writeUTF("guessed");
+            request.writeUTF(System.getProperty("user.dir"));
+            request.writeInt(1);
+            request.writeUTF("auth");
+            request.flush();
+            Assert.assertEquals("Closed without output", -1, socket.getInputStream().read());
+        }
+        Assert.assertEquals(0, runs.get());
+        server.close();
+        Assert.assertFalse("Secret removed with the daemon", Files.exists(secretFile));
+        Assert.assertFalse(DaemonClient.forward(directory, server.getPort(), Arrays.asList("auth"),
+                new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream()));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testMissingDaemonIsReported() throws IOException {
+        log.info("*******Test case Started : Client falls back without a daemon. ******\n");
+        int port;
+        try (ServerSocket unused = new ServerSocket(0)) {
+            port = unused.getLocalPort();
+        }
+        Assert.assertFalse(DaemonClient.forward(directory, port, Arrays.asList("info", "token"),
+                new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream()));
+        Assert.assertEquals(-1, DaemonClient.parseOption(new String[] { "info" }, new ArrayList<>()));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testInvalidPortIsRejected() {
+        log.info("*******Test case Started : Daemon option with an invalid port. ******\n");
+        for (String port : Arrays.asList("abc", "-1", "70000", "")) {
+            try {
+                DaemonClient.parseOption(new String[] { "info", "--daemon=" + port }, new ArrayList<>());
+                Assert.fail("Accepted port " + port);
+            } catch (NumberFormatException e) {
+                Assert.assertEquals(port, e.getMessage());
+            }
+        }
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    private String forward(final String... command) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DaemonClient.forward(directory, server.getPort(), Arrays.asList(command), new ByteArrayInputStream(new byte[0]),
+                out);
+        return out.toString("UTF-8");
+    }
+
+    /**
+     * Sends a command with the secret of the daemon, the connection stays open
+     * without sending any input.
+     */
+    private Socket send(final String... args) throws IOException {
+        String secret = new String(Files.readAllBytes(DaemonClient.secretFile(directory, server.getPort())),
+                StandardCharsets.US_ASCII);
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        DataOutputStream request = new DataOutputStream(socket.getOutputStream());
+        request.writeUTF(secret);
+        request.writeUTF(System.getProperty("user.dir"));
+        request.writeInt(args.length);
+        for (String argument : args) {
+            request.writeUTF(argument);
+        }
+        request.flush();
+        return socket;
+    }
+
+    @After
+    public void cleanup() throws IOException, InterruptedException {
+        server.close();
+        serving.join(5000);
+        Files.deleteIfExists(directory);
+        Files.deleteIfExists(directory.getParent());
+    }
+}
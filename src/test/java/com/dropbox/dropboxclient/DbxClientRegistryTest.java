@@ -0,0 +1,56 @@
+package com.dropbox.dropboxclient;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxRequestConfig;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.dropboxclient.service.DbxClientRegistry;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+
+public class DbxClientRegistryTest {
+    final static private Logger log = LoggerFactory.getLogger(DbxClientRegistryTest.class);
+
+    @Test
+    public void testClientsAreReused() {
+        log.info("*******Test case Started : Clients are reused per token and locale. ******\n");
+        DbxClientRegistry registry = new DbxClientRegistry(4, 1000, 2000);
+        DbxClientV2 client = registry.getClient("token", "en_US");
+        Assert.assertSame(client, registry.getClient("token", "en_US"));
+        Assert.assertNotSame(client, registry.getClient("token", "sv_SE"));
+        Assert.assertNotSame(client, registry.getClient("other", "en_US"));
+        Assert.assertSame(registry.getClient("token", ""), registry.getClient("token", null));
+        Assert.assertEquals(4, registry.size());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testConcurrentLookupsShareOneClient() {
+        log.info("*******Test case Started : Concurrent lookups create a single client. ******\n");
+        DbxClientRegistry registry = new DbxClientRegistry(4, 1000, 2000);
+        Set<DbxClientV2> clients = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 1000).parallel().forEach(i -> clients.add(registry.getClient("token", "en")));
+        Assert.assertEquals(1, clients.size());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testRequestConfigUsesSharedRequestor() {
+        log.info("*******Test case Started : Request configs share the pooled requestor. ******\n");
+        DbxClientRegistry registry = new DbxClientRegistry(4, 1000, 2000);
+        DbxRequestConfig config = registry.createRequestConfig("de");
+        Assert.assertSame(registry.getHttpRequestor(), config.getHttpRequestor());
+        Assert.assertSame(registry.getHttpRequestor(), registry.createRequestConfig(null).getHttpRequestor());
+        Assert.assertEquals("de", config.getUserLocale());
+        Assert.assertNotNull(System.getProperty("http.maxConnections"));
+        DropboxClientAccessor accessor = new DropboxClientAccessor();
+        Assert.assertSame(accessor.getDBXClient("token", ""), accessor.getDBXClient("token", ""));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+}
@@ -86,6 +86,46 @@ public class DropboxClientApplicationTest {
                 stream.toString().contains("Invalid input parameters, please verify and try again"));
     }
 
+    @Test
+    public void testListOptionWithRecursiveMode() throws Exception {
+        String[] args = { "list", "_R4HCO8AMBAAAAAAAAAAIdW-v1FTIGdUV1ja_xZ2WCkX-BxhFa8IuSufQpyHHEz0", "/Test123",
+                "--mode=recursive" };
+        application.run(args);
+    }
+
+    @Test
+    public void testListOptionWithInvalidMode() throws Exception {
+        String[] args = { "list", "_R4HCO8AMBAAAAAAAAAAIdW-v1FTIGdUV1ja_xZ2WCkX-BxhFa8IuSufQpyHHEz0", "--mode=fast" };
+        application.run(args);
+        Assert.assertTrue("Invalid mode", stream.toString().contains("Invalid listing mode: fast"));
+    }
+
+    @Test
+    public void testStatOptionWithoutPaths() throws Exception {
+        String[] args = { "stat", "_R4HCO8AMBAAAAAAAAAAIdW-v1FTIGdUV1ja_xZ2WCkX-BxhFa8IuSufQpyHHEz0" };
+        application.run(args);
+        Assert.assertTrue("Missing paths", stream.toString().contains("Missing paths file"));
+    }
+
+    @Test
+    public void testStatOptionWithInvalidOrder() throws Exception {
+        String[] args = { "stat", "_R4HCO8AMBAAAAAAAAAAIdW-v1FTIGdUV1ja_xZ2WCkX-BxhFa8IuSufQpyHHEz0", "-",
+                "--order=random" };
+        application.run(args);
+        Assert.assertTrue("Invalid order", stream.toString().contains("Invalid order: random"));
+    }
+
+    @Test
+    public void testFindOptionWithInvalidSize() throws Exception {
+        String[] args = { "find", "_R4HCO8AMBAAAAAAAAAAIdW-v1FTIGdUV1ja_xZ2WCkX-BxhFa8IuSufQpyHHEz0", "*.psd",
+                "--larger=huge" };
+        application.run(args);
+        Assert.assertTrue("Invalid size", stream.toString().contains("Invalid size: huge"));
+        Assert.assertEquals(1_500_000_000L, DropboxClientApplication.toBytes("1.5GB"));
+        Assert.assertEquals(500_000L, DropboxClientApplication.toBytes("500 kb"));
+        Assert.assertEquals(42L, DropboxClientApplication.toBytes("42"));
+    }
+
     @AfterClass
     public static void close() throws IOException {
         previousConsole.println(stream.toString());
@@ -0,0 +1,328 @@
+package com.dropbox.dropboxclient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.ListFolderResult;
+import com.dropbox.core.v2.files.Metadata;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP stand-in of the Dropbox api serving a {@link GeneratedDropboxTree}
+ * for load and scale tests. It implements the calls of the listing commands:
+ * users/get_current_account, files/get_metadata, files/list_folder, recursive
+ * or not, and files/list_folder/continue. Every call can be delayed, listings
+ * are split into pages and calls above a concurrency limit are rejected with a
+ * rate limit error.
+ * <p>
+ * The server speaks plain HTTP on the loopback interface, clients reach it
+ * through a {@link com.dropbox.dropboxclient.service.RedirectingHttpRequestor}
+ * on {@link #getBaseUrl()}, or the "dropbox.api.base.url" property of the
+ * command line client. Run {@link #main(String[])} to serve a tree until the
+ * process is stopped.
+ */
+public class FakeDropboxServer implements Closeable {
+
+    final static private String RECURSIVE_CURSOR = "recursive:";
+    final static private String ACCOUNT_ID = "dbid:AAH4f99T0taONIb-OurWxbNQ6ywGRopQngc";
+    final static private JsonFactory JSON = new JsonFactory();
+    final private GeneratedDropboxTree tree;
+    final private AtomicInteger calls = new AtomicInteger();
+    final private AtomicInteger inFlight = new AtomicInteger();
+    final private AtomicInteger throttled = new AtomicInteger();
+    private long latencyMillis;
+    private int pageSize = 2000;
+    private int concurrencyLimit = Integer.MAX_VALUE;
+    private int retryAfterSeconds = 1;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param tree
+     *            - tree served by the api.
+     */
+    public FakeDropboxServer(GeneratedDropboxTree tree) {
+        this.tree = tree;
+    }
+
+    public FakeDropboxServer withLatency(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    /**
+     * @param pageSize
+     *            - entries of a listing page, 2000 by default.
+     * @return this server.
+     */
+    public FakeDropboxServer withPageSize(int pageSize) {
+        this.pageSize = Math.max(1, pageSize);
+        return this;
+    }
+
+    /**
+     * This method is used to reject calls with a rate limit error while more
+     * than the given number of calls are in flight.
+     *
+     * @param concurrencyLimit
+     *            - calls served concurrently.
+     * @param retryAfterSeconds
+     *            - backoff sent with the rate limit, the api only has a
+     *            granularity of seconds.
+     * @return this server.
+     */
+    public FakeDropboxServer withRateLimit(int concurrencyLimit, int retryAfterSeconds) {
+        this.concurrencyLimit = concurrencyLimit;
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this;
+    }
+
+    /**
+     * This method is used to start serving on a port of the loopback
+     * interface.
+     *
+     * @param port
+     *            - local port, 0 for any free port.
+     * @param threads
+     *            - calls served concurrently.
+     * @return this server.
+     * @throws IOException
+     *             if the port could not be bound.
+     */
+    public FakeDropboxServer start(int port, int threads) throws IOException {
+        // Without it small responses wait for the delayed acknowledgement of the client.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 512);
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), new WorkerThreadFactory());
+        server.setExecutor(executor);
+        server.createContext("/2/", this::handle);
+        server.start();
+        return this;
+    }
+
+    /**
+     * @return url to pass to the redirecting requestor.
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return number of api calls served so far, throttled ones included.
+     */
+    public int getCallCount() {
+        return calls.get();
+    }
+
+    /**
+     * @return number of calls rejected by the rate limit.
+     */
+    public int getThrottledCount() {
+        return throttled.get();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange request) throws IOException {
+        calls.incrementAndGet();
+        int current = inFlight.incrementAndGet();
+        try {
+            Map<String, Object> arguments = parseArguments(request.getRequestBody());
+            if (current > concurrencyLimit) {
+                throttled.incrementAndGet();
+                request.getResponseHeaders().add("Retry-After", String.valueOf(retryAfterSeconds));
+                respond(request, 429, "{\"error_summary\": \"too_many_requests/..\", \"error\": {\"reason\": "
+                        + "{\".tag\": \"too_many_requests\"}, \"retry_after\": " + retryAfterSeconds + "}}");
+                return;
+            }
+            if (latencyMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            }
+            String route = request.getRequestURI().getPath().substring("/2/".length());
+            switch (route) {
+            case "users/get_current_account":
+                respond(request, 200, SyntheticDropboxTree.account(ACCOUNT_ID).toString());
+                break;
+            case "files/get_metadata":
+                Metadata metadata = tree.lookup(String.valueOf(arguments.get("path")));
+                if (metadata == null) {
+                    respondNotFound(request);
+                } else {
+                    respond(request, 200, metadata.toString());
+                }
+                break;
+            case "files/list_folder":
+                listFolder(request, String.valueOf(arguments.get("path")),
+                        Boolean.TRUE.equals(arguments.get("recursive")));
+                break;
+            case "files/list_folder/continue":
+                listFolderContinue(request, String.valueOf(arguments.get("cursor")));
+                break;
+            default:
+                respond(request, 400, "Unknown api call: " + route);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            request.close();
+        }
+    }
+
+    private void listFolder(HttpExchange request, String path, boolean recursive) throws IOException {
+        int[] positions = tree.resolve(path);
+        if (positions == null || (positions.length > 0 && !(tree.lookup(path) instanceof FolderMetadata))) {
+            respondNotFound(request);
+            return;
+        }
+        String folder = tree.pathOf(positions, positions.length);
+        if (recursive) {
+            // A recursive listing starts with the folder itself, unless it is the root folder.
+            List<Metadata> entries = new ArrayList<>();
+            if (!folder.isEmpty()) {
+                entries.add(tree.lookup(folder));
+            }
+            respond(request, 200, walk(tree.new Walk(folder, ""), entries).toString());
+        } else {
+            respond(request, 200, page(folder, positions.length, 0).toString());
+        }
+    }
+
+    private void listFolderContinue(HttpExchange request, String cursor) throws IOException {
+        int separator = cursor.lastIndexOf('|');
+        if (separator < 0) {
+            respond(request, 409, "{\"error_summary\": \"reset/..\", \"error\": {\".tag\": \"reset\"}}");
+            return;
+        }
+        String state = cursor.substring(separator + 1);
+        if (cursor.startsWith(RECURSIVE_CURSOR)) {
+            String folder = cursor.substring(RECURSIVE_CURSOR.length(), separator);
+            respond(request, 200, walk(tree.new Walk(folder, state), new ArrayList<>()).toString());
+        } else {
+            String folder = cursor.substring(0, separator);
+            int[] positions = tree.resolve(folder);
+            respond(request, 200, page(folder, positions.length, Integer.parseInt(state)).toString());
+        }
+    }
+
+    private ListFolderResult page(String folder, int level, int offset) {
+        int end = (int) Math.min(tree.childCount(level), (long) offset + pageSize);
+        List<Metadata> entries = new ArrayList<>(Math.max(0, end - offset));
+        for (int index = offset; index < end; index++) {
+            entries.add(tree.child(folder, index));
+        }
+        return new ListFolderResult(entries, folder + "|" + end, end < tree.childCount(level));
+    }
+
+    private ListFolderResult walk(GeneratedDropboxTree.Walk walk, List<Metadata> entries) {
+        Metadata next;
+        while (entries.size() < pageSize && (next = walk.next()) != null) {
+            entries.add(next);
+        }
+        String state = walk.getState();
+        return new ListFolderResult(entries, RECURSIVE_CURSOR + walk.getRoot() + "|" + state,
+                !GeneratedDropboxTree.Walk.DONE.equals(state));
+    }
+
+    private static void respondNotFound(HttpExchange request) throws IOException {
+        respond(request, 409, "{\"error_summary\": \"path/not_found/..\", \"error\": {\".tag\": \"path\", "
+                + "\"path\": {\".tag\": \"not_found\"}}}");
+    }
+
+    private static void respond(HttpExchange request, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        request.getResponseHeaders().add("Content-Type", "application/json");
+        request.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = request.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * This method is used to read the string and boolean fields of the json
+     * arguments of a call.
+     */
+    private static Map<String, Object> parseArguments(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            body.write(buffer, 0, read);
+        }
+        Map<String, Object> arguments = new HashMap<>();
+        try (JsonParser parser = JSON.createParser(body.toByteArray())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return arguments;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_STRING) {
+                    arguments.put(name, parser.getText());
+                } else if (value == JsonToken.VALUE_TRUE || value == JsonToken.VALUE_FALSE) {
+                    arguments.put(name, parser.getBooleanValue());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return arguments;
+    }
+
+    /**
+     * Serves a generated tree until the process is stopped.
+     *
+     * @param args
+     *            - port, depth, folders per folder, files per folder, latency
+     *            in milliseconds and page size.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        GeneratedDropboxTree tree = new GeneratedDropboxTree(args.length > 1 ? Integer.parseInt(args[1]) : 5,
+                args.length > 2 ? Integer.parseInt(args[2]) : 10, args.length > 3 ? Integer.parseInt(args[3]) : 10);
+        FakeDropboxServer server = new FakeDropboxServer(tree)
+                .withLatency(args.length > 4 ? Long.parseLong(args[4]) : 0L)
+                .withPageSize(args.length > 5 ? Integer.parseInt(args[5]) : 2000).start(port, 64);
+        System.out.println("Serving " + tree.getEntryCount() + " entries on " + server.getBaseUrl()
+                + ", run the client with --dropbox.api.base.url=" + server.getBaseUrl());
+        // The worker threads are daemons.
+        Thread.currentThread().join();
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        final private AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "dropbox-fake-api-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
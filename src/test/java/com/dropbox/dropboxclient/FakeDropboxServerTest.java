@@ -0,0 +1,94 @@
+package com.dropbox.dropboxclient;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.GetMetadataErrorException;
+import com.dropbox.dropboxclient.service.DbxClientRegistry;
+import com.dropbox.dropboxclient.service.FolderWalker;
+import com.dropbox.dropboxclient.service.RecursiveLister;
+import com.dropbox.dropboxclient.service.RedirectingHttpRequestor;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+
+public class FakeDropboxServerTest {
+    final static private Logger log = LoggerFactory.getLogger(FakeDropboxServerTest.class);
+    private FakeDropboxServer server;
+
+    @After
+    public void cleanUp() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private DbxClientV2 client() {
+        return new DbxClientRegistry(new RedirectingHttpRequestor(
+                DbxClientRegistry.createHttpRequestor(16, 1000, 10_000), server.getBaseUrl())).getClient("token", "");
+    }
+
+    @Test
+    public void testListingsOverHttp() throws IOException, DbxException {
+        log.info("*******Test case Started : Walk and recursive listing of the stand-in server. ******\n");
+        GeneratedDropboxTree tree = new GeneratedDropboxTree(3, 4, 5);
+        server = new FakeDropboxServer(tree).withPageSize(25).withLatency(1).start(0, 16);
+        PathCollector expected = new PathCollector();
+        new FolderWalker(SyntheticDropboxTree.generate(3, 4, 5).client(), 1, new RequestScheduler()).walk("", expected);
+        Assert.assertEquals(tree.getEntryCount(), expected.getPaths().size());
+        DbxClientV2 client = client();
+        PathCollector walked = new PathCollector();
+        new FolderWalker(client, 8, new RequestScheduler()).walk("", walked);
+        Assert.assertEquals(expected.getPaths(), walked.getPaths());
+        PathCollector listed = new PathCollector();
+        new RecursiveLister(client, new RequestScheduler()).list("", listed);
+        Assert.assertEquals(expected.getPaths(), listed.getPaths());
+        AtomicInteger below = new AtomicInteger();
+        new RecursiveLister(client, new RequestScheduler()).fetch("/Folder2", metadata -> below.incrementAndGet());
+        Assert.assertEquals(1 + (tree.getEntryCount() - 4 - 5) / 4, below.get());
+        log.info("{} calls served", server.getCallCount());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testAccountAndMetadata() throws IOException, DbxException {
+        log.info("*******Test case Started : Account and metadata calls of the stand-in server. ******\n");
+        GeneratedDropboxTree tree = new GeneratedDropboxTree(6, 10, 10);
+        Assert.assertEquals(12_222_220L, tree.getEntryCount());
+        server = new FakeDropboxServer(tree).start(0, 4);
+        DbxClientV2 client = client();
+        Assert.assertEquals("Synthetic User", client.users().getCurrentAccount().getName().getDisplayName());
+        FileMetadata file = (FileMetadata) client.files().getMetadata("/folder9/FOLDER0/file2.pdf");
+        Assert.assertEquals("/Folder9/Folder0/File2.pdf", file.getPathDisplay());
+        Assert.assertEquals(3000L, file.getSize());
+        try {
+            client.files().getMetadata("/Folder10");
+            Assert.fail("Missing path expected");
+        } catch (GetMetadataErrorException e) {
+            Assert.assertTrue(e.errorValue.getPathValue().isNotFound());
+        }
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testRateLimitedWalk() throws IOException, DbxException {
+        log.info("*******Test case Started : Walk against a rate limiting stand-in server. ******\n");
+        server = new FakeDropboxServer(new GeneratedDropboxTree(2, 3, 2)).withLatency(50).withRateLimit(2, 1)
+                .start(0, 16);
+        RequestScheduler scheduler = new RequestScheduler(16, 10);
+        PathCollector walked = new PathCollector();
+        new FolderWalker(client(), 16, scheduler).walk("", walked);
+        log.info("{} calls throttled, limit settled at {}", server.getThrottledCount(), scheduler.getLimit());
+        Assert.assertEquals(3 + 9 + 13 * 2, walked.getPaths().size());
+        Assert.assertTrue("Server throttled", server.getThrottledCount() > 0);
+        Assert.assertEquals(server.getThrottledCount(), scheduler.getThrottledCount());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+}
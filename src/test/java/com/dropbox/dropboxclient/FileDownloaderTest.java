@@ -0,0 +1,132 @@
+package com.dropbox.dropboxclient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.Metadata;
+import com.dropbox.dropboxclient.service.FileDownloader;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+
+public class FileDownloaderTest {
+    final static private Logger log = LoggerFactory.getLogger(FileDownloaderTest.class);
+    private Path directory;
+
+    @Before
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("download");
+    }
+
+    @Test
+    public void testFolderIsDownloadedInRanges() throws DbxException, IOException {
+        log.info("*******Test case Started : Folder is downloaded in byte ranges. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(2, 2, 2);
+        FileDownloader.Summary summary = downloader(tree, 256).download("", directory);
+        Assert.assertEquals(14, summary.getDownloaded());
+        Assert.assertEquals(0, summary.getFailed());
+        Assert.assertEquals(7 * 3000, summary.getBytes());
+        // 1000 byte files take 4 ranges, 2000 byte files take 8.
+        Assert.assertEquals(7 * (4 + 8), tree.getDownloadCount());
+        assertContent("/folder1/folder0/file1.pdf", directory.resolve("Folder1/Folder0/File1.pdf"));
+        assertContent("/file0.pdf", directory.resolve("File0.pdf"));
+        Assert.assertEquals("No part files left", 0, files(".part").size() + files(".state").size());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testFailedChunkIsResumed() throws DbxException, IOException {
+        log.info("*******Test case Started : Failed download resumes the missing chunks. ******\n");
+        SyntheticDropboxTree tree = new SyntheticDropboxTree();
+        tree.addFolder("/Big").addFile("/Big/data.bin", 2000).withFailingDownload(512, 1);
+        FileDownloader.Summary failed = downloader(tree, 256).download("/Big", directory);
+        Assert.assertEquals(1, failed.getFailed());
+        Assert.assertTrue(tree.getDownloadCount() < 8);
+        Assert.assertTrue(Files.exists(directory.resolve("data.bin.part.state")));
+        FileDownloader.Summary resumed = downloader(tree, 256).download("/Big", directory);
+        Assert.assertEquals(1, resumed.getDownloaded());
+        // Every chunk has been downloaded exactly once.
+        Assert.assertEquals(2000, failed.getBytes() + resumed.getBytes());
+        Assert.assertEquals(8, tree.getDownloadCount());
+        assertContent("/big/data.bin", directory.resolve("data.bin"));
+        Assert.assertFalse(Files.exists(directory.resolve("data.bin.part.state")));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testCompleteFilesAreSkipped() throws DbxException, IOException {
+        log.info("*******Test case Started : Complete files are not downloaded again. ******\n");
+        SyntheticDropboxTree tree = new SyntheticDropboxTree();
+        tree.addFolder("/Docs").addFile("/Docs/a.txt", 100).addFile("/Docs/b.txt", 0);
+        Assert.assertEquals(2, downloader(tree, 256).download("/Docs", directory).getDownloaded());
+        Assert.assertEquals(1, tree.getDownloadCount());
+        FileDownloader.Summary summary = downloader(tree, 256).download("/Docs/a.txt", directory);
+        Assert.assertEquals(1, summary.getSkipped());
+        Assert.assertEquals(1, tree.getDownloadCount());
+        Assert.assertEquals(0, Files.size(directory.resolve("b.txt")));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testQueuedFilesAreBounded() throws DbxException, IOException {
+        log.info("*******Test case Started : Files are not queued far ahead of the downloads. ******\n");
+        SyntheticDropboxTree tree = new SyntheticDropboxTree().addFolder("/Many");
+        List<FileMetadata> files = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tree.addFile("/Many/file" + i + ".txt", 10);
+        }
+        for (Metadata metadata : tree.toFolderTree().entries()) {
+            if (metadata instanceof FileMetadata) {
+                files.add((FileMetadata) metadata);
+            }
+        }
+        tree.withLatency(1);
+        AtomicInteger ahead = new AtomicInteger();
+        Iterable<FileMetadata> lazy = () -> files.stream().peek(file -> ahead
+                .accumulateAndGet(files.indexOf(file) + 1 - tree.getDownloadCount(), Math::max)).iterator();
+        FileDownloader.Summary summary = downloader(tree, 256).download(lazy, "/Many", directory, false,
+                null);
+        Assert.assertEquals(200, summary.getDownloaded());
+        // 4 downloads in flight and 4 queued, plus the file just taken.
+        Assert.assertTrue("Files queued ahead: " + ahead.get(), ahead.get() <= 9);
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    private static FileDownloader downloader(SyntheticDropboxTree tree, long chunkSize) throws DbxException {
+        return new FileDownloader(tree.client(), new RequestScheduler(8, 0), 4, chunkSize);
+    }
+
+    private static void assertContent(String pathLower, Path file) throws IOException {
+        byte[] actual = Files.readAllBytes(file);
+        Assert.assertArrayEquals(SyntheticDropboxTree.content(pathLower, 0, actual.length), actual);
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(file -> file.toString().endsWith(suffix)).collect(Collectors.toList());
+        }
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
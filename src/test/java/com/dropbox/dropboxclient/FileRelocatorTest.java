@@ -0,0 +1,169 @@
+package com.dropbox.dropboxclient;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.ServerException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.DbxUserFilesRequests;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.RelocationBatchErrorEntry;
+import com.dropbox.core.v2.files.RelocationBatchResultEntry;
+import com.dropbox.core.v2.files.RelocationBatchV2JobStatus;
+import com.dropbox.core.v2.files.RelocationBatchV2Launch;
+import com.dropbox.core.v2.files.RelocationBatchV2Result;
+import com.dropbox.core.v2.files.RelocationError;
+import com.dropbox.core.v2.files.RelocationPath;
+import com.dropbox.dropboxclient.service.FileRelocator;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+
+public class FileRelocatorTest {
+    final static private Logger log = LoggerFactory.getLogger(FileRelocatorTest.class);
+
+    @Test
+    public void testCopyInBatchesWithAsyncJobs() throws IOException, DbxException {
+        log.info("*******Test case Started : Relocator copies in full batches and polls the async jobs. ******\n");
+        DbxClientV2 client = Mockito.mock(DbxClientV2.class);
+        DbxUserFilesRequests files = Mockito.mock(DbxUserFilesRequests.class);
+        Mockito.when(client.files()).thenReturn(files);
+        List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        Map<String, List<RelocationPath>> jobs = new ConcurrentHashMap<>();
+        Map<String, Integer> checks = new ConcurrentHashMap<>();
+        Mockito.when(files.copyBatchV2(Mockito.anyList())).thenAnswer(invocation -> {
+            List<RelocationPath> batch = new ArrayList<>(invocation.getArgument(0));
+            sizes.add(batch.size());
+            if (sizes.size() == 1) {
+                return RelocationBatchV2Launch.complete(result(batch));
+            }
+            String job = "job-" + sizes.size();
+            jobs.put(job, batch);
+            return RelocationBatchV2Launch.asyncJobId(job);
+        });
+        Mockito.when(files.copyBatchCheckV2(Mockito.anyString())).thenAnswer(invocation -> {
+            String job = invocation.getArgument(0);
+            if (checks.merge(job, 1, Integer::sum) == 1) {
+                return RelocationBatchV2JobStatus.IN_PROGRESS;
+            }
+            return RelocationBatchV2JobStatus.complete(result(jobs.get(job)));
+        });
+        StringBuilder lines = new StringBuilder("# reorganized photos\n");
+        for (int i = 0; i < 2500; i++) {
+            lines.append("/Photos/img").append(i).append(".jpg\t/Archive/img").append(i).append(".jpg\n");
+        }
+        lines.append("/Photos/missing.jpg\t/Archive/missing.jpg\n");
+        FileRelocator.Summary summary = new FileRelocator(client, new RequestScheduler(), 1000, 2)
+                .relocate(new BufferedReader(new StringReader(lines.toString())), FileRelocator.Operation.COPY);
+        Assert.assertEquals("[1000, 1000, 501]", sizes.toString());
+        Assert.assertEquals(2500, summary.getRelocated());
+        Assert.assertEquals(1, summary.getFailed());
+        Assert.assertEquals(2, checks.get("job-2").intValue());
+        Assert.assertEquals(2, checks.get("job-3").intValue());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testMoveCountsInvalidLinesAndFailedBatches() throws IOException, DbxException {
+        log.info("*******Test case Started : Relocator counts invalid lines and failed batches. ******\n");
+        DbxClientV2 client = Mockito.mock(DbxClientV2.class);
+        DbxUserFilesRequests files = Mockito.mock(DbxUserFilesRequests.class);
+        Mockito.when(client.files()).thenReturn(files);
+        Mockito.when(files.moveBatchV2(Mockito.anyList())).thenAnswer(invocation -> {
+            List<RelocationPath> batch = invocation.getArgument(0);
+            if (batch.get(0).getFromPath().equals("/c")) {
+                throw new DbxException("too_many_write_operations");
+            }
+            return RelocationBatchV2Launch.complete(result(batch));
+        });
+        String lines = "/a\t/x/a\n/b only one path\n\n/b\t/x/b\n/c\t/x/c\n";
+        FileRelocator.Summary summary = new FileRelocator(client, new RequestScheduler(), 2, 1)
+                .relocate(new BufferedReader(new StringReader(lines)), FileRelocator.Operation.MOVE);
+        Assert.assertEquals(2, summary.getRelocated());
+        Assert.assertEquals(2, summary.getFailed());
+        Mockito.verify(files, Mockito.times(2)).moveBatchV2(Mockito.anyList());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testLaunchIsNotRetriedAfterServerError() throws IOException, DbxException {
+        log.info("*******Test case Started : Relocator does not launch a batch twice. ******\n");
+        DbxClientV2 client = Mockito.mock(DbxClientV2.class);
+        DbxUserFilesRequests files = Mockito.mock(DbxUserFilesRequests.class);
+        Mockito.when(client.files()).thenReturn(files);
+        Mockito.when(files.moveBatchV2(Mockito.anyList())).thenThrow(new ServerException("req", "timeout"));
+        FileRelocator.Summary summary = new FileRelocator(client, new RequestScheduler(4, 3), 10, 1)
+                .relocate(new BufferedReader(new StringReader("/a\t/x/a\n/b\t/x/b\n")), FileRelocator.Operation.MOVE);
+        Assert.assertEquals(2, summary.getFailed());
+        Mockito.verify(files, Mockito.times(1)).moveBatchV2(Mockito.anyList());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testPollIntervalShrinksWhenJobsSpeedUp() throws IOException, DbxException {
+        log.info("*******Test case Started : Relocator polls sooner once the jobs get faster. ******\n");
+        DbxClientV2 client = Mockito.mock(DbxClientV2.class);
+        DbxUserFilesRequests files = Mockito.mock(DbxUserFilesRequests.class);
+        Mockito.when(client.files()).thenReturn(files);
+        Map<String, List<RelocationPath>> jobs = new ConcurrentHashMap<>();
+        Map<String, Long> launched = new ConcurrentHashMap<>();
+        Map<String, Long> firstChecks = new ConcurrentHashMap<>();
+        Mockito.when(files.copyBatchV2(Mockito.anyList())).thenAnswer(invocation -> {
+            String job = "job-" + (jobs.size() + 1);
+            jobs.put(job, new ArrayList<>(invocation.getArgument(0)));
+            launched.put(job, System.currentTimeMillis());
+            return RelocationBatchV2Launch.asyncJobId(job);
+        });
+        Mockito.when(files.copyBatchCheckV2(Mockito.anyString())).thenAnswer(invocation -> {
+            String job = invocation.getArgument(0);
+            long elapsed = System.currentTimeMillis() - launched.get(job);
+            firstChecks.putIfAbsent(job, elapsed);
+            // Only the first job is slow, the server finishes the others right away.
+            if (job.equals("job-1") && elapsed < 400) {
+                return RelocationBatchV2JobStatus.IN_PROGRESS;
+            }
+            return RelocationBatchV2JobStatus.complete(result(jobs.get(job)));
+        });
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            lines.append("/a").append(i).append("\t/b").append(i).append("\n");
+        }
+        FileRelocator.Summary summary = new FileRelocator(client, new RequestScheduler(), 1, 1)
+                .relocate(new BufferedReader(new StringReader(lines.toString())), FileRelocator.Operation.COPY);
+        Assert.assertEquals(8, summary.getRelocated());
+        Assert.assertTrue("First job checked " + firstChecks.get("job-1"), firstChecks.get("job-1") < 400);
+        Assert.assertTrue("Second job waits for the slow one " + firstChecks.get("job-2"),
+                firstChecks.get("job-2") >= 200);
+        Assert.assertTrue("Last job checked after " + firstChecks.get("job-8"), firstChecks.get("job-8") < 250);
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    /**
+     * This method is used to create the result of a batch, sources named
+     * "missing" fail.
+     */
+    private static RelocationBatchV2Result result(List<RelocationPath> batch) {
+        List<RelocationBatchResultEntry> entries = new ArrayList<>();
+        for (RelocationPath path : batch) {
+            if (path.getFromPath().contains("missing")) {
+                entries.add(RelocationBatchResultEntry
+                        .failure(RelocationBatchErrorEntry.relocationError(RelocationError.INTERNAL_ERROR)));
+            } else {
+                String name = path.getToPath().substring(path.getToPath().lastIndexOf('/') + 1);
+                entries.add(RelocationBatchResultEntry.success(new FolderMetadata(name, "id:" + name)));
+            }
+        }
+        return new RelocationBatchV2Result(entries);
+    }
+}
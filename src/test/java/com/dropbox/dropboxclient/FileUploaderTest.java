@@ -0,0 +1,123 @@
+package com.dropbox.dropboxclient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.dropboxclient.service.FileUploader;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+
+public class FileUploaderTest {
+    final static private Logger log = LoggerFactory.getLogger(FileUploaderTest.class);
+    private Path directory;
+
+    @Before
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("upload");
+    }
+
+    @Test
+    public void testDirectoryIsUploadedInBatches() throws DbxException, IOException {
+        log.info("*******Test case Started : Directory is uploaded with batched commits. ******\n");
+        Random random = new Random(3);
+        byte[] large = write("photos/2020/large.jpg", 3000, random);
+        byte[] small = write("notes.txt", 100, random);
+        write("photos/2020/empty.txt", 0, random);
+        write("photos/a.png", 1024, random);
+        write("photos/b.png", 1025, random);
+        SyntheticDropboxTree tree = new SyntheticDropboxTree();
+        FileUploader uploader = new FileUploader(tree.client(), new RequestScheduler(), 4, 1024, 2);
+        FileUploader.Summary summary = uploader.upload(directory, "/Backup/");
+        Assert.assertEquals(5, summary.getUploaded());
+        Assert.assertEquals(0, summary.getFailed());
+        Assert.assertEquals(3000 + 100 + 1024 + 1025, summary.getBytes());
+        Assert.assertArrayEquals(large, tree.getUploads().get("/backup/photos/2020/large.jpg"));
+        Assert.assertArrayEquals(small, tree.getUploads().get("/backup/notes.txt"));
+        Assert.assertEquals(0, tree.getUploads().get("/backup/photos/2020/empty.txt").length);
+        Assert.assertEquals(1025, tree.getUploads().get("/backup/photos/b.png").length);
+        // large.jpg takes two appends after the start chunk, b.png one.
+        Assert.assertEquals(3, tree.getAppendCount());
+        Assert.assertEquals(3, tree.getBatchCount());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testFinishBatchIsNotRetried() throws DbxException, IOException {
+        log.info("*******Test case Started : A finish_batch with a lost response is not sent again. ******\n");
+        byte[] content = write("report.pdf", 5000, new Random(7));
+        SyntheticDropboxTree tree = new SyntheticDropboxTree().withLostFinishResponse(1);
+        FileUploader uploader = new FileUploader(tree.client(), new RequestScheduler(4, 3), 4, 4096,
+                FileUploader.MAX_BATCH_SIZE);
+        FileUploader.Summary summary = uploader.upload(directory.resolve("report.pdf"), "");
+        Assert.assertEquals(1, tree.getBatchCount());
+        Assert.assertEquals(1, summary.getFailed());
+        Assert.assertArrayEquals(content, tree.getUploads().get("/report.pdf"));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testSingleFileIsUploadedIntoFolder() throws DbxException, IOException {
+        log.info("*******Test case Started : Single file is uploaded into the folder. ******\n");
+        byte[] content = write("report.pdf", 5000, new Random(5));
+        SyntheticDropboxTree tree = new SyntheticDropboxTree();
+        FileUploader uploader = new FileUploader(tree.client(), new RequestScheduler(), 4, 4096,
+                FileUploader.MAX_BATCH_SIZE);
+        FileUploader.Summary summary = uploader.upload(directory.resolve("report.pdf"), "");
+        Assert.assertEquals(1, summary.getUploaded());
+        Assert.assertArrayEquals(content, tree.getUploads().get("/report.pdf"));
+        Assert.assertEquals(1, tree.getBatchCount());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testManyFilesAreUploadedWithFailuresCounted() throws DbxException, IOException {
+        log.info("*******Test case Started : Upload of many files counts the failed ones. ******\n");
+        Random random = new Random(11);
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            write("many/file" + i + ".bin", 64, random);
+            files.add(Paths.get("many", "file" + i + ".bin"));
+        }
+        files.add(Paths.get("many", "missing.bin"));
+        SyntheticDropboxTree tree = new SyntheticDropboxTree();
+        FileUploader.Summary summary = new FileUploader(tree.client(), new RequestScheduler(), 4, 1024, 50)
+                .upload(directory, files, "/Backup");
+        Assert.assertEquals(300, summary.getUploaded());
+        Assert.assertEquals(1, summary.getFailed());
+        Assert.assertEquals(6, tree.getBatchCount());
+        Assert.assertEquals(300, tree.getUploads().size());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    private byte[] write(String relativePath, int size, Random random) throws IOException {
+        byte[] content = new byte[size];
+        random.nextBytes(content);
+        Path file = directory.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+        return content;
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.dropbox.dropboxclient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.files.Metadata;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+import com.dropbox.dropboxclient.service.FolderIterator;
+import com.dropbox.dropboxclient.service.FolderWalker;
+import com.dropbox.dropboxclient.service.ListingMode;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+
+public class FolderIteratorTest {
+    final static private Logger log = LoggerFactory.getLogger(FolderIteratorTest.class);
+
+    @Test
+    public void testPagesAreFetchedOnDemand() throws DbxException {
+        log.info("*******Test case Started : Iterator only fetches the pages it reaches. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(3, 3, 2).withPageSize(2);
+        PathCollector walked = new PathCollector();
+        new FolderWalker(tree.client(), 1, new RequestScheduler()).walk("", walked);
+        SyntheticDropboxTree lazyTree = SyntheticDropboxTree.generate(3, 3, 2).withPageSize(2);
+        List<String> paths = new ArrayList<>();
+        try (FolderIterator entries = new FolderIterator(lazyTree.client(), new RequestScheduler(), "", 0, 0)) {
+            Assert.assertEquals(0, lazyTree.getCallCount());
+            for (int i = 0; i < 3; i++) {
+                paths.add(entries.next().getPathDisplay());
+            }
+            Assert.assertEquals("[/File0.pdf, /File1.pdf, /Folder0]", paths.toString());
+            Assert.assertEquals("Sub folder not listed yet", 2, lazyTree.getCallCount());
+            while (entries.hasNext()) {
+                paths.add(entries.next().getPathDisplay());
+            }
+        }
+        Assert.assertEquals(walked.getPaths(), paths);
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testFetchesAheadAreBounded() throws DbxException, InterruptedException {
+        log.info("*******Test case Started : Sub folders fetched ahead stay inside the window. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(2, 10, 1);
+        try (FolderIterator entries = new FolderIterator(tree.client(), new RequestScheduler(), "", 4, 3)) {
+            Assert.assertEquals("/File0.pdf", entries.next().getPathDisplay());
+            awaitCalls(tree, 4);
+            Assert.assertEquals("Root and three sub folders", 4, tree.getCallCount());
+            Assert.assertEquals("/Folder0", entries.next().getPathDisplay());
+            Assert.assertEquals("/Folder0/File0.pdf", entries.next().getPathDisplay());
+        }
+        Assert.assertTrue(tree.getCallCount() + " calls", tree.getCallCount() <= 1 + 1 + 3);
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testLazyStreams() throws DbxException {
+        log.info("*******Test case Started : Early termination of the listing streams. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(4, 4, 4).withPageSize(5);
+        DropboxClientAccessor accessor = new DropboxClientAccessor();
+        accessor.setDBXClient(tree.client());
+        try (Stream<Metadata> entries = accessor.listEntries("token", "", "", ListingMode.RECURSIVE)) {
+            Assert.assertEquals(3, entries.limit(3).count());
+        }
+        Assert.assertEquals("One recursive page", 1, tree.getCallCount());
+        List<String> first;
+        try (Stream<Metadata> entries = accessor.listEntries("token", "/Folder1", "", ListingMode.WALK)) {
+            first = entries.limit(6).map(Metadata::getPathDisplay).collect(Collectors.toList());
+        }
+        Assert.assertEquals("[/Folder1/File0.pdf, /Folder1/File1.pdf, /Folder1/File2.pdf, /Folder1/File3.pdf, "
+                + "/Folder1/Folder0, /Folder1/Folder0/File0.pdf]", first.toString());
+        try (Stream<Metadata> entries = accessor.listEntries("token", "", "", ListingMode.WALK)) {
+            Assert.assertEquals(tree.getEntryCount(), entries.count());
+        }
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    /**
+     * This method is used to wait until the tree served the given number of
+     * calls, failing after a generous deadline.
+     */
+    private static void awaitCalls(SyntheticDropboxTree tree, int calls) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (tree.getCallCount() < calls) {
+            Assert.assertTrue("Only " + tree.getCallCount() + " calls", System.nanoTime() < deadline);
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.dropbox.dropboxclient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.dropboxclient.service.ContentHasher;
+import com.dropbox.dropboxclient.service.FileDownloader;
+import com.dropbox.dropboxclient.service.FileUploader;
+import com.dropbox.dropboxclient.service.FolderSync;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+import com.dropbox.dropboxclient.service.SyncDirection;
+
+public class FolderSyncTest {
+    final static private Logger log = LoggerFactory.getLogger(FolderSyncTest.class);
+    private Path directory;
+    private Path stateFile;
+    private ContentHasher hasher;
+
+    @Before
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("sync");
+        stateFile = Files.createTempDirectory("sync-state").resolve("state.bin");
+        hasher = new ContentHasher(2);
+    }
+
+    @Test
+    public void testUpSyncTransfersOnlyChanges() throws DbxException, IOException {
+        log.info("*******Test case Started : Up sync uploads new and changed files. ******\n");
+        SyntheticDropboxTree tree = new SyntheticDropboxTree();
+        tree.addFolder("/Sync").addFolder("/Sync/sub").addFile("/Sync/a.txt", 100).addFile("/Sync/sub/b.txt", 300)
+                .addFile("/Sync/remote-only.txt", 50);
+        write("a.txt", SyntheticDropboxTree.content("/sync/a.txt", 0, 100));
+        write("sub/b.txt", SyntheticDropboxTree.content("/sync/a.txt", 0, 300));
+        write("d.txt", SyntheticDropboxTree.content("/sync/d.txt", 0, 10));
+        FolderSync.Summary first = sync(tree).sync(directory, "/Sync", SyncDirection.UP, stateFile);
+        Assert.assertEquals(2, first.getTransferred());
+        Assert.assertEquals(1, first.getUpToDate());
+        Assert.assertEquals(3, first.getHashed());
+        Assert.assertEquals(310, first.getBytes());
+        Assert.assertEquals(2, tree.getUploads().size());
+        Assert.assertTrue(tree.getUploads().containsKey("/sync/sub/b.txt"));
+        Assert.assertTrue(tree.getUploads().containsKey("/sync/d.txt"));
+        FolderSync.Summary second = sync(tree).sync(directory, "/Sync", SyncDirection.UP, stateFile);
+        Assert.assertEquals(0, second.getTransferred());
+        Assert.assertEquals(3, second.getUpToDate());
+        Assert.assertEquals("Unchanged files are not read again", 0, second.getHashed());
+        Assert.assertEquals(2, tree.getUploads().size());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testDownSyncTransfersOnlyChanges() throws DbxException, IOException {
+        log.info("*******Test case Started : Down sync downloads new and changed files. ******\n");
+        SyntheticDropboxTree tree = new SyntheticDropboxTree();
+        tree.addFolder("/Sync").addFolder("/Sync/sub").addFile("/Sync/a.txt", 100).addFile("/Sync/sub/b.txt", 300);
+        write("a.txt", SyntheticDropboxTree.content("/sync/a.txt", 0, 100));
+        write("local-only.txt", new byte[] { 1, 2, 3 });
+        FolderSync.Summary first = sync(tree).sync(directory, "/Sync", SyncDirection.DOWN, stateFile);
+        Assert.assertEquals(1, first.getTransferred());
+        Assert.assertEquals(1, first.getUpToDate());
+        Assert.assertEquals(1, tree.getDownloadCount());
+        Assert.assertArrayEquals(SyntheticDropboxTree.content("/sync/sub/b.txt", 0, 300),
+                Files.readAllBytes(directory.resolve("sub/b.txt")));
+        FolderSync.Summary second = sync(tree).sync(directory, "/Sync", SyncDirection.DOWN, stateFile);
+        Assert.assertEquals(0, second.getTransferred());
+        Assert.assertEquals(2, second.getUpToDate());
+        Assert.assertEquals("Downloaded files are not hashed", 0, second.getHashed());
+        write("a.txt", SyntheticDropboxTree.content("/sync/other.txt", 0, 100));
+        FolderSync.Summary third = sync(tree).sync(directory, "/Sync", SyncDirection.DOWN, stateFile);
+        Assert.assertEquals(1, third.getHashed());
+        Assert.assertEquals(1, third.getTransferred());
+        Assert.assertArrayEquals(SyntheticDropboxTree.content("/sync/a.txt", 0, 100),
+                Files.readAllBytes(directory.resolve("a.txt")));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testDownSyncReplacesFileWithSameSizeAndTime() throws DbxException, IOException {
+        log.info("*******Test case Started : Down sync replaces a file whose size and time match. ******\n");
+        SyntheticDropboxTree tree = new SyntheticDropboxTree();
+        tree.addFolder("/Sync").addFile("/Sync/a.txt", 100);
+        write("a.txt", SyntheticDropboxTree.content("/sync/other.txt", 0, 100));
+        Files.setLastModifiedTime(directory.resolve("a.txt"), FileTime.fromMillis(1_580_000_000_100L));
+        FolderSync.Summary first = sync(tree).sync(directory, "/Sync", SyncDirection.DOWN, stateFile);
+        Assert.assertEquals(1, first.getTransferred());
+        Assert.assertEquals(1, tree.getDownloadCount());
+        Assert.assertArrayEquals(SyntheticDropboxTree.content("/sync/a.txt", 0, 100),
+                Files.readAllBytes(directory.resolve("a.txt")));
+        FolderSync.Summary second = sync(tree).sync(directory, "/Sync", SyncDirection.DOWN, stateFile);
+        Assert.assertEquals(0, second.getTransferred());
+        Assert.assertEquals(1, second.getUpToDate());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testNamesWithCapitalIMatchUnderTurkishLocale() throws DbxException, IOException {
+        log.info("*******Test case Started : Sync matches names with a capital I in any locale. ******\n");
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr"));
+        try {
+            SyntheticDropboxTree tree = new SyntheticDropboxTree();
+            tree.addFolder("/Sync").addFolder("/Sync/INBOX").addFile("/Sync/INBOX/Invoice.txt", 100);
+            write("INBOX/Invoice.txt", SyntheticDropboxTree.content("/sync/inbox/invoice.txt", 0, 100));
+            FolderSync.Summary up = sync(tree).sync(directory, "/Sync", SyncDirection.UP, stateFile);
+            Assert.assertEquals(0, up.getTransferred());
+            Assert.assertEquals(1, up.getUpToDate());
+            FolderSync.Summary down = sync(tree).sync(directory, "/Sync", SyncDirection.DOWN, stateFile);
+            Assert.assertEquals(0, down.getTransferred());
+            Assert.assertEquals(1, down.getUpToDate());
+            Assert.assertEquals(0, tree.getDownloadCount());
+            Assert.assertEquals(SyncDirection.DOWN, SyncDirection.fromValue("down"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    private FolderSync sync(SyntheticDropboxTree tree) throws DbxException {
+        RequestScheduler scheduler = new RequestScheduler(8, 0);
+        return new FolderSync(tree.client(), scheduler, hasher, 4,
+                new FileUploader(tree.client(), scheduler, 4, 128, 10),
+                new FileDownloader(tree.client(), scheduler, 4, 1024));
+    }
+
+    private void write(String path, byte[] content) throws IOException {
+        Path file = directory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        hasher.close();
+        for (Path root : new Path[] { directory, stateFile.getParent() }) {
+            try (Stream<Path> files = Files.walk(root)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
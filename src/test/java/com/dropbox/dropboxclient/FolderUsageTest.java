@@ -0,0 +1,61 @@
+package com.dropbox.dropboxclient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.dropboxclient.service.BufferedOutputSink;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+import com.dropbox.dropboxclient.service.FolderUsage;
+import com.dropbox.dropboxclient.service.RecursiveLister;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+
+public class FolderUsageTest {
+    final static private Logger log = LoggerFactory.getLogger(FolderUsageTest.class);
+
+    @Test
+    public void testTotalsRollUpToMaxDepth() throws DbxException {
+        log.info("*******Test case Started : Folder totals are rolled up to the maximum depth. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(2, 3, 4);
+        FolderUsage usage = new FolderUsage("", 1);
+        new RecursiveLister(tree.client(), new RequestScheduler()).fetch("", usage::add);
+        Assert.assertEquals("Deeper folders are not interned", 4, usage.getFolderCount());
+        List<String> lines = new ArrayList<>();
+        usage.visit((path, depth, bytes, files) -> lines.add(path + " " + depth + " " + bytes + " " + files));
+        Assert.assertEquals("[ 0 130000 52, /Folder0 1 40000 16, /Folder1 1 40000 16, /Folder2 1 40000 16]",
+                lines.toString());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testSubFolderUsage() throws DbxException {
+        log.info("*******Test case Started : Usage of a sub folder including its empty folders. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(2, 2, 1).addFolder("/Folder1/Empty");
+        FolderUsage usage = new FolderUsage("/folder1", 5);
+        new RecursiveLister(tree.client(), new RequestScheduler()).fetch("/folder1", usage::add);
+        List<String> lines = new ArrayList<>();
+        usage.visit((path, depth, bytes, files) -> lines.add(path + " " + depth + " " + files));
+        Assert.assertEquals("[/folder1 0 3, /Folder1/Empty 1 0, /Folder1/Folder0 1 1, /Folder1/Folder1 1 1]",
+                lines.toString());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testDiskUsageOutput() throws DbxException, UnsupportedEncodingException {
+        log.info("*******Test case Started : Output of the du command. ******\n");
+        DropboxClientAccessor accessor = new DropboxClientAccessor();
+        accessor.setDBXClient(SyntheticDropboxTree.generate(2, 3, 4).client());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        accessor.setOutputSink(new BufferedOutputSink(out));
+        accessor.diskUsage("token", "", "en-US", 0);
+        Assert.assertEquals("130.0 KB\t52 files\t/" + System.lineSeparator(), out.toString("UTF-8"));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+}
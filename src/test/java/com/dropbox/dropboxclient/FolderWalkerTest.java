@@ -0,0 +1,68 @@
+package com.dropbox.dropboxclient;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.ServerException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.dropboxclient.service.FolderWalker;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+
+public class FolderWalkerTest {
+    final static private Logger log = LoggerFactory.getLogger(FolderWalkerTest.class);
+
+    @Test
+    public void testWalkKeepsDepthFirstOrder() throws DbxException {
+        log.info("*******Test case Started : Parallel walk keeps the sequential order. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(3, 3, 2).withPageSize(2);
+        List<String> sequential = walk(tree, 1);
+        List<String> parallel = walk(tree, 8);
+        Assert.assertEquals(3 + 9 + 27 + 40 * 2, sequential.size());
+        Assert.assertEquals("/Folder0", sequential.get(2));
+        Assert.assertEquals("/Folder0/File0.pdf", sequential.get(3));
+        Assert.assertEquals(sequential, parallel);
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testParallelWalkOverlapsLatency() throws DbxException {
+        log.info("*******Test case Started : Parallel walk with injected latency. ******\n");
+        SyntheticDropboxTree sequentialTree = SyntheticDropboxTree.generate(2, 6, 1).withLatency(20);
+        List<String> sequential = walk(sequentialTree, 1);
+        SyntheticDropboxTree parallelTree = SyntheticDropboxTree.generate(2, 6, 1).withLatency(20);
+        List<String> parallel = walk(parallelTree, 4);
+        log.info("{} folders: at most {} listings in flight", parallelTree.getFolderCount(),
+                parallelTree.getMaxInFlight());
+        Assert.assertEquals(sequential, parallel);
+        Assert.assertEquals("Sequential walk lists one folder at a time", 1, sequentialTree.getMaxInFlight());
+        Assert.assertTrue("Listings overlap", parallelTree.getMaxInFlight() > 1);
+        Assert.assertTrue("Parallelism respected", parallelTree.getMaxInFlight() <= 4);
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testFailedSubFolderIsSkipped() throws DbxException {
+        log.info("*******Test case Started : Failing sub folder does not abort the walk. ******\n");
+        SyntheticDropboxTree tree = new SyntheticDropboxTree();
+        tree.addFolder("/Broken").addFolder("/Fine").addFile("/Fine/a.txt", 10);
+        DbxClientV2 client = tree.client();
+        Mockito.when(client.files().listFolder("/Broken"))
+                .thenThrow(new ServerException("req", "boom"));
+        PathCollector collector = new PathCollector();
+        new FolderWalker(client, 4, new RequestScheduler()).walk("", collector);
+        Assert.assertEquals("[/Broken, /Fine, /Fine/a.txt]", collector.getPaths().toString());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    private List<String> walk(SyntheticDropboxTree tree, int parallelism) throws DbxException {
+        PathCollector collector = new PathCollector();
+        new FolderWalker(tree.client(), parallelism, new RequestScheduler()).walk("", collector);
+        return collector.getPaths();
+    }
+}
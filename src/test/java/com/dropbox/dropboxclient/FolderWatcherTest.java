@@ -0,0 +1,126 @@
+package com.dropbox.dropboxclient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.DbxUserFilesRequests;
+import com.dropbox.core.v2.files.DeletedMetadata;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.ListFolderLongpollError;
+import com.dropbox.core.v2.files.ListFolderLongpollErrorException;
+import com.dropbox.core.v2.files.ListFolderLongpollResult;
+import com.dropbox.core.v2.files.ListFolderResult;
+import com.dropbox.core.v2.files.Metadata;
+import com.dropbox.dropboxclient.service.BufferedOutputSink;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+import com.dropbox.dropboxclient.service.FolderWatcher;
+import com.dropbox.dropboxclient.service.RecursiveLister;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+
+public class FolderWatcherTest {
+    final static private Logger log = LoggerFactory.getLogger(FolderWatcherTest.class);
+
+    @Test
+    public void testChangesAndExpiredCursor() throws DbxException {
+        log.info("*******Test case Started : Watcher reports deltas and relists an expired cursor. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(1, 2, 2);
+        DbxClientV2 client = tree.client();
+        DbxUserFilesRequests files = client.files();
+        String cursor = new RecursiveLister(client, new RequestScheduler()).fetch("", metadata -> {
+        });
+        Date modified = new Date();
+        FileMetadata added = FileMetadata.newBuilder("new.txt", "id:new", modified, modified, "0123456789", 5)
+                .withPathLower("/folder0/new.txt").withPathDisplay("/Folder0/new.txt").build();
+        FileMetadata changed = FileMetadata.newBuilder("File0.pdf", "id:f0", modified, modified, "0123456790", 7)
+                .withPathLower("/folder0/file0.pdf").withPathDisplay("/Folder0/File0.pdf").build();
+        DeletedMetadata deleted = new DeletedMetadata("Folder1", "/folder1", "/Folder1", null);
+        DeletedMetadata unknown = new DeletedMetadata("gone.txt", "/gone.txt", "/gone.txt", null);
+        Mockito.doReturn(new ListFolderResult(Arrays.asList(added, changed, deleted, unknown), "cursor-2", false))
+                .when(files).listFolderContinue(cursor);
+        FolderWatcher watcher = new FolderWatcher(client, new RequestScheduler(), 30);
+        AtomicInteger polls = new AtomicInteger();
+        Mockito.when(files.listFolderLongpoll(Mockito.anyString(), Mockito.anyLong())).thenAnswer(invocation -> {
+            switch (polls.incrementAndGet()) {
+            case 1:
+                Assert.assertEquals(cursor, invocation.getArgument(0));
+                return new ListFolderLongpollResult(true, null);
+            case 2:
+                Assert.assertEquals("cursor-2", invocation.getArgument(0));
+                tree.addFile("/Folder0/later.txt", 10);
+                throw new ListFolderLongpollErrorException("2/files/list_folder/longpoll", "req", null,
+                        ListFolderLongpollError.RESET);
+            default:
+                watcher.stop();
+                return new ListFolderLongpollResult(false);
+            }
+        });
+        List<String> events = new ArrayList<>();
+        AtomicInteger batches = new AtomicInteger();
+        watcher.watch("", new FolderWatcher.Listener() {
+            @Override
+            public void changed(FolderWatcher.Change change, Metadata metadata) {
+                events.add(change.value() + " " + metadata.getPathLower());
+            }
+
+            @Override
+            public void caughtUp() {
+                batches.incrementAndGet();
+            }
+        });
+        Assert.assertEquals(3, polls.get());
+        Assert.assertEquals(2, batches.get());
+        Assert.assertEquals("[added /folder0/new.txt, modified /folder0/file0.pdf, deleted /folder1]",
+                events.subList(0, 3).toString());
+        Assert.assertEquals("[added /folder0/later.txt, added /folder1, added /folder1/file0.pdf, "
+                + "added /folder1/file1.pdf, deleted /folder0/new.txt]",
+                new TreeSet<>(events.subList(3, events.size())).toString());
+        Assert.assertEquals(tree.getEntryCount(), watcher.getKnownCount());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testWatchOutput() throws DbxException, UnsupportedEncodingException {
+        log.info("*******Test case Started : Watch command prints one line per change. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(0, 0, 1);
+        DbxClientV2 client = tree.client();
+        DbxUserFilesRequests files = client.files();
+        Date modified = new Date();
+        FileMetadata added = FileMetadata.newBuilder("a.txt", "id:a", modified, modified, "0123456789", 5)
+                .withPathLower("/docs/a.txt").withPathDisplay("/Docs/a.txt").build();
+        Mockito.doReturn(new ListFolderResult(Arrays.asList(added,
+                new DeletedMetadata("File0.pdf", "/file0.pdf", "/File0.pdf", null)), "cursor-2", false))
+                .when(files).listFolderContinue(Mockito.anyString());
+        AtomicInteger polls = new AtomicInteger();
+        Mockito.when(files.listFolderLongpoll(Mockito.anyString(), Mockito.anyLong())).thenAnswer(invocation -> {
+            if (polls.incrementAndGet() > 1) {
+                Thread.currentThread().interrupt();
+                return new ListFolderLongpollResult(false);
+            }
+            return new ListFolderLongpollResult(true, null);
+        });
+        DropboxClientAccessor accessor = new DropboxClientAccessor();
+        accessor.setDBXClient(client);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        accessor.setOutputSink(new BufferedOutputSink(out));
+        accessor.watchFolder("token", "", "");
+        Assert.assertTrue("Interrupted", Thread.interrupted());
+        String separator = System.lineSeparator();
+        Assert.assertEquals("added\t/Docs/a.txt" + separator + "deleted\t/File0.pdf" + separator,
+                out.toString("UTF-8"));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+}
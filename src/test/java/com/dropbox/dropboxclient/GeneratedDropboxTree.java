@@ -0,0 +1,256 @@
+package com.dropbox.dropboxclient;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.Metadata;
+
+/**
+ * Balanced Dropbox folder tree of the same shape as
+ * {@link SyntheticDropboxTree#generate(int, int, int)} whose entries are
+ * computed from their paths instead of being stored, so trees of millions of
+ * entries take no memory. Every folder holds its files "File0.pdf",
+ * "File1.pdf", ... followed by its sub folders "Folder0", "Folder1", ..., the
+ * folders of the last level have no sub folders.
+ */
+public class GeneratedDropboxTree {
+
+    final private int depth;
+    final private int foldersPerFolder;
+    final private int filesPerFolder;
+
+    /**
+     * @param depth
+     *            - number of folder levels below the root folder.
+     * @param foldersPerFolder
+     *            - sub folders of every folder above the last level.
+     * @param filesPerFolder
+     *            - files of every folder.
+     */
+    public GeneratedDropboxTree(int depth, int foldersPerFolder, int filesPerFolder) {
+        this.depth = depth;
+        this.foldersPerFolder = foldersPerFolder;
+        this.filesPerFolder = filesPerFolder;
+    }
+
+    /**
+     * @return number of files and folders, the root folder excluded.
+     */
+    public long getEntryCount() {
+        long folders = 0;
+        long level = 1;
+        for (int i = 0; i < depth; i++) {
+            level *= foldersPerFolder;
+            folders += level;
+        }
+        return folders + (folders + 1) * filesPerFolder;
+    }
+
+    /**
+     * This method is used to get the number of entries of a folder.
+     *
+     * @param level
+     *            - level of the folder, 0 for the root folder.
+     * @return files and sub folders of the folder.
+     */
+    public int childCount(int level) {
+        return filesPerFolder + (level < depth ? foldersPerFolder : 0);
+    }
+
+    /**
+     * This method is used to get an entry of a folder.
+     *
+     * @param folder
+     *            - display path of the folder, empty for the root folder.
+     * @param index
+     *            - position of the entry, below {@link #childCount(int)}.
+     * @return file or folder metadata.
+     */
+    public Metadata child(String folder, int index) {
+        if (index < filesPerFolder) {
+            String path = folder + "/File" + index + ".pdf";
+            long size = 1000L * (index + 1);
+            Date modified = new Date(1_580_000_000_000L + size);
+            return FileMetadata.newBuilder("File" + index + ".pdf", "id:" + path.toLowerCase(), modified, modified,
+                    "0123456789", size).withPathLower(path.toLowerCase()).withPathDisplay(path).build();
+        }
+        String name = "Folder" + (index - filesPerFolder);
+        String path = folder + "/" + name;
+        return FolderMetadata.newBuilder(name, "id:" + path.toLowerCase()).withPathLower(path.toLowerCase())
+                .withPathDisplay(path).build();
+    }
+
+    /**
+     * This method is used to resolve a path case insensitively.
+     *
+     * @param path
+     *            - path of an entry, empty for the root folder.
+     * @return positions of the path segments in their folders, the last one
+     *         may be a file, or null if the path does not exist.
+     */
+    public int[] resolve(String path) {
+        if (path.isEmpty()) {
+            return new int[0];
+        }
+        if (!path.startsWith("/")) {
+            return null;
+        }
+        String[] segments = path.substring(1).toLowerCase().split("/", -1);
+        int[] positions = new int[segments.length];
+        for (int level = 0; level < segments.length; level++) {
+            String segment = segments[level];
+            boolean last = level == segments.length - 1;
+            int index;
+            if (last && segment.startsWith("file") && segment.endsWith(".pdf")) {
+                index = parseIndex(segment.substring(4, segment.length() - 4), filesPerFolder);
+            } else if (segment.startsWith("folder") && level < depth) {
+                index = parseIndex(segment.substring(6), foldersPerFolder);
+                index = index < 0 ? -1 : filesPerFolder + index;
+            } else {
+                index = -1;
+            }
+            if (index < 0) {
+                return null;
+            }
+            positions[level] = index;
+        }
+        return positions;
+    }
+
+    private static int parseIndex(String value, int count) {
+        if (value.isEmpty() || value.length() > 9 || (value.length() > 1 && value.charAt(0) == '0')) {
+            return -1;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return -1;
+            }
+        }
+        int index = Integer.parseInt(value);
+        return index < count ? index : -1;
+    }
+
+    /**
+     * This method is used to get the display path of resolved positions.
+     *
+     * @param positions
+     *            - positions returned by {@link #resolve(String)}.
+     * @param length
+     *            - number of positions used.
+     * @return display path, empty for the root folder.
+     */
+    public String pathOf(int[] positions, int length) {
+        StringBuilder path = new StringBuilder();
+        for (int level = 0; level < length; level++) {
+            int index = positions[level];
+            if (index < filesPerFolder) {
+                path.append("/File").append(index).append(".pdf");
+            } else {
+                path.append("/Folder").append(index - filesPerFolder);
+            }
+        }
+        return path.toString();
+    }
+
+    /**
+     * This method is used to get the metadata of a path.
+     *
+     * @param path
+     *            - path of an entry.
+     * @return metadata or null if the path does not exist or is the root
+     *         folder.
+     */
+    public Metadata lookup(String path) {
+        int[] positions = resolve(path);
+        if (positions == null || positions.length == 0) {
+            return null;
+        }
+        return child(pathOf(positions, positions.length - 1), positions[positions.length - 1]);
+    }
+
+    /**
+     * Depth-first walk of the entries below a folder which can be stopped and
+     * resumed: {@link #getState()} is the position of the next entry.
+     */
+    public final class Walk {
+        /**
+         * State of a walk which visited every entry.
+         */
+        final static public String DONE = "-";
+        final private String root;
+        final private int rootLevel;
+        final private List<Integer> stack = new ArrayList<>();
+        final private List<String> paths = new ArrayList<>();
+
+        /**
+         * @param root
+         *            - display path of the folder.
+         * @param state
+         *            - state of a previous walk, empty to start.
+         */
+        public Walk(String root, String state) {
+            this.root = root;
+            this.rootLevel = root.isEmpty() ? 0 : root.split("/").length - 1;
+            if (DONE.equals(state)) {
+                return;
+            }
+            paths.add(root);
+            stack.add(0);
+            if (!state.isEmpty()) {
+                String[] positions = state.split(",");
+                stack.set(0, Integer.parseInt(positions[0]));
+                for (int i = 1; i < positions.length; i++) {
+                    int parent = stack.get(i - 1) - 1;
+                    paths.add(paths.get(i - 1) + "/Folder" + (parent - filesPerFolder));
+                    stack.add(Integer.parseInt(positions[i]));
+                }
+            }
+        }
+
+        /**
+         * @return next entry or null once every entry has been visited.
+         */
+        public Metadata next() {
+            while (!stack.isEmpty()) {
+                int top = stack.size() - 1;
+                int position = stack.get(top);
+                if (position < childCount(rootLevel + top)) {
+                    stack.set(top, position + 1);
+                    Metadata entry = child(paths.get(top), position);
+                    if (entry instanceof FolderMetadata) {
+                        stack.add(0);
+                        paths.add(entry.getPathDisplay());
+                    }
+                    return entry;
+                }
+                stack.remove(top);
+                paths.remove(top);
+            }
+            return null;
+        }
+
+        /**
+         * @return position of the next entry.
+         */
+        public String getState() {
+            if (stack.isEmpty()) {
+                return DONE;
+            }
+            StringBuilder state = new StringBuilder();
+            for (int position : stack) {
+                if (state.length() > 0) {
+                    state.append(',');
+                }
+                state.append(position);
+            }
+            return state.toString();
+        }
+
+        public String getRoot() {
+            return root;
+        }
+    }
+}
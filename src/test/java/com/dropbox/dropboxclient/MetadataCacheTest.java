@@ -0,0 +1,129 @@
+package com.dropbox.dropboxclient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.DbxUserFilesRequests;
+import com.dropbox.core.v2.files.DeletedMetadata;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.ListFolderContinueError;
+import com.dropbox.core.v2.files.ListFolderContinueErrorException;
+import com.dropbox.core.v2.files.ListFolderResult;
+import com.dropbox.dropboxclient.service.CachedListing;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+import com.dropbox.dropboxclient.service.ListingMode;
+import com.dropbox.dropboxclient.service.ListingOptions;
+import com.dropbox.dropboxclient.service.MetadataCache;
+
+public class MetadataCacheTest {
+    final static private Logger log = LoggerFactory.getLogger(MetadataCacheTest.class);
+    private Path directory;
+
+    @Before
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("metadata-cache");
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        log.info("*******Test case Started : Cached listing survives a save and load. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(2, 2, 2);
+        CachedListing listing = new CachedListing(tree.toFolderTree(), "cursor-1");
+        MetadataCache cache = new MetadataCache(directory);
+        cache.save("token", "", listing);
+        Assert.assertNull(cache.load("other token", ""));
+        CachedListing loaded = cache.load("token", "");
+        Assert.assertEquals("cursor-1", loaded.getCursor());
+        Assert.assertEquals(listing.getTree().size(), loaded.getTree().size());
+        PathCollector expected = new PathCollector();
+        listing.getTree().visit("", expected);
+        PathCollector actual = new PathCollector();
+        loaded.getTree().visit("", actual);
+        Assert.assertEquals(expected.getPaths(), actual.getPaths());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testCachedListingAppliesDeltas() throws DbxException, IOException {
+        log.info("*******Test case Started : Cached listing only fetches the changes. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(2, 2, 2);
+        DropboxClientAccessor accessor = accessor(tree.client());
+        accessor.retrieveFileInfo("token", "", "", cacheOptions());
+        Assert.assertEquals(1, tree.getCallCount());
+
+        DbxClientV2 client = Mockito.mock(DbxClientV2.class);
+        DbxUserFilesRequests files = Mockito.mock(DbxUserFilesRequests.class);
+        Mockito.when(client.files()).thenReturn(files);
+        Date modified = new Date();
+        FileMetadata added = FileMetadata.newBuilder("new.txt", "id:new", modified, modified, "0123456789", 5)
+                .withPathLower("/folder0/new.txt").withPathDisplay("/Folder0/new.txt").build();
+        DeletedMetadata deleted = new DeletedMetadata("Folder1", "/folder1", "/Folder1", null);
+        Mockito.when(files.listFolderContinue(Mockito.anyString()))
+                .thenReturn(new ListFolderResult(Arrays.asList(added, deleted), "cursor-2", false));
+        accessor.setDBXClient(client);
+        accessor.retrieveFileInfo("token", "", "", cacheOptions());
+        Mockito.verify(files, Mockito.never()).listFolderBuilder(Mockito.anyString());
+
+        CachedListing loaded = new MetadataCache(directory).load("token", "");
+        Assert.assertEquals("cursor-2", loaded.getCursor());
+        PathCollector collector = new PathCollector();
+        loaded.getTree().visit("", collector);
+        Assert.assertTrue(collector.getPaths().contains("/Folder0/new.txt"));
+        Assert.assertFalse(collector.getPaths().contains("/Folder1"));
+        Assert.assertFalse(collector.getPaths().contains("/Folder1/File0.pdf"));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testExpiredCursorListsAgain() throws DbxException, IOException {
+        log.info("*******Test case Started : Expired cursor falls back to a full listing. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(1, 2, 1);
+        new MetadataCache(directory).save("token", "", new CachedListing(tree.toFolderTree(), "expired"));
+        DbxClientV2 client = tree.client();
+        DbxUserFilesRequests files = client.files();
+        Mockito.doThrow(new ListFolderContinueErrorException("files/list_folder/continue", "id", null,
+                ListFolderContinueError.RESET)).when(files).listFolderContinue("expired");
+        accessor(client).retrieveFileInfo("token", "", "", cacheOptions());
+        Mockito.verify(files).listFolderBuilder("");
+        Assert.assertNotEquals("expired", new MetadataCache(directory).load("token", "").getCursor());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    private DropboxClientAccessor accessor(DbxClientV2 client) {
+        DropboxClientAccessor accessor = new DropboxClientAccessor();
+        accessor.setDBXClient(client);
+        accessor.setCacheDirectory(directory.toString());
+        return accessor;
+    }
+
+    private ListingOptions cacheOptions() {
+        ListingOptions options = new ListingOptions();
+        options.setMode(ListingMode.RECURSIVE);
+        options.setCache(true);
+        return options;
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,97 @@
+package com.dropbox.dropboxclient;
+
+import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.dropboxclient.service.MetadataFormatter;
+
+public class MetadataFormatterTest {
+    final static private Logger log = LoggerFactory.getLogger(MetadataFormatterTest.class);
+    final private MetadataFormatter formatter = new MetadataFormatter(ZoneId.of("UTC"));
+
+    @Test
+    public void testFileSizeMatchesStringFormat() {
+        log.info("*******Test case Started : File size matches the String.format output. ******\n");
+        List<Long> sizes = new ArrayList<>();
+        long[] edges = { 0, 1, 999, 1000, 1049, 1050, 999_949, 999_950, 1_234_567, 999_949_999, 999_950_000,
+                1_000_000_000_000_000L, Long.MAX_VALUE, Long.MIN_VALUE, -1, -1500 };
+        for (long edge : edges) {
+            sizes.add(edge);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            sizes.add(random.nextLong() >> random.nextInt(64));
+        }
+        for (long size : sizes) {
+            Assert.assertEquals(String.valueOf(size), legacyFileSize(size),
+                    formatter.readableFileSize(size, Locale.US, new StringBuilder()).toString());
+        }
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testLocaleDecimalSeparator() {
+        log.info("*******Test case Started : File size uses the decimal separator of the locale. ******\n");
+        Assert.assertEquals("1,5 MB", formatter
+                .readableFileSize(1_500_000, MetadataFormatter.toLocale("de_DE"), new StringBuilder()).toString());
+        Assert.assertEquals("1.5 MB", formatter
+                .readableFileSize(1_500_000, MetadataFormatter.toLocale("en-GB"), new StringBuilder()).toString());
+        Assert.assertEquals(Locale.getDefault(Locale.Category.FORMAT), MetadataFormatter.toLocale(""));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testDateMatchesSimpleDateFormat() {
+        log.info("*******Test case Started : Date matches the SimpleDateFormat output. ******\n");
+        SimpleDateFormat legacy = new SimpleDateFormat("MM-dd-yyyy HH:mm:ss");
+        legacy.setTimeZone(TimeZone.getTimeZone("UTC"));
+        Random random = new Random(11);
+        for (int i = 0; i < 1000; i++) {
+            Date date = new Date(random.nextInt(Integer.MAX_VALUE) * 1000L);
+            Assert.assertEquals(legacy.format(date),
+                    formatter.formatDate(date, Locale.US, new StringBuilder()).toString());
+        }
+        Assert.assertEquals("02-09-2020 13:48:26",
+                formatter.formatDate(new Date(1_581_256_106_000L), Locale.US, new StringBuilder()).toString());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testConcurrentFormatting() {
+        log.info("*******Test case Started : Shared formatter under concurrent use. ******\n");
+        Date date = new Date(1_581_256_106_000L);
+        long failures = IntStream.range(0, 20_000).parallel().filter(i -> {
+            StringBuilder buffer = new StringBuilder();
+            formatter.formatDate(date, Locale.US, buffer);
+            formatter.readableFileSize(1_500_000, Locale.US, buffer.append(' '));
+            return !"02-09-2020 13:48:26 1.5 MB".equals(buffer.toString());
+        }).count();
+        Assert.assertEquals(0, failures);
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    private static String legacyFileSize(final long bytes) {
+        final String s = bytes < 0 ? "-" : "";
+        long b = bytes == Long.MIN_VALUE ? Long.MAX_VALUE : Math.abs(bytes);
+        return b < 1000L ? bytes + " bytes"
+                : b < 999_950L ? String.format(Locale.US, "%s%.1f KB", s, b / 1e3)
+                        : (b /= 1000) < 999_950L ? String.format(Locale.US, "%s%.1f MB", s, b / 1e3)
+                                : (b /= 1000) < 999_950L ? String.format(Locale.US, "%s%.1f GB", s, b / 1e3)
+                                        : (b /= 1000) < 999_950L ? String.format(Locale.US, "%s%.1f TB", s, b / 1e3)
+                                                : (b /= 1000) < 999_950L
+                                                        ? String.format(Locale.US, "%s%.1f PB", s, b / 1e3)
+                                                        : String.format(Locale.US, "%s%.1f EB", s, b / 1e6);
+    }
+}
@@ -0,0 +1,59 @@
+package com.dropbox.dropboxclient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.dropboxclient.service.MimeTypeResolver;
+
+public class MimeTypeResolverTest {
+    final static private Logger log = LoggerFactory.getLogger(MimeTypeResolverTest.class);
+
+    @Test
+    public void testBundledTable() {
+        log.info("*******Test case Started : Mime types resolved from the bundled table. ******\n");
+        MimeTypeResolver resolver = MimeTypeResolver.load(null);
+        Assert.assertEquals("application/pdf", resolver.resolve("test.pdf"));
+        Assert.assertEquals("image/jpeg", resolver.resolve("IMG_0042.JPG"));
+        Assert.assertEquals("application/gzip", resolver.resolve("archive.tar.gz"));
+        Assert.assertEquals("image/vnd.adobe.photoshop", resolver.resolve("design.psd"));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testUnknownExtensionMatchesProbe() throws IOException {
+        log.info("*******Test case Started : Unknown extensions fall back to the probe. ******\n");
+        MimeTypeResolver resolver = MimeTypeResolver.load(null);
+        for (String name : Arrays.asList("data.unknownext", "README", "notes.yaml")) {
+            String expected = Files.probeContentType(Paths.get(name));
+            Assert.assertEquals(expected, resolver.resolve(name));
+            Assert.assertEquals(expected, resolver.resolve(name));
+        }
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testConfiguredTableExtendsDefaults() throws IOException {
+        log.info("*******Test case Started : Configured entries extend the table. ******\n");
+        Path file = Files.createTempFile("mime-types", ".properties");
+        try {
+            Files.write(file, Arrays.asList("sketch=application/x-sketch", "PDF=application/x-pdf"),
+                    StandardCharsets.UTF_8);
+            MimeTypeResolver resolver = MimeTypeResolver.load(file.toString());
+            Assert.assertEquals("application/x-sketch", resolver.resolve("logo.Sketch"));
+            Assert.assertEquals("application/x-pdf", resolver.resolve("test.pdf"));
+            Assert.assertEquals("text/plain", resolver.resolve("notes.txt"));
+        } finally {
+            Files.delete(file);
+        }
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+}
@@ -0,0 +1,30 @@
+package com.dropbox.dropboxclient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.dropboxclient.service.MetadataVisitor;
+
+/**
+ * Records the display paths of the visited entries in visiting order.
+ */
+public class PathCollector implements MetadataVisitor {
+
+    final private List<String> paths = new ArrayList<>();
+
+    @Override
+    public void visitFolder(FolderMetadata folderMetadata) {
+        paths.add(folderMetadata.getPathDisplay());
+    }
+
+    @Override
+    public void visitFile(FileMetadata fileMetadata) {
+        paths.add(fileMetadata.getPathDisplay());
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+}
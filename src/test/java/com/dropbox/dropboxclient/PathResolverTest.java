@@ -0,0 +1,114 @@
+package com.dropbox.dropboxclient;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.files.Metadata;
+import com.dropbox.dropboxclient.service.BufferedOutputSink;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+import com.dropbox.dropboxclient.service.OutputFormat;
+import com.dropbox.dropboxclient.service.PathResolver;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+import com.dropbox.dropboxclient.service.StatOrder;
+
+public class PathResolverTest {
+    final static private Logger log = LoggerFactory.getLogger(PathResolverTest.class);
+
+    @Test
+    public void testInputOrderIsKept() throws DbxException, IOException {
+        log.info("*******Test case Started : Stat results keep the input order. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(2, 4, 3).withLatency(5);
+        List<String> input = paths();
+        Recorder recorder = resolve(tree, input, StatOrder.INPUT, 4);
+        Assert.assertEquals(input, recorder.resolved);
+        Assert.assertEquals(Collections.singletonList("/Missing.txt"), recorder.failed);
+        Assert.assertTrue("At most 4 lookups in flight", tree.getMaxInFlight() <= 4);
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testCompletedOrderReportsEveryPath() throws DbxException, IOException {
+        log.info("*******Test case Started : Stat results as completed. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(2, 4, 3).withLatency(5);
+        List<String> input = paths();
+        Recorder recorder = resolve(tree, input, StatOrder.COMPLETED, 8);
+        List<String> sorted = new ArrayList<>(recorder.resolved);
+        Collections.sort(sorted);
+        List<String> expected = new ArrayList<>(input);
+        Collections.sort(expected);
+        Assert.assertEquals(expected, sorted);
+        Assert.assertEquals(Collections.singletonList("/Missing.txt"), recorder.failed);
+        Assert.assertTrue("At most 8 lookups in flight", tree.getMaxInFlight() <= 8);
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testAccessorPrintsFullPaths() throws DbxException {
+        log.info("*******Test case Started : Stat command reads the paths from stdin. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(1, 2, 1);
+        DropboxClientAccessor accessor = new DropboxClientAccessor();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        accessor.setDBXClient(tree.client());
+        accessor.setOutputSink(new BufferedOutputSink(out));
+        accessor.setReader(new BufferedReader(new StringReader("/Folder1/File0.pdf\n\n/Folder0\n")));
+        accessor.statPaths("token", "-", "en_US", OutputFormat.TEXT, StatOrder.INPUT);
+        String output = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertTrue(output, output.startsWith("- /Folder1/File0.pdf \t: file, 1.0 KB, application/pdf"));
+        Assert.assertTrue(output, output.contains("/Folder0\t\t\t : Dir"));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    private static List<String> paths() {
+        List<String> paths = new ArrayList<>();
+        for (int folder = 0; folder < 4; folder++) {
+            paths.add("/Folder" + folder);
+            for (int child = 0; child < 4; child++) {
+                for (int file = 0; file < 3; file++) {
+                    paths.add("/Folder" + folder + "/Folder" + child + "/File" + file + ".pdf");
+                }
+            }
+        }
+        return paths;
+    }
+
+    private static Recorder resolve(SyntheticDropboxTree tree, List<String> input, StatOrder order, int window)
+            throws DbxException, IOException {
+        List<String> lines = new ArrayList<>(input);
+        lines.add(input.size() / 2, "/Missing.txt");
+        lines.add("");
+        Recorder recorder = new Recorder();
+        PathResolver resolver = new PathResolver(tree.client(), new RequestScheduler(), window);
+        int count = resolver.resolve(new BufferedReader(new StringReader(String.join("\n", lines))), order,
+                recorder);
+        Assert.assertEquals(input.size() + 1, count);
+        return recorder;
+    }
+
+    private static final class Recorder implements PathResolver.Listener {
+        final List<String> resolved = new ArrayList<>();
+        final List<String> failed = new ArrayList<>();
+
+        @Override
+        public void resolved(String path, Metadata metadata) {
+            Assert.assertEquals(path.toLowerCase(), metadata.getPathLower());
+            resolved.add(path);
+        }
+
+        @Override
+        public void failed(String path, Exception cause) {
+            failed.add(path);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.dropbox.dropboxclient;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.files.DeletedMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.dropboxclient.service.FolderTree;
+import com.dropbox.dropboxclient.service.FolderWalker;
+import com.dropbox.dropboxclient.service.RecursiveLister;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+
+public class RecursiveListerTest {
+    final static private Logger log = LoggerFactory.getLogger(RecursiveListerTest.class);
+
+    @Test
+    public void testRecursiveListingMatchesWalk() throws DbxException {
+        log.info("*******Test case Started : Recursive listing rebuilds the hierarchy. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(3, 3, 2).withPageSize(7);
+        for (String path : new String[] { "", "/Folder1" }) {
+            PathCollector walked = new PathCollector();
+            new FolderWalker(tree.client(), 1, new RequestScheduler()).walk(path, walked);
+            PathCollector listed = new PathCollector();
+            new RecursiveLister(tree.client(), new RequestScheduler()).list(path, listed);
+            Assert.assertEquals(walked.getPaths(), listed.getPaths());
+        }
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testRecursiveListingSavesRoundTrips() throws DbxException {
+        log.info("*******Test case Started : Recursive listing compared to the per folder walk. ******\n");
+        SyntheticDropboxTree walkTree = SyntheticDropboxTree.generate(3, 4, 3).withLatency(5).withPageSize(500);
+        long start = System.nanoTime();
+        new FolderWalker(walkTree.client(), 1, new RequestScheduler()).walk("", new PathCollector());
+        long walkNanos = System.nanoTime() - start;
+
+        SyntheticDropboxTree recursiveTree = SyntheticDropboxTree.generate(3, 4, 3).withLatency(5).withPageSize(500);
+        start = System.nanoTime();
+        new RecursiveLister(recursiveTree.client(), new RequestScheduler()).list("", new PathCollector());
+        long recursiveNanos = System.nanoTime() - start;
+
+        log.info("{} folders: walk {} calls in {} ms, recursive {} calls in {} ms", walkTree.getFolderCount(),
+                walkTree.getCallCount(), walkNanos / 1_000_000, recursiveTree.getCallCount(),
+                recursiveNanos / 1_000_000);
+        Assert.assertEquals(walkTree.getFolderCount(), walkTree.getCallCount());
+        Assert.assertEquals(1, recursiveTree.getCallCount());
+        Assert.assertTrue("Recursive listing is faster", recursiveNanos < walkNanos);
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testDeletedFolderRemovesSubTree() {
+        log.info("*******Test case Started : Deleted entries remove the sub tree. ******\n");
+        FolderTree tree = new FolderTree();
+        tree.apply(folder("/A"));
+        tree.apply(folder("/A/B"));
+        tree.apply(folder("/A/B/C"));
+        tree.apply(folder("/D"));
+        Assert.assertEquals(4, tree.size());
+        tree.apply(new DeletedMetadata("B", "/a/b", "/A/B", null));
+        Assert.assertEquals(2, tree.size());
+        PathCollector collector = new PathCollector();
+        tree.visit("", collector);
+        List<String> paths = collector.getPaths();
+        Assert.assertEquals("[/A, /D]", paths.toString());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    private static FolderMetadata folder(String path) {
+        return FolderMetadata.newBuilder(path.substring(path.lastIndexOf('/') + 1), "id:" + path)
+                .withPathLower(path.toLowerCase()).withPathDisplay(path).build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.dropbox.dropboxclient;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.RateLimitException;
+import com.dropbox.core.ServerException;
+import com.dropbox.dropboxclient.service.FolderWalker;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+
+public class RequestSchedulerTest {
+    final static private Logger log = LoggerFactory.getLogger(RequestSchedulerTest.class);
+
+    @Test
+    public void testThrottledWalkListsEverything() throws DbxException {
+        log.info("*******Test case Started : Walk against a throttling server. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(2, 8, 1).withLatency(5);
+        PathCollector expected = new PathCollector();
+        new FolderWalker(tree.client(), 1, new RequestScheduler()).walk("", expected);
+        tree.withRateLimit(3, 20);
+        RequestScheduler scheduler = new RequestScheduler(16, 10);
+        PathCollector collector = new PathCollector();
+        new FolderWalker(tree.client(), 16, scheduler).walk("", collector);
+        log.info("{} calls throttled, limit settled at {}", tree.getThrottledCount(), scheduler.getLimit());
+        Assert.assertEquals(expected.getPaths(), collector.getPaths());
+        Assert.assertTrue("Server throttled", tree.getThrottledCount() > 0);
+        Assert.assertEquals(tree.getThrottledCount(), scheduler.getThrottledCount());
+        Assert.assertTrue("Limit decreased", scheduler.getLimit() < 16);
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testTransientFailuresAreRetried() throws DbxException {
+        log.info("*******Test case Started : Server errors are retried. ******\n");
+        RequestScheduler scheduler = new RequestScheduler(4, 3);
+        AtomicInteger attempts = new AtomicInteger();
+        String result = scheduler.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ServerException("req", "unavailable");
+            }
+            return "listed";
+        });
+        Assert.assertEquals("listed", result);
+        Assert.assertEquals(3, attempts.get());
+        Assert.assertEquals(2, scheduler.getRetryCount());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testOtherErrorsAreNotRetried() {
+        log.info("*******Test case Started : Api errors are thrown immediately. ******\n");
+        RequestScheduler scheduler = new RequestScheduler(4, 3);
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            scheduler.execute(() -> {
+                attempts.incrementAndGet();
+                throw new DbxException("req", "not_found");
+            });
+            Assert.fail("Error expected");
+        } catch (DbxException e) {
+            Assert.assertEquals(1, attempts.get());
+            Assert.assertEquals(0, scheduler.getRetryCount());
+        }
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testCallsRunOnceAreNotRetriedAfterServerErrors() throws DbxException {
+        log.info("*******Test case Started : Calls run once only retry rejected attempts. ******\n");
+        RequestScheduler scheduler = new RequestScheduler(4, 3);
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            scheduler.executeOnce("files/copy_batch_v2", () -> {
+                attempts.incrementAndGet();
+                throw new ServerException("req", "internal error");
+            });
+            Assert.fail("Error expected");
+        } catch (ServerException e) {
+            Assert.assertEquals(1, attempts.get());
+        }
+        String result = scheduler.executeOnce("files/copy_batch_v2", () -> {
+            if (attempts.incrementAndGet() == 2) {
+                throw new RateLimitException("req", null, 10, TimeUnit.MILLISECONDS);
+            }
+            return "launched";
+        });
+        Assert.assertEquals("launched", result);
+        Assert.assertEquals(3, attempts.get());
+        Assert.assertEquals(1, scheduler.getRetryCount());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testRetryAfterIsHonored() throws DbxException {
+        log.info("*******Test case Started : Rate limit backoff pauses the requests. ******\n");
+        RequestScheduler scheduler = new RequestScheduler(4, 3);
+        AtomicInteger attempts = new AtomicInteger();
+        long start = System.nanoTime();
+        List<String> result = scheduler.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new RateLimitException("req", null, 300, TimeUnit.MILLISECONDS);
+            }
+            return Collections.singletonList("listed");
+        });
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertEquals("[listed]", result.toString());
+        Assert.assertTrue("Waited " + elapsedMillis + " ms", elapsedMillis >= 300);
+        Assert.assertEquals(2, scheduler.getLimit());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+}
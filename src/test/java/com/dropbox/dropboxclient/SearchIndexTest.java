@@ -0,0 +1,149 @@
+package com.dropbox.dropboxclient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.files.DeletedMetadata;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.Metadata;
+import com.dropbox.dropboxclient.service.BufferedOutputSink;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+import com.dropbox.dropboxclient.service.ListingMode;
+import com.dropbox.dropboxclient.service.ListingOptions;
+import com.dropbox.dropboxclient.service.OutputFormat;
+import com.dropbox.dropboxclient.service.SearchIndex;
+import com.dropbox.dropboxclient.service.SearchQuery;
+
+public class SearchIndexTest {
+    final static private Logger log = LoggerFactory.getLogger(SearchIndexTest.class);
+    final static private long GB = 1_000_000_000L;
+    final static private long DAY = 86_400_000L;
+    private Path directory;
+
+    @Before
+    public void init() throws IOException {
+        directory = Files.createTempDirectory("search-index");
+    }
+
+    @Test
+    public void testQueries() {
+        log.info("*******Test case Started : Name, size and date conditions of the search index. ******\n");
+        SearchIndex index = new SearchIndex(Arrays.asList(file("/Art/Poster.psd", 2 * GB, 40),
+                file("/Art/logo.PSD", 5_000_000L, 10), file("/Art/poster.png", 3 * GB, 40),
+                new FolderMetadata("Docs", "id:docs", "/docs", "/Docs", null, null, null, null),
+                file("/Docs/report-2026.pdf", 1_000_000L, 20), file("/Docs/Old/report-2019.pdf", 900L, 1)));
+        Assert.assertEquals(5, index.size());
+        Assert.assertEquals("[/art/logo.psd, /art/poster.psd]", paths(index.search(query("*.psd"))));
+        SearchQuery large = query("*.psd");
+        large.setMinSize(GB);
+        Assert.assertEquals("[/art/poster.psd]", paths(index.search(large)));
+        Assert.assertEquals("[/docs/old/report-2019.pdf, /docs/report-2026.pdf]",
+                paths(index.search(query("*REPORT*"))));
+        Assert.assertEquals("[/docs/report-2026.pdf]", paths(index.search(query("report-20?6.pdf"))));
+        Assert.assertEquals("[/art/poster.png, /art/poster.psd]", paths(index.search(query("poster.*"))));
+        Assert.assertEquals("[]", paths(index.search(query("*.zip"))));
+        Assert.assertEquals("[]", paths(index.search(query("*post"))));
+        SearchQuery recent = query("*");
+        recent.setModifiedAfter(DAY * 20);
+        recent.setModifiedBefore(DAY * 40);
+        Assert.assertEquals("[/docs/report-2026.pdf]", paths(index.search(recent)));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        log.info("*******Test case Started : Changes of the listing update the search index. ******\n");
+        SearchIndex index = new SearchIndex();
+        for (int i = 0; i < 3000; i++) {
+            index.apply(file("/Folder" + (i % 3) + "/photo" + i + ".jpg", i, 1));
+        }
+        index.apply(file("/Folder0/photo0.jpg", 7 * GB, 1));
+        SearchQuery large = query("photo0.jpg");
+        large.setMinSize(GB);
+        Assert.assertEquals(1, index.search(large).size());
+        index.apply(new DeletedMetadata("Folder1", "/folder1", "/Folder1", null));
+        index.apply(new DeletedMetadata("Folder2", "/folder2", "/Folder2", null));
+        Assert.assertEquals(1000, index.size());
+        Assert.assertEquals(1000, index.search(query("*.jpg")).size());
+        Assert.assertEquals("[/folder0/photo30.jpg]", paths(index.search(query("photo30.*"))));
+        index.apply(new FolderMetadata("photo30.jpg", "id:f", "/folder0/photo30.jpg", null, null, null, null, null));
+        Assert.assertEquals("[]", paths(index.search(query("photo30.*"))));
+        Assert.assertEquals(999, index.size());
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testFindUsesTheCachedListing() throws DbxException, IOException {
+        log.info("*******Test case Started : Find answers from the cached listing without api calls. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(2, 2, 3);
+        DropboxClientAccessor accessor = new DropboxClientAccessor();
+        accessor.setDBXClient(tree.client());
+        accessor.setCacheDirectory(directory.toString());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        accessor.setOutputSink(new BufferedOutputSink(out));
+        SearchQuery query = query("file2.*");
+        query.setFormat(OutputFormat.CSV);
+        accessor.findFiles("token", "", "", query);
+        Assert.assertEquals("No cached listing yet", 0, out.size());
+        ListingOptions options = new ListingOptions();
+        options.setMode(ListingMode.RECURSIVE);
+        options.setCache(true);
+        accessor.retrieveFileInfo("token", "", "", options);
+        int calls = tree.getCallCount();
+        out.reset();
+        accessor.findFiles("token", "", "", query);
+        Assert.assertEquals(calls, tree.getCallCount());
+        String[] lines = out.toString("UTF-8").split("\r?\n");
+        Assert.assertEquals(1 + 7, lines.length);
+        Assert.assertTrue(lines[1], lines[1].contains("/File2.pdf"));
+        Assert.assertTrue(lines[2], lines[2].contains("/Folder0/File2.pdf"));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    private static FileMetadata file(String pathDisplay, long size, long day) {
+        String name = pathDisplay.substring(pathDisplay.lastIndexOf('/') + 1);
+        Date modified = new Date(day * DAY);
+        return FileMetadata.newBuilder(name, "id:" + pathDisplay.toLowerCase(), modified, modified, "0123456789", size)
+                .withPathLower(pathDisplay.toLowerCase()).withPathDisplay(pathDisplay).build();
+    }
+
+    private static SearchQuery query(String pattern) {
+        SearchQuery query = new SearchQuery();
+        query.setPattern(pattern);
+        return query;
+    }
+
+    private static String paths(List<FileMetadata> files) {
+        List<String> paths = new ArrayList<>();
+        for (Metadata file : files) {
+            paths.add(file.getPathLower());
+        }
+        return paths.toString();
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,81 @@
+package com.dropbox.dropboxclient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringApplication;
+
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+
+/**
+ * Runs one command the way {@link DropboxClientApplication#main(String[])}
+ * does, against a synthetic Dropbox account, and reports the time from the
+ * start of the application to its first output on stderr as
+ * "first-output-millis=...". Started in a fresh JVM by {@link StartupTimeTest}.
+ */
+public final class StartupProbe {
+
+    private StartupProbe() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // The packaged jar has no devtools, its restarter would run the command twice.
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        DbxClientV2 client = SyntheticDropboxTree.generate(2, 3, 4).client();
+        FirstOutputStream first = new FirstOutputStream(System.out);
+        System.setOut(new PrintStream(first, true));
+        long start = System.nanoTime();
+        SpringApplication app = DropboxClientApplication.createApplication();
+        app.addInitializers(context -> context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DropboxClientAccessor) {
+                    ((DropboxClientAccessor) bean).setDBXClient(client);
+                }
+                return bean;
+            }
+        }));
+        app.run(args);
+        System.out.flush();
+        System.err.println("first-output-millis=" + (first.firstNanos - start) / 1_000_000.0);
+        System.exit(0);
+    }
+
+    /**
+     * Records when the first byte is written.
+     */
+    private static final class FirstOutputStream extends OutputStream {
+        final private OutputStream out;
+        private volatile long firstNanos;
+
+        FirstOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        private void written() {
+            if (firstNanos == 0) {
+                firstNanos = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            written();
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            written();
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.dropbox.dropboxclient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the time to the first output of commands started in a fresh JVM,
+ * as the command line does, against a synthetic Dropbox account. Every
+ * command is started "startup.runs" times (2 by default) and the fastest
+ * times are written to target/startup-times.txt, so the start up time of the
+ * client can be compared between builds. The process time includes creating
+ * the synthetic account, the application time starts with the application.
+ * <p>
+ * Starting the JVMs takes half a minute, so the test only runs with the
+ * startup profile: mvn -Pstartup test -Dtest=StartupTimeTest
+ */
+public class StartupTimeTest {
+    final static private Logger log = LoggerFactory.getLogger(StartupTimeTest.class);
+    final static private Pattern FIRST_OUTPUT = Pattern.compile("first-output-millis=([0-9.]+)");
+    final static private int RUNS = Integer.getInteger("startup.runs", 2);
+    final static private List<String> report = new ArrayList<>();
+
+    @BeforeClass
+    public static void init() {
+        report.add("# command, process time to first output (ms), application time to first output (ms)");
+    }
+
+    @Test
+    public void testHelpStartup() throws Exception {
+        log.info("*******Test case Started : Start up time of the help menu. ******\n");
+        measure("help", "Help Menu");
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testInfoStartup() throws Exception {
+        log.info("*******Test case Started : Start up time of the info command. ******\n");
+        measure("info", "Synthetic User", "info", "token");
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testListStartup() throws Exception {
+        log.info("*******Test case Started : Start up time of the list command. ******\n");
+        measure("list", "File3.pdf", "list", "token", "");
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    /**
+     * This method is used to start a command several times and record the
+     * fastest times to its first output.
+     */
+    private static void measure(String name, String expectedOutput, String... args) throws Exception {
+        List<Double> processMillis = new ArrayList<>();
+        List<Double> applicationMillis = new ArrayList<>();
+        for (int run = 0; run < RUNS; run++) {
+            List<String> command = new ArrayList<>(Arrays.asList(
+                    Paths.get(System.getProperty("java.home"), "bin", "java").toString(), "-cp",
+                    System.getProperty("java.class.path"), StartupProbe.class.getName()));
+            command.addAll(Arrays.asList(args));
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.PIPE).start();
+            process.getOutputStream().close();
+            ByteArrayOutputStream errors = new ByteArrayOutputStream();
+            Thread errorReader = new Thread(() -> copy(process.getErrorStream(), errors));
+            errorReader.start();
+            InputStream in = process.getInputStream();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int first = in.read();
+            processMillis.add((System.nanoTime() - start) / 1_000_000.0);
+            if (first >= 0) {
+                out.write(first);
+                copy(in, out);
+            }
+            Assert.assertEquals(0, process.waitFor());
+            errorReader.join();
+            String output = out.toString("UTF-8");
+            Assert.assertTrue(name + " printed " + output, output.contains(expectedOutput));
+            Matcher matcher = FIRST_OUTPUT.matcher(errors.toString("UTF-8"));
+            Assert.assertTrue("First output reported", matcher.find());
+            applicationMillis.add(Double.parseDouble(matcher.group(1)));
+        }
+        String line = String.format("%s, %.1f, %.1f", name, Collections.min(processMillis),
+                Collections.min(applicationMillis));
+        log.info("Start up of {}", line);
+        synchronized (report) {
+            report.add(line);
+        }
+    }
+
+    private static void copy(InputStream in, ByteArrayOutputStream out) {
+        byte[] buffer = new byte[8192];
+        try {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @AfterClass
+    public static void writeReport() throws IOException {
+        Path target = Paths.get("target");
+        if (new File("pom.xml").exists()) {
+            Files.createDirectories(target);
+            Files.write(target.resolve("startup-times.txt"), report, StandardCharsets.UTF_8);
+        }
+    }
+}
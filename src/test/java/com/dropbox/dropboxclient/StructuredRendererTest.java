@@ -0,0 +1,116 @@
+package com.dropbox.dropboxclient;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.common.RootInfo;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.users.FullAccount;
+import com.dropbox.core.v2.users.Name;
+import com.dropbox.core.v2.userscommon.AccountType;
+import com.dropbox.dropboxclient.service.BufferedOutputSink;
+import com.dropbox.dropboxclient.service.DelimitedRenderer;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+import com.dropbox.dropboxclient.service.JsonLinesRenderer;
+import com.dropbox.dropboxclient.service.ListingMode;
+import com.dropbox.dropboxclient.service.ListingOptions;
+import com.dropbox.dropboxclient.service.OutputFormat;
+import com.dropbox.dropboxclient.service.StructuredRenderer;
+
+public class StructuredRendererTest {
+    final static private Logger log = LoggerFactory.getLogger(StructuredRendererTest.class);
+    final static private String NL = System.lineSeparator();
+    final static private Date MODIFIED = new Date(1_581_256_106_000L);
+
+    @Test
+    public void testJsonLines() {
+        log.info("*******Test case Started : Entries rendered as JSON lines. ******\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BufferedOutputSink sink = new BufferedOutputSink(out);
+        StructuredRenderer renderer = new JsonLinesRenderer(sink, name -> "application/pdf");
+        renderer.beginEntries();
+        renderer.visitFolder(folder());
+        renderer.visitFile(file("a \"quoted\"\tname.pdf"));
+        sink.flush();
+        Assert.assertEquals("{\"type\":\"folder\",\"id\":\"id:1\",\"path\":\"/Docs\",\"name\":\"Docs\"}" + NL
+                + "{\"type\":\"file\",\"id\":\"id:2\",\"path\":\"/Docs/a \\\"quoted\\\"\\tname.pdf\","
+                + "\"name\":\"a \\\"quoted\\\"\\tname.pdf\",\"size\":2048,\"mime_type\":\"application/pdf\","
+                + "\"client_modified\":\"2020-02-09T13:48:26Z\",\"server_modified\":\"2020-02-09T13:48:26Z\","
+                + "\"rev\":\"0123456789\"}" + NL, new String(out.toByteArray(), StandardCharsets.UTF_8));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testCsv() {
+        log.info("*******Test case Started : Entries rendered as CSV. ******\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BufferedOutputSink sink = new BufferedOutputSink(out);
+        StructuredRenderer renderer = new DelimitedRenderer(sink, name -> null, OutputFormat.CSV);
+        renderer.beginEntries();
+        renderer.visitFolder(folder());
+        renderer.visitFile(file("report, \"final\".pdf"));
+        sink.flush();
+        Assert.assertEquals("type,id,path,name,size,mime_type,client_modified,server_modified,rev,content_hash" + NL
+                + "folder,id:1,/Docs,Docs,,,,,," + NL
+                + "file,id:2,\"/Docs/report, \"\"final\"\".pdf\",\"report, \"\"final\"\".pdf\",2048,,"
+                + "2020-02-09T13:48:26Z,2020-02-09T13:48:26Z,0123456789," + NL, new String(out.toByteArray()));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testTsvAccount() {
+        log.info("*******Test case Started : Account rendered as TSV. ******\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BufferedOutputSink sink = new BufferedOutputSink(out);
+        StructuredRenderer renderer = new DelimitedRenderer(sink, name -> null, OutputFormat.TSV);
+        Name name = new Name("Prasad", "Vakapalli", "Prasad", "Prasad\tVakapalli", "PV");
+        FullAccount account = new FullAccount("1234567891234567891234567891234567891234", name, "test@gmail.com", true,
+                false, "SE", "https://testling/xyz", false, AccountType.BASIC,
+                new RootInfo("7062879152", "7062879152"));
+        renderer.beginAccounts();
+        renderer.renderAccount(account);
+        sink.flush();
+        String[] lines = new String(out.toByteArray()).split(NL);
+        Assert.assertEquals("account_id\tdisplay_name\tgiven_name\tsurname\tfamiliar_name\temail\temail_verified"
+                + "\tcountry\treferral_link", lines[0]);
+        Assert.assertEquals("1234567891234567891234567891234567891234\tPrasad\\tVakapalli\tPrasad\tVakapalli"
+                + "\tPrasad\ttest@gmail.com\ttrue\t\thttps://testling/xyz", lines[1]);
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    @Test
+    public void testRecursiveListingStreamsJsonLines() throws DbxException {
+        log.info("*******Test case Started : Recursive listing streamed as JSON lines. ******\n");
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(2, 2, 1).withPageSize(3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DropboxClientAccessor accessor = new DropboxClientAccessor();
+        accessor.setDBXClient(tree.client());
+        accessor.setOutputSink(new BufferedOutputSink(out));
+        ListingOptions options = new ListingOptions();
+        options.setMode(ListingMode.RECURSIVE);
+        options.setFormat(OutputFormat.JSONL);
+        accessor.retrieveFileInfo("token", "/Folder1", "", options);
+        String[] lines = new String(out.toByteArray()).split(NL);
+        Assert.assertEquals(5, lines.length);
+        Assert.assertTrue(lines[0].startsWith("{\"type\":\"file\",\"id\":\"id:/folder1/file0.pdf\""));
+        Assert.assertTrue(lines[1].startsWith("{\"type\":\"folder\",\"id\":\"id:/folder1/folder0\""));
+        log.info("---------------------Test case finished----------------------------------\n");
+    }
+
+    private static FolderMetadata folder() {
+        return FolderMetadata.newBuilder("Docs", "id:1").withPathLower("/docs").withPathDisplay("/Docs").build();
+    }
+
+    private static FileMetadata file(String name) {
+        return FileMetadata.newBuilder(name, "id:2", MODIFIED, MODIFIED, "0123456789", 2048)
+                .withPathLower("/docs/" + name.toLowerCase()).withPathDisplay("/Docs/" + name).build();
+    }
+}
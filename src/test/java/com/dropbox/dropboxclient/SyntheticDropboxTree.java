@@ -0,0 +1,513 @@
+package com.dropbox.dropboxclient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+
+import com.dropbox.core.DbxDownloader;
+import com.dropbox.core.DbxException;
+import com.dropbox.core.NetworkIOException;
+import com.dropbox.core.RateLimitException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.common.RootInfo;
+import com.dropbox.core.v2.files.DbxUserFilesRequests;
+import com.dropbox.core.v2.files.DownloadBuilder;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.FolderMetadata;
+import com.dropbox.core.v2.files.GetMetadataError;
+import com.dropbox.core.v2.files.GetMetadataErrorException;
+import com.dropbox.core.v2.files.ListFolderBuilder;
+import com.dropbox.core.v2.files.ListFolderResult;
+import com.dropbox.core.v2.files.LookupError;
+import com.dropbox.core.v2.files.Metadata;
+import com.dropbox.core.v2.files.UploadSessionAppendV2Uploader;
+import com.dropbox.core.v2.files.UploadSessionCursor;
+import com.dropbox.core.v2.files.UploadSessionFinishArg;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchJobStatus;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchLaunch;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchResult;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchResultEntry;
+import com.dropbox.core.v2.files.UploadSessionFinishError;
+import com.dropbox.core.v2.files.UploadSessionLookupError;
+import com.dropbox.core.v2.files.UploadSessionLookupErrorException;
+import com.dropbox.core.v2.files.UploadSessionOffsetError;
+import com.dropbox.core.v2.files.UploadSessionStartResult;
+import com.dropbox.core.v2.files.UploadSessionStartUploader;
+import com.dropbox.core.v2.users.DbxUserUsersRequests;
+import com.dropbox.core.v2.users.FullAccount;
+import com.dropbox.core.v2.users.Name;
+import com.dropbox.core.v2.userscommon.AccountType;
+import com.dropbox.dropboxclient.service.ContentHasher;
+import com.dropbox.dropboxclient.service.FolderTree;
+
+/**
+ * In-memory Dropbox folder tree backing a mocked {@link DbxClientV2}. Every
+ * api call can be delayed by a fixed latency to simulate network round-trips.
+ */
+public class SyntheticDropboxTree {
+
+    final static private String RECURSIVE_CURSOR = "recursive:";
+    final private Map<String, List<Metadata>> folders = new HashMap<>();
+    final private Map<String, Metadata> entries = new HashMap<>();
+    final private AtomicInteger calls = new AtomicInteger();
+    final private AtomicInteger inFlight = new AtomicInteger();
+    final private AtomicInteger maxInFlight = new AtomicInteger();
+    final private AtomicInteger throttled = new AtomicInteger();
+    final private AtomicInteger downloads = new AtomicInteger();
+    final private Map<Long, AtomicInteger> failingOffsets = new HashMap<>();
+    final private AtomicInteger lostFinishResponses = new AtomicInteger();
+    final private Map<String, ByteArrayOutputStream> sessions = new ConcurrentHashMap<>();
+    final private Map<String, byte[]> uploads = new ConcurrentHashMap<>();
+    final private Map<String, UploadSessionFinishBatchResult> batchJobs = new ConcurrentHashMap<>();
+    final private AtomicInteger appends = new AtomicInteger();
+    final private AtomicInteger batches = new AtomicInteger();
+    private long latencyMillis;
+    private int concurrencyLimit = Integer.MAX_VALUE;
+    private long retryAfterMillis;
+    private int pageSize = Integer.MAX_VALUE;
+
+    public SyntheticDropboxTree() {
+        folders.put("", new ArrayList<>());
+    }
+
+    /**
+     * This method is used to generate a balanced tree below the root folder.
+     *
+     * @param depth
+     *            - number of folder levels.
+     * @param foldersPerFolder
+     *            - sub folders of every folder above the last level.
+     * @param filesPerFolder
+     *            - files of every folder.
+     * @return the generated tree.
+     */
+    public static SyntheticDropboxTree generate(int depth, int foldersPerFolder, int filesPerFolder) {
+        SyntheticDropboxTree tree = new SyntheticDropboxTree();
+        tree.fill("", depth, foldersPerFolder, filesPerFolder);
+        return tree;
+    }
+
+    private void fill(String path, int depth, int foldersPerFolder, int filesPerFolder) {
+        for (int i = 0; i < filesPerFolder; i++) {
+            addFile(path + "/File" + i + ".pdf", 1000L * (i + 1));
+        }
+        if (depth > 0) {
+            for (int i = 0; i < foldersPerFolder; i++) {
+                String child = path + "/Folder" + i;
+                addFolder(child);
+                fill(child, depth - 1, foldersPerFolder, filesPerFolder);
+            }
+        }
+    }
+
+    public SyntheticDropboxTree addFolder(String pathDisplay) {
+        String name = pathDisplay.substring(pathDisplay.lastIndexOf('/') + 1);
+        FolderMetadata folder = FolderMetadata.newBuilder(name, "id:" + pathDisplay.toLowerCase(Locale.ROOT))
+                .withPathLower(pathDisplay.toLowerCase(Locale.ROOT)).withPathDisplay(pathDisplay).build();
+        folders.putIfAbsent(pathDisplay.toLowerCase(Locale.ROOT), new ArrayList<>());
+        add(folder);
+        return this;
+    }
+
+    public SyntheticDropboxTree addFile(String pathDisplay, long size) {
+        String name = pathDisplay.substring(pathDisplay.lastIndexOf('/') + 1);
+        Date modified = new Date(1_580_000_000_000L + size);
+        FileMetadata file = FileMetadata
+                .newBuilder(name, "id:" + pathDisplay.toLowerCase(Locale.ROOT), modified, modified, "0123456789", size)
+                .withPathLower(pathDisplay.toLowerCase(Locale.ROOT)).withPathDisplay(pathDisplay)
+                .withContentHash(contentHash(content(pathDisplay.toLowerCase(Locale.ROOT), 0, (int) size))).build();
+        add(file);
+        return this;
+    }
+
+    /**
+     * This method is used to replace the listed entry of a committed upload,
+     * files in unknown folders are only kept in {@link #getUploads()}.
+     */
+    private synchronized void commitUpload(FileMetadata file, byte[] data) {
+        List<Metadata> siblings = folders.get(parentOf(file.getPathLower()));
+        if (siblings != null) {
+            siblings.remove(entries.get(file.getPathLower()));
+            add(FileMetadata.newBuilder(file.getName(), file.getId(), file.getClientModified(),
+                    file.getServerModified(), file.getRev(), file.getSize()).withPathLower(file.getPathLower())
+                    .withPathDisplay(file.getPathDisplay()).withContentHash(contentHash(data)).build());
+        }
+    }
+
+    /**
+     * This method is used to create the account returned for an account id.
+     */
+    static FullAccount account(String accountId) {
+        Name name = new Name("Synthetic", "User", "Synthetic", "Synthetic User", "SU");
+        return new FullAccount(accountId, name, "synthetic@example.com", true, false, "SE",
+                "https://example.com/referral", false, AccountType.BASIC, new RootInfo("7062879152", "7062879152"));
+    }
+
+    private static String contentHash(byte[] data) {
+        try {
+            return ContentHasher.hash(new ByteArrayInputStream(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void add(Metadata metadata) {
+        String parent = parentOf(metadata.getPathLower());
+        folders.get(parent).add(metadata);
+        entries.put(metadata.getPathLower(), metadata);
+    }
+
+    public SyntheticDropboxTree withLatency(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    public SyntheticDropboxTree withPageSize(int pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * This method is used to reject calls with a {@link RateLimitException}
+     * while more than the given number of calls are in flight.
+     *
+     * @param concurrencyLimit
+     *            - calls served concurrently.
+     * @param retryAfterMillis
+     *            - backoff sent with the rate limit.
+     * @return this tree.
+     */
+    public SyntheticDropboxTree withRateLimit(int concurrencyLimit, long retryAfterMillis) {
+        this.concurrencyLimit = concurrencyLimit;
+        this.retryAfterMillis = retryAfterMillis;
+        return this;
+    }
+
+    /**
+     * This method is used to let the downloads starting at an offset fail.
+     *
+     * @param offset
+     *            - start of the failing byte range.
+     * @param times
+     *            - number of failing downloads.
+     * @return this tree.
+     */
+    public SyntheticDropboxTree withFailingDownload(long offset, int times) {
+        failingOffsets.put(offset, new AtomicInteger(times));
+        return this;
+    }
+
+    /**
+     * This method is used to lose the responses of finish_batch calls after
+     * the sessions have been committed.
+     *
+     * @param times
+     *            - number of lost responses.
+     * @return this tree.
+     */
+    public SyntheticDropboxTree withLostFinishResponse(int times) {
+        lostFinishResponses.set(times);
+        return this;
+    }
+
+    /**
+     * @return number of downloads served so far.
+     */
+    public int getDownloadCount() {
+        return downloads.get();
+    }
+
+    /**
+     * This method is used to generate the content of a file, every byte
+     * depends on the path and its position.
+     *
+     * @param pathLower
+     *            - lower case path of the file.
+     * @param offset
+     *            - position of the first byte.
+     * @param length
+     *            - number of bytes.
+     * @return file content.
+     */
+    public static byte[] content(String pathLower, long offset, int length) {
+        byte[] content = new byte[length];
+        int seed = pathLower.hashCode();
+        for (int i = 0; i < length; i++) {
+            long position = offset + i;
+            content[i] = (byte) (seed + position * 31 + position / 251);
+        }
+        return content;
+    }
+
+    /**
+     * @return committed uploads by lower case path.
+     */
+    public Map<String, byte[]> getUploads() {
+        return uploads;
+    }
+
+    /**
+     * @return number of chunks appended to upload sessions.
+     */
+    public int getAppendCount() {
+        return appends.get();
+    }
+
+    /**
+     * @return number of finish_batch calls.
+     */
+    public int getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * @return number of calls rejected by the rate limit.
+     */
+    public int getThrottledCount() {
+        return throttled.get();
+    }
+
+    /**
+     * @return highest number of calls served concurrently.
+     */
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    /**
+     * @return number of api calls served so far.
+     */
+    public int getCallCount() {
+        return calls.get();
+    }
+
+    /**
+     * @return number of folders, the root folder included.
+     */
+    public int getFolderCount() {
+        return folders.size();
+    }
+
+    /**
+     * @return number of files and folders, the root folder excluded.
+     */
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return the entries of this tree as a {@link FolderTree}.
+     */
+    public FolderTree toFolderTree() {
+        FolderTree tree = new FolderTree();
+        List<Metadata> flat = new ArrayList<>();
+        flatten("", flat);
+        flat.forEach(tree::apply);
+        return tree;
+    }
+
+    /**
+     * This method is used to create a client mock serving this tree.
+     *
+     * @return mocked Dropbox api client.
+     * @throws DbxException
+     *             never, declared by the stubbed methods.
+     */
+    public DbxClientV2 client() throws DbxException {
+        DbxClientV2 client = Mockito.mock(DbxClientV2.class);
+        DbxUserFilesRequests files = Mockito.mock(DbxUserFilesRequests.class);
+        Mockito.when(client.files()).thenReturn(files);
+        DbxUserUsersRequests users = Mockito.mock(DbxUserUsersRequests.class);
+        Mockito.when(client.users()).thenReturn(users);
+        Mockito.when(users.getCurrentAccount()).thenAnswer(delayed(invocation -> account("dbid:AAH4f99T0taONIb-OurWxbNQ6ywGRopQngc")));
+        Mockito.when(files.listFolder(Mockito.anyString())).thenAnswer(delayed(invocation -> {
+            String path = invocation.getArgument(0);
+            return page(path.toLowerCase(Locale.ROOT), 0);
+        }));
+        Mockito.when(files.listFolderBuilder(Mockito.anyString())).thenAnswer(invocation -> {
+            String path = invocation.getArgument(0);
+            ListFolderBuilder builder = Mockito.mock(ListFolderBuilder.class);
+            boolean[] recursive = new boolean[1];
+            Mockito.when(builder.withRecursive(Mockito.anyBoolean())).thenAnswer(call -> {
+                recursive[0] = call.getArgument(0);
+                return builder;
+            });
+            Mockito.when(builder.start()).thenAnswer(delayed(call -> recursive[0]
+                    ? recursivePage(path.toLowerCase(Locale.ROOT), 0) : page(path.toLowerCase(Locale.ROOT), 0)));
+            return builder;
+        });
+        Mockito.when(files.listFolderContinue(Mockito.anyString())).thenAnswer(delayed(invocation -> {
+            String cursor = invocation.getArgument(0);
+            int separator = cursor.lastIndexOf('|');
+            int offset = Integer.parseInt(cursor.substring(separator + 1));
+            if (cursor.startsWith(RECURSIVE_CURSOR)) {
+                return recursivePage(cursor.substring(RECURSIVE_CURSOR.length(), separator), offset);
+            }
+            return page(cursor.substring(0, separator), offset);
+        }));
+        Mockito.when(files.downloadBuilder(Mockito.anyString())).thenAnswer(invocation -> {
+            String path = invocation.getArgument(0);
+            DownloadBuilder builder = Mockito.mock(DownloadBuilder.class);
+            long[] range = { 0, -1 };
+            Mockito.when(builder.withRev(Mockito.anyString())).thenReturn(builder);
+            Mockito.when(builder.range(Mockito.anyLong(), Mockito.anyLong())).thenAnswer(call -> {
+                range[0] = call.getArgument(0);
+                range[1] = call.getArgument(1);
+                return builder;
+            });
+            Mockito.when(builder.start()).thenAnswer(delayed(call -> download(path.toLowerCase(Locale.ROOT), range[0], range[1])));
+            return builder;
+        });
+        stubUploads(files);
+        Mockito.when(files.getMetadata(Mockito.anyString())).thenAnswer(delayed(invocation -> {
+            String path = invocation.getArgument(0);
+            Metadata metadata = entries.get(path.toLowerCase(Locale.ROOT));
+            if (metadata == null) {
+                throw new GetMetadataErrorException("2/files/get_metadata", "req", null,
+                        GetMetadataError.path(LookupError.NOT_FOUND));
+            }
+            return metadata;
+        }));
+        return client;
+    }
+
+    /**
+     * This method is used to serve upload sessions. Committed files are kept
+     * in {@link #getUploads()}, batch jobs complete on the second poll.
+     */
+    private void stubUploads(DbxUserFilesRequests files) throws DbxException {
+        AtomicInteger sessionIds = new AtomicInteger();
+        Mockito.when(files.uploadSessionStart(Mockito.anyBoolean())).thenAnswer(delayed(invocation -> {
+            String sessionId = "session-" + sessionIds.incrementAndGet();
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            sessions.put(sessionId, data);
+            UploadSessionStartUploader uploader = Mockito.mock(UploadSessionStartUploader.class);
+            Mockito.when(uploader.getOutputStream()).thenReturn(data);
+            Mockito.when(uploader.finish()).thenReturn(new UploadSessionStartResult(sessionId));
+            return uploader;
+        }));
+        Mockito.when(files.uploadSessionAppendV2(Mockito.any(UploadSessionCursor.class), Mockito.anyBoolean()))
+                .thenAnswer(delayed(invocation -> {
+                    UploadSessionCursor cursor = invocation.getArgument(0);
+                    ByteArrayOutputStream data = sessions.get(cursor.getSessionId());
+                    if (data.size() != cursor.getOffset()) {
+                        throw new UploadSessionLookupErrorException("2/files/upload_session/append_v2", "req", null,
+                                UploadSessionLookupError.incorrectOffset(new UploadSessionOffsetError(data.size())));
+                    }
+                    appends.incrementAndGet();
+                    UploadSessionAppendV2Uploader uploader = Mockito.mock(UploadSessionAppendV2Uploader.class);
+                    Mockito.when(uploader.getOutputStream()).thenReturn(data);
+                    return uploader;
+                }));
+        Mockito.when(files.uploadSessionFinishBatch(Mockito.anyList())).thenAnswer(delayed(invocation -> {
+            List<UploadSessionFinishArg> finishes = invocation.getArgument(0);
+            List<UploadSessionFinishBatchResultEntry> entries = new ArrayList<>();
+            for (UploadSessionFinishArg finish : finishes) {
+                byte[] data = sessions.remove(finish.getCursor().getSessionId()).toByteArray();
+                if (data.length != finish.getCursor().getOffset()) {
+                    entries.add(UploadSessionFinishBatchResultEntry.failure(UploadSessionFinishError.lookupFailed(
+                            UploadSessionLookupError.incorrectOffset(new UploadSessionOffsetError(data.length)))));
+                    continue;
+                }
+                String path = finish.getCommit().getPath();
+                uploads.put(path.toLowerCase(Locale.ROOT), data);
+                FileMetadata committed = FileMetadata
+                        .newBuilder(path.substring(path.lastIndexOf('/') + 1), "id:" + path.toLowerCase(Locale.ROOT),
+                                finish.getCommit().getClientModified(), new Date(), "0123456789", data.length)
+                        .withPathLower(path.toLowerCase(Locale.ROOT)).withPathDisplay(path).build();
+                commitUpload(committed, data);
+                entries.add(UploadSessionFinishBatchResultEntry.success(committed));
+            }
+            String jobId = "job-" + batches.incrementAndGet();
+            batchJobs.put(jobId, new UploadSessionFinishBatchResult(entries));
+            if (lostFinishResponses.getAndDecrement() > 0) {
+                throw new NetworkIOException(new IOException("Connection reset"));
+            }
+            return UploadSessionFinishBatchLaunch.asyncJobId(jobId);
+        }));
+        Map<String, AtomicInteger> polls = new ConcurrentHashMap<>();
+        Mockito.when(files.uploadSessionFinishBatchCheck(Mockito.anyString())).thenAnswer(delayed(invocation -> {
+            String jobId = invocation.getArgument(0);
+            if (polls.computeIfAbsent(jobId, key -> new AtomicInteger()).incrementAndGet() < 2) {
+                return UploadSessionFinishBatchJobStatus.IN_PROGRESS;
+            }
+            return UploadSessionFinishBatchJobStatus.complete(batchJobs.get(jobId));
+        }));
+    }
+
+    private DbxDownloader<FileMetadata> download(String path, long offset, long length) throws DbxException {
+        FileMetadata file = (FileMetadata) entries.get(path);
+        AtomicInteger failures = failingOffsets.get(offset);
+        if (failures != null && failures.getAndDecrement() > 0) {
+            throw new DbxException("req", "Download of " + path + " at " + offset + " failed");
+        }
+        downloads.incrementAndGet();
+        long count = length < 0 ? file.getSize() - offset : Math.min(length, file.getSize() - offset);
+        return new DbxDownloader<>(file, new ByteArrayInputStream(content(path, offset, (int) count)));
+    }
+
+    private ListFolderResult page(String path, int offset) {
+        List<Metadata> children = folders.getOrDefault(path, Collections.emptyList());
+        int end = (int) Math.min(children.size(), (long) offset + pageSize);
+        return new ListFolderResult(new ArrayList<>(children.subList(offset, end)), path + "|" + end,
+                end < children.size());
+    }
+
+    private ListFolderResult recursivePage(String path, int offset) {
+        List<Metadata> flat = new ArrayList<>();
+        if (!path.isEmpty()) {
+            flat.add(entries.get(path));
+        }
+        flatten(path, flat);
+        int end = (int) Math.min(flat.size(), (long) offset + pageSize);
+        return new ListFolderResult(new ArrayList<>(flat.subList(offset, end)), RECURSIVE_CURSOR + path + "|" + end,
+                end < flat.size());
+    }
+
+    private void flatten(String path, List<Metadata> flat) {
+        for (Metadata child : folders.getOrDefault(path, Collections.emptyList())) {
+            flat.add(child);
+            if (child instanceof FolderMetadata) {
+                flatten(child.getPathLower(), flat);
+            }
+        }
+    }
+
+    private <T> Answer<T> delayed(Answer<T> answer) {
+        return invocation -> {
+            calls.incrementAndGet();
+            int current = inFlight.incrementAndGet();
+            try {
+                if (current > concurrencyLimit) {
+                    throttled.incrementAndGet();
+                    throw new RateLimitException("req", null, retryAfterMillis, TimeUnit.MILLISECONDS);
+                }
+                maxInFlight.accumulateAndGet(current, Math::max);
+                if (latencyMillis > 0) {
+                    Thread.sleep(latencyMillis);
+                }
+                return answer.answer(invocation);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+    }
+
+    private static String parentOf(String pathLower) {
+        return pathLower.substring(0, pathLower.lastIndexOf('/'));
+    }
+}
@@ -0,0 +1,75 @@
+package com.dropbox.dropboxclient.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dropbox.dropboxclient.service.ContentHasher;
+
+/**
+ * Time to compute the content hash of a local file, comparing the memory
+ * mapped, multi-core hasher with a sequential {@link InputStream} read. The
+ * throughput in GB/s is the file size divided by the average time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ContentHasherBenchmark {
+
+    @Param({ "4194304", "67108864", "536870912" })
+    private long size;
+    private Path file;
+    private ContentHasher hasher;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("hash-benchmark", ".bin");
+        byte[] buffer = new byte[1024 * 1024];
+        new Random(42).nextBytes(buffer);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += buffer.length) {
+                out.write(buffer, 0, (int) Math.min(buffer.length, size - written));
+            }
+        }
+        hasher = new ContentHasher(0);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        hasher.close();
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public String mappedParallel() throws IOException {
+        return hasher.hash(file);
+    }
+
+    @Benchmark
+    public String inputStream() throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return ContentHasher.hash(in);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.dropbox.dropboxclient.benchmark;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.dropboxclient.SyntheticDropboxTree;
+import com.dropbox.dropboxclient.service.BufferedOutputSink;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+import com.dropbox.dropboxclient.service.ListingMode;
+import com.dropbox.dropboxclient.service.ListingOptions;
+import com.dropbox.dropboxclient.service.OutputFormat;
+import com.dropbox.dropboxclient.service.RequestScheduler;
+
+/**
+ * End-to-end time of the list command against a synthetic Dropbox tree: the
+ * listing, the rendering and the buffered output, which is discarded. The
+ * shape of the tree, the latency of every api call, the listing mode and the
+ * output format are parameters; the "entries" counter reports the listed
+ * entries per millisecond. Run with "-prof gc" for the allocation rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ListingBenchmark {
+
+    @Param({ "3" })
+    private int depth;
+    @Param({ "4" })
+    private int foldersPerFolder;
+    @Param({ "25" })
+    private int filesPerFolder;
+    @Param({ "0", "2" })
+    private long latencyMillis;
+    @Param({ "WALK", "RECURSIVE" })
+    private ListingMode mode;
+    @Param({ "TEXT", "JSONL" })
+    private OutputFormat format;
+    private DropboxClientAccessor accessor;
+    private ListingOptions options;
+    private int entryCount;
+
+    /**
+     * Listed entries, reported as a rate next to the time per listing.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long entries;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            entries = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws DbxException {
+        SyntheticDropboxTree tree = SyntheticDropboxTree.generate(depth, foldersPerFolder, filesPerFolder)
+                .withLatency(latencyMillis);
+        entryCount = tree.getEntryCount();
+        accessor = new DropboxClientAccessor();
+        accessor.setDBXClient(tree.client());
+        accessor.setRequestScheduler(new RequestScheduler(64, 0));
+        accessor.setListingParallelism(8);
+        accessor.setOutputSink(new BufferedOutputSink(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+        options = new ListingOptions();
+        options.setMode(mode);
+        options.setFormat(format);
+    }
+
+    @Benchmark
+    public void retrieveFileInfo(Counters counters) {
+        accessor.retrieveFileInfo("token", "", "en-US", options);
+        counters.entries += entryCount;
+    }
+}
@@ -0,0 +1,58 @@
+package com.dropbox.dropboxclient.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dropbox.dropboxclient.service.MimeTypeResolver;
+
+/**
+ * Per entry cost of resolving the mime type of a remote file name, comparing
+ * the extension table with the former {@link Files#probeContentType} call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MimeTypeResolverBenchmark {
+
+    private String[] names;
+    private MimeTypeResolver resolver;
+    private int index;
+
+    @Setup
+    public void setup() {
+        names = new String[] { "report.pdf", "IMG_0042.JPG", "notes.txt", "budget.xlsx", "song.mp3", "clip.mov",
+                "archive.tar.gz", "design.psd", "README", "data.unknownext" };
+        resolver = MimeTypeResolver.load(null);
+    }
+
+    private String next() {
+        index = (index + 1) % names.length;
+        return names[index];
+    }
+
+    @Benchmark
+    public String probeContentType() throws IOException {
+        return Files.probeContentType(new File(next()).toPath());
+    }
+
+    @Benchmark
+    public String extensionTable() {
+        return resolver.resolve(next());
+    }
+}
@@ -0,0 +1,97 @@
+package com.dropbox.dropboxclient.benchmark;
+
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.dropboxclient.service.BufferedOutputSink;
+import com.dropbox.dropboxclient.service.DropboxClientAccessor;
+import com.dropbox.dropboxclient.service.ListingRenderer;
+import com.dropbox.dropboxclient.service.MetadataFormatter;
+import com.dropbox.dropboxclient.service.OutputFormat;
+
+/**
+ * Per entry cost of rendering a file row of the console format and of its
+ * size and date formatting, the parts of the list command which do not
+ * depend on the api. Run with "-prof gc" for the allocation per entry.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderingBenchmark {
+
+    @Param({ "en-US", "de-DE" })
+    private String locale;
+    private FileMetadata[] files;
+    private ListingRenderer renderer;
+    private MetadataFormatter formatter;
+    private Locale resolvedLocale;
+    private StringBuilder scratch;
+    private int index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        files = new FileMetadata[1024];
+        for (int i = 0; i < files.length; i++) {
+            Date modified = new Date(1_500_000_000_000L + random.nextInt(Integer.MAX_VALUE) * 100L);
+            long size = (long) Math.pow(10, random.nextInt(12)) + random.nextInt(1000);
+            files[i] = FileMetadata.newBuilder("report-" + i + ".pdf", "id:" + i, modified, modified, "0123456789",
+                    size).withPathLower("/docs/report-" + i + ".pdf").withPathDisplay("/Docs/report-" + i + ".pdf")
+                    .build();
+        }
+        resolvedLocale = MetadataFormatter.toLocale(locale);
+        formatter = new MetadataFormatter();
+        scratch = new StringBuilder(128);
+        BufferedOutputSink sink = new BufferedOutputSink(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        renderer = new DropboxClientAccessor().createRenderer(OutputFormat.TEXT, sink, resolvedLocale, false);
+    }
+
+    private FileMetadata next() {
+        index = (index + 1) & (files.length - 1);
+        return files[index];
+    }
+
+    @Benchmark
+    public void printFileMetadata() {
+        renderer.visitFile(next());
+    }
+
+    @Benchmark
+    public StringBuilder readableFileSize() {
+        scratch.setLength(0);
+        return formatter.readableFileSize(next().getSize(), resolvedLocale, scratch);
+    }
+
+    @Benchmark
+    public StringBuilder formatDate() {
+        scratch.setLength(0);
+        return formatter.formatDate(next().getClientModified(), resolvedLocale, scratch);
+    }
+}